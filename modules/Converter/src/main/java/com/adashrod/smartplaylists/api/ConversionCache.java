@@ -0,0 +1,383 @@
+package com.adashrod.smartplaylists.api;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A cache of converted playlists for {@link ConverterApi#setCache(ConversionCache)}, so that converting a playlist that
+ * has already been converted only costs hashing it. Results are keyed by a SHA-256 hash of the input bytes, the output
+ * format, and the version of the converters, so a changed file, a different format, or a newer converter never gets
+ * an old result.
+ *
+ * Results are kept in memory, up to a budget of bytes, evicting the least recently used ones first, and optionally in
+ * a directory too, which outlives the process. Any number of threads can use one cache, and any number of processes
+ * can share a directory. The two tiers are independent: a result larger than the memory budget is only kept on disk,
+ * and a cache with a budget of 0 keeps everything on disk. Results on disk have a checksum, and one that's corrupt or
+ * cut short counts as a miss.
+ */
+public class ConversionCache {
+    private static final Logger logger = Logger.getLogger(ConversionCache.class);
+
+    /**
+     * bumped whenever a change to the converters makes them write different output for the same input, so that
+     * results from older converters are never used
+     */
+    static final int CONVERTER_VERSION = 1;
+
+    private static final int MAGIC = 0x53504343; // "SPCC"
+    private static final int FILE_VERSION = 2;
+    // the magic number and the version
+    private static final int HEADER_LENGTH = Integer.BYTES + 1;
+    // the CRC-32 of the rest of the file
+    private static final int TRAILER_LENGTH = Integer.BYTES;
+    // roughly what an entry in the map costs beyond its bytes
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final long memoryBudget;
+    private final Path directory;
+    private final LinkedHashMap<String, Result> memoryTier = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * The outcome of converting one input: the output, if it could be converted, and the errors from converting it
+     */
+    static class Result {
+        private final byte[] output;
+        private final int ruleCount;
+        private final List<String> errors;
+
+        Result(final byte[] output, final int ruleCount, final List<String> errors) {
+            this.output = output;
+            this.ruleCount = ruleCount;
+            this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+        }
+
+        /**
+         * @return the converted playlist, or null if the input couldn't be converted
+         */
+        byte[] getOutput() {
+            return output;
+        }
+
+        int getRuleCount() {
+            return ruleCount;
+        }
+
+        List<String> getErrors() {
+            return errors;
+        }
+
+        private long size() {
+            long size = ENTRY_OVERHEAD + (output != null ? output.length : 0);
+            for (final String error: errors) {
+                size += 2L * error.length();
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Makes a cache that only keeps results in memory
+     * @param memoryBudget the most bytes of results to keep in memory
+     */
+    public ConversionCache(final long memoryBudget) {
+        this(memoryBudget, null);
+    }
+
+    /**
+     * @param memoryBudget the most bytes of results to keep in memory
+     * @param directory    where to keep results between runs; it's created if it doesn't exist. Null to only keep
+     *                     them in memory
+     */
+    public ConversionCache(final long memoryBudget, final Path directory) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("the memory budget can't be negative: " + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+        this.directory = directory;
+    }
+
+    /**
+     * @param input  the bytes to convert, read to the end but not closed
+     * @param target the name of the format that they're converted to, and anything else that affects the result
+     * @return the key of the result of converting the bytes
+     * @throws IOException error reading the input
+     */
+    String keyOf(final InputStream input, final String target) throws IOException {
+        final MessageDigest digest = newDigest(target);
+        final byte[] buffer = new byte[8192];
+        int count;
+        while ((count = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, count);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @param input  the bytes to convert
+     * @param target the name of the format that they're converted to, and anything else that affects the result
+     * @return the key of the result of converting the bytes
+     */
+    String keyOf(final byte[] input, final String target) {
+        final MessageDigest digest = newDigest(target);
+        digest.update(input);
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest(final String target) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException nsae) {
+            // every JRE has to support SHA-256
+            throw new IllegalStateException(nsae);
+        }
+        final String implementationVersion = ConversionCache.class.getPackage().getImplementationVersion();
+        // the NULs keep e.g. target "ab" and input "c" apart from target "a" and input "bc"
+        digest.update((CONVERTER_VERSION + "\0" + implementationVersion + "\0" + target + "\0")
+            .getBytes(StandardCharsets.UTF_8));
+        return digest;
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Finds a result in memory, or else on disk, in which case it's kept in memory from then on
+     * @param key the key from keyOf
+     * @return the result, or null if it isn't cached
+     */
+    Result get(final String key) {
+        synchronized (this) {
+            final Result result = memoryTier.get(key);
+            if (result != null) {
+                memoryHits.incrementAndGet();
+                return result;
+            }
+        }
+        final Result result = readFromDisk(key);
+        if (result == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        diskHits.incrementAndGet();
+        putInMemory(key, result);
+        return result;
+    }
+
+    /**
+     * Caches a result in memory and on disk. Errors writing it to disk are logged rather than thrown, since the
+     * result is still correct without the cache.
+     * @param key    the key from keyOf
+     * @param result the result of converting the input
+     */
+    void put(final String key, final Result result) {
+        putInMemory(key, result);
+        writeToDisk(key, result);
+    }
+
+    /**
+     * Keeps a result in memory, evicting the least recently used ones to stay within the budget. A result larger than
+     * the whole budget isn't kept, rather than evicting everything else to make room for it.
+     */
+    private synchronized void putInMemory(final String key, final Result result) {
+        if (result.size() > memoryBudget) {
+            return;
+        }
+        final Result replaced = memoryTier.put(key, result);
+        if (replaced != null) {
+            memorySize -= replaced.size();
+        }
+        memorySize += result.size();
+        final Iterator<Result> leastRecentlyUsed = memoryTier.values().iterator();
+        while (memorySize > memoryBudget && leastRecentlyUsed.hasNext()) {
+            memorySize -= leastRecentlyUsed.next().size();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    /**
+     * @return where a result is kept on disk; results are spread over 256 directories so that none gets too large
+     */
+    private Path pathOf(final String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key.substring(2) + ".bin");
+    }
+
+    private Result readFromDisk(final String key) {
+        if (directory == null) {
+            return null;
+        }
+        final Path path = pathOf(key);
+        try (final FileChannel channel = FileChannel.open(path);
+                final CheckedInputStream checkedInput = new CheckedInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel)), new CRC32());
+                final DataInputStream input = new DataInputStream(checkedInput)) {
+            if (channel.size() < HEADER_LENGTH + TRAILER_LENGTH || input.readInt() != MAGIC ||
+                    input.readByte() != FILE_VERSION) {
+                logger.warn(String.format("ignoring cached result %s, which isn't in a known format", path));
+                return null;
+            }
+            // every length is checked against what's left of the file before anything is allocated for it
+            long remaining = channel.size() - HEADER_LENGTH - TRAILER_LENGTH;
+            remaining = checkLength(Integer.BYTES * 2, remaining, path);
+            final int ruleCount = input.readInt();
+            final byte[] output;
+            final int outputLength = input.readInt();
+            if (outputLength < 0) {
+                output = null;
+            } else {
+                remaining = checkLength(outputLength, remaining, path);
+                output = new byte[outputLength];
+                input.readFully(output);
+            }
+            remaining = checkLength(Integer.BYTES, remaining, path);
+            final int errorCount = input.readInt();
+            // each error takes at least the bytes of its length
+            checkLength(Integer.BYTES * (long) errorCount, remaining, path);
+            final List<String> errors = new ArrayList<>(errorCount);
+            for (int i = 0; i < errorCount; i++) {
+                remaining = checkLength(Integer.BYTES, remaining, path);
+                final int errorLength = input.readInt();
+                remaining = checkLength(errorLength, remaining, path);
+                final byte[] error = new byte[errorLength];
+                input.readFully(error);
+                errors.add(new String(error, StandardCharsets.UTF_8));
+            }
+            final int checksum = (int) checkedInput.getChecksum().getValue();
+            if (remaining != 0 || input.readInt() != checksum) {
+                throw new IOException(String.format("cached result %s is corrupt", path));
+            }
+            return new Result(output, ruleCount, errors);
+        } catch (final NoSuchFileException nsfe) {
+            return null;
+        } catch (final IOException | RuntimeException e) {
+            logger.warn(String.format("couldn't read cached result %s", path), e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the bytes of the file that are left after length more of them
+     * @throws IOException the file doesn't have that many bytes left, so it's corrupt
+     */
+    private static long checkLength(final long length, final long remaining, final Path path) throws IOException {
+        if (length < 0 || length > remaining) {
+            throw new IOException(String.format("cached result %s is corrupt: a length of %d is more than the %d " +
+                "bytes left in it", path, length, remaining));
+        }
+        return remaining - length;
+    }
+
+    private void writeToDisk(final String key, final Result result) {
+        if (directory == null) {
+            return;
+        }
+        final Path path = pathOf(key);
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(path.getParent());
+            // written to a file of its own first, so that no process ever reads a partly written result
+            temporaryFile = Files.createTempFile(path.getParent(), key, ".tmp");
+            try (final OutputStream outputStream = Files.newOutputStream(temporaryFile);
+                    final CheckedOutputStream checkedOutput = new CheckedOutputStream(
+                        new BufferedOutputStream(outputStream), new CRC32());
+                    final DataOutputStream output = new DataOutputStream(checkedOutput)) {
+                output.writeInt(MAGIC);
+                output.writeByte(FILE_VERSION);
+                output.writeInt(result.ruleCount);
+                if (result.output == null) {
+                    output.writeInt(-1);
+                } else {
+                    output.writeInt(result.output.length);
+                    output.write(result.output);
+                }
+                output.writeInt(result.errors.size());
+                for (final String error: result.errors) {
+                    final byte[] errorBytes = error.getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(errorBytes.length);
+                    output.write(errorBytes);
+                }
+                // a checksum of everything before it, so that a result that was changed on disk is never used
+                output.writeInt((int) checkedOutput.getChecksum().getValue());
+            }
+            try {
+                Files.move(temporaryFile, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException amnse) {
+                Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException ioe) {
+            logger.warn(String.format("couldn't cache a result in %s", path), ioe);
+            if (temporaryFile != null) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (final IOException ignored) {}
+            }
+        }
+    }
+
+    /**
+     * Forgets every result in memory. Results on disk are kept.
+     */
+    public synchronized void clearMemory() {
+        memoryTier.clear();
+        memorySize = 0;
+    }
+
+    /**
+     * @return the number of results that were found in memory
+     */
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    /**
+     * @return the number of results that were found on disk
+     */
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    /**
+     * @return the number of results that had to be converted
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
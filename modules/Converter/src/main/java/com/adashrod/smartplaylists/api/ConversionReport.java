@@ -0,0 +1,89 @@
+package com.adashrod.smartplaylists.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The problems found by one call that loads or converts a playlist, along with the playlist that it produced. Every
+ * call gets a report of its own, so calls running in parallel don't share one, but a report shouldn't be used by more
+ * than one thread at once.
+ *
+ * A report is a {@link DiagnosticSink}, so it can be passed straight to the converters. The messages of its problems
+ * are only formatted when they're read.
+ */
+public class ConversionReport implements DiagnosticSink {
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    private FormattedSmartPlaylist playlist;
+
+    /**
+     * @return the playlist that the call produced
+     */
+    public FormattedSmartPlaylist getPlaylist() {
+        return playlist;
+    }
+
+    ConversionReport setPlaylist(final FormattedSmartPlaylist playlist) {
+        this.playlist = playlist;
+        return this;
+    }
+
+    /**
+     * @return every problem, in the order that they were found
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    /**
+     * @param code the kind of problem to look for
+     * @return the problems of that kind, in the order that they were found
+     */
+    public List<Diagnostic> getDiagnostics(final DiagnosticCode code) {
+        final List<Diagnostic> matches = new ArrayList<>();
+        for (final Diagnostic diagnostic: diagnostics) {
+            if (diagnostic.getCode() == code) {
+                matches.add(diagnostic);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return the message of every problem, in the order that they were found
+     */
+    public List<String> getMessages() {
+        final List<String> messages = new ArrayList<>(diagnostics.size());
+        for (final Diagnostic diagnostic: diagnostics) {
+            messages.add(diagnostic.getMessage());
+        }
+        return messages;
+    }
+
+    /**
+     * @return true if the call didn't find any problems
+     */
+    public boolean isEmpty() {
+        return diagnostics.isEmpty();
+    }
+
+    @Override
+    public void add(final Diagnostic diagnostic) {
+        diagnostics.add(diagnostic);
+    }
+
+    /**
+     * Sends every problem in this report to another sink, as they are, without formatting them
+     * @param sink where to send the problems
+     */
+    public void sendTo(final DiagnosticSink sink) {
+        for (final Diagnostic diagnostic: diagnostics) {
+            sink.add(diagnostic);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getMessages().toString();
+    }
+}
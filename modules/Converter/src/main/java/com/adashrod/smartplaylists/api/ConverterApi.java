@@ -1,83 +1,629 @@
 package com.adashrod.smartplaylists.api;
 
-import com.adashrod.smartplaylists.converters.GmmpPlaylistConverter;
-import com.adashrod.smartplaylists.converters.XbmcV12PlaylistConverter;
-import com.adashrod.smartplaylists.converters.XbmcV11PlaylistConverter;
+import com.adashrod.smartplaylists.converters.RuleOptimizer;
+import com.adashrod.smartplaylists.converters.StreamingTranscoder;
 import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
-import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
-import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
-import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
 import org.apache.log4j.Logger;
 
-import javax.xml.bind.JAXBException;
+import jakarta.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 /**
- * This class provides a simple API for loading playlists from files and converting between two playlist types
+ * This class provides a simple API for loading playlists from files and converting between two playlist types. One
+ * instance can be shared by any number of threads. Each call collects its errors on its own and then appends all of
+ * them to the error log at once, so the errors from one call are never interleaved with those from another. Callers
+ * that need to know which errors came from which call can use the methods that return a {@link ConversionReport}
+ * instead, which leave the error log alone.
+ *
+ * The formats come from {@link PlaylistFormats}, and a format's converter isn't loaded until a playlist in that format
+ * is read or written, so creating an instance is cheap.
  */
 public class ConverterApi {
     private static final Logger logger = Logger.getLogger(ConverterApi.class);
 
-    private final XbmcV11PlaylistConverter xbmcV11PlaylistConverter = new XbmcV11PlaylistConverter();
-    private final XbmcV12PlaylistConverter xbmcV12PlaylistConverter = new XbmcV12PlaylistConverter();
-    private final GmmpPlaylistConverter gmmpPlaylistConverter = new GmmpPlaylistConverter();
+    // transcoding and converting can write slightly different XML for the same input, so their results are kept apart
+    private static final String TRANSCODE_PREFIX = "transcode:";
+    private static final String CONVERT_PREFIX = "convert:";
+    private static final String OPTIMIZED_CONVERT_PREFIX = "convert+optimize:";
+    // zip entries are read into memory before they're converted, so they're capped like a parse with default limits
+    private static final long MAX_ZIP_ENTRY_BYTES = new ParseLimits().getMaxBytes();
 
-    private final Map<Class<? extends FormattedSmartPlaylist>, PlaylistConverter> classConverterMap = new HashMap<>();
+    private final PlaylistFormatDetector formatDetector = new PlaylistFormatDetector();
+    private final StreamingTranscoder streamingTranscoder = new StreamingTranscoder();
 
-    private final Deque<PlaylistConverter> converters = new LinkedList<>();
+    // appended to by every call, so it's locked rather than copied on write, which would copy the whole log each time
+    private final List<String> errorLog = Collections.synchronizedList(new ArrayList<>());
+    private volatile ConversionCache cache;
+    private final RuleOptimizer ruleOptimizer = new RuleOptimizer();
+    private volatile boolean optimizingRules;
+    private volatile boolean parallelRules;
 
-    private final List<String> errorLog = new ArrayList<>();
+    /**
+     * Reads a playlist file of any supported format. The format is determined from the content of the file rather than
+     * its name. The file is opened once and closed before returning.
+     * @param file the file to read
+     * @return A specific kind of formatted smart playlist
+     * @throws FileNotFoundException file not found
+     */
+    public FormattedSmartPlaylist loadFromFile(final File file) throws FileNotFoundException {
+        try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return loadFrom(inputStream);
+        } catch (final FileNotFoundException fnf) {
+            throw fnf;
+        } catch (final IOException ioe) {
+            logger.error(ioe.getMessage());
+            throw new IllegalArgumentException(ioe.getMessage(), ioe);
+        }
+    }
 
-    public ConverterApi() {
-        converters.add(xbmcV12PlaylistConverter);
-        converters.add(xbmcV11PlaylistConverter);
-        converters.add(gmmpPlaylistConverter);
+    /**
+     * Reads a playlist of any supported format from a stream, e.g. a pipe or an entry in an archive. The format is
+     * determined from the start of the XML, which is buffered so that it can be read again by the de-serializer. The
+     * stream is not closed.
+     * @param inputStream the XML to read
+     * @return A specific kind of formatted smart playlist
+     */
+    public FormattedSmartPlaylist loadFrom(final InputStream inputStream) {
+        return loadFrom(inputStream, false);
+    }
+
+    /**
+     * Reads a playlist file of any supported format like {@link #loadFromFile(File)}, but instead of failing at the
+     * first invalid element, this carries on and appends every problem in the file to the error log, with the line and
+     * column it was found at. Only files that aren't playlists at all, or aren't well-formed XML, fail.
+     * @param file the file to read
+     * @return A specific kind of formatted smart playlist, missing or with defaults for anything that was invalid
+     * @throws FileNotFoundException file not found
+     */
+    public FormattedSmartPlaylist loadFromFileLeniently(final File file) throws FileNotFoundException {
+        try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return loadFromLeniently(inputStream);
+        } catch (final FileNotFoundException fnf) {
+            throw fnf;
+        } catch (final IOException ioe) {
+            logger.error(ioe.getMessage());
+            throw new IllegalArgumentException(ioe.getMessage(), ioe);
+        }
+    }
 
-        classConverterMap.put(XbmcV11SmartPlaylist.class, xbmcV11PlaylistConverter);
-        classConverterMap.put(XbmcV12SmartPlaylist.class, xbmcV12PlaylistConverter);
-        classConverterMap.put(GmmpSmartPlaylist.class, gmmpPlaylistConverter);
+    /**
+     * Reads a playlist of any supported format from a stream like {@link #loadFrom(InputStream)}, but leniently, like
+     * {@link #loadFromFileLeniently(File)}. The stream is not closed.
+     * @param inputStream the XML to read
+     * @return A specific kind of formatted smart playlist, missing or with defaults for anything that was invalid
+     */
+    public FormattedSmartPlaylist loadFromLeniently(final InputStream inputStream) {
+        return loadFrom(inputStream, true);
     }
 
     /**
-     * This changes the order of the converters according to the file extension of the playlist. Converters that match
-     * the file extension are put at the front to minimize the number of times that a playlist is attempted to be
-     * de-serialized with the wrong converter.
-     * @param filenameExtension the file extension of the file being read in
+     * Reads a playlist file of any supported format leniently, like {@link #loadFromFileLeniently(File)}, but returns
+     * the problems in the file in a report of their own instead of appending them to the error log
+     * @param file the file to read
+     * @return the problems in the file, and the playlist that was read
+     * @throws FileNotFoundException file not found
      */
-    private void reorderConverterList(final String filenameExtension) {
-        if (XbmcV11SmartPlaylist.DEFAULT_FILE_EXTENSION.equals(filenameExtension)) {
-            converters.remove(xbmcV11PlaylistConverter);
-            converters.addFirst(xbmcV11PlaylistConverter);
-            converters.remove(xbmcV12PlaylistConverter);
-            converters.addFirst(xbmcV12PlaylistConverter);
-        } else if (GmmpSmartPlaylist.DEFAULT_FILE_EXTENSION.equals(filenameExtension)) {
-            converters.remove(gmmpPlaylistConverter);
-            converters.addFirst(gmmpPlaylistConverter);
+    public ConversionReport loadFromFileWithReport(final File file) throws FileNotFoundException {
+        final ConversionReport report = new ConversionReport();
+        try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return report.setPlaylist(loadFrom(inputStream, true, report));
+        } catch (final FileNotFoundException fnf) {
+            throw fnf;
+        } catch (final IOException ioe) {
+            logger.error(ioe.getMessage());
+            throw new IllegalArgumentException(ioe.getMessage(), ioe);
         }
     }
 
-    public FormattedSmartPlaylist loadFromFile(final File file) throws FileNotFoundException {
-        final String[] filenameParts = file.getName().split("\\.");
-        reorderConverterList(filenameParts.length > 1 ? filenameParts[filenameParts.length - 1].toLowerCase() : null);
+    private FormattedSmartPlaylist loadFrom(final InputStream inputStream, final boolean lenient) {
+        final List<String> callErrorLog = new ArrayList<>();
+        try {
+            return loadFrom(inputStream, lenient, DiagnosticSink.of(callErrorLog));
+        } finally {
+            errorLog.addAll(callErrorLog);
+        }
+    }
+
+    private FormattedSmartPlaylist loadFrom(final InputStream inputStream, final boolean lenient,
+            final DiagnosticSink callErrorLog) {
+        final InputStream markableStream = markable(inputStream);
+        return load(formatDetector.detect(markableStream), (final PlaylistConverter converter) -> {
+            reset(markableStream);
+            return lenient ? converter.readFrom(markableStream, callErrorLog) : converter.readFrom(markableStream);
+        });
+    }
 
-        for (final PlaylistConverter converter: converters) {
-            try {
-                return converter.readFromFile(file);
-            } catch (final JAXBException ignored) {}
+    /**
+     * Reads a playlist file of any supported format like {@link #loadFromFile(File)}, but for files that can't be
+     * trusted: reading fails if the file exceeds any of the limits, DTDs are rejected, and entities are never expanded.
+     * @param file   the file to read
+     * @param limits the limits on the resources that reading can use
+     * @return A specific kind of formatted smart playlist
+     * @throws FileNotFoundException file not found
+     */
+    public FormattedSmartPlaylist loadFromFile(final File file, final ParseLimits limits)
+            throws FileNotFoundException {
+        try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return loadFrom(inputStream, limits);
+        } catch (final FileNotFoundException fnf) {
+            throw fnf;
+        } catch (final IOException ioe) {
+            logger.error(ioe.getMessage());
+            throw new IllegalArgumentException(ioe.getMessage(), ioe);
         }
-        logger.error("couldn't find a way to de-serialize the playlist file");
-        throw new IllegalArgumentException("couldn't find a way to de-serialize the playlist file");
+    }
+
+    /**
+     * Reads a playlist of any supported format from a stream like {@link #loadFrom(InputStream)}, but within the
+     * limits, like {@link #loadFromFile(File, ParseLimits)}. The limits cover detecting the format as well as reading
+     * the playlist. The stream is not closed.
+     * @param inputStream the XML to read
+     * @param limits      the limits on the resources that reading can use
+     * @return A specific kind of formatted smart playlist
+     */
+    public FormattedSmartPlaylist loadFrom(final InputStream inputStream, final ParseLimits limits) {
+        // a hostile file could otherwise make detection buffer all of it, e.g. with a huge root element and no rules
+        final LimitedInputStream limitedStream = new LimitedInputStream(inputStream, limits.getMaxBytes(),
+            limits.deadlineFromNow());
+        final InputStream markableStream = markable(limitedStream);
+        final Class<? extends FormattedSmartPlaylist> type = formatDetector.detect(markableStream);
+        if (limitedStream.getExceededLimit() != null) {
+            logger.error(limitedStream.getExceededLimit());
+            throw new IllegalArgumentException(limitedStream.getExceededLimit());
+        }
+        return load(type, (final PlaylistConverter converter) -> {
+            reset(markableStream);
+            return converter.readFrom(markableStream, limits);
+        });
+    }
+
+    /**
+     * @return a stream over inputStream that's marked at its current position, so that it can be read again after
+     * detecting its format
+     */
+    private InputStream markable(final InputStream inputStream) {
+        final InputStream markableStream = inputStream.markSupported() ? inputStream :
+            new BufferedInputStream(inputStream);
+        // detection stops as soon as the format is known, so the mark only ever has to hold the start of the XML
+        markableStream.mark(Integer.MAX_VALUE);
+        return markableStream;
+    }
+
+    private void reset(final InputStream markableStream) {
+        try {
+            markableStream.reset();
+        } catch (final IOException ioe) {
+            logger.error(ioe.getMessage());
+            throw new IllegalArgumentException(ioe.getMessage(), ioe);
+        }
+    }
+
+    /**
+     * Reads a playlist of any supported format from the remaining bytes of a buffer. The position of the buffer is left
+     * where it was.
+     * @param buffer the XML to read
+     * @return A specific kind of formatted smart playlist
+     */
+    public FormattedSmartPlaylist loadFrom(final ByteBuffer buffer) {
+        return loadFrom(new ByteBufferInputStream(buffer));
+    }
+
+    /**
+     * Reads a playlist of any supported format from XML in memory. Since the XML is already chars, any encoding
+     * declared in it is ignored.
+     * @param xml the XML to read
+     * @return A specific kind of formatted smart playlist
+     */
+    public FormattedSmartPlaylist loadFrom(final CharSequence xml) {
+        final String xmlString = xml.toString();
+        final Class<? extends FormattedSmartPlaylist> type = formatDetector.detect(new StringReader(xmlString));
+        return load(type, (final PlaylistConverter converter) -> converter.readFrom(xmlString));
+    }
+
+    /**
+     * Reads only the format, name, type, and number of rules of a playlist file of any supported format. This is much
+     * faster than loading the playlist, since nothing is de-serialized or validated, so it's suited to listing many
+     * playlists.
+     * @param file the file to read
+     * @return the header of the playlist
+     * @throws FileNotFoundException file not found
+     */
+    public PlaylistHeader readHeader(final File file) throws FileNotFoundException {
+        try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return readHeader(inputStream);
+        } catch (final FileNotFoundException fnf) {
+            throw fnf;
+        } catch (final IOException ioe) {
+            logger.error(ioe.getMessage());
+            throw new IllegalArgumentException(ioe.getMessage(), ioe);
+        }
+    }
+
+    /**
+     * Reads only the header of a playlist of any supported format, like {@link #readHeader(File)}. The stream is not
+     * closed and may be left partially read.
+     * @param inputStream the XML to read
+     * @return the header of the playlist
+     */
+    public PlaylistHeader readHeader(final InputStream inputStream) {
+        final PlaylistHeader header = formatDetector.readHeader(inputStream);
+        if (header == null) {
+            logger.error("couldn't find a way to read the header of the playlist file");
+            throw new IllegalArgumentException("couldn't find a way to read the header of the playlist file");
+        }
+        return header;
+    }
+
+    /**
+     * something that a converter can read a playlist from
+     */
+    private interface PlaylistSource {
+        FormattedSmartPlaylist readWith(PlaylistConverter converter) throws JAXBException;
+    }
+
+    private FormattedSmartPlaylist load(final Class<? extends FormattedSmartPlaylist> type,
+            final PlaylistSource source) {
+        if (type == null) {
+            logger.error("couldn't find a way to de-serialize the playlist file");
+            throw new IllegalArgumentException("couldn't find a way to de-serialize the playlist file");
+        }
+
+        try {
+            return source.readWith(findConverter(type));
+        } catch (final JAXBException je) {
+            logger.error("couldn't de-serialize the playlist file", je);
+            throw new IllegalArgumentException("couldn't de-serialize the playlist file", je);
+        }
+    }
+
+    /**
+     * Writes a playlist to a file in the playlist's format, encoded as UTF-8. The XML is streamed to the file rather
+     * than built up as a String first.
+     * @param formattedSmartPlaylist the playlist to write
+     * @param file the file to write; it's created if it doesn't exist and overwritten if it does
+     * @throws IOException error serializing the playlist or writing the file
+     */
+    public void writeToFile(final FormattedSmartPlaylist formattedSmartPlaylist, final File file) throws IOException {
+        try (final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            formattedSmartPlaylist.writeTo(outputStream);
+        }
+    }
+
+    /**
+     * Converts a playlist file of any supported format to outputType and writes it to another file, without ever
+     * holding the whole playlist in memory, so that playlists with any number of rules can be converted. Errors are
+     * appended to the error log like {@link #convert(FormattedSmartPlaylist, Class)}, and invalid rules are left out.
+     * @param input      the file to read
+     * @param outputType the desired FormattedSmartPlaylist type
+     * @param output     the file to write; it's created if it doesn't exist and overwritten if it does, but it's left
+     *                   as it was if the playlist can't be transcoded
+     * @return the number of rules that were written
+     * @throws IOException error reading or writing either file
+     */
+    public int transcodeFile(final File input, final Class<? extends FormattedSmartPlaylist> outputType,
+            final File output) throws IOException {
+        final ConversionCache currentCache = cache;
+        final List<String> callErrorLog = new ArrayList<>();
+        try {
+            if (currentCache != null) {
+                return transcodeFile(input, outputType, output, currentCache, callErrorLog);
+            }
+            return transcodeFile(input, outputType, output, callErrorLog);
+        } finally {
+            errorLog.addAll(callErrorLog);
+        }
+    }
+
+    private int transcodeFile(final File input, final Class<? extends FormattedSmartPlaylist> outputType,
+            final File output, final Collection<String> callErrorLog) throws IOException {
+        try {
+            return replaceFile(output, (final OutputStream outputStream) ->
+                streamingTranscoder.transcode(input.toPath(), outputType, outputStream,
+                    DiagnosticSink.of(callErrorLog)));
+        } catch (final XMLStreamException xse) {
+            logger.error("couldn't transcode the playlist file", xse);
+            throw new IllegalArgumentException("couldn't transcode the playlist file", xse);
+        }
+    }
+
+    /**
+     * something that writes the whole content of a file and counts what it wrote
+     * @param <E> the kind of exception, besides IOException, that writing can throw
+     */
+    private interface FileContent<E extends Exception> {
+        int writeTo(OutputStream outputStream) throws IOException, E;
+    }
+
+    /**
+     * Writes into a temporary file next to the output, which replaces the output only once it's complete, so that a
+     * failure leaves the output file as it was
+     * @return what the content returned
+     */
+    private <E extends Exception> int replaceFile(final File output, final FileContent<E> content)
+            throws IOException, E {
+        final Path outputPath = output.toPath().toAbsolutePath();
+        final Path tempPath = Files.createTempFile(outputPath.getParent(), output.getName(), ".tmp");
+        boolean moved = false;
+        try {
+            final int count;
+            try (final OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempPath))) {
+                count = content.writeTo(outputStream);
+            }
+            Files.move(tempPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+            return count;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+    }
+
+    /**
+     * Transcodes a file unless the cache has the result of transcoding the same bytes, in which case the cached
+     * output is copied to the output file without parsing anything
+     */
+    private int transcodeFile(final File input, final Class<? extends FormattedSmartPlaylist> outputType,
+            final File output, final ConversionCache currentCache, final List<String> callErrorLog)
+            throws IOException {
+        findConverter(outputType);
+        final String key;
+        try (final InputStream inputStream = new FileInputStream(input)) {
+            key = currentCache.keyOf(inputStream, TRANSCODE_PREFIX + PlaylistFormats.forClass(outputType).getName());
+        }
+        final ConversionCache.Result cached = currentCache.get(key);
+        if (cached != null) {
+            final int ruleCount = replaceFile(output, (final OutputStream outputStream) -> {
+                outputStream.write(cached.getOutput());
+                return cached.getRuleCount();
+            });
+            callErrorLog.addAll(cached.getErrors());
+            return ruleCount;
+        }
+        final int ruleCount = transcodeFile(input, outputType, output, callErrorLog);
+        currentCache.put(key, new ConversionCache.Result(Files.readAllBytes(output.toPath()), ruleCount, callErrorLog));
+        return ruleCount;
+    }
+
+    /**
+     * Converts every playlist in a zip archive to outputType and writes the results to a new zip archive. See
+     * {@link #convertZip(InputStream, Class, OutputStream)}.
+     * @param inputZip   the archive to read
+     * @param outputType the desired FormattedSmartPlaylist type
+     * @param outputZip  the archive to write; it's created if it doesn't exist and overwritten if it does
+     * @return the number of playlists that were converted
+     * @throws IOException error reading or writing either archive
+     */
+    public int convertZip(final File inputZip, final Class<? extends FormattedSmartPlaylist> outputType,
+            final File outputZip) throws IOException {
+        try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(inputZip));
+                final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputZip))) {
+            return convertZip(inputStream, outputType, outputStream);
+        }
+    }
+
+    /**
+     * Converts every playlist in a zip archive to outputType and writes the results to a new zip archive, e.g. to move
+     * a whole collection to a device as one file. The archive is streamed entry by entry and the entries are converted
+     * in parallel, but the output entries are always written in the same order as the input entries. Each output entry
+     * has the same path as its input entry, with the file extension of outputType. Entries that can't be read as
+     * playlists, that are larger than the default {@link ParseLimits#getMaxBytes()}, or that would have the same output
+     * path as an earlier entry are left out of the output archive. Any errors, including those from entries that were
+     * left out, are appended to the error log in entry order and prefixed with the entry's name. Neither stream is
+     * closed.
+     * @param inputZip   the archive to read
+     * @param outputType the desired FormattedSmartPlaylist type
+     * @param outputZip  where to write the new archive
+     * @return the number of playlists that were converted
+     * @throws IOException error reading or writing either archive
+     */
+    public int convertZip(final InputStream inputZip, final Class<? extends FormattedSmartPlaylist> outputType,
+            final OutputStream outputZip) throws IOException {
+        findConverter(outputType);
+        final ConversionCache currentCache = cache;
+        final boolean optimizing = optimizingRules;
+        final boolean parallel = parallelRules;
+        final int threadCount = Runtime.getRuntime().availableProcessors();
+        // bounds how many entries are held in memory at once while the oldest one is still being converted
+        final int maxPendingEntries = threadCount * 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final ZipInputStream zipInputStream = new ZipInputStream(inputZip);
+            final ZipOutputStream zipOutputStream = new ZipOutputStream(outputZip);
+            final Deque<Future<ZipEntryConversion>> pendingEntries = new ArrayDeque<>();
+            final Set<String> outputEntryNames = new HashSet<>();
+            int convertedCount = 0;
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                final String entryName = entry.getName();
+                final byte[] entryBytes = readFully(zipInputStream, MAX_ZIP_ENTRY_BYTES);
+                if (entryBytes == null) {
+                    // still goes through the queue, so that its error is logged in entry order
+                    pendingEntries.add(CompletableFuture.completedFuture(new ZipEntryConversion(entryName, null, null,
+                        Collections.singletonList(String.format("entry is larger than the limit of %d bytes",
+                            MAX_ZIP_ENTRY_BYTES)))));
+                } else {
+                    pendingEntries.add(executor.submit(() -> convertZipEntry(entryName, entryBytes, outputType,
+                        currentCache, optimizing, parallel)));
+                }
+                if (pendingEntries.size() >= maxPendingEntries) {
+                    convertedCount += writeZipEntry(pendingEntries.remove(), zipOutputStream, outputEntryNames);
+                }
+            }
+            while (!pendingEntries.isEmpty()) {
+                convertedCount += writeZipEntry(pendingEntries.remove(), zipOutputStream, outputEntryNames);
+            }
+            zipOutputStream.finish();
+            return convertedCount;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The result of converting one entry of a zip archive
+     */
+    private static class ZipEntryConversion {
+        private final String entryName;
+        private final String outputEntryName;
+        private final byte[] output;
+        private final List<String> errorLog;
+
+        private ZipEntryConversion(final String entryName, final String outputEntryName, final byte[] output,
+                final List<String> errorLog) {
+            this.entryName = entryName;
+            this.outputEntryName = outputEntryName;
+            this.output = output;
+            this.errorLog = errorLog;
+        }
+    }
+
+    /**
+     * Converts a single entry, or takes the result from the cache if the same bytes have been converted before
+     */
+    private ZipEntryConversion convertZipEntry(final String entryName, final byte[] entryBytes,
+            final Class<? extends FormattedSmartPlaylist> outputType, final ConversionCache currentCache,
+            final boolean optimizing, final boolean parallel) throws IOException {
+        if (currentCache == null) {
+            return convertZipEntry(entryName, entryBytes, outputType, optimizing, parallel);
+        }
+        final String key = currentCache.keyOf(entryBytes, (optimizing ? OPTIMIZED_CONVERT_PREFIX : CONVERT_PREFIX) +
+            PlaylistFormats.forClass(outputType).getName());
+        final ConversionCache.Result cached = currentCache.get(key);
+        if (cached != null) {
+            final String outputExtension = PlaylistFormats.forClass(outputType).getFileExtensions().get(0);
+            return new ZipEntryConversion(entryName, cached.getOutput() != null ?
+                replaceExtension(entryName, outputExtension) : null, cached.getOutput(), cached.getErrors());
+        }
+        final ZipEntryConversion conversion = convertZipEntry(entryName, entryBytes, outputType, optimizing,
+            parallel);
+        currentCache.put(key, new ConversionCache.Result(conversion.output, 0, conversion.errorLog));
+        return conversion;
+    }
+
+    /**
+     * Converts a single entry. This runs on a worker thread, so it only uses thread-confined state: the entry gets its
+     * own error log, which is merged into the shared one when the entry is written.
+     */
+    private ZipEntryConversion convertZipEntry(final String entryName, final byte[] entryBytes,
+            final Class<? extends FormattedSmartPlaylist> outputType, final boolean optimizing, final boolean parallel)
+            throws IOException {
+        final List<String> entryErrorLog = new ArrayList<>();
+        final FormattedSmartPlaylist inputPlaylist;
+        try {
+            inputPlaylist = loadFrom(ByteBuffer.wrap(entryBytes));
+        } catch (final IllegalArgumentException iae) {
+            entryErrorLog.add(iae.getMessage());
+            return new ZipEntryConversion(entryName, null, null, entryErrorLog);
+        }
+        final FormattedSmartPlaylist outputPlaylist = convert(inputPlaylist, outputType,
+            DiagnosticSink.of(entryErrorLog), optimizing, parallel);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        outputPlaylist.writeTo(output);
+        final String outputExtension = PlaylistFormats.forClass(outputType).getFileExtensions().get(0);
+        return new ZipEntryConversion(entryName, replaceExtension(entryName, outputExtension), output.toByteArray(),
+            entryErrorLog);
+    }
+
+    /**
+     * Waits for an entry to finish converting, then writes it to the archive and merges its errors into the error log
+     * @return 1 if the entry was written, 0 if it was left out
+     */
+    private int writeZipEntry(final Future<ZipEntryConversion> pendingEntry, final ZipOutputStream zipOutputStream,
+            final Set<String> outputEntryNames) throws IOException {
+        final ZipEntryConversion conversion;
+        try {
+            conversion = pendingEntry.get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while converting a zip archive");
+        } catch (final ExecutionException ee) {
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException) ee.getCause();
+            }
+            throw new IOException(ee.getCause());
+        }
+        final List<String> entryErrorLog = new ArrayList<>(conversion.errorLog.size() + 1);
+        for (final String error: conversion.errorLog) {
+            entryErrorLog.add(conversion.entryName + ": " + error);
+        }
+        // e.g. a.xsp and a.spl both become a.spl; the first one written keeps the name
+        final boolean duplicate = conversion.output != null && !outputEntryNames.add(conversion.outputEntryName);
+        if (duplicate) {
+            entryErrorLog.add(String.format("%s: left out because another entry was already converted to %s",
+                conversion.entryName, conversion.outputEntryName));
+        }
+        errorLog.addAll(entryErrorLog);
+        if (conversion.output == null || duplicate) {
+            return 0;
+        }
+        zipOutputStream.putNextEntry(new ZipEntry(conversion.outputEntryName));
+        zipOutputStream.write(conversion.output);
+        zipOutputStream.closeEntry();
+        return 1;
+    }
+
+    private static String replaceExtension(final String filename, final String extension) {
+        final int slashIndex = filename.lastIndexOf('/');
+        final int dotIndex = filename.lastIndexOf('.');
+        final String baseName = dotIndex > slashIndex ? filename.substring(0, dotIndex) : filename;
+        return baseName + "." + extension;
+    }
+
+    /**
+     * @return the rest of the stream, or null if it has more than maxBytes left, in which case it's only read up to
+     * just past maxBytes
+     */
+    private static byte[] readFully(final InputStream inputStream, final long maxBytes) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            bytes.write(buffer, 0, count);
+            if (bytes.size() > maxBytes) {
+                return null;
+            }
+        }
+        return bytes.toByteArray();
     }
 
     private PlaylistConverter findConverter(final Class<? extends FormattedSmartPlaylist> type) {
-        final PlaylistConverter converter = classConverterMap.get(type);
+        final PlaylistConverter converter = PlaylistFormats.getConverter(type);
         if (converter == null) {
             throw new IllegalArgumentException("couldn't find a converter for " + type.toString());
         }
@@ -91,8 +637,13 @@ public class ConverterApi {
      * @return a playlist with no format
      */
     public AgnosticSmartPlaylist convert(final FormattedSmartPlaylist formattedSmartPlaylist) {
-        final PlaylistConverter converter = findConverter(formattedSmartPlaylist.getClass());
-        return converter.convert(formattedSmartPlaylist, errorLog);
+        final List<String> callErrorLog = new ArrayList<>();
+        try {
+            return findConverter(formattedSmartPlaylist.getClass()).convert(formattedSmartPlaylist,
+                DiagnosticSink.of(callErrorLog), parallelRules);
+        } finally {
+            errorLog.addAll(callErrorLog);
+        }
     }
 
     /**
@@ -102,8 +653,53 @@ public class ConverterApi {
      * @return an object of outputType's type
      */
     public FormattedSmartPlaylist convert(final AgnosticSmartPlaylist agnosticSmartPlaylist, final Class<? extends FormattedSmartPlaylist> outputType) {
-        final PlaylistConverter converter = findConverter(outputType);
-        return converter.convert(agnosticSmartPlaylist, errorLog);
+        final List<String> callErrorLog = new ArrayList<>();
+        try {
+            return findConverter(outputType).convert(agnosticSmartPlaylist, DiagnosticSink.of(callErrorLog),
+                parallelRules);
+        } finally {
+            errorLog.addAll(callErrorLog);
+        }
+    }
+
+    /**
+     * Leaves out the rules of a playlist that don't change what it matches, like duplicates and ranges that another
+     * rule narrows, and appends an error to the error log for any rules that contradict each other. See
+     * {@link RuleOptimizer}.
+     * @param agnosticSmartPlaylist the playlist to optimize, which isn't changed
+     * @return a new playlist with only the rules that are needed
+     */
+    public AgnosticSmartPlaylist optimize(final AgnosticSmartPlaylist agnosticSmartPlaylist) {
+        final List<String> callErrorLog = new ArrayList<>();
+        try {
+            return ruleOptimizer.optimize(agnosticSmartPlaylist, DiagnosticSink.of(callErrorLog));
+        } finally {
+            errorLog.addAll(callErrorLog);
+        }
+    }
+
+    /**
+     * Makes {@link #convert(FormattedSmartPlaylist, Class)}, and the other methods that convert from one format to
+     * another, optimize every playlist between the two formats like {@link #optimize(AgnosticSmartPlaylist)}. This
+     * includes XBMC playlists converted to other XBMC versions, which are then no longer copied rule by rule. Playlists
+     * that are streamed by {@link #transcodeFile(File, Class, File)} aren't optimized, since their rules are never all
+     * in memory at once.
+     * @param optimizingRules whether to optimize; off by default
+     */
+    public void setOptimizingRules(final boolean optimizingRules) {
+        this.optimizingRules = optimizingRules;
+    }
+
+    /**
+     * Makes the methods that convert playlists convert the rules of large playlists, like generated ones with a rule
+     * for every excluded path, on several threads of the common fork/join pool at once; see
+     * {@link PlaylistConverter#convert(AgnosticSmartPlaylist, DiagnosticSink, boolean)}. The results and errors are the
+     * same either way. Playlists that are streamed by {@link #transcodeFile(File, Class, File)} are always converted
+     * one rule at a time, since their rules are never all in memory at once.
+     * @param parallelRules whether to convert rules in parallel; off by default
+     */
+    public void setParallelRules(final boolean parallelRules) {
+        this.parallelRules = parallelRules;
     }
 
     /**
@@ -113,12 +709,72 @@ public class ConverterApi {
      * @return an object of outputType's type
      */
     public FormattedSmartPlaylist convert(final FormattedSmartPlaylist formattedSmartPlaylist, final Class<? extends FormattedSmartPlaylist> outputType) {
-        final AgnosticSmartPlaylist intermediary = convert(formattedSmartPlaylist);
-        return convert(intermediary, outputType);
+        final List<String> callErrorLog = new ArrayList<>();
+        try {
+            return convert(formattedSmartPlaylist, outputType, DiagnosticSink.of(callErrorLog), optimizingRules,
+                parallelRules);
+        } finally {
+            errorLog.addAll(callErrorLog);
+        }
     }
 
+    /**
+     * Converts a FormattedSmartPlaylist into a different type of FormattedSmartPlaylist like
+     * {@link #convert(FormattedSmartPlaylist, Class)}, but returns the errors in a report of their own instead of
+     * appending them to the error log, so that callers converting in parallel can each tell which errors are theirs.
+     * The messages of the errors aren't formatted until they're read.
+     * @param formattedSmartPlaylist the playlist to convert
+     * @param outputType the desired FormattedSmartPlaylist type
+     * @return the errors, and the converted playlist of outputType's type
+     */
+    public ConversionReport convertWithReport(final FormattedSmartPlaylist formattedSmartPlaylist,
+            final Class<? extends FormattedSmartPlaylist> outputType) {
+        final ConversionReport report = new ConversionReport();
+        return report.setPlaylist(convert(formattedSmartPlaylist, outputType, report, optimizingRules,
+            parallelRules));
+    }
+
+    /**
+     * Converts between two formats, going through a format-agnostic playlist, which is optimized if optimizing is
+     * set, unless it isn't and the output format can copy the playlist rule by rule, like one XBMC version to another
+     */
+    private FormattedSmartPlaylist convert(final FormattedSmartPlaylist formattedSmartPlaylist,
+            final Class<? extends FormattedSmartPlaylist> outputType, final DiagnosticSink callErrorLog,
+            final boolean optimizing, final boolean parallel) {
+        final PlaylistFormat outputFormat = PlaylistFormats.forClass(outputType);
+        if (!optimizing && outputFormat != null) {
+            final FormattedSmartPlaylist copy = outputFormat.copy(formattedSmartPlaylist, callErrorLog, parallel);
+            if (copy != null) {
+                return copy;
+            }
+        }
+        AgnosticSmartPlaylist intermediary = findConverter(formattedSmartPlaylist.getClass())
+            .convert(formattedSmartPlaylist, callErrorLog, parallel);
+        if (optimizing) {
+            intermediary = ruleOptimizer.optimize(intermediary, callErrorLog);
+        }
+        return findConverter(outputType).convert(intermediary, callErrorLog, parallel);
+    }
+
+    /**
+     * Makes {@link #transcodeFile(File, Class, File)} and {@link #convertZip(InputStream, Class, OutputStream)} look up
+     * each input in a cache before converting it and store the result afterwards, so that inputs that have been
+     * converted before are only hashed, and their errors are logged again just as they were the first time. A file
+     * that changes while it's being transcoded may be cached under the hash of its old content.
+     * @param cache the cache to use, or null to stop caching
+     */
+    public void setCache(final ConversionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return a copy of the errors from every call so far, in the order that the calls finished, so iterating over it
+     * is safe while other threads are still appending to the log
+     */
     public List<String> getErrorLog() {
-        return errorLog;
+        synchronized (errorLog) {
+            return new ArrayList<>(errorLog);
+        }
     }
 
     public void clearLog() {
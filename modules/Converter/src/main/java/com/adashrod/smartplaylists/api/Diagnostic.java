@@ -0,0 +1,60 @@
+package com.adashrod.smartplaylists.api;
+
+/**
+ * One problem found while loading or converting a playlist. The message isn't formatted until it's first read, so
+ * recording a problem that nobody looks at is cheap. Its arguments, such as the rule that the problem is in, are
+ * rendered at that point too, so they shouldn't be changed in the meantime.
+ */
+public final class Diagnostic {
+    /**
+     * the rule index of problems that aren't in a single rule, like an invalid order
+     */
+    public static final int NO_RULE = -1;
+
+    private final DiagnosticCode code;
+    private final int ruleIndex;
+    private final String template;
+    private final Object[] arguments;
+    private String message;
+
+    /**
+     * @param code      what kind of problem it is
+     * @param ruleIndex the index of the rule that the problem is in, in the playlist being read or converted, or
+     *                  {@link #NO_RULE}
+     * @param template  the message, as a {@link String#format(String, Object...)} format if there are arguments
+     * @param arguments the arguments of the format
+     */
+    public Diagnostic(final DiagnosticCode code, final int ruleIndex, final String template,
+            final Object... arguments) {
+        this.code = code;
+        this.ruleIndex = ruleIndex;
+        this.template = template;
+        this.arguments = arguments;
+    }
+
+    public DiagnosticCode getCode() {
+        return code;
+    }
+
+    public int getRuleIndex() {
+        return ruleIndex;
+    }
+
+    /**
+     * @return the message, formatted the first time that it's asked for
+     */
+    public String getMessage() {
+        String rendered = message;
+        if (rendered == null) {
+            // two threads might both format it, but they get equal strings, so either one can be kept
+            rendered = arguments.length == 0 ? template : String.format(template, arguments);
+            message = rendered;
+        }
+        return rendered;
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,51 @@
+package com.adashrod.smartplaylists.api;
+
+/**
+ * The kinds of problem that can be found while loading or converting a playlist
+ */
+public enum DiagnosticCode {
+    /**
+     * a rule in the input has a field that its format doesn't have
+     */
+    UNKNOWN_FIELD,
+    /**
+     * a rule in the input has an operator that its format doesn't have, or doesn't allow on the rule's field
+     */
+    UNKNOWN_OPERATOR,
+    /**
+     * the operand of a rule couldn't be read, e.g. a date in the wrong format or a negative time
+     */
+    INVALID_OPERAND,
+    /**
+     * a rule has no operand
+     */
+    MISSING_OPERAND,
+    /**
+     * the output format doesn't have the field of a rule
+     */
+    UNSUPPORTED_FIELD,
+    /**
+     * the output format doesn't allow the operator of a rule on its field
+     */
+    UNSUPPORTED_OPERATOR,
+    /**
+     * the input is ordered by something that its format doesn't have
+     */
+    UNKNOWN_ORDER,
+    /**
+     * the output format can't order by the field that the input is ordered by
+     */
+    UNSUPPORTED_ORDER,
+    /**
+     * the XML doesn't match the format's schema; only found when loading leniently
+     */
+    INVALID_XML,
+    /**
+     * two rules of a playlist that has to match all of its rules can't both be true, so nothing matches the playlist
+     */
+    CONTRADICTORY_RULES,
+    /**
+     * anything else, including messages that were added to a {@link ConversionReport} as plain strings
+     */
+    OTHER
+}
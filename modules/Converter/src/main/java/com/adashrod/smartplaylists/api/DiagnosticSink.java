@@ -0,0 +1,23 @@
+package com.adashrod.smartplaylists.api;
+
+import java.util.Collection;
+
+/**
+ * Where the converters send the problems that they find. A {@link ConversionReport} keeps each problem as it is, so
+ * its message isn't formatted until it's read, and {@link #of(Collection)} adapts a plain error log of messages.
+ */
+@FunctionalInterface
+public interface DiagnosticSink {
+    /**
+     * @param diagnostic a problem found while loading or converting a playlist
+     */
+    void add(Diagnostic diagnostic);
+
+    /**
+     * @param messages an error log
+     * @return a sink that adds the message of each problem to the log
+     */
+    static DiagnosticSink of(final Collection<String> messages) {
+        return (final Diagnostic diagnostic) -> messages.add(diagnostic.getMessage());
+    }
+}
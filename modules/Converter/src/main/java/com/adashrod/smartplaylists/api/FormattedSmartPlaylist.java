@@ -1,6 +1,26 @@
 package com.adashrod.smartplaylists.api;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
 /**
  * A FormattedSmartPlaylist is a SmartPlaylist that has an associated file format, whether XML or another format.
  */
-public interface FormattedSmartPlaylist extends SmartPlaylist {}
+public interface FormattedSmartPlaylist extends SmartPlaylist {
+    /**
+     * Serializes the playlist in its file format straight to the stream, encoded as UTF-8. The stream is neither
+     * buffered nor closed by this, so callers should pass in a buffered stream.
+     * @param outputStream where to write the playlist
+     * @throws IOException error serializing or writing
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+
+    /**
+     * Serializes the playlist in its file format straight to the writer. The writer is neither buffered nor closed by
+     * this, so callers should pass in a buffered writer.
+     * @param writer where to write the playlist
+     * @throws IOException error serializing or writing
+     */
+    void writeTo(Writer writer) throws IOException;
+}
@@ -0,0 +1,106 @@
+package com.adashrod.smartplaylists.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream that fails once more than a maximum number of bytes have been read from it, or once a deadline has
+ * passed. Bytes that are read again after a reset aren't counted twice. Mark and reset are supported if the underlying
+ * stream supports them.
+ */
+public class LimitedInputStream extends FilterInputStream {
+    private final long maxBytes;
+    private final long deadline;
+    private long position;
+    private long markedPosition;
+    private long furthestPosition;
+    private String exceededLimit;
+
+    /**
+     * @param inputStream the stream to read
+     * @param maxBytes    the most bytes that can be read
+     * @param deadline    the {@link System#nanoTime()} after which reading fails
+     */
+    public LimitedInputStream(final InputStream inputStream, final long maxBytes, final long deadline) {
+        super(inputStream);
+        this.maxBytes = maxBytes;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkLimits();
+        final int b = super.read();
+        if (b != -1) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        checkLimits();
+        // never read past the limit, so that a huge read can't get in before the check
+        final int count = super.read(bytes, offset, (int) Math.min(length, readableBytes()));
+        if (count > 0) {
+            advance(count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        checkLimits();
+        final long count = super.skip(Math.min(n, readableBytes()));
+        advance(count);
+        return count;
+    }
+
+    @Override
+    public synchronized void mark(final int readLimit) {
+        super.mark(readLimit);
+        markedPosition = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        position = markedPosition;
+    }
+
+    /**
+     * XML parsers tend to wrap or swallow the exceptions from their input, so this is how to find out afterwards
+     * whether a failure was caused by a limit
+     * @return a description of the limit that has been exceeded, or null if none has
+     */
+    public String getExceededLimit() {
+        return exceededLimit;
+    }
+
+    /**
+     * @return how many bytes can be read before the limit is exceeded, plus one so that exceeding it is noticed, or
+     * Long.MAX_VALUE if that's more than a long can hold
+     */
+    private long readableBytes() {
+        final long remaining = maxBytes - furthestPosition;
+        return remaining == Long.MAX_VALUE ? remaining : remaining + 1;
+    }
+
+    private void advance(final long count) throws IOException {
+        position += count;
+        furthestPosition = Math.max(furthestPosition, position);
+        checkLimits();
+    }
+
+    private void checkLimits() throws IOException {
+        if (furthestPosition > maxBytes) {
+            exceededLimit = String.format("input is larger than the limit of %d bytes", maxBytes);
+        } else if (System.nanoTime() - deadline > 0) {
+            exceededLimit = "reading the input took longer than the time limit";
+        }
+        if (exceededLimit != null) {
+            throw new IOException(exceededLimit);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.adashrod.smartplaylists.api;
+
+/**
+ * ParseLimits caps the resources that reading a single playlist can use, so that one pathological or hostile file
+ * fails quickly instead of stalling or exhausting the memory of a long-running job. The defaults are far beyond what any
+ * real playlist needs. A file that exceeds a limit fails to load as if it were malformed.
+ */
+public class ParseLimits {
+    private long maxBytes = 8 * 1024 * 1024;
+    private int maxDepth = 16;
+    private int maxRules = 10000;
+    private int maxOperandLength = 4096;
+    private long timeoutMillis = 5000;
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @param maxBytes the most bytes of XML that will be read
+     * @return this
+     */
+    public ParseLimits setMaxBytes(final long maxBytes) {
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param maxDepth how deeply elements can be nested, counting the root element as 1
+     * @return this
+     */
+    public ParseLimits setMaxDepth(final int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public int getMaxRules() {
+        return maxRules;
+    }
+
+    /**
+     * @param maxRules the most rules that a playlist can have
+     * @return this
+     */
+    public ParseLimits setMaxRules(final int maxRules) {
+        this.maxRules = maxRules;
+        return this;
+    }
+
+    public int getMaxOperandLength() {
+        return maxOperandLength;
+    }
+
+    /**
+     * @param maxOperandLength the most chars of text that any element, e.g. a rule's operand, can have
+     * @return this
+     */
+    public ParseLimits setMaxOperandLength(final int maxOperandLength) {
+        this.maxOperandLength = maxOperandLength;
+        return this;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * The deadline is checked between reads and parsing events, so a read that blocks, e.g. on a pipe, isn't
+     * interrupted, but the parse fails as soon as it returns.
+     * @param timeoutMillis how long reading a playlist can take, in milliseconds
+     * @return this
+     */
+    public ParseLimits setTimeoutMillis(final long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} by which a parse that starts now must be done
+     */
+    public long deadlineFromNow() {
+        return System.nanoTime() + timeoutMillis * 1000000L;
+    }
+}
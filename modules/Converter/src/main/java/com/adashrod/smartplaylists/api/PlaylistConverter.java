@@ -2,9 +2,18 @@ package com.adashrod.smartplaylists.api;
 
 import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
 
-import javax.xml.bind.JAXBException;
+import jakarta.xml.bind.JAXBException;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.Collection;
 
 /**
@@ -12,29 +21,159 @@ import java.util.Collection;
  * {@link FormattedSmartPlaylist}
  */
 public interface PlaylistConverter {
+    /**
+     * Uses a de-serializer, such as JAXB, to read in the XML and returns the bound java object. The bytes go straight
+     * to the XML parser, so the encoding declared in the XML prolog is honored. The stream is not closed.
+     * @param inputStream the XML to read
+     * @return A specific kind of formatted smart playlist
+     * @throws JAXBException error de-serializing XML
+     */
+    FormattedSmartPlaylist readFrom(InputStream inputStream) throws JAXBException;
+
+    /**
+     * Like {@link #readFrom(InputStream)}, but instead of failing at the first element that's invalid, this keeps
+     * reading and returns what it could make of the playlist. Every problem is sent to the error log with the line and
+     * column that it was found at. The stream is not closed.
+     * @param inputStream the XML to read
+     * @param errorLog    every validation error in the XML will be sent to this
+     * @return A specific kind of formatted smart playlist, missing or with defaults for anything that was invalid
+     * @throws JAXBException the XML isn't well-formed
+     */
+    FormattedSmartPlaylist readFrom(InputStream inputStream, DiagnosticSink errorLog) throws JAXBException;
+
+    /**
+     * Like {@link #readFrom(InputStream)}, but for input that can't be trusted: the parse fails as soon as the XML
+     * exceeds any of the limits, DTDs are rejected, and entities are never expanded. The stream is not closed.
+     * @param inputStream the XML to read
+     * @param limits      the limits on the resources that reading can use
+     * @return A specific kind of formatted smart playlist
+     * @throws JAXBException error de-serializing XML, or the XML exceeds a limit
+     */
+    FormattedSmartPlaylist readFrom(InputStream inputStream, ParseLimits limits) throws JAXBException;
+
+    /**
+     * Uses a de-serializer, such as JAXB, to read in XML that has already been decoded into chars and returns the bound
+     * java object. Any encoding declared in the XML prolog is ignored. The reader is not closed.
+     * @param reader the XML to read
+     * @return A specific kind of formatted smart playlist
+     * @throws JAXBException error de-serializing XML
+     */
+    FormattedSmartPlaylist readFrom(Reader reader) throws JAXBException;
+
+    /**
+     * Reads a playlist from the remaining bytes of a buffer with {@link #readFrom(InputStream)}. The position of the
+     * buffer is left where it was.
+     * @param buffer the XML to read
+     * @return A specific kind of formatted smart playlist
+     * @throws JAXBException error de-serializing XML
+     */
+    default FormattedSmartPlaylist readFrom(final ByteBuffer buffer) throws JAXBException {
+        return readFrom(new ByteBufferInputStream(buffer));
+    }
+
+    /**
+     * Reads a playlist from XML in memory with {@link #readFrom(Reader)}
+     * @param xml the XML to read
+     * @return A specific kind of formatted smart playlist
+     * @throws JAXBException error de-serializing XML
+     */
+    default FormattedSmartPlaylist readFrom(final CharSequence xml) throws JAXBException {
+        return readFrom(new StringReader(xml.toString()));
+    }
+
+    /**
+     * Reads a playlist file with {@link #readFrom(InputStream)}, closing the file before returning
+     * @param path the file to read
+     * @return A specific kind of formatted smart playlist
+     * @throws JAXBException error de-serializing XML
+     * @throws IOException error opening or reading the file
+     */
+    default FormattedSmartPlaylist readFrom(final Path path) throws JAXBException, IOException {
+        try (final InputStream inputStream = new BufferedInputStream(Files.newInputStream(path))) {
+            return readFrom(inputStream);
+        }
+    }
+
     /**
      * Uses a de-serializer, such as JAXB, to read in the file and returns the bound java object.
      * @param file the file to read
      * @return A specific kind of formatted smart playlist
-     * @throws JAXBException error de-serializing XML
+     * @throws JAXBException error de-serializing XML, or reading the file
      * @throws FileNotFoundException file not found
      */
-    FormattedSmartPlaylist readFromFile(File file) throws JAXBException, FileNotFoundException;
+    default FormattedSmartPlaylist readFromFile(final File file) throws JAXBException, FileNotFoundException {
+        try {
+            return readFrom(file.toPath());
+        } catch (final NoSuchFileException nsfe) {
+            throw new FileNotFoundException(nsfe.getMessage());
+        } catch (final IOException ioe) {
+            throw new JAXBException(ioe.getMessage(), ioe);
+        }
+    }
 
     /**
      * Converts an {@link AgnosticSmartPlaylist} into an object that has a specific, associated file format
      * @param agnosticSmartPlaylist the format-agnostic playlist to convert
-     * @param errorLog any errors encountered during the conversion will be appended to this
+     * @param errorLog any errors encountered during the conversion will be sent to this
      * @return the same playlist in a specific format
      */
-    FormattedSmartPlaylist convert(AgnosticSmartPlaylist agnosticSmartPlaylist, Collection<String> errorLog);
+    FormattedSmartPlaylist convert(AgnosticSmartPlaylist agnosticSmartPlaylist, DiagnosticSink errorLog);
 
     /**
      * Converts a {@link FormattedSmartPlaylist} that has an associated file format and converts it into a general,
      * format-agnostic smart playlist object.
      * @param specificSmartPlaylist the formatted playlist to convert
+     * @param errorLog any errors encountered during the conversion will be sent to this
+     * @return the same playlist without format
+     */
+    AgnosticSmartPlaylist convert(FormattedSmartPlaylist specificSmartPlaylist, DiagnosticSink errorLog);
+
+    /**
+     * Like {@link #convert(AgnosticSmartPlaylist, DiagnosticSink)}, but with the messages of the errors
+     * @param agnosticSmartPlaylist the format-agnostic playlist to convert
      * @param errorLog any errors encountered during the conversion will be appended to this
+     * @return the same playlist in a specific format
+     */
+    default FormattedSmartPlaylist convert(final AgnosticSmartPlaylist agnosticSmartPlaylist,
+            final Collection<String> errorLog) {
+        return convert(agnosticSmartPlaylist, DiagnosticSink.of(errorLog));
+    }
+
+    /**
+     * Like {@link #convert(FormattedSmartPlaylist, DiagnosticSink)}, but with the messages of the errors
+     * @param specificSmartPlaylist the formatted playlist to convert
+     * @param errorLog any errors encountered during the conversion will be appended to this
+     * @return the same playlist without format
+     */
+    default AgnosticSmartPlaylist convert(final FormattedSmartPlaylist specificSmartPlaylist,
+            final Collection<String> errorLog) {
+        return convert(specificSmartPlaylist, DiagnosticSink.of(errorLog));
+    }
+
+    /**
+     * Like {@link #convert(AgnosticSmartPlaylist, DiagnosticSink)}, but a playlist with many rules, like a generated
+     * one with a rule for every excluded path, may have its rules converted on several threads at once. The result and
+     * the errors are the same either way. Converters that can't convert in parallel convert one rule at a time.
+     * @param agnosticSmartPlaylist the format-agnostic playlist to convert
+     * @param errorLog any errors encountered during the conversion will be sent to this
+     * @param parallel whether the rules may be converted in parallel
+     * @return the same playlist in a specific format
+     */
+    default FormattedSmartPlaylist convert(final AgnosticSmartPlaylist agnosticSmartPlaylist,
+            final DiagnosticSink errorLog, final boolean parallel) {
+        return convert(agnosticSmartPlaylist, errorLog);
+    }
+
+    /**
+     * Like {@link #convert(FormattedSmartPlaylist, DiagnosticSink)}, but the rules may be converted in parallel, like
+     * {@link #convert(AgnosticSmartPlaylist, DiagnosticSink, boolean)}
+     * @param specificSmartPlaylist the formatted playlist to convert
+     * @param errorLog any errors encountered during the conversion will be sent to this
+     * @param parallel whether the rules may be converted in parallel
      * @return the same playlist without format
      */
-    AgnosticSmartPlaylist convert(FormattedSmartPlaylist specificSmartPlaylist, Collection<String> errorLog);
+    default AgnosticSmartPlaylist convert(final FormattedSmartPlaylist specificSmartPlaylist,
+            final DiagnosticSink errorLog, final boolean parallel) {
+        return convert(specificSmartPlaylist, errorLog);
+    }
 }
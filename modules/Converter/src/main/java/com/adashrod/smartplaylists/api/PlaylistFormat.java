@@ -0,0 +1,86 @@
+package com.adashrod.smartplaylists.api;
+
+import com.adashrod.smartplaylists.playlists.PlaylistType;
+
+import java.util.List;
+
+/**
+ * A PlaylistFormat describes one playlist file format and creates the {@link PlaylistConverter} for it. Formats are
+ * found with {@link java.util.ServiceLoader}, so a jar can add a format by naming its implementation in
+ * META-INF/services/com.adashrod.smartplaylists.api.PlaylistFormat. Implementations need a public no-arg constructor,
+ * and describing a format has to be cheap: nothing that the converter needs, like JAXB or the format's tables, should
+ * be loaded until {@link #createConverter()} is called.
+ */
+public interface PlaylistFormat {
+    /**
+     * @return a short, lower-case name that identifies the format, e.g. on the command line
+     */
+    String getName();
+
+    /**
+     * @return the type of playlist that the converter reads and creates
+     */
+    Class<? extends FormattedSmartPlaylist> getPlaylistClass();
+
+    /**
+     * @return the file extensions used for the format, without dots; the first one is used for files written in it
+     */
+    List<String> getFileExtensions();
+
+    /**
+     * @return the local name of the root element of the format's XML
+     */
+    String getRootElement();
+
+    /**
+     * @return the local name of the child of the root element that holds the playlist's name, or null if it has none
+     */
+    default String getNameElement() {
+        return null;
+    }
+
+    /**
+     * @return the local name of the elements that each hold one rule, or null if the format doesn't say
+     */
+    default String getRuleElement() {
+        return null;
+    }
+
+    /**
+     * Formats that have the same root element, like two versions of one format, are told apart by whether the first
+     * rule of a playlist has this child element, so they need to agree on the name, rule, and root elements.
+     * @return the local name of the child element of a rule that holds its operand, or null if the operand is the
+     * rule's own text or the format doesn't say
+     */
+    default String getRuleValueElement() {
+        return null;
+    }
+
+    /**
+     * @param type the value of the type attribute of the root element, or null if it has none
+     * @return the type of a playlist in the format, or null if type isn't a known type
+     */
+    default PlaylistType getPlaylistType(final String type) {
+        return PlaylistType.MUSIC;
+    }
+
+    /**
+     * Converts a playlist straight into this format, without a format-agnostic playlist in between, for formats that
+     * are close enough to copy rule by rule, e.g. two versions of one format
+     * @param playlist the playlist to copy
+     * @param errorLog log for errors encountered during operation
+     * @param parallel whether the rules of large playlists are copied in parallel
+     * @return the copy, or null if this format can't copy playlists of that type
+     */
+    default FormattedSmartPlaylist copy(final FormattedSmartPlaylist playlist, final DiagnosticSink errorLog,
+            final boolean parallel) {
+        return null;
+    }
+
+    /**
+     * Creates the converter for the format. This is only called the first time that the format is needed, and the
+     * converter is shared from then on, so it has to be safe for concurrent use.
+     * @return a converter for the format
+     */
+    PlaylistConverter createConverter();
+}
@@ -0,0 +1,222 @@
+package com.adashrod.smartplaylists.api;
+
+import com.adashrod.smartplaylists.playlists.StaxFactories;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Determines the format of a playlist by looking at the start of the XML rather than by trying to de-serialize it with
+ * every converter. Each {@link PlaylistFormat} names its root element, and formats with the same one, like the two
+ * XBMC versions, are told apart by their first rule: v12 rules have a &lt;value&gt; child element and v11 rules have
+ * their operand as text. Parsing stops as soon as the format is known, so usually only the first few KB of a file get
+ * read. Formats added by other jars are recognized the same way as the built-in ones.
+ *
+ * It can also read the {@link PlaylistHeader} of a playlist in a single pass over the XML, without binding any of it
+ * to objects.
+ */
+public class PlaylistFormatDetector {
+    /**
+     * Determines the format of a playlist file
+     * @param file the file to inspect
+     * @return the type of playlist in the file, or null if it's not a playlist format that is known
+     * @throws IOException error reading the file
+     */
+    public Class<? extends FormattedSmartPlaylist> detect(final File file) throws IOException {
+        try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return detect(inputStream);
+        }
+    }
+
+    /**
+     * Determines the format of a playlist. The stream is not closed and is left partially read.
+     * @param inputStream XML to inspect
+     * @return the type of playlist in the stream, or null if it's not a playlist format that is known
+     */
+    public Class<? extends FormattedSmartPlaylist> detect(final InputStream inputStream) {
+        try {
+            return detect(StaxFactories.getInputFactory().createXMLStreamReader(inputStream));
+        } catch (final XMLStreamException xse) {
+            // not well-formed XML, or not XML at all
+            return null;
+        }
+    }
+
+    /**
+     * Determines the format of a playlist that has already been decoded into chars. The reader is not closed and is
+     * left partially read.
+     * @param reader XML to inspect
+     * @return the type of playlist in the reader, or null if it's not a playlist format that is known
+     */
+    public Class<? extends FormattedSmartPlaylist> detect(final Reader reader) {
+        try {
+            return detect(StaxFactories.getInputFactory().createXMLStreamReader(reader));
+        } catch (final XMLStreamException xse) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the format, name, type, and number of rules of a playlist file
+     * @param file the file to inspect
+     * @return the header of the playlist, or null if it's not a playlist format that is known
+     * @throws IOException error reading the file
+     */
+    public PlaylistHeader readHeader(final File file) throws IOException {
+        try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return readHeader(inputStream);
+        }
+    }
+
+    /**
+     * Reads the format, name, type, and number of rules of a playlist. Rules are counted but not looked into, and
+     * nothing is validated, so a playlist with invalid rules still has a header. The stream is not closed and may be
+     * left partially read.
+     * @param inputStream XML to inspect
+     * @return the header of the playlist, or null if it's not a playlist format that is known or not well-formed
+     */
+    public PlaylistHeader readHeader(final InputStream inputStream) {
+        try {
+            final XMLStreamReader reader = StaxFactories.getInputFactory().createXMLStreamReader(inputStream);
+            try {
+                return read(reader, true);
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException xse) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a playlist as far as it needs to. The formats with the playlist's root element are found first, and if
+     * there's more than one, they're told apart by whether the first rule has the child element that each of them
+     * keeps a rule's operand in. Formats with the same root element are laid out alike otherwise, so the first one's
+     * name and rule elements are used for all of them.
+     * @param reader        a reader at the start of the XML
+     * @param wholePlaylist true to read the name, type, and number of rules, and false to stop as soon as the format
+     *                      is known
+     * @return the header of the playlist, which only has its format if wholePlaylist is false, or null if it's not a
+     * playlist format that is known
+     * @throws XMLStreamException malformed XML
+     */
+    private PlaylistHeader read(final XMLStreamReader reader, final boolean wholePlaylist) throws XMLStreamException {
+        // skip past the prolog: the XML declaration, comments, a DOCTYPE, etc
+        while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {}
+        if (!reader.isStartElement()) {
+            return null;
+        }
+        final List<PlaylistFormat> candidates = new ArrayList<>();
+        for (final PlaylistFormat format: PlaylistFormats.getFormats()) {
+            if (format.getRootElement().equals(reader.getLocalName())) {
+                candidates.add(format);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        } else if (candidates.size() == 1 && !wholePlaylist) {
+            return new PlaylistHeader(candidates.get(0).getPlaylistClass(), null, null, 0);
+        }
+
+        final PlaylistFormat layout = candidates.get(0);
+        final String type = reader.getAttributeValue(null, "type");
+        String name = null;
+        int ruleCount = 0;
+        Set<String> firstRuleChildren = null;
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                final String elementName = reader.getLocalName();
+                if (wholePlaylist && depth == 1 && elementName.equals(layout.getNameElement())) {
+                    // leaves the reader on the end tag
+                    name = reader.getElementText();
+                } else if (elementName.equals(layout.getRuleElement())) {
+                    ruleCount++;
+                    if (firstRuleChildren == null) {
+                        firstRuleChildren = new HashSet<>();
+                        skipElement(reader, firstRuleChildren);
+                        if (!wholePlaylist) {
+                            break;
+                        }
+                    } else {
+                        skipElement(reader, null);
+                    }
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        final PlaylistFormat format = chooseFormat(candidates, firstRuleChildren);
+        return new PlaylistHeader(format.getPlaylistClass(), name, format.getPlaylistType(type), ruleCount);
+    }
+
+    /**
+     * @param candidates        formats with the same root element
+     * @param firstRuleChildren the local names of the child elements of the first rule, or null if there are no rules
+     * @return the first format whose value element the first rule has, or if none do, the first format that keeps its
+     * operands as text. A playlist without rules reads the same way in any of them, so it's given the first format
+     * that has a value element.
+     */
+    private static PlaylistFormat chooseFormat(final List<PlaylistFormat> candidates,
+            final Set<String> firstRuleChildren) {
+        for (final PlaylistFormat candidate: candidates) {
+            final String valueElement = candidate.getRuleValueElement();
+            if (valueElement != null && (firstRuleChildren == null || firstRuleChildren.contains(valueElement))) {
+                return candidate;
+            }
+        }
+        for (final PlaylistFormat candidate: candidates) {
+            if (candidate.getRuleValueElement() == null) {
+                return candidate;
+            }
+        }
+        return candidates.get(0);
+    }
+
+    /**
+     * Moves the reader from the start tag of an element to its end tag
+     * @param reader     a reader positioned on a start tag
+     * @param childNames where to add the local names of the element's child elements, or null
+     * @throws XMLStreamException malformed XML
+     */
+    private void skipElement(final XMLStreamReader reader, final Set<String> childNames) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth == 2 && childNames != null) {
+                    childNames.add(reader.getLocalName());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Determines the format and closes the XMLStreamReader, which doesn't close its underlying stream or reader
+     */
+    private Class<? extends FormattedSmartPlaylist> detect(final XMLStreamReader reader) throws XMLStreamException {
+        try {
+            final PlaylistHeader header = read(reader, false);
+            return header != null ? header.getFormat() : null;
+        } finally {
+            reader.close();
+        }
+    }
+}
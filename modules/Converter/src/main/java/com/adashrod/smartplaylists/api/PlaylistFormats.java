@@ -0,0 +1,98 @@
+package com.adashrod.smartplaylists.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A process-wide registry of the {@link PlaylistFormat}s on the classpath. The formats are looked up with
+ * {@link ServiceLoader} the first time that any of them is needed, and each format's converter is created the first
+ * time that it's asked for, so converting from one format to another never loads the converters for the rest.
+ */
+public final class PlaylistFormats {
+    private static final ConcurrentMap<Class<?>, PlaylistConverter> converters = new ConcurrentHashMap<>();
+
+    private PlaylistFormats() {}
+
+    /**
+     * Holds the formats, which are loaded when this class is first used
+     */
+    private static final class Loaded {
+        private static final List<PlaylistFormat> FORMATS = load();
+
+        private static List<PlaylistFormat> load() {
+            final List<PlaylistFormat> formats = new ArrayList<>();
+            for (final PlaylistFormat format: ServiceLoader.load(PlaylistFormat.class,
+                    PlaylistFormat.class.getClassLoader())) {
+                formats.add(format);
+            }
+            return Collections.unmodifiableList(formats);
+        }
+    }
+
+    /**
+     * @return every format that was found, in the order that they were found
+     */
+    public static List<PlaylistFormat> getFormats() {
+        return Loaded.FORMATS;
+    }
+
+    /**
+     * @param type a type of playlist
+     * @return the format of that type of playlist, or null if there isn't one
+     */
+    public static PlaylistFormat forClass(final Class<?> type) {
+        for (final PlaylistFormat format: Loaded.FORMATS) {
+            if (format.getPlaylistClass() == type) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name the name of a format, e.g. "gmmp"; case is ignored
+     * @return the format with that name, or null if there isn't one
+     */
+    public static PlaylistFormat forName(final String name) {
+        for (final PlaylistFormat format: Loaded.FORMATS) {
+            if (format.getName().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param rootElement the local name of the root element of some XML
+     * @return the first format whose XML has that root element, or null if there isn't one
+     */
+    public static PlaylistFormat forRootElement(final String rootElement) {
+        for (final PlaylistFormat format: Loaded.FORMATS) {
+            if (format.getRootElement().equals(rootElement)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the shared converter for the type, creating it if this is the first time it has been requested
+     * @param type a type of playlist
+     * @return the converter for type, or null if there's no format for it
+     */
+    public static PlaylistConverter getConverter(final Class<?> type) {
+        final PlaylistConverter converter = converters.get(type);
+        if (converter != null) {
+            return converter;
+        }
+        final PlaylistFormat format = forClass(type);
+        if (format == null) {
+            return null;
+        }
+        return converters.computeIfAbsent(type, (final Class<?> key) -> format.createConverter());
+    }
+}
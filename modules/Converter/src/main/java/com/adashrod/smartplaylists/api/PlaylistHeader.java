@@ -0,0 +1,56 @@
+package com.adashrod.smartplaylists.api;
+
+import com.adashrod.smartplaylists.playlists.PlaylistType;
+
+/**
+ * A PlaylistHeader is what {@link PlaylistFormatDetector#readHeader(java.io.InputStream)} finds out about a playlist
+ * without de-serializing it: enough to list and filter playlists by name and format.
+ */
+public class PlaylistHeader {
+    private final Class<? extends FormattedSmartPlaylist> format;
+    private final String name;
+    private final PlaylistType playlistType;
+    private final int ruleCount;
+
+    PlaylistHeader(final Class<? extends FormattedSmartPlaylist> format, final String name,
+            final PlaylistType playlistType, final int ruleCount) {
+        this.format = format;
+        this.name = name;
+        this.playlistType = playlistType;
+        this.ruleCount = ruleCount;
+    }
+
+    /**
+     * @return the type of formatted playlist that the XML would be de-serialized as
+     */
+    public Class<? extends FormattedSmartPlaylist> getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the name of the playlist, or null if it doesn't have one
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the type of the playlist, or null if it's missing or not a known type
+     */
+    public PlaylistType getPlaylistType() {
+        return playlistType;
+    }
+
+    /**
+     * @return the number of rules in the playlist, including any that are invalid
+     */
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[format=%s, name=%s, playlistType=%s, ruleCount=%d]", getClass().getSimpleName(),
+            format.getSimpleName(), name, playlistType, ruleCount);
+    }
+}
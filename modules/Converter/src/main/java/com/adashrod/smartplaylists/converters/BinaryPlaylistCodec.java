@@ -0,0 +1,213 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.MetadataField;
+import com.adashrod.smartplaylists.playlists.Operator;
+import com.adashrod.smartplaylists.playlists.Order;
+import com.adashrod.smartplaylists.playlists.PlaylistType;
+import com.adashrod.smartplaylists.playlists.Rule;
+import com.adashrod.timeperiod.TimePeriod;
+import com.adashrod.timeperiod.TimeUnit;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * BinaryPlaylistCodec reads and writes {@link AgnosticSmartPlaylist}s in a compact binary format, for caching parsed
+ * playlists and passing them between processes without parsing XML again. Everything round-trips: enums are stored as
+ * their ordinals and rule operands keep their types (String, Date or TimePeriod).
+ *
+ * The format starts with a magic number and a version. Enum constants may be added to the ends of the enums without
+ * changing the version, but reordering or removing any of them changes ordinals, so it requires a new version.
+ */
+public class BinaryPlaylistCodec {
+    private static final int MAGIC = 0x5350424e; // "SPBN"
+    private static final int VERSION = 1;
+
+    private static final byte NULL = -1;
+    private static final byte OPERAND_STRING = 0;
+    private static final byte OPERAND_DATE = 1;
+    private static final byte OPERAND_TIME_PERIOD = 2;
+
+    // strings longer than this are read a piece at a time, so that a damaged length can't allocate gigabytes up front
+    private static final int STRING_CHUNK_SIZE = 64 * 1024;
+
+    private static final MetadataField[] METADATA_FIELDS = MetadataField.values();
+    private static final Operator[] OPERATORS = Operator.values();
+    private static final PlaylistType[] PLAYLIST_TYPES = PlaylistType.values();
+    private static final TimeUnit[] TIME_UNITS = TimeUnit.values();
+
+    /**
+     * Writes the playlist in binary. The stream is flushed but not closed.
+     * @param playlist     the playlist to write
+     * @param outputStream where to write
+     * @throws IOException error writing, or a rule has an operand of an unsupported type
+     */
+    public void write(final AgnosticSmartPlaylist playlist, final OutputStream outputStream) throws IOException {
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        writeEnum(output, playlist.getPlaylistType());
+        writeString(output, playlist.getName());
+        output.writeByte(playlist.isMatchAll() == null ? NULL : playlist.isMatchAll() ? 1 : 0);
+        output.writeBoolean(playlist.getLimit() != null);
+        if (playlist.getLimit() != null) {
+            output.writeInt(playlist.getLimit());
+        }
+        output.writeBoolean(playlist.getOrder() != null);
+        if (playlist.getOrder() != null) {
+            output.writeBoolean(playlist.getOrder().isAscending());
+            writeEnum(output, playlist.getOrder().getKey());
+        }
+        output.writeInt(playlist.getRules().size());
+        for (final Rule rule: playlist.getRules()) {
+            writeEnum(output, rule.getField());
+            writeEnum(output, rule.getOperator());
+            writeOperand(output, rule);
+        }
+        output.flush();
+    }
+
+    /**
+     * Reads a playlist that was written by {@link #write(AgnosticSmartPlaylist, OutputStream)}. Exactly the bytes of
+     * the playlist are read, so more data can follow it in the stream. The stream is not closed, and since it's read in
+     * small pieces it should be buffered.
+     * @param inputStream the binary playlist
+     * @return the playlist
+     * @throws IOException error reading, or the data isn't a binary playlist of a known version
+     */
+    public AgnosticSmartPlaylist read(final InputStream inputStream) throws IOException {
+        final DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a binary smart playlist");
+        }
+        final int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported binary smart playlist version %d, expected %d", version,
+                VERSION));
+        }
+        final AgnosticSmartPlaylist playlist = new AgnosticSmartPlaylist()
+            .setPlaylistType(readEnum(input, PLAYLIST_TYPES))
+            .setName(readString(input));
+        final byte matchAll = input.readByte();
+        playlist.setMatchAll(matchAll == NULL ? null : matchAll == 1);
+        if (input.readBoolean()) {
+            playlist.setLimit(input.readInt());
+        }
+        if (input.readBoolean()) {
+            final boolean ascending = input.readBoolean();
+            playlist.setOrder(new Order().setAscending(ascending).setKey(readEnum(input, METADATA_FIELDS)));
+        }
+        final int ruleCount = input.readInt();
+        for (int i = 0; i < ruleCount; i++) {
+            final Rule rule = new Rule()
+                .setField(readEnum(input, METADATA_FIELDS))
+                .setOperator(readEnum(input, OPERATORS));
+            rule.setOperand(readOperand(input));
+            playlist.getRules().add(rule);
+        }
+        return playlist;
+    }
+
+    private void writeOperand(final DataOutputStream output, final Rule rule) throws IOException {
+        final Object operand = rule.getOperand();
+        if (operand == null) {
+            output.writeByte(NULL);
+        } else if (operand instanceof String) {
+            output.writeByte(OPERAND_STRING);
+            writeString(output, (String) operand);
+        } else if (operand instanceof Date) {
+            output.writeByte(OPERAND_DATE);
+            output.writeLong(((Date) operand).getTime());
+        } else if (operand instanceof TimePeriod) {
+            // the largest unit that the period is a whole number of, so that it comes back exactly the same
+            final TimeAmount period = TimeAmount.largestUnit((TimePeriod) operand, TimeUnit.WEEK);
+            output.writeByte(OPERAND_TIME_PERIOD);
+            output.writeLong(period.getAmount());
+            writeEnum(output, period.getUnit());
+        } else {
+            throw new IOException(String.format("the operand of a %s should be a %s, %s, or %s, but was a %s. Rule = %s",
+                Rule.class.getCanonicalName(), String.class.getName(), TimePeriod.class.getCanonicalName(),
+                Date.class.getName(), operand.getClass().getCanonicalName(), rule));
+        }
+    }
+
+    private Object readOperand(final DataInputStream input) throws IOException {
+        final byte operandType = input.readByte();
+        switch (operandType) {
+            case NULL:
+                return null;
+            case OPERAND_STRING:
+                return readString(input);
+            case OPERAND_DATE:
+                return new Date(input.readLong());
+            case OPERAND_TIME_PERIOD:
+                final long amount = input.readLong();
+                final TimeUnit unit = readEnum(input, TIME_UNITS);
+                if (amount > Integer.MAX_VALUE || amount < Integer.MIN_VALUE || unit == null) {
+                    throw new IOException(String.format("Invalid time period %d %s", amount, unit));
+                }
+                return new TimePeriod((int) amount, unit);
+            default:
+                throw new IOException("Unknown operand type " + operandType);
+        }
+    }
+
+    private void writeEnum(final DataOutputStream output, final Enum<?> value) throws IOException {
+        output.writeShort(value == null ? NULL : value.ordinal());
+    }
+
+    private <T extends Enum<T>> T readEnum(final DataInputStream input, final T[] values) throws IOException {
+        final short ordinal = input.readShort();
+        if (ordinal == NULL) {
+            return null;
+        } else if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException(String.format("Invalid %s ordinal %d", values.getClass().getComponentType()
+                .getSimpleName(), ordinal));
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * Writes a string as its length in bytes followed by its UTF-8 bytes; unlike writeUTF, this has no 64KB limit
+     */
+    private void writeString(final DataOutputStream output, final String string) throws IOException {
+        if (string == null) {
+            output.writeInt(NULL);
+        } else {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private String readString(final DataInputStream input) throws IOException {
+        final int length = input.readInt();
+        if (length == NULL) {
+            return null;
+        } else if (length < 0) {
+            throw new IOException("Invalid string length " + length);
+        }
+        if (length <= STRING_CHUNK_SIZE) {
+            final byte[] bytes = new byte[length];
+            input.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        // the length hasn't been checked against anything, so memory is only taken as the bytes actually arrive
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(STRING_CHUNK_SIZE);
+        final byte[] chunk = new byte[STRING_CHUNK_SIZE];
+        for (int remaining = length; remaining > 0; remaining -= chunk.length) {
+            final int chunkLength = Math.min(remaining, chunk.length);
+            input.readFully(chunk, 0, chunkLength);
+            bytes.write(chunk, 0, chunkLength);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
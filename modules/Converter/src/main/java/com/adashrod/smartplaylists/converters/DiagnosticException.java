@@ -0,0 +1,28 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.Diagnostic;
+
+/**
+ * Thrown inside the converters when a rule can't be converted, and caught where the rule's problem is logged. It
+ * carries the problem instead of a formatted message, and has no stack trace, since it never leaves the converters.
+ */
+class DiagnosticException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    // never serialized, since the exception never leaves the converters
+    private final transient Diagnostic diagnostic;
+
+    DiagnosticException(final Diagnostic diagnostic) {
+        super(null, null, false, false);
+        this.diagnostic = diagnostic;
+    }
+
+    Diagnostic getDiagnostic() {
+        return diagnostic;
+    }
+
+    @Override
+    public String getMessage() {
+        return diagnostic != null ? diagnostic.getMessage() : null;
+    }
+}
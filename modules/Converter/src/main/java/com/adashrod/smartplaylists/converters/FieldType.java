@@ -0,0 +1,11 @@
+package com.adashrod.smartplaylists.converters;
+
+/**
+ * The kind of value that a field holds, which decides the operators allowed on it and how its operand is read and
+ * written
+ */
+enum FieldType {
+    STRING,
+    NUMBER,
+    DATE
+}
@@ -0,0 +1,195 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.playlists.MetadataField;
+import com.adashrod.smartplaylists.playlists.Operator;
+import com.adashrod.timeperiod.TimeUnit;
+
+import java.util.Arrays;
+
+/**
+ * The numbers that GMMP playlists use for fields, operators, orders, and time units. GMMP's numbers are small and
+ * dense, so both directions are plain array lookups: by the GMMP number when reading, and by the ordinal of the
+ * format-agnostic value when writing. Nothing is boxed or searched, and the tables are built once and never change, so
+ * the shared instance can be used from any thread.
+ */
+final class GmmpDialect {
+    static final GmmpDialect INSTANCE = new GmmpDialect();
+
+    /**
+     * returned when a value from the format-agnostic model has no GMMP number
+     */
+    static final int UNSUPPORTED = -1;
+    /**
+     * the time unit of rules whose operand isn't a time period
+     */
+    static final int NO_TIME_UNIT = -1;
+
+    private final MetadataField[] fields = new MetadataField[14];
+    private final int[] fieldValues = newTable(MetadataField.values().length);
+    private final FieldType[] fieldTypes = new FieldType[MetadataField.values().length];
+    private final Operator[][] operators = new Operator[FieldType.values().length][6];
+    private final int[][] operatorValues = new int[FieldType.values().length][];
+    private final MetadataField[] orders = new MetadataField[15];
+    private final int[] orderValues = newTable(MetadataField.values().length);
+    // indexed by the GMMP value + 1, since no time unit is -1
+    private final TimeUnit[] timeUnits = new TimeUnit[5];
+    private final int[] timeUnitValues = newTable(TimeUnit.values().length);
+
+    private GmmpDialect() {
+        for (final FieldType fieldType: FieldType.values()) {
+            operatorValues[fieldType.ordinal()] = newTable(Operator.values().length);
+        }
+
+        field(0, MetadataField.ARTIST, FieldType.STRING);
+        field(1, MetadataField.ALBUM_ARTIST, FieldType.STRING);
+        field(2, MetadataField.TITLE, FieldType.STRING);
+        field(3, MetadataField.ALBUM, FieldType.STRING);
+        field(4, MetadataField.GENRE, FieldType.STRING);
+        field(5, MetadataField.FILE_NAME, FieldType.STRING);
+        field(6, MetadataField.YEAR, FieldType.NUMBER);
+        field(7, MetadataField.DURATION, FieldType.NUMBER); // time units
+        field(8, MetadataField.RATING, FieldType.NUMBER);
+        field(9, MetadataField.PLAY_COUNT, FieldType.NUMBER);
+        field(12, MetadataField.TRACK_NUMBER, FieldType.NUMBER);
+        field(13, MetadataField.DISC_NUMBER, FieldType.NUMBER);
+        field(10, MetadataField.DATE_ADDED, FieldType.DATE); // time units when operator is 2 or 3
+        field(11, MetadataField.LAST_PLAYED, FieldType.DATE); // time units when operator is 2 or 3
+
+        operator(FieldType.STRING, 0, Operator.IS);
+        operator(FieldType.STRING, 1, Operator.IS_NOT);
+        operator(FieldType.STRING, 2, Operator.CONTAINS);
+        operator(FieldType.STRING, 3, Operator.DOES_NOT_CONTAIN);
+        operator(FieldType.STRING, 4, Operator.STARTS_WITH);
+        operator(FieldType.STRING, 5, Operator.ENDS_WITH);
+        operator(FieldType.NUMBER, 0, Operator.IS);
+        operator(FieldType.NUMBER, 1, Operator.IS_NOT);
+        operator(FieldType.NUMBER, 2, Operator.GREATER_THAN);
+        operator(FieldType.NUMBER, 3, Operator.GREATER_THAN_OR_EQUAL);
+        operator(FieldType.NUMBER, 4, Operator.LESS_THAN);
+        operator(FieldType.NUMBER, 5, Operator.LESS_THAN_OR_EQUAL);
+        operator(FieldType.DATE, 0, Operator.AFTER);
+        operator(FieldType.DATE, 1, Operator.BEFORE);
+        operator(FieldType.DATE, 2, Operator.IN_THE_LAST);
+        operator(FieldType.DATE, 3, Operator.NOT_IN_THE_LAST);
+
+        order(0, MetadataField.RANDOM);
+        order(1, MetadataField.ARTIST);
+        order(2, MetadataField.ALBUM_ARTIST);
+        order(3, MetadataField.TITLE);
+        order(4, MetadataField.ALBUM);
+        order(5, MetadataField.GENRE);
+        order(6, MetadataField.FILE_NAME);
+        order(7, MetadataField.YEAR);
+        order(8, MetadataField.DURATION);
+        order(9, MetadataField.RATING);
+        order(10, MetadataField.PLAY_COUNT);
+        order(11, MetadataField.DATE_ADDED);
+        order(12, MetadataField.LAST_PLAYED);
+        order(13, MetadataField.TRACK_NUMBER);
+        order(14, MetadataField.DISC_NUMBER);
+
+        timeUnit(0, TimeUnit.SECOND);
+        timeUnit(1, TimeUnit.MINUTE);
+        timeUnit(2, TimeUnit.HOUR);
+        timeUnit(3, TimeUnit.DAY);
+    }
+
+    private static int[] newTable(final int length) {
+        final int[] table = new int[length];
+        Arrays.fill(table, UNSUPPORTED);
+        return table;
+    }
+
+    private void field(final int value, final MetadataField field, final FieldType fieldType) {
+        fields[value] = field;
+        fieldValues[field.ordinal()] = value;
+        fieldTypes[field.ordinal()] = fieldType;
+    }
+
+    private void operator(final FieldType fieldType, final int value, final Operator operator) {
+        operators[fieldType.ordinal()][value] = operator;
+        operatorValues[fieldType.ordinal()][operator.ordinal()] = value;
+    }
+
+    private void order(final int value, final MetadataField field) {
+        orders[value] = field;
+        orderValues[field.ordinal()] = value;
+    }
+
+    private void timeUnit(final int value, final TimeUnit timeUnit) {
+        timeUnits[value + 1] = timeUnit;
+        timeUnitValues[timeUnit.ordinal()] = value;
+    }
+
+    private static <T> T lookUp(final T[] table, final int index) {
+        return index >= 0 && index < table.length ? table[index] : null;
+    }
+
+    /**
+     * @param value the field of a GMMP rule
+     * @return the field, or null if value isn't a GMMP field
+     */
+    MetadataField getField(final int value) {
+        return lookUp(fields, value);
+    }
+
+    /**
+     * @return the GMMP number of the field, or {@link #UNSUPPORTED} if GMMP doesn't support it
+     */
+    int getFieldValue(final MetadataField field) {
+        return fieldValues[field.ordinal()];
+    }
+
+    /**
+     * @return the type of the field in GMMP playlists, or null if GMMP doesn't support it
+     */
+    FieldType getFieldType(final MetadataField field) {
+        return field != null ? fieldTypes[field.ordinal()] : null;
+    }
+
+    /**
+     * @param fieldType the type of the field that the operator is on
+     * @param value     the operator of a GMMP rule
+     * @return the operator, or null if it's not allowed on fields of that type
+     */
+    Operator getOperator(final FieldType fieldType, final int value) {
+        return lookUp(operators[fieldType.ordinal()], value);
+    }
+
+    /**
+     * @return the GMMP number of the operator, or {@link #UNSUPPORTED} if it's not allowed on fields of that type
+     */
+    int getOperatorValue(final FieldType fieldType, final Operator operator) {
+        return operator != null ? operatorValues[fieldType.ordinal()][operator.ordinal()] : UNSUPPORTED;
+    }
+
+    /**
+     * @param value the order of a GMMP playlist
+     * @return the field that it orders by, or null if value isn't a GMMP order
+     */
+    MetadataField getOrder(final int value) {
+        return lookUp(orders, value);
+    }
+
+    /**
+     * @return the GMMP number of the order by the field, or {@link #UNSUPPORTED} if GMMP can't order by it
+     */
+    int getOrderValue(final MetadataField field) {
+        return orderValues[field.ordinal()];
+    }
+
+    /**
+     * @param value the time unit of a GMMP rule
+     * @return the unit, or null if value is {@link #NO_TIME_UNIT} or isn't a GMMP time unit
+     */
+    TimeUnit getTimeUnit(final int value) {
+        return lookUp(timeUnits, value + 1);
+    }
+
+    /**
+     * @return the GMMP number of the unit, or {@link #UNSUPPORTED} if GMMP doesn't support it
+     */
+    int getTimeUnitValue(final TimeUnit timeUnit) {
+        return timeUnitValues[timeUnit.ordinal()];
+    }
+}
@@ -1,9 +1,15 @@
 package com.adashrod.smartplaylists.converters;
 
+import com.adashrod.smartplaylists.api.ConversionReport;
+import com.adashrod.smartplaylists.api.Diagnostic;
+import com.adashrod.smartplaylists.api.DiagnosticCode;
+import com.adashrod.smartplaylists.api.DiagnosticSink;
 import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.api.ParseLimits;
 import com.adashrod.smartplaylists.api.PlaylistConverter;
 import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
 import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.JaxbContextRegistry;
 import com.adashrod.smartplaylists.playlists.MetadataField;
 import com.adashrod.smartplaylists.playlists.Operator;
 import com.adashrod.smartplaylists.playlists.Order;
@@ -11,23 +17,16 @@ import com.adashrod.smartplaylists.playlists.PlaylistType;
 import com.adashrod.smartplaylists.playlists.Rule;
 import com.adashrod.timeperiod.TimePeriod;
 import com.adashrod.timeperiod.TimeUnit;
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
-import javafx.util.Pair;
 import org.apache.log4j.Logger;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import java.io.InputStream;
+import java.io.Reader;
 import java.text.DateFormat;
-import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
-import java.util.Collection;
 import java.util.Date;
-import java.util.Set;
 
 /**
  * GmmpPlaylistConverter knows how to convert {@link AgnosticSmartPlaylist}s to {@link GmmpSmartPlaylist}s and vice
@@ -36,102 +35,77 @@ import java.util.Set;
 public class GmmpPlaylistConverter implements PlaylistConverter {
     private static final Logger logger = Logger.getLogger(GmmpPlaylistConverter.class);
 
-    private static final BiMap<Integer, MetadataField> STRING_FIELD_MAP = HashBiMap.create();
-    private static final BiMap<Integer, MetadataField> NUMBER_FIELD_MAP = HashBiMap.create();
-    private static final BiMap<Integer, MetadataField> DATE_FIELD_MAP = HashBiMap.create();
-    private static final BiMap<Integer, Operator> STRING_OPERATOR_MAP = HashBiMap.create();
-    private static final BiMap<Integer, Operator> NUMBER_OPERATOR_MAP = HashBiMap.create();
-    private static final BiMap<Integer, Operator> DATE_OPERATOR_MAP = HashBiMap.create();
-    private static final BiMap<Integer, MetadataField> ORDER_BY_MAP = HashBiMap.create();
-    private static final BiMap<Integer, TimeUnit> TIME_UNIT_MAP = HashBiMap.create();
-    private static final Set<Integer> STRING_FIELD_KEYS;
-    private static final Set<Integer> NUMBER_FIELD_KEYS;
-    private static final Set<Integer> DATE_FIELD_KEYS;
-    private static final Set<MetadataField> STRING_FIELD_VALUES;
-    private static final Set<MetadataField> NUMBER_FIELD_VALUES;
-    private static final Set<MetadataField> DATE_FIELD_VALUES;
+    private static final GmmpDialect DIALECT = GmmpDialect.INSTANCE;
     private static final String DATE_FORMAT_STRING = "yyyy/MM/dd";
-    private static final DateFormat DATE_FORMAT = new SimpleDateFormat(DATE_FORMAT_STRING);
+    // DateFormats aren't thread-safe, so each thread gets its own
+    private static final ThreadLocal<DateFormat> DATE_FORMAT =
+        ThreadLocal.withInitial(() -> new SimpleDateFormat(DATE_FORMAT_STRING));
 
     private static final boolean defaultMatchAll = false;
     private static final MetadataField defaultOrderByField = MetadataField.RANDOM;
     private static final boolean defaultOrderIsAscending = false;
     private static final int defaultLimit = 0; // no limit
 
-    static {
-        STRING_FIELD_MAP.put(0, MetadataField.ARTIST);
-        STRING_FIELD_MAP.put(1, MetadataField.ALBUM_ARTIST);
-        STRING_FIELD_MAP.put(2, MetadataField.TITLE);
-        STRING_FIELD_MAP.put(3, MetadataField.ALBUM);
-        STRING_FIELD_MAP.put(4, MetadataField.GENRE);
-        STRING_FIELD_MAP.put(5, MetadataField.FILE_NAME);
-        NUMBER_FIELD_MAP.put(6, MetadataField.YEAR);
-        NUMBER_FIELD_MAP.put(7, MetadataField.DURATION); // time units
-        NUMBER_FIELD_MAP.put(8, MetadataField.RATING);
-        NUMBER_FIELD_MAP.put(9, MetadataField.PLAY_COUNT);
-        NUMBER_FIELD_MAP.put(12, MetadataField.TRACK_NUMBER);
-        NUMBER_FIELD_MAP.put(13, MetadataField.DISC_NUMBER);
-        DATE_FIELD_MAP.put(10, MetadataField.DATE_ADDED); // time units when operator is 2 or 3
-        DATE_FIELD_MAP.put(11, MetadataField.LAST_PLAYED); // time units when operator is 2 or 3
-        STRING_OPERATOR_MAP.put(0, Operator.IS);
-        STRING_OPERATOR_MAP.put(1, Operator.IS_NOT);
-        STRING_OPERATOR_MAP.put(2, Operator.CONTAINS);
-        STRING_OPERATOR_MAP.put(3, Operator.DOES_NOT_CONTAIN);
-        STRING_OPERATOR_MAP.put(4, Operator.STARTS_WITH);
-        STRING_OPERATOR_MAP.put(5, Operator.ENDS_WITH);
-        NUMBER_OPERATOR_MAP.put(0, Operator.IS);
-        NUMBER_OPERATOR_MAP.put(1, Operator.IS_NOT);
-        NUMBER_OPERATOR_MAP.put(2, Operator.GREATER_THAN);
-        NUMBER_OPERATOR_MAP.put(3, Operator.GREATER_THAN_OR_EQUAL);
-        NUMBER_OPERATOR_MAP.put(4, Operator.LESS_THAN);
-        NUMBER_OPERATOR_MAP.put(5, Operator.LESS_THAN_OR_EQUAL);
-        DATE_OPERATOR_MAP.put(0, Operator.AFTER);
-        DATE_OPERATOR_MAP.put(1, Operator.BEFORE);
-        DATE_OPERATOR_MAP.put(2, Operator.IN_THE_LAST);
-        DATE_OPERATOR_MAP.put(3, Operator.NOT_IN_THE_LAST);
-
-        ORDER_BY_MAP.put(0, MetadataField.RANDOM);
-        ORDER_BY_MAP.put(1, MetadataField.ARTIST);
-        ORDER_BY_MAP.put(2, MetadataField.ALBUM_ARTIST);
-        ORDER_BY_MAP.put(3, MetadataField.TITLE);
-        ORDER_BY_MAP.put(4, MetadataField.ALBUM);
-        ORDER_BY_MAP.put(5, MetadataField.GENRE);
-        ORDER_BY_MAP.put(6, MetadataField.FILE_NAME);
-        ORDER_BY_MAP.put(7, MetadataField.YEAR);
-        ORDER_BY_MAP.put(8, MetadataField.DURATION);
-        ORDER_BY_MAP.put(9, MetadataField.RATING);
-        ORDER_BY_MAP.put(10, MetadataField.PLAY_COUNT);
-        ORDER_BY_MAP.put(11, MetadataField.DATE_ADDED);
-        ORDER_BY_MAP.put(12, MetadataField.LAST_PLAYED);
-        ORDER_BY_MAP.put(13, MetadataField.TRACK_NUMBER);
-        ORDER_BY_MAP.put(14, MetadataField.DISC_NUMBER);
+    /**
+     * Given XML that is a GMMP-formatted smart playlist, this reads it and returns that playlist as an object. The
+     * encoding declared in the XML is honored and the stream is not closed.
+     * @param inputStream the XML to read
+     * @return a {@link GmmpSmartPlaylist}
+     * @throws JAXBException error parsing the XML, or the XML isn't a valid GMMP playlist
+     */
+    @Override
+    public FormattedSmartPlaylist readFrom(final InputStream inputStream) throws JAXBException {
+        final Unmarshaller unmarshaller = JaxbContextRegistry.getUnmarshaller(GmmpSmartPlaylist.class);
+        return (GmmpSmartPlaylist) unmarshaller.unmarshal(inputStream);
+    }
 
-        TIME_UNIT_MAP.put(-1, null);
-        TIME_UNIT_MAP.put(0, TimeUnit.SECOND);
-        TIME_UNIT_MAP.put(1, TimeUnit.MINUTE);
-        TIME_UNIT_MAP.put(2, TimeUnit.HOUR);
-        TIME_UNIT_MAP.put(3, TimeUnit.DAY);
+    /**
+     * Given XML that is a GMMP-formatted smart playlist, this reads it within the limits and returns that playlist as an
+     * object. The stream is not closed.
+     * @param inputStream the XML to read
+     * @param limits      the limits on the resources that reading can use
+     * @return a {@link GmmpSmartPlaylist}
+     * @throws JAXBException error parsing the XML, the XML isn't a valid GMMP playlist, or it exceeds a limit
+     */
+    @Override
+    public FormattedSmartPlaylist readFrom(final InputStream inputStream, final ParseLimits limits)
+            throws JAXBException {
+        return (GmmpSmartPlaylist) LimitedXmlStreamReader.unmarshal(JaxbContextRegistry.getUnmarshaller(
+            GmmpSmartPlaylist.class), inputStream, limits);
+    }
 
-        STRING_FIELD_KEYS = STRING_FIELD_MAP.keySet();
-        NUMBER_FIELD_KEYS = NUMBER_FIELD_MAP.keySet();
-        DATE_FIELD_KEYS = DATE_FIELD_MAP.keySet();
-        STRING_FIELD_VALUES = STRING_FIELD_MAP.values();
-        NUMBER_FIELD_VALUES = NUMBER_FIELD_MAP.values();
-        DATE_FIELD_VALUES = DATE_FIELD_MAP.values();
+    /**
+     * Given XML that is a GMMP-formatted smart playlist, this reads it and returns as much of that playlist as it can,
+     * carrying on past elements that are invalid. The stream is not closed.
+     * @param inputStream the XML to read
+     * @param errorLog    every validation error in the XML will be appended to this, with its line and column
+     * @return a {@link GmmpSmartPlaylist}
+     * @throws JAXBException the XML isn't well-formed
+     */
+    @Override
+    public FormattedSmartPlaylist readFrom(final InputStream inputStream, final DiagnosticSink errorLog)
+            throws JAXBException {
+        final Unmarshaller unmarshaller = JaxbContextRegistry.getUnmarshaller(GmmpSmartPlaylist.class);
+        unmarshaller.setEventHandler(new ValidationErrorCollector(errorLog));
+        try {
+            return (GmmpSmartPlaylist) unmarshaller.unmarshal(inputStream);
+        } finally {
+            // the unmarshaller is reused by this thread, so restore the handler that fails on the first error
+            unmarshaller.setEventHandler(JaxbContextRegistry.STRICT_EVENT_HANDLER);
+        }
     }
 
     /**
-     * Given an XML file that is a GMMP-formatted smart playlist, this reads that file and returns that playlist as an
-     * object.
-     * @param file the file to read
+     * Given XML chars that are a GMMP-formatted smart playlist, this reads them and returns that playlist as an
+     * object. The reader is not closed.
+     * @param reader the XML to read
      * @return a {@link GmmpSmartPlaylist}
-     * @throws JAXBException error parsing the XML
-     * @throws FileNotFoundException file not found
+     * @throws JAXBException error parsing the XML, or the XML isn't a valid GMMP playlist
      */
-    public FormattedSmartPlaylist readFromFile(final File file) throws JAXBException, FileNotFoundException {
-        final JAXBContext context = JAXBContext.newInstance(GmmpSmartPlaylist.class);
-        final Unmarshaller unmarshaller = context.createUnmarshaller();
-        return (GmmpSmartPlaylist) unmarshaller.unmarshal(new FileReader(file));
+    @Override
+    public FormattedSmartPlaylist readFrom(final Reader reader) throws JAXBException {
+        final Unmarshaller unmarshaller = JaxbContextRegistry.getUnmarshaller(GmmpSmartPlaylist.class);
+        return (GmmpSmartPlaylist) unmarshaller.unmarshal(reader);
     }
 
     /**
@@ -140,72 +114,130 @@ public class GmmpPlaylistConverter implements PlaylistConverter {
      * @return the converted format-agnostic playlist
      */
     public AgnosticSmartPlaylist convert(final FormattedSmartPlaylist formattedSmartPlaylist,
-            final Collection<String> errorLog) {
-        final AgnosticSmartPlaylist result = new AgnosticSmartPlaylist();
+            final DiagnosticSink errorLog) {
+        return convert(formattedSmartPlaylist, errorLog, false);
+    }
+
+    @Override
+    public AgnosticSmartPlaylist convert(final FormattedSmartPlaylist formattedSmartPlaylist,
+            final DiagnosticSink errorLog, final boolean parallel) {
         final GmmpSmartPlaylist gmmpSmartPlaylist = (GmmpSmartPlaylist) formattedSmartPlaylist;
+        final AgnosticSmartPlaylist result = convertHeader(gmmpSmartPlaylist, errorLog);
+
+        RuleListConverter.convertAll(gmmpSmartPlaylist.getRules(), this::convertRule, errorLog, result.getRules(),
+            parallel);
+
+        return result;
+    }
+
+    /**
+     * Converts everything about a GMMP playlist except for its rules
+     * @param gmmpSmartPlaylist the playlist whose name, order, limit, and match are read; its rules are ignored
+     * @param errorLog          log for errors encountered during operation
+     * @return a format-agnostic playlist with no rules
+     */
+    AgnosticSmartPlaylist convertHeader(final GmmpSmartPlaylist gmmpSmartPlaylist, final DiagnosticSink errorLog) {
+        final AgnosticSmartPlaylist result = new AgnosticSmartPlaylist();
         setDefaultsOn(result);
         overrideDefaults(result, gmmpSmartPlaylist, errorLog);
         result.setPlaylistType(PlaylistType.MUSIC);
         result.setName(gmmpSmartPlaylist.getName());
+        return result;
+    }
 
-        for (final GmmpSmartPlaylist.Rule gmmpRule: gmmpSmartPlaylist.getRules()) {
-            final Rule smartRule = new Rule();
-            final int field = gmmpRule.getField();
-            if (STRING_FIELD_KEYS.contains(field)) {
-                smartRule.setField(STRING_FIELD_MAP.get(field));
-                smartRule.setOperator(STRING_OPERATOR_MAP.get(gmmpRule.getOperator()));
-                smartRule.setOperand(gmmpRule.getValue());
-            } else if (NUMBER_FIELD_KEYS.contains(field)) {
-                smartRule.setField(NUMBER_FIELD_MAP.get(field));
-                smartRule.setOperator(NUMBER_OPERATOR_MAP.get(gmmpRule.getOperator()));
-                if (smartRule.getField() == MetadataField.DURATION) {
-                    final int amountOfTime = Integer.parseInt(gmmpRule.getValue());
-                    final TimeUnit timeUnit = TIME_UNIT_MAP.get(gmmpRule.getTimeUnit());
-                    if (amountOfTime < 0) {
-                        log(errorLog, String.format("Negative times are not allowed %d", amountOfTime));
-                    } else if (timeUnit == null) {
-                        log(errorLog, String.format("Invalid time unit value %d", gmmpRule.getTimeUnit()));
-                    } else {
-                        smartRule.setOperand(new TimePeriod(amountOfTime, timeUnit));
-                    }
-                } else {
-                    smartRule.setOperand(gmmpRule.getValue());
-                }
-            } else if (DATE_FIELD_KEYS.contains(field)) {
-                smartRule.setField(DATE_FIELD_MAP.get(field));
-                smartRule.setOperator(DATE_OPERATOR_MAP.get(gmmpRule.getOperator()));
-                if (smartRule.getOperator() == Operator.BEFORE || smartRule.getOperator() == Operator.AFTER) {
-                    try {
-                        smartRule.setOperand(DATE_FORMAT.parse(gmmpRule.getValue()));
-                    } catch (final ParseException pe) {
-                        log(errorLog, String.format("%s at index %d. Dates must be in the format: %s ",
-                            pe.getMessage(), pe.getErrorOffset(), DATE_FORMAT_STRING));
-                        continue;
-                    }
-                } else if (smartRule.getOperator() == Operator.IN_THE_LAST || smartRule.getOperator() == Operator.NOT_IN_THE_LAST) {
-                    // time period
-                    final int amountOfTime = Integer.parseInt(gmmpRule.getValue());
-                    final TimeUnit timeUnit = TIME_UNIT_MAP.get(gmmpRule.getTimeUnit());
-                    if (amountOfTime < 0) {
-                        log(errorLog, String.format("Negative times are not allowed %d", amountOfTime));
-                    } else if (timeUnit == null) {
-                        log(errorLog, String.format("Invalid time unit value %d", gmmpRule.getTimeUnit()));
-                    } else {
-                        smartRule.setOperand(new TimePeriod(amountOfTime, timeUnit));
-                    }
+    /**
+     * Converts a single GMMP rule, logging the reason if it can't be converted
+     * @param gmmpRule  the rule to convert
+     * @param ruleIndex the index of the rule in its playlist
+     * @param errorLog  log for errors encountered during operation
+     * @return the converted rule, or null if it was invalid
+     */
+    Rule convertRule(final GmmpSmartPlaylist.Rule gmmpRule, final int ruleIndex, final DiagnosticSink errorLog) {
+        final Rule smartRule = new Rule();
+        final int field = gmmpRule.getField();
+        final MetadataField smartField = DIALECT.getField(field);
+        final FieldType fieldType = DIALECT.getFieldType(smartField);
+        final String value = gmmpRule.getValue();
+        // a leniently loaded rule can be missing its value; an empty one is only a value for text fields
+        if (fieldType != null && (value == null || value.isEmpty() && fieldType != FieldType.STRING)) {
+            log(errorLog, new Diagnostic(DiagnosticCode.MISSING_OPERAND, ruleIndex,
+                "Rule has no value, skipping it\nRule = %s", gmmpRule));
+            return null;
+        }
+        if (fieldType == FieldType.STRING) {
+            smartRule.setField(smartField);
+            smartRule.setOperator(DIALECT.getOperator(fieldType, gmmpRule.getOperator()));
+            smartRule.setOperand(value);
+        } else if (fieldType == FieldType.NUMBER) {
+            smartRule.setField(smartField);
+            smartRule.setOperator(DIALECT.getOperator(fieldType, gmmpRule.getOperator()));
+            if (smartField == MetadataField.DURATION) {
+                final TimePeriod timePeriod = convertTimePeriod(gmmpRule, ruleIndex, errorLog);
+                if (timePeriod == null) {
+                    return null;
                 }
+                smartRule.setOperand(timePeriod);
             } else {
-                log(errorLog, String.format("Invalid field \"%d\" in GMMP rule:\n%s", field, gmmpRule));
+                smartRule.setOperand(value);
             }
-            if (smartRule.getOperator() == null) {
-                log(errorLog, String.format("Invalid combination of field \"%d\" (%s) and operator \"%d\" in rule:\n%s", field,
-                    smartRule.getField(), gmmpRule.getOperator(), gmmpRule));
-                continue;
+        } else if (fieldType == FieldType.DATE) {
+            smartRule.setField(smartField);
+            smartRule.setOperator(DIALECT.getOperator(fieldType, gmmpRule.getOperator()));
+            if (smartRule.getOperator() == Operator.BEFORE || smartRule.getOperator() == Operator.AFTER) {
+                final ParsePosition position = new ParsePosition(0);
+                final long millis = OperandParser.parseDate(value, '/', position);
+                if (position.getErrorIndex() >= 0) {
+                    log(errorLog, new Diagnostic(DiagnosticCode.INVALID_OPERAND, ruleIndex,
+                        "Unparseable date: \"%s\" at index %d. Dates must be in the format: %s ", value,
+                        position.getErrorIndex(), DATE_FORMAT_STRING));
+                    return null;
+                }
+                smartRule.setOperand(new Date(millis));
+            } else if (smartRule.getOperator() == Operator.IN_THE_LAST || smartRule.getOperator() == Operator.NOT_IN_THE_LAST) {
+                // time period
+                final TimePeriod timePeriod = convertTimePeriod(gmmpRule, ruleIndex, errorLog);
+                if (timePeriod == null) {
+                    return null;
+                }
+                smartRule.setOperand(timePeriod);
             }
-            result.getRules().add(smartRule);
+        } else {
+            log(errorLog, new Diagnostic(DiagnosticCode.UNKNOWN_FIELD, ruleIndex,
+                "Invalid field \"%d\" in GMMP rule:\n%s", field, gmmpRule));
         }
+        if (smartRule.getOperator() == null) {
+            log(errorLog, new Diagnostic(DiagnosticCode.UNKNOWN_OPERATOR, ruleIndex,
+                "Invalid combination of field \"%d\" (%s) and operator \"%d\" in rule:\n%s", field,
+                smartRule.getField(), gmmpRule.getOperator(), gmmpRule));
+            return null;
+        }
+        return smartRule;
+    }
 
-        return result;
+    /**
+     * Reads the amount of time in a rule's value along with its separate time unit
+     * @param gmmpRule  the rule with the time period
+     * @param ruleIndex the index of the rule in its playlist
+     * @param errorLog  log for errors encountered during operation
+     * @return the time period, or null if the amount or the unit was invalid
+     */
+    private TimePeriod convertTimePeriod(final GmmpSmartPlaylist.Rule gmmpRule, final int ruleIndex,
+            final DiagnosticSink errorLog) {
+        final String value = gmmpRule.getValue();
+        final ParsePosition position = new ParsePosition(0);
+        final int amountOfTime = OperandParser.parseAmount(value, position);
+        final TimeUnit timeUnit = DIALECT.getTimeUnit(gmmpRule.getTimeUnit());
+        if (position.getErrorIndex() >= 0) {
+            log(errorLog, new Diagnostic(DiagnosticCode.INVALID_OPERAND, ruleIndex,
+                "Unparseable amount of time: \"%s\" at index %d. Times must be whole, non-negative numbers", value,
+                position.getErrorIndex()));
+            return null;
+        } else if (timeUnit == null) {
+            log(errorLog, new Diagnostic(DiagnosticCode.INVALID_OPERAND, ruleIndex,
+                "Invalid time unit value %d", gmmpRule.getTimeUnit()));
+            return null;
+        }
+        return new TimePeriod(amountOfTime, timeUnit);
     }
 
     /**
@@ -214,50 +246,73 @@ public class GmmpPlaylistConverter implements PlaylistConverter {
      * @return the converted GMMP-formatted playlist
      */
     public FormattedSmartPlaylist convert(final AgnosticSmartPlaylist agnosticSmartPlaylist,
-            final Collection<String> errorLog) {
+            final DiagnosticSink errorLog) {
+        return convert(agnosticSmartPlaylist, errorLog, false);
+    }
+
+    @Override
+    public FormattedSmartPlaylist convert(final AgnosticSmartPlaylist agnosticSmartPlaylist,
+            final DiagnosticSink errorLog, final boolean parallel) {
         final GmmpSmartPlaylist result = new GmmpSmartPlaylist();
         setDefaultsOn(result);
         overrideDefaults(result, agnosticSmartPlaylist, errorLog);
         result.setName(agnosticSmartPlaylist.getName());
-        for (final Rule smartRule: agnosticSmartPlaylist.getRules()) {
-            final GmmpSmartPlaylist.Rule gmmpRule = new GmmpSmartPlaylist.Rule();
-            gmmpRule.setVersion(1);
-            final MetadataField field = smartRule.getField();
-            if (STRING_FIELD_VALUES.contains(field)) {
-                gmmpRule.setField(STRING_FIELD_MAP.inverse().get(field));
-                gmmpRule.setOperator(STRING_OPERATOR_MAP.inverse().get(smartRule.getOperator()));
-            } else if (NUMBER_FIELD_VALUES.contains(field)) {
-                gmmpRule.setField(NUMBER_FIELD_MAP.inverse().get(field));
-                gmmpRule.setOperator(NUMBER_OPERATOR_MAP.inverse().get(smartRule.getOperator()));
-            } else if (DATE_FIELD_VALUES.contains(field)) {
-                gmmpRule.setField(DATE_FIELD_MAP.inverse().get(field));
-                gmmpRule.setOperator(DATE_OPERATOR_MAP.inverse().get(smartRule.getOperator()));
-            } else {
-                log(errorLog, String.format("%s field is not supported in GMMP playlists\nRule = %s", field, smartRule));
-                continue;
-            }
-            final Object operand = smartRule.getOperand();
-            if (operand instanceof String) {
-                gmmpRule.setValue((String) operand);
-                gmmpRule.setTimeUnit(TIME_UNIT_MAP.inverse().get(null));
-            } else if (operand instanceof TimePeriod) {
-                final TimePeriod time = (TimePeriod) operand;
-                // GMMP only supports time units up to days (does not support weeks)
-                final Pair<Long, TimeUnit> timePair = time.getLargestUnit(TimeUnit.DAY);
-                gmmpRule.setValue(timePair.getKey().toString());
-                gmmpRule.setTimeUnit(TIME_UNIT_MAP.inverse().get(timePair.getValue()));
-            } else if (operand instanceof Date) {
-                gmmpRule.setValue(DATE_FORMAT.format(operand));
-                gmmpRule.setTimeUnit(TIME_UNIT_MAP.inverse().get(null));
-            } else {
-                log(errorLog, String.format("Something went horribly wrong. the operand of a %s should be a %s, %s, or %s, but was a %s. Rule = %s",
-                    Rule.class.getCanonicalName(), String.class.getName(), TimePeriod.class.getCanonicalName(),
-                    Date.class.getName(), operand.getClass().getCanonicalName(), smartRule));
-            }
+        RuleListConverter.convertAll(agnosticSmartPlaylist.getRules(), this::convertRule, errorLog, result.getRules(),
+            parallel);
+        return result;
+    }
 
-            result.getRules().add(gmmpRule);
+    /**
+     * Converts a single format-agnostic rule to a GMMP rule, logging the reason if it can't be converted
+     * @param smartRule the rule to convert
+     * @param ruleIndex the index of the rule in its playlist
+     * @param errorLog  log for errors encountered during operation
+     * @return the converted rule, or null if it isn't allowed in GMMP playlists
+     */
+    GmmpSmartPlaylist.Rule convertRule(final Rule smartRule, final int ruleIndex, final DiagnosticSink errorLog) {
+        final GmmpSmartPlaylist.Rule gmmpRule = new GmmpSmartPlaylist.Rule();
+        gmmpRule.setVersion(1);
+        final MetadataField field = smartRule.getField();
+        final FieldType fieldType = DIALECT.getFieldType(field);
+        if (fieldType == null) {
+            log(errorLog, new Diagnostic(DiagnosticCode.UNSUPPORTED_FIELD, ruleIndex,
+                "%s field is not supported in GMMP playlists\nRule = %s", field, smartRule));
+            return null;
         }
-        return result;
+        final int operator = DIALECT.getOperatorValue(fieldType, smartRule.getOperator());
+        if (operator == GmmpDialect.UNSUPPORTED) {
+            log(errorLog, new Diagnostic(DiagnosticCode.UNSUPPORTED_OPERATOR, ruleIndex,
+                "Operator \"%s\" is not allowed on field \"%s\" in GMMP playlists\nRule = %s", smartRule.getOperator(),
+                field, smartRule));
+            return null;
+        }
+        gmmpRule.setField(DIALECT.getFieldValue(field));
+        gmmpRule.setOperator(operator);
+        final Object operand = smartRule.getOperand();
+        if (operand == null) {
+            log(errorLog, new Diagnostic(DiagnosticCode.MISSING_OPERAND, ruleIndex,
+                "Rule has no value, skipping it\nRule = %s", smartRule));
+            return null;
+        } else if (operand instanceof String) {
+            gmmpRule.setValue((String) operand);
+            gmmpRule.setTimeUnit(GmmpDialect.NO_TIME_UNIT);
+        } else if (operand instanceof TimePeriod) {
+            final TimePeriod time = (TimePeriod) operand;
+            // GMMP only supports time units up to days (does not support weeks)
+            final TimeAmount timeAmount = TimeAmount.largestUnit(time, TimeUnit.DAY);
+            gmmpRule.setValue(Long.toString(timeAmount.getAmount()));
+            gmmpRule.setTimeUnit(DIALECT.getTimeUnitValue(timeAmount.getUnit()));
+        } else if (operand instanceof Date) {
+            gmmpRule.setValue(DATE_FORMAT.get().format(operand));
+            gmmpRule.setTimeUnit(GmmpDialect.NO_TIME_UNIT);
+        } else {
+            log(errorLog, new Diagnostic(DiagnosticCode.INVALID_OPERAND, ruleIndex,
+                "Something went horribly wrong. the operand of a %s should be a %s, %s, or %s, but was a %s. Rule = %s",
+                Rule.class.getCanonicalName(), String.class.getName(), TimePeriod.class.getCanonicalName(),
+                Date.class.getName(), operand.getClass().getCanonicalName(), smartRule));
+        }
+
+        return gmmpRule;
     }
 
     /**
@@ -266,7 +321,7 @@ public class GmmpPlaylistConverter implements PlaylistConverter {
      */
     private void setDefaultsOn(final GmmpSmartPlaylist gmmpSmartPlaylist) {
         gmmpSmartPlaylist.setVersion(1)
-            .setOrder(ORDER_BY_MAP.inverse().get(defaultOrderByField))
+            .setOrder(DIALECT.getOrderValue(defaultOrderByField))
             .setAscending(defaultOrderIsAscending)
             .setMatchAll(defaultMatchAll)
             .setLimit(defaultLimit);
@@ -279,16 +334,18 @@ public class GmmpPlaylistConverter implements PlaylistConverter {
      * @param errorLog          log for errors encountered during operation
      */
     private void overrideDefaults(final GmmpSmartPlaylist gmmpSmartPlaylist, final AgnosticSmartPlaylist smartPlaylist,
-            final Collection<String> errorLog) {
+            final DiagnosticSink errorLog) {
         if (smartPlaylist.isMatchAll() != null) {
             gmmpSmartPlaylist.setMatchAll(smartPlaylist.isMatchAll());
         }
         if (smartPlaylist.getOrder() != null) {
             if (smartPlaylist.getOrder().getKey() != null) {
-                if (ORDER_BY_MAP.inverse().get(smartPlaylist.getOrder().getKey()) != null) {
-                    gmmpSmartPlaylist.setOrder(ORDER_BY_MAP.inverse().get(smartPlaylist.getOrder().getKey()));
+                final int order = DIALECT.getOrderValue(smartPlaylist.getOrder().getKey());
+                if (order != GmmpDialect.UNSUPPORTED) {
+                    gmmpSmartPlaylist.setOrder(order);
                 } else {
-                    log(errorLog, String.format("Order value %s is not allowed in GMMP playlists", smartPlaylist.getOrder().getKey()));
+                    log(errorLog, new Diagnostic(DiagnosticCode.UNSUPPORTED_ORDER, Diagnostic.NO_RULE,
+                        "Order value %s is not allowed in GMMP playlists", smartPlaylist.getOrder().getKey()));
                 }
             }
             gmmpSmartPlaylist.setAscending(smartPlaylist.getOrder().isAscending());
@@ -318,12 +375,14 @@ public class GmmpPlaylistConverter implements PlaylistConverter {
      * @param errorLog          log for errors encountered during operation
      */
     private void overrideDefaults(final AgnosticSmartPlaylist smartPlaylist, final GmmpSmartPlaylist gmmpSmartPlaylist,
-            final Collection<String> errorLog) {
+            final DiagnosticSink errorLog) {
         if (gmmpSmartPlaylist.getOrder() != null) {
-            if (ORDER_BY_MAP.get(gmmpSmartPlaylist.getOrder()) != null) {
-                smartPlaylist.getOrder().setKey(ORDER_BY_MAP.get(gmmpSmartPlaylist.getOrder()));
+            final MetadataField orderKey = DIALECT.getOrder(gmmpSmartPlaylist.getOrder());
+            if (orderKey != null) {
+                smartPlaylist.getOrder().setKey(orderKey);
             } else {
-                log(errorLog, String.format("Invalid order value \"%d\" in GMMP playlist", gmmpSmartPlaylist.getOrder()));
+                log(errorLog, new Diagnostic(DiagnosticCode.UNKNOWN_ORDER, Diagnostic.NO_RULE,
+                    "Invalid order value \"%d\" in GMMP playlist", gmmpSmartPlaylist.getOrder()));
             }
         }
         if (gmmpSmartPlaylist.isAscending()) {
@@ -337,8 +396,12 @@ public class GmmpPlaylistConverter implements PlaylistConverter {
         }
     }
 
-    private void log(final Collection<String> errorLog, final String message) {
-        logger.error(message);
-        errorLog.add(message);
+    /**
+     * Sends the problem to the error log and traces it. A {@link ConversionReport} doesn't format the message until
+     * it's read, and log4j doesn't either unless TRACE is turned on.
+     */
+    private void log(final DiagnosticSink errorLog, final Diagnostic diagnostic) {
+        logger.trace(diagnostic);
+        errorLog.add(diagnostic);
     }
 }
@@ -0,0 +1,54 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.api.PlaylistConverter;
+import com.adashrod.smartplaylists.api.PlaylistFormat;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@link PlaylistFormat} for GMMP (GoneMAD Music Player) smart playlists
+ */
+public class GmmpPlaylistFormat implements PlaylistFormat {
+    @Override
+    public String getName() {
+        return "gmmp";
+    }
+
+    @Override
+    public Class<? extends FormattedSmartPlaylist> getPlaylistClass() {
+        return GmmpSmartPlaylist.class;
+    }
+
+    @Override
+    public List<String> getFileExtensions() {
+        return Collections.singletonList(GmmpSmartPlaylist.DEFAULT_FILE_EXTENSION);
+    }
+
+    @Override
+    public String getRootElement() {
+        return "SmartPlaylist";
+    }
+
+    @Override
+    public String getNameElement() {
+        return "Name";
+    }
+
+    @Override
+    public String getRuleElement() {
+        return "Rule";
+    }
+
+    @Override
+    public String getRuleValueElement() {
+        return "Value";
+    }
+
+    @Override
+    public PlaylistConverter createConverter() {
+        return new GmmpPlaylistConverter();
+    }
+}
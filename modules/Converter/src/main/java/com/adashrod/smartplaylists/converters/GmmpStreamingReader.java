@@ -0,0 +1,152 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * GmmpStreamingReader reads GMMP smart playlists with a StAX parser, one piece at a time, instead of unmarshalling the
+ * whole {@link GmmpSmartPlaylist}. The playlist-level elements always come before the rules in GMMP playlists, so
+ * reading the header stops at the start of the rules.
+ */
+class GmmpStreamingReader {
+    /**
+     * Reads everything in a playlist before its rules
+     * @param reader a reader at the start of the document
+     * @return a playlist with no rules
+     * @throws XMLStreamException the XML is not well-formed or is not a GMMP playlist
+     */
+    GmmpSmartPlaylist readHeader(final XMLStreamReader reader) throws XMLStreamException {
+        readRoot(reader);
+        final GmmpSmartPlaylist header = new GmmpSmartPlaylist();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "Version":
+                    header.setVersion(parseInt(reader));
+                    break;
+                case "Name":
+                    header.setName(reader.getElementText());
+                    break;
+                case "Order":
+                    header.setOrder(parseInt(reader));
+                    break;
+                case "Ascending":
+                    header.setAscending(parseBoolean(reader));
+                    break;
+                case "Limit":
+                    header.setLimit(parseInt(reader));
+                    break;
+                case "MatchAll":
+                    header.setMatchAll(parseBoolean(reader));
+                    break;
+                case "Rules":
+                    return header;
+                default:
+                    skipElement(reader);
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Reads the rules of a playlist one at a time, passing each one to the handler before reading the next
+     * @param reader  a reader at the start of the document
+     * @param handler what to do with each rule
+     * @throws XMLStreamException the XML is not well-formed or is not a GMMP playlist, or the handler failed
+     */
+    void readRules(final XMLStreamReader reader, final RuleHandler<GmmpSmartPlaylist.Rule> handler)
+            throws XMLStreamException {
+        readRoot(reader);
+        int ruleIndex = 0;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("Rules".equals(reader.getLocalName())) {
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    if ("Rule".equals(reader.getLocalName())) {
+                        handler.handle(readRule(reader), ruleIndex++);
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+                // nothing that's needed comes after the rules
+                return;
+            }
+            skipElement(reader);
+        }
+    }
+
+    private void readRoot(final XMLStreamReader reader) throws XMLStreamException {
+        reader.nextTag();
+        if (!"SmartPlaylist".equals(reader.getLocalName())) {
+            throw new XMLStreamException(String.format("Unexpected root element <%s>, expected <SmartPlaylist>",
+                reader.getLocalName()), reader.getLocation());
+        }
+    }
+
+    /**
+     * Reads a rule element, leaving the reader on its end tag
+     */
+    private GmmpSmartPlaylist.Rule readRule(final XMLStreamReader reader) throws XMLStreamException {
+        final GmmpSmartPlaylist.Rule rule = new GmmpSmartPlaylist.Rule();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "Version":
+                    rule.setVersion(parseInt(reader));
+                    break;
+                case "Field":
+                    rule.setField(parseInt(reader));
+                    break;
+                case "Operator":
+                    rule.setOperator(parseInt(reader));
+                    break;
+                case "Value":
+                    rule.setValue(reader.getElementText());
+                    break;
+                case "TimeUnit":
+                    rule.setTimeUnit(parseInt(reader));
+                    break;
+                default:
+                    skipElement(reader);
+            }
+        }
+        return rule;
+    }
+
+    private int parseInt(final XMLStreamReader reader) throws XMLStreamException {
+        final String text = reader.getElementText().trim();
+        try {
+            return Integer.parseInt(text);
+        } catch (final NumberFormatException nfe) {
+            throw new XMLStreamException(String.format("Invalid number \"%s\"", text), reader.getLocation());
+        }
+    }
+
+    /**
+     * Parses an xs:boolean, which can be true, false, 1, or 0
+     */
+    private boolean parseBoolean(final XMLStreamReader reader) throws XMLStreamException {
+        final String text = reader.getElementText().trim();
+        if ("true".equals(text) || "1".equals(text)) {
+            return true;
+        } else if ("false".equals(text) || "0".equals(text)) {
+            return false;
+        }
+        throw new XMLStreamException(String.format("Invalid boolean \"%s\"", text), reader.getLocation());
+    }
+
+    /**
+     * Skips past the current element and everything in it, leaving the reader on its end tag
+     */
+    private void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.LimitedInputStream;
+import com.adashrod.smartplaylists.api.ParseLimits;
+import com.adashrod.smartplaylists.playlists.StaxFactories;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import java.io.InputStream;
+
+/**
+ * An XMLStreamReader that enforces {@link ParseLimits} as it parses: the size of the input, how deeply elements are
+ * nested, the number of rules, the length of text, and the deadline. DTDs are rejected and external entities are never
+ * resolved, so a file can't make the parser expand entities or fetch anything. Any element named "rule", in any case,
+ * counts as a rule, which covers both the XBMC and GMMP formats.
+ */
+public class LimitedXmlStreamReader extends StreamReaderDelegate {
+    private final ParseLimits limits;
+    private final long deadline;
+    private int depth;
+    private int ruleCount;
+    private int textLength;
+
+    private LimitedXmlStreamReader(final XMLStreamReader reader, final ParseLimits limits, final long deadline) {
+        super(reader);
+        this.limits = limits;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates a reader for the XML in the stream. The deadline starts now.
+     * @param inputStream the XML to read; it's not closed when the reader is
+     * @param limits      the limits to enforce
+     * @return a reader positioned at the start of the document
+     * @throws XMLStreamException error starting to parse the XML
+     */
+    public static XMLStreamReader open(final InputStream inputStream, final ParseLimits limits)
+            throws XMLStreamException {
+        final long deadline = limits.deadlineFromNow();
+        final InputStream limitedStream = new LimitedInputStream(inputStream, limits.getMaxBytes(), deadline);
+        return new LimitedXmlStreamReader(StaxFactories.getInputFactory().createXMLStreamReader(limitedStream), limits,
+            deadline);
+    }
+
+    /**
+     * Unmarshals the XML in the stream within the limits
+     * @param unmarshaller the unmarshaller for the type of playlist to read
+     * @param inputStream  the XML to read; it's not closed
+     * @param limits       the limits to enforce
+     * @return the bound object
+     * @throws JAXBException error de-serializing the XML, or the XML exceeds a limit
+     */
+    static Object unmarshal(final Unmarshaller unmarshaller, final InputStream inputStream, final ParseLimits limits)
+            throws JAXBException {
+        try {
+            final XMLStreamReader reader = open(inputStream, limits);
+            try {
+                return unmarshaller.unmarshal(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException xse) {
+            throw new JAXBException(xse.getMessage(), xse);
+        }
+    }
+
+    @Override
+    public int next() throws XMLStreamException {
+        if (System.nanoTime() - deadline > 0) {
+            throw new XMLStreamException(String.format("parsing took longer than the limit of %d ms",
+                limits.getTimeoutMillis()), getLocation());
+        }
+        final int event = super.next();
+        switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                textLength = 0;
+                if (++depth > limits.getMaxDepth()) {
+                    throw new XMLStreamException(String.format("elements are nested deeper than the limit of %d",
+                        limits.getMaxDepth()), getLocation());
+                }
+                if ("rule".equalsIgnoreCase(getLocalName()) && ++ruleCount > limits.getMaxRules()) {
+                    throw new XMLStreamException(String.format("the playlist has more than the limit of %d rules",
+                        limits.getMaxRules()), getLocation());
+                }
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                textLength = 0;
+                depth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                // long text can come in several events, so the limit is on the total between two tags
+                textLength += getTextLength();
+                if (textLength > limits.getMaxOperandLength()) {
+                    throw new XMLStreamException(String.format("text is longer than the limit of %d chars",
+                        limits.getMaxOperandLength()), getLocation());
+                }
+                break;
+            case XMLStreamConstants.DTD:
+                throw new XMLStreamException("DTDs are not allowed", getLocation());
+            default:
+                break;
+        }
+        return event;
+    }
+
+    /**
+     * The delegate's nextTag() would go straight to the wrapped reader, so this re-implements it on top of
+     * {@link #next()} to keep the limits in force
+     */
+    @Override
+    public int nextTag() throws XMLStreamException {
+        int event = next();
+        while ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) && isWhiteSpace() ||
+                event == XMLStreamConstants.SPACE || event == XMLStreamConstants.COMMENT ||
+                event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+            event = next();
+        }
+        if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+            throw new XMLStreamException("expected a start or end tag", getLocation());
+        }
+        return event;
+    }
+}
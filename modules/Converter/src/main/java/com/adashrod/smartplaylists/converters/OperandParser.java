@@ -0,0 +1,295 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.timeperiod.TimePeriod;
+import com.adashrod.timeperiod.TimePeriodFormat;
+import com.adashrod.timeperiod.TimeUnit;
+
+import java.text.ParsePosition;
+import java.util.TimeZone;
+
+/**
+ * Hand-written parsers for the operands of rules: durations, periods like "2 weeks", and dates. Each one reads the
+ * whole string in a single pass without allocating, and never throws for bad input: like
+ * {@link java.text.DateFormat#parse(String, ParsePosition)}, it sets the error index of the ParsePosition to the first
+ * character that it couldn't read, and leaves its index at the end of the string if it could read all of it. This also
+ * converts time periods to and from seconds, for every class that holds or writes one.
+ */
+public final class OperandParser {
+    private static final long SECONDS_PER_MINUTE = 60;
+    private static final long SECONDS_PER_HOUR = 60 * 60;
+    private static final long SECONDS_PER_DAY = 60 * 60 * 24;
+    private static final long SECONDS_PER_WEEK = 60 * 60 * 24 * 7;
+    private static final long MILLIS_PER_DAY = SECONDS_PER_DAY * 1000;
+    private static final ThreadLocal<TimePeriodFormat> SECONDS_FORMAT =
+        ThreadLocal.withInitial(() -> new TimePeriodFormat("ss").setMaxUnit(TimeUnit.SECOND));
+
+    // the units of periods, which can also be singular, largest first: the one table of unit lengths for all operands
+    private static final String[] UNIT_NAMES = {"weeks", "days", "hours", "minutes", "seconds"};
+    private static final TimeUnit[] UNITS = {TimeUnit.WEEK, TimeUnit.DAY, TimeUnit.HOUR, TimeUnit.MINUTE,
+        TimeUnit.SECOND};
+    private static final long[] SECONDS_PER_UNIT = {SECONDS_PER_WEEK, SECONDS_PER_DAY, SECONDS_PER_HOUR,
+        SECONDS_PER_MINUTE, 1};
+
+    // a number with more digits than this might not fit in an int
+    private static final int MAX_DIGITS = 9;
+
+    private OperandParser() {}
+
+    /**
+     * Reads a whole number that fits in an int, with no sign, e.g. the amount of a period that's stored apart from its
+     * unit.
+     * @param text     the number
+     * @param position where to start reading, and where an error is reported
+     * @return the number, or -1 if the text isn't one
+     */
+    public static int parseAmount(final String text, final ParsePosition position) {
+        final int start = position.getIndex();
+        int index = start;
+        int amount = 0;
+        while (index < text.length() && index - start < MAX_DIGITS && isDigit(text.charAt(index))) {
+            amount = amount * 10 + (text.charAt(index) - '0');
+            index++;
+        }
+        if (index == start || index != text.length()) {
+            return (int) fail(position, index);
+        }
+        position.setIndex(index);
+        return amount;
+    }
+
+    /**
+     * Reads a duration in the form mm:ss or hh:mm:ss, e.g. 4:01 or 1:02:03. Minutes and seconds after the first part
+     * can't be more than 59, and the duration has to fit in a {@link #toTimePeriod(long) TimePeriod}.
+     * @param text     the duration
+     * @param position where to start reading, and where an error is reported
+     * @return the number of seconds, or -1 if the text isn't a duration
+     */
+    public static long parseDuration(final String text, final ParsePosition position) {
+        long seconds = 0;
+        int partCount = 0;
+        final int durationStart = position.getIndex();
+        int index = durationStart;
+        while (true) {
+            final int start = index;
+            long part = 0;
+            while (index < text.length() && index - start < MAX_DIGITS && isDigit(text.charAt(index))) {
+                part = part * 10 + (text.charAt(index) - '0');
+                index++;
+            }
+            if (index == start || partCount > 0 && part > 59) {
+                return fail(position, start);
+            }
+            seconds = seconds * 60 + part;
+            partCount++;
+            if (index == text.length()) {
+                break;
+            } else if (text.charAt(index) != ':' || partCount == 3) {
+                return fail(position, index);
+            }
+            index++;
+        }
+        if (partCount == 1) {
+            return fail(position, index);
+        } else if (!fitsTimePeriod(seconds)) {
+            return fail(position, durationStart);
+        }
+        position.setIndex(index);
+        return seconds;
+    }
+
+    /**
+     * Reads a period in the form "N units", e.g. "2 weeks" or "1 day". The units are seconds, minutes, hours, days,
+     * and weeks, in any case, and may be singular.
+     * @param text     the period
+     * @param position where to start reading, and where an error is reported
+     * @return the number of seconds, or -1 if the text isn't a period
+     */
+    public static long parsePeriod(final String text, final ParsePosition position) {
+        int index = skipSpaces(text, position.getIndex());
+        final int start = index;
+        long amount = 0;
+        while (index < text.length() && index - start < MAX_DIGITS && isDigit(text.charAt(index))) {
+            amount = amount * 10 + (text.charAt(index) - '0');
+            index++;
+        }
+        final int afterAmount = index;
+        index = skipSpaces(text, index);
+        if (afterAmount == start || index == afterAmount) {
+            return fail(position, index);
+        }
+        int end = text.length();
+        while (end > index && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        for (int i = 0; i < UNIT_NAMES.length; i++) {
+            final String unitName = UNIT_NAMES[i];
+            final int length = end - index;
+            // the name, or the name without its "s"
+            if ((length == unitName.length() || length == unitName.length() - 1) &&
+                    text.regionMatches(true, index, unitName, 0, length)) {
+                position.setIndex(text.length());
+                return amount * SECONDS_PER_UNIT[i];
+            }
+        }
+        return fail(position, index);
+    }
+
+    /**
+     * Reads a date in the form yyyy-MM-dd or yyyy/MM/dd, depending on the separator, as the start of that day in the
+     * default time zone, like a {@link java.text.SimpleDateFormat} would. Unlike a lenient SimpleDateFormat, months
+     * and days that don't exist, like 2012-02-30, are errors rather than being rolled over into the next month, and so
+     * is any text after the date.
+     * @param text      the date
+     * @param separator the character between the year, month, and day
+     * @param position  where to start reading, and where an error is reported
+     * @return the milliseconds since the epoch, or Long.MIN_VALUE if the text isn't a date
+     */
+    public static long parseDate(final String text, final char separator, final ParsePosition position) {
+        int index = position.getIndex();
+        final int yearStart = index;
+        int year = 0;
+        while (index < text.length() && index - yearStart < 4 && isDigit(text.charAt(index))) {
+            year = year * 10 + (text.charAt(index) - '0');
+            index++;
+        }
+        if (index - yearStart != 4 || index == text.length() || text.charAt(index) != separator) {
+            return failDate(position, index);
+        }
+        index++;
+        final int monthStart = index;
+        int month = 0;
+        while (index < text.length() && index - monthStart < 2 && isDigit(text.charAt(index))) {
+            month = month * 10 + (text.charAt(index) - '0');
+            index++;
+        }
+        if (index == monthStart || month < 1 || month > 12) {
+            return failDate(position, monthStart);
+        } else if (index == text.length() || text.charAt(index) != separator) {
+            return failDate(position, index);
+        }
+        index++;
+        final int dayStart = index;
+        int day = 0;
+        while (index < text.length() && index - dayStart < 2 && isDigit(text.charAt(index))) {
+            day = day * 10 + (text.charAt(index) - '0');
+            index++;
+        }
+        if (index == dayStart || day < 1 || day > daysInMonth(year, month)) {
+            return failDate(position, dayStart);
+        } else if (index != text.length()) {
+            return failDate(position, index);
+        }
+        position.setIndex(index);
+
+        final long utcMillis = daysSinceEpoch(year, month, day) * MILLIS_PER_DAY;
+        // the offset at local midnight can differ from the one at UTC midnight, so it's looked up a second time
+        final TimeZone timeZone = TimeZone.getDefault();
+        final long guess = utcMillis - timeZone.getOffset(utcMillis);
+        return utcMillis - timeZone.getOffset(guess);
+    }
+
+    /**
+     * @param timePeriod a time period in any unit
+     * @return the length of the period in seconds
+     */
+    public static long toSeconds(final TimePeriod timePeriod) {
+        return Long.parseLong(SECONDS_FORMAT.get().format(timePeriod));
+    }
+
+    /**
+     * @param unit a unit from seconds to weeks
+     * @return the number of seconds in one of that unit
+     * @throws IllegalArgumentException the unit is smaller than a second
+     */
+    public static long secondsPer(final TimeUnit unit) {
+        for (int i = 0; i < UNITS.length; i++) {
+            if (UNITS[i] == unit) {
+                return SECONDS_PER_UNIT[i];
+            }
+        }
+        throw new IllegalArgumentException(String.format("a period can't be a whole number of %s", unit));
+    }
+
+    /**
+     * @param seconds the length of a period
+     * @param maxUnit the largest unit allowed, from seconds to weeks
+     * @return the largest unit, no larger than maxUnit, that the period is a whole number of, which is seconds if no
+     * larger unit divides it evenly
+     */
+    public static TimeUnit largestUnit(final long seconds, final TimeUnit maxUnit) {
+        boolean allowed = false;
+        for (int i = 0; i < UNITS.length - 1; i++) {
+            allowed |= UNITS[i] == maxUnit;
+            if (allowed && seconds % SECONDS_PER_UNIT[i] == 0) {
+                return UNITS[i];
+            }
+        }
+        return TimeUnit.SECOND;
+    }
+
+    /**
+     * @param seconds the length of a period
+     * @return the period, in the largest unit, no larger than a week, that it's a whole number of
+     * @throws ArithmeticException the period is more than Integer.MAX_VALUE of that unit
+     */
+    public static TimePeriod toTimePeriod(final long seconds) {
+        final TimeUnit unit = largestUnit(seconds, TimeUnit.WEEK);
+        return new TimePeriod(Math.toIntExact(seconds / secondsPer(unit)), unit);
+    }
+
+    /**
+     * @return true if {@link #toTimePeriod(long)} can make a period of that many seconds
+     */
+    private static boolean fitsTimePeriod(final long seconds) {
+        return seconds / secondsPer(largestUnit(seconds, TimeUnit.WEEK)) <= Integer.MAX_VALUE;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int skipSpaces(final String text, int index) {
+        while (index < text.length() && text.charAt(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    private static long fail(final ParsePosition position, final int errorIndex) {
+        position.setErrorIndex(errorIndex);
+        return -1;
+    }
+
+    private static long failDate(final ParsePosition position, final int errorIndex) {
+        position.setErrorIndex(errorIndex);
+        return Long.MIN_VALUE;
+    }
+
+    private static int daysInMonth(final int year, final int month) {
+        switch (month) {
+            case 2:
+                final boolean leapYear = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+                return leapYear ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @return the number of days from 1970-01-01 to the date in the proleptic Gregorian calendar
+     */
+    private static long daysSinceEpoch(final int year, final int month, final int day) {
+        // counts years from March, so that the leap day is the last day of the year
+        final long y = month <= 2 ? year - 1 : year;
+        final long era = Math.floorDiv(y, 400);
+        final long yearOfEra = y - era * 400;
+        final long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,15 @@
+package com.adashrod.smartplaylists.converters;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Receives rules one at a time from a streaming reader, as each one is read
+ * @param <R> the type of rule
+ */
+interface RuleHandler<R> {
+    /**
+     * @param rule      the rule that was just read
+     * @param ruleIndex the index of the rule in its playlist
+     */
+    void handle(R rule, int ruleIndex) throws XMLStreamException;
+}
@@ -0,0 +1,134 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.ConversionReport;
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Converts the rules of a playlist one at a time, or, when the caller asks for parallel conversion and a playlist has
+ * at least {@link #MIN_PARALLEL_RULES} rules, in chunks on the common fork/join pool. Either way, the converted rules
+ * are in the same order as the rules they came from, and errors are appended to the error log in that order too, so
+ * the only difference that can be seen is in how long it takes and in the order that errors are written to the logger.
+ */
+public final class RuleListConverter {
+    /**
+     * playlists with fewer rules than this are always converted one rule at a time, since splitting them up would cost
+     * more than it saves
+     */
+    public static final int MIN_PARALLEL_RULES = 4096;
+    private static final int MIN_CHUNK_SIZE = 512;
+    // how many chunks each thread of the pool gets, so that a thread that finishes early can take another one
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private RuleListConverter() {}
+
+    /**
+     * Converts a single rule, logging the reason if it can't be converted
+     * @param <S> the type of rule converted from
+     * @param <T> the type of rule converted to
+     */
+    @FunctionalInterface
+    interface RuleConverter<S, T> {
+        /**
+         * @param rule      the rule to convert
+         * @param ruleIndex the index of the rule in its playlist
+         * @param errorLog  log for errors encountered during operation
+         * @return the converted rule, or null if it couldn't be converted
+         */
+        T convert(S rule, int ruleIndex, DiagnosticSink errorLog);
+    }
+
+    /**
+     * Converts every rule in the list, adding the ones that could be converted to results
+     * @param rules     the rules to convert
+     * @param converter converts a single rule
+     * @param errorLog  log for errors encountered during operation
+     * @param results   where the converted rules are added, in order
+     * @param parallel  whether a large list of rules may be converted on several threads
+     * @param <S> the type of rule converted from
+     * @param <T> the type of rule converted to
+     */
+    static <S, T> void convertAll(final List<? extends S> rules, final RuleConverter<S, ? extends T> converter,
+            final DiagnosticSink errorLog, final Collection<? super T> results, final boolean parallel) {
+        if (!parallel || rules.size() < MIN_PARALLEL_RULES) {
+            for (int i = 0; i < rules.size(); i++) {
+                final T result = converter.convert(rules.get(i), i, errorLog);
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+            return;
+        }
+
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        final int chunkCount = pool.getParallelism() * CHUNKS_PER_THREAD;
+        final int chunkSize = Math.max(MIN_CHUNK_SIZE, (rules.size() + chunkCount - 1) / chunkCount);
+        final List<Chunk<S, T>> chunks = new ArrayList<>();
+        for (int start = 0; start < rules.size(); start += chunkSize) {
+            chunks.add(new Chunk<>(rules, converter, start, Math.min(start + chunkSize, rules.size())));
+        }
+        pool.invoke(new ConvertChunks(chunks));
+        for (final Chunk<S, T> chunk: chunks) {
+            results.addAll(chunk.results);
+            // a report keeps its problems as they are, so a report passed in as the error log gets the same ones
+            chunk.errorLog.sendTo(errorLog);
+        }
+    }
+
+    /**
+     * Forks all the chunks of a playlist and waits for them, so that they're run from inside the pool
+     */
+    private static final class ConvertChunks extends RecursiveAction {
+        // tasks are serializable, but these never are, so what they refer to doesn't need to be
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<? extends Chunk<?, ?>> chunks;
+
+        private ConvertChunks(final List<? extends Chunk<?, ?>> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        protected void compute() {
+            ForkJoinTask.invokeAll(chunks);
+        }
+    }
+
+    /**
+     * A run of rules that's converted on one thread, with its own results and error log
+     */
+    private static final class Chunk<S, T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<? extends S> rules;
+        private final transient RuleConverter<S, ? extends T> converter;
+        private final int start;
+        private final int end;
+        private final transient List<T> results = new ArrayList<>();
+        private final transient ConversionReport errorLog = new ConversionReport();
+
+        private Chunk(final List<? extends S> rules, final RuleConverter<S, ? extends T> converter, final int start,
+                final int end) {
+            this.rules = rules;
+            this.converter = converter;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = start; i < end; i++) {
+                final T result = converter.convert(rules.get(i), i, errorLog);
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+        }
+    }
+}
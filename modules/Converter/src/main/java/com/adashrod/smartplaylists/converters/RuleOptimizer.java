@@ -0,0 +1,348 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.Diagnostic;
+import com.adashrod.smartplaylists.api.DiagnosticCode;
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.MetadataField;
+import com.adashrod.smartplaylists.playlists.Operand;
+import com.adashrod.smartplaylists.playlists.Operator;
+import com.adashrod.smartplaylists.playlists.Rule;
+import com.adashrod.smartplaylists.playlists.TypedRule;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * RuleOptimizer removes the rules of a format-agnostic playlist that don't change what it matches, so that the
+ * playlists that are written are smaller and players have fewer rules to test each track against. It never makes up
+ * new rules, since the output format might not have their operators; it only leaves rules out:
+ * <ul>
+ *     <li>duplicate rules</li>
+ *     <li>if all rules have to match, rules that another rule already implies, e.g. YEAR &gt; 1990 when there's also
+ *     YEAR &gt; 1995, or GENRE CONTAINS "rock" when there's also GENRE IS "punk rock"</li>
+ *     <li>if any rule can match, rules that imply another rule, e.g. YEAR &gt; 1995 when there's also
+ *     YEAR &gt; 1990</li>
+ * </ul>
+ * If all rules have to match and two of them can't both be true, nothing matches the playlist, which is logged as a
+ * {@link DiagnosticCode#CONTRADICTORY_RULES} error. Comparisons of text only rely on exact containment, so they hold
+ * whether or not a player ignores case.
+ */
+public class RuleOptimizer {
+    private static final Logger logger = Logger.getLogger(RuleOptimizer.class);
+
+    private static final Set<MetadataField> TEXT_FIELDS = EnumSet.of(MetadataField.ARTIST, MetadataField.ALBUM_ARTIST,
+        MetadataField.TITLE, MetadataField.ALBUM, MetadataField.GENRE, MetadataField.PATH, MetadataField.FILE_NAME,
+        MetadataField.COMMENT, MetadataField.PLAYLIST);
+
+    /**
+     * One side of a range that a rule limits its field to. "in the last" and "not in the last" limit a date to a range
+     * relative to now, so they're only compared with each other, as a negative number of seconds, which puts a
+     * shorter period further up the range, like a later date.
+     */
+    private static final class Bound {
+        private final boolean relative;
+        private final boolean lower;
+        private final long value;
+        private final boolean inclusive;
+
+        private Bound(final boolean relative, final boolean lower, final long value, final boolean inclusive) {
+            this.relative = relative;
+            this.lower = lower;
+            this.value = value;
+            this.inclusive = inclusive;
+        }
+
+        private boolean comparableTo(final Bound other) {
+            return relative == other.relative;
+        }
+
+        /**
+         * @return whether every value within this bound is within other, which is on the same side
+         */
+        private boolean within(final Bound other) {
+            if (value == other.value) {
+                return other.inclusive || !inclusive;
+            }
+            return lower == value > other.value;
+        }
+
+        /**
+         * @return whether no value is within both this bound and other, which is on the other side
+         */
+        private boolean disjointFrom(final Bound other) {
+            final Bound lowerBound = lower ? this : other;
+            final Bound upperBound = lower ? other : this;
+            return lowerBound.value > upperBound.value ||
+                lowerBound.value == upperBound.value && !(lowerBound.inclusive && upperBound.inclusive);
+        }
+
+        private boolean admits(final long point) {
+            if (point == value) {
+                return inclusive;
+            }
+            return lower == point > value;
+        }
+    }
+
+    /**
+     * Optimizes a playlist. The playlist isn't changed, and the rules that are kept are the same objects as the
+     * playlist's rules, in the same order.
+     * @param playlist the playlist to optimize
+     * @param errorLog where contradictions are logged
+     * @return a new playlist with the same header and the rules that aren't redundant
+     */
+    public AgnosticSmartPlaylist optimize(final AgnosticSmartPlaylist playlist, final DiagnosticSink errorLog) {
+        final List<Rule> rules = playlist.getRules();
+        final List<Integer> keptIndices = new ArrayList<>(rules.size());
+        final List<TypedRule> keptRules = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            final TypedRule rule = typed(rules.get(i));
+            if (rule == null || !isRedundant(playlist.isMatchAll(), rule, i, keptIndices, keptRules, errorLog)) {
+                keptIndices.add(i);
+                keptRules.add(rule);
+            }
+        }
+
+        final AgnosticSmartPlaylist optimized = new AgnosticSmartPlaylist()
+            .setPlaylistType(playlist.getPlaylistType())
+            .setName(playlist.getName())
+            .setMatchAll(playlist.isMatchAll())
+            .setLimit(playlist.getLimit())
+            .setOrder(playlist.getOrder());
+        for (final int index: keptIndices) {
+            optimized.getRules().add(rules.get(index));
+        }
+        return optimized;
+    }
+
+    /**
+     * @return the typed form of the rule, or null if it can't be compared with other rules
+     */
+    private static TypedRule typed(final Rule rule) {
+        if (rule.getField() == null || rule.getOperator() == null || rule.getOperand() == null) {
+            return null;
+        }
+        try {
+            return TypedRule.of(rule);
+        } catch (final IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+    /**
+     * Compares a rule with the rules kept so far, removing any of them that the rule makes redundant
+     * @return whether the rule itself is redundant
+     */
+    private static boolean isRedundant(final Boolean matchAll, final TypedRule rule, final int ruleIndex,
+            final List<Integer> keptIndices, final List<TypedRule> keptRules, final DiagnosticSink errorLog) {
+        for (int k = keptRules.size() - 1; k >= 0; k--) {
+            final TypedRule keptRule = keptRules.get(k);
+            if (keptRule == null || keptRule.getField() != rule.getField()) {
+                continue;
+            }
+            if (keptRule.equals(rule)) {
+                return true;
+            } else if (matchAll == null) {
+                // nothing else is safe when it isn't known how the rules are combined
+                continue;
+            }
+            if (matchAll && contradicts(keptRule, rule)) {
+                log(errorLog, new Diagnostic(DiagnosticCode.CONTRADICTORY_RULES, ruleIndex,
+                    "Rule %d (%s) contradicts rule %d (%s), so nothing can match the playlist", ruleIndex + 1, rule,
+                    keptIndices.get(k) + 1, keptRule));
+            }
+            // with all rules, the narrower one is needed; with any rule, the broader one is
+            final TypedRule narrower = matchAll ? keptRule : rule;
+            final TypedRule broader = matchAll ? rule : keptRule;
+            if (implies(narrower, broader)) {
+                return true;
+            } else if (implies(broader, narrower)) {
+                keptIndices.remove(k);
+                keptRules.remove(k);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the bound that the rule limits its field to, or null if it isn't a bound
+     */
+    private static Bound boundOf(final TypedRule rule) {
+        final Operand operand = rule.getOperand();
+        switch (rule.getOperator()) {
+            case GREATER_THAN:
+            case AFTER:
+                return isOrdered(operand) ? new Bound(false, true, valueOf(operand), false) : null;
+            case GREATER_THAN_OR_EQUAL:
+                return isOrdered(operand) ? new Bound(false, true, valueOf(operand), true) : null;
+            case LESS_THAN:
+            case BEFORE:
+                return isOrdered(operand) ? new Bound(false, false, valueOf(operand), false) : null;
+            case LESS_THAN_OR_EQUAL:
+                return isOrdered(operand) ? new Bound(false, false, valueOf(operand), true) : null;
+            case IN_THE_LAST:
+                return operand.getKind() == Operand.Kind.TIME_PERIOD ?
+                    new Bound(true, true, -operand.getSeconds(), false) : null;
+            case NOT_IN_THE_LAST:
+                return operand.getKind() == Operand.Kind.TIME_PERIOD ?
+                    new Bound(true, false, -operand.getSeconds(), false) : null;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isOrdered(final Operand operand) {
+        return operand.getKind() != Operand.Kind.TEXT;
+    }
+
+    private static long valueOf(final Operand operand) {
+        switch (operand.getKind()) {
+            case NUMBER:
+                return operand.getNumber();
+            case DATE:
+                return operand.getTime();
+            default:
+                return operand.getSeconds();
+        }
+    }
+
+    /**
+     * @return whether the rule is IS or IS NOT with a number, date, or time period, which can be tested against bounds
+     */
+    private static boolean isOrderedPoint(final TypedRule rule) {
+        return (rule.getOperator() == Operator.IS || rule.getOperator() == Operator.IS_NOT) &&
+            isOrdered(rule.getOperand());
+    }
+
+    private static boolean isText(final TypedRule rule) {
+        return TEXT_FIELDS.contains(rule.getField()) && rule.getOperand().getKind() == Operand.Kind.TEXT;
+    }
+
+    /**
+     * @return whether everything that matches a also matches b; both are on the same field
+     */
+    private static boolean implies(final TypedRule a, final TypedRule b) {
+        if (a.equals(b)) {
+            return true;
+        }
+        final Operand aOperand = a.getOperand();
+        final Operand bOperand = b.getOperand();
+        if (isText(a) && isText(b)) {
+            return impliesText(a.getOperator(), aOperand.getText(), b.getOperator(), bOperand.getText());
+        } else if (aOperand.getKind() != bOperand.getKind()) {
+            return false;
+        }
+        final Bound aBound = boundOf(a);
+        final Bound bBound = boundOf(b);
+        if (aBound != null && bBound != null) {
+            return aBound.comparableTo(bBound) && aBound.lower == bBound.lower && aBound.within(bBound);
+        } else if (isOrderedPoint(a) && a.getOperator() == Operator.IS) {
+            if (bBound != null) {
+                return !bBound.relative && bBound.admits(valueOf(aOperand));
+            } else if (isOrderedPoint(b) && b.getOperator() == Operator.IS_NOT) {
+                return valueOf(aOperand) != valueOf(bOperand);
+            }
+        }
+        return false;
+    }
+
+    private static boolean impliesText(final Operator aOperator, final String aText, final Operator bOperator,
+            final String bText) {
+        switch (aOperator) {
+            case IS:
+                switch (bOperator) {
+                    case CONTAINS:
+                        return aText.contains(bText);
+                    case STARTS_WITH:
+                        return aText.startsWith(bText);
+                    case ENDS_WITH:
+                        return aText.endsWith(bText);
+                    case IS_NOT:
+                        return !aText.equalsIgnoreCase(bText);
+                    case DOES_NOT_CONTAIN:
+                        return !lowerCase(aText).contains(lowerCase(bText));
+                    default:
+                        return false;
+                }
+            case CONTAINS:
+                return bOperator == Operator.CONTAINS && aText.contains(bText);
+            case STARTS_WITH:
+                return bOperator == Operator.STARTS_WITH && aText.startsWith(bText) ||
+                    bOperator == Operator.CONTAINS && aText.contains(bText);
+            case ENDS_WITH:
+                return bOperator == Operator.ENDS_WITH && aText.endsWith(bText) ||
+                    bOperator == Operator.CONTAINS && aText.contains(bText);
+            case DOES_NOT_CONTAIN:
+                // anything without aText can't have any text that contains it
+                return (bOperator == Operator.DOES_NOT_CONTAIN || bOperator == Operator.IS_NOT) &&
+                    bText.contains(aText);
+            default:
+                return false;
+        }
+    }
+
+    private static String lowerCase(final String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return whether nothing can match both a and b; both are on the same field
+     */
+    private static boolean contradicts(final TypedRule a, final TypedRule b) {
+        final Operand aOperand = a.getOperand();
+        final Operand bOperand = b.getOperand();
+        if (isText(a) && isText(b)) {
+            return contradictsText(a.getOperator(), aOperand.getText(), b.getOperator(), bOperand.getText()) ||
+                contradictsText(b.getOperator(), bOperand.getText(), a.getOperator(), aOperand.getText());
+        } else if (aOperand.getKind() != bOperand.getKind()) {
+            return false;
+        }
+        final Bound aBound = boundOf(a);
+        final Bound bBound = boundOf(b);
+        if (aBound != null && bBound != null) {
+            return aBound.comparableTo(bBound) && aBound.lower != bBound.lower && aBound.disjointFrom(bBound);
+        }
+        return contradictsPoint(a, bBound, b) || contradictsPoint(b, aBound, a);
+    }
+
+    private static boolean contradictsPoint(final TypedRule point, final Bound otherBound, final TypedRule other) {
+        if (!isOrderedPoint(point) || point.getOperator() != Operator.IS) {
+            return false;
+        } else if (otherBound != null) {
+            return !otherBound.relative && !otherBound.admits(valueOf(point.getOperand()));
+        } else if (isOrderedPoint(other)) {
+            final boolean equal = valueOf(point.getOperand()) == valueOf(other.getOperand());
+            return other.getOperator() == Operator.IS ? !equal : equal;
+        }
+        return false;
+    }
+
+    private static boolean contradictsText(final Operator aOperator, final String aText, final Operator bOperator,
+            final String bText) {
+        switch (aOperator) {
+            case IS:
+                return bOperator == Operator.IS && !aText.equalsIgnoreCase(bText) ||
+                    bOperator == Operator.IS_NOT && aText.equals(bText) ||
+                    bOperator == Operator.DOES_NOT_CONTAIN && aText.contains(bText);
+            case CONTAINS:
+            case STARTS_WITH:
+            case ENDS_WITH:
+                return bOperator == Operator.DOES_NOT_CONTAIN && aText.contains(bText);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * traces a problem and sends it to the error log; it's only formatted if TRACE is on or the error log reads it
+     */
+    private static void log(final DiagnosticSink errorLog, final Diagnostic diagnostic) {
+        logger.trace(diagnostic);
+        errorLog.add(diagnostic);
+    }
+}
@@ -0,0 +1,314 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.api.PlaylistFormatDetector;
+import com.adashrod.smartplaylists.api.PlaylistFormats;
+import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.GmmpXmlEmitter;
+import com.adashrod.smartplaylists.playlists.PlaylistSchemas;
+import com.adashrod.smartplaylists.playlists.Rule;
+import com.adashrod.smartplaylists.playlists.StaxFactories;
+import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcXmlEmitter;
+import com.adashrod.smartplaylists.playlists.XmlEmitters;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.validation.Schema;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * StreamingTranscoder converts a playlist file from any supported format to any other without holding the playlist in
+ * memory, either as a {@link FormattedSmartPlaylist} or as an {@link AgnosticSmartPlaylist}. Each rule is read, mapped
+ * through the same tables that the converters use, and written out before the next one is read, so memory use doesn't
+ * depend on how many rules there are. Between the two XBMC versions, rules are copied instead, without parsing their
+ * operands; see {@link XbmcPlaylistConverterTools#copy}.
+ *
+ * Both formats need the playlist-level values, like the name and order, before the rules when writing, but XBMC
+ * allows them anywhere when reading, so the input is read twice: once for everything but the rules, which are skipped
+ * without being parsed, and once for the rules. Before either of those, it's validated against the schema of its
+ * format in another streaming pass, so that a playlist that loading would reject is rejected here too, before anything
+ * is written. The errors logged are the same as for loading and converting the playlist, though not necessarily in the
+ * same order.
+ */
+public class StreamingTranscoder {
+    private final PlaylistFormatDetector formatDetector = new PlaylistFormatDetector();
+    private final XbmcStreamingReader xbmcReader = new XbmcStreamingReader();
+    private final GmmpStreamingReader gmmpReader = new GmmpStreamingReader();
+
+    /**
+     * Converts a playlist file to another format, writing the output as it goes
+     * @param input        the playlist file to read, in any supported format
+     * @param outputType   the type of playlist to write
+     * @param outputStream where to write the converted playlist, as UTF-8; it's flushed but not closed, and if this
+     *                     throws, part of a playlist may already have been written to it
+     * @param errorLog     any errors encountered during the conversion will be appended to this
+     * @return the number of rules that were written
+     * @throws XMLStreamException the input is not well-formed, not a playlist, or doesn't match the schema of its
+     *                            format, or error writing the XML
+     * @throws IOException error reading the input or writing the output
+     */
+    public int transcode(final Path input, final Class<? extends FormattedSmartPlaylist> outputType,
+            final OutputStream outputStream, final DiagnosticSink errorLog) throws XMLStreamException,
+            IOException {
+        final Class<? extends FormattedSmartPlaylist> inputType = formatDetector.detect(input.toFile());
+        if (inputType == null) {
+            throw new XMLStreamException(String.format("%s is not a playlist format that is known", input));
+        }
+        validate(input, inputType);
+
+        if (isXbmc(inputType) && isXbmc(outputType)) {
+            return copyXbmc(input, inputType, outputType, outputStream, errorLog);
+        }
+        final AgnosticSmartPlaylist header;
+        try (final InputStream inputStream = new BufferedInputStream(Files.newInputStream(input))) {
+            header = readHeader(inputType, inputStream, errorLog);
+        }
+        final PlaylistWriter playlistWriter = createWriter(outputType, header,
+            XmlEmitters.createXmlStreamWriter(outputStream), errorLog);
+        try (final InputStream inputStream = new BufferedInputStream(Files.newInputStream(input))) {
+            readRules(inputType, inputStream, errorLog, playlistWriter);
+        }
+        return playlistWriter.end();
+    }
+
+    /**
+     * @return the shared GMMP converter, which is only loaded once a GMMP playlist is read or written
+     */
+    private static GmmpPlaylistConverter gmmpConverter() {
+        return (GmmpPlaylistConverter) PlaylistFormats.getConverter(GmmpSmartPlaylist.class);
+    }
+
+    /**
+     * Checks the input against the schema of its format, if it has one, the way that the unmarshaller does when a
+     * playlist is loaded
+     */
+    private static void validate(final Path input, final Class<? extends FormattedSmartPlaylist> inputType)
+            throws XMLStreamException, IOException {
+        final Schema schema;
+        try {
+            schema = PlaylistSchemas.getSchema(inputType);
+        } catch (final SAXException saxe) {
+            throw new XMLStreamException("couldn't load the schema of " + inputType.getSimpleName(), saxe);
+        }
+        if (schema == null) {
+            return;
+        }
+        try (final InputStream inputStream = new BufferedInputStream(Files.newInputStream(input))) {
+            final XMLStreamReader reader = StaxFactories.getInputFactory().createXMLStreamReader(inputStream);
+            try {
+                schema.newValidator().validate(new StAXSource(reader));
+            } catch (final SAXException saxe) {
+                throw new XMLStreamException(String.format("%s doesn't match the %s schema: %s", input,
+                    inputType.getSimpleName(), saxe.getMessage()), saxe);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private static boolean isXbmc(final Class<? extends FormattedSmartPlaylist> type) {
+        return type == XbmcV11SmartPlaylist.class || type == XbmcV12SmartPlaylist.class;
+    }
+
+    /**
+     * Converts between XBMC versions by copying rules as they're read, without parsing and formatting their operands
+     * again; see {@link XbmcPlaylistConverterTools#copy}
+     */
+    private int copyXbmc(final Path input, final Class<? extends FormattedSmartPlaylist> inputType,
+            final Class<? extends FormattedSmartPlaylist> outputType, final OutputStream outputStream,
+            final DiagnosticSink errorLog) throws XMLStreamException, IOException {
+        final XbmcSmartPlaylist inputHeader;
+        try (final InputStream inputStream = new BufferedInputStream(Files.newInputStream(input))) {
+            final XMLStreamReader reader = StaxFactories.getInputFactory().createXMLStreamReader(inputStream);
+            try {
+                inputHeader = xbmcReader.readHeader(reader);
+            } finally {
+                reader.close();
+            }
+        }
+        final boolean toV12 = outputType == XbmcV12SmartPlaylist.class;
+        final XbmcSmartPlaylist header = toV12
+            ? XbmcPlaylistConverterTools.copyHeader(inputHeader, XbmcV12SmartPlaylist::new, errorLog)
+            : XbmcPlaylistConverterTools.copyHeader(inputHeader, XbmcV11SmartPlaylist::new, errorLog);
+        final XbmcPlaylistWriter playlistWriter = new XbmcPlaylistWriter(header, toV12,
+            XmlEmitters.createXmlStreamWriter(outputStream), errorLog);
+        final Supplier<XbmcSmartPlaylist.Rule> ruleFactory = header::newRule;
+        try (final InputStream inputStream = new BufferedInputStream(Files.newInputStream(input))) {
+            final XMLStreamReader reader = StaxFactories.getInputFactory().createXMLStreamReader(inputStream);
+            try {
+                xbmcReader.readRules(reader, inputType == XbmcV12SmartPlaylist.class,
+                    (final XbmcSmartPlaylist.Rule xbmcRule, final int ruleIndex) -> {
+                        final XbmcSmartPlaylist.Rule copiedRule = XbmcPlaylistConverterTools.copyRule(ruleFactory,
+                            xbmcRule, ruleIndex, errorLog);
+                        if (copiedRule != null) {
+                            playlistWriter.writeRule(copiedRule);
+                        }
+                    });
+            } finally {
+                reader.close();
+            }
+        }
+        return playlistWriter.end();
+    }
+
+    private AgnosticSmartPlaylist readHeader(final Class<? extends FormattedSmartPlaylist> inputType,
+            final InputStream inputStream, final DiagnosticSink errorLog) throws XMLStreamException {
+        final XMLStreamReader reader = StaxFactories.getInputFactory().createXMLStreamReader(inputStream);
+        try {
+            if (inputType == GmmpSmartPlaylist.class) {
+                return gmmpConverter().convertHeader(gmmpReader.readHeader(reader), errorLog);
+            }
+            return XbmcPlaylistConverterTools.convertHeader(xbmcReader.readHeader(reader), errorLog);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void readRules(final Class<? extends FormattedSmartPlaylist> inputType, final InputStream inputStream,
+            final DiagnosticSink errorLog, final PlaylistWriter playlistWriter) throws XMLStreamException {
+        final XMLStreamReader reader = StaxFactories.getInputFactory().createXMLStreamReader(inputStream);
+        try {
+            if (inputType == GmmpSmartPlaylist.class) {
+                final GmmpPlaylistConverter gmmpConverter = gmmpConverter();
+                gmmpReader.readRules(reader, (final GmmpSmartPlaylist.Rule gmmpRule, final int ruleIndex) -> {
+                    final Rule smartRule = gmmpConverter.convertRule(gmmpRule, ruleIndex, errorLog);
+                    if (smartRule != null) {
+                        playlistWriter.writeRule(smartRule, ruleIndex);
+                    }
+                });
+            } else {
+                xbmcReader.readRules(reader, inputType == XbmcV12SmartPlaylist.class,
+                    (final XbmcSmartPlaylist.Rule xbmcRule, final int ruleIndex) -> {
+                        final Rule smartRule = XbmcPlaylistConverterTools.convertRule(xbmcRule, ruleIndex, errorLog);
+                        if (smartRule != null) {
+                            playlistWriter.writeRule(smartRule, ruleIndex);
+                        }
+                    });
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private PlaylistWriter createWriter(final Class<? extends FormattedSmartPlaylist> outputType,
+            final AgnosticSmartPlaylist header, final XMLStreamWriter xmlWriter, final DiagnosticSink errorLog)
+            throws XMLStreamException {
+        if (outputType == GmmpSmartPlaylist.class) {
+            return new GmmpPlaylistWriter(header, xmlWriter, errorLog);
+        } else if (outputType == XbmcV11SmartPlaylist.class) {
+            return new XbmcPlaylistWriter(XbmcPlaylistConverterTools.convert(header, XbmcV11SmartPlaylist::new,
+                errorLog, false), false, xmlWriter, errorLog);
+        } else if (outputType == XbmcV12SmartPlaylist.class) {
+            return new XbmcPlaylistWriter(XbmcPlaylistConverterTools.convert(header, XbmcV12SmartPlaylist::new,
+                errorLog, false), true, xmlWriter, errorLog);
+        }
+        throw new IllegalArgumentException("Unsupported output type " + outputType.getName());
+    }
+
+    /**
+     * Writes a playlist in some format a rule at a time; the start of the playlist is written when it's created
+     */
+    private interface PlaylistWriter {
+        /**
+         * @param smartRule the rule to write
+         * @param ruleIndex the index of the rule in the input playlist
+         */
+        void writeRule(Rule smartRule, int ruleIndex) throws XMLStreamException;
+
+        /**
+         * Ends the playlist
+         * @return the number of rules that were written
+         */
+        int end() throws XMLStreamException;
+    }
+
+    private static class GmmpPlaylistWriter implements PlaylistWriter {
+        private final GmmpPlaylistConverter gmmpConverter = gmmpConverter();
+        private final XMLStreamWriter xmlWriter;
+        private final DiagnosticSink errorLog;
+        private int ruleCount;
+
+        GmmpPlaylistWriter(final AgnosticSmartPlaylist header, final XMLStreamWriter xmlWriter,
+                final DiagnosticSink errorLog) throws XMLStreamException {
+            this.xmlWriter = xmlWriter;
+            this.errorLog = errorLog;
+            GmmpXmlEmitter.writeStart((GmmpSmartPlaylist) gmmpConverter.convert(header, errorLog), xmlWriter);
+        }
+
+        @Override
+        public void writeRule(final Rule smartRule, final int ruleIndex) throws XMLStreamException {
+            final GmmpSmartPlaylist.Rule gmmpRule = gmmpConverter.convertRule(smartRule, ruleIndex, errorLog);
+            if (gmmpRule != null) {
+                // an empty list of rules is written differently, so it can't be started until there's a rule for it
+                if (ruleCount == 0) {
+                    GmmpXmlEmitter.startRules(xmlWriter);
+                }
+                GmmpXmlEmitter.writeRule(gmmpRule, xmlWriter);
+                ruleCount++;
+            }
+        }
+
+        @Override
+        public int end() throws XMLStreamException {
+            GmmpXmlEmitter.writeEnd(ruleCount > 0, xmlWriter);
+            return ruleCount;
+        }
+    }
+
+    private static class XbmcPlaylistWriter implements PlaylistWriter {
+        private final XbmcSmartPlaylist formattedHeader;
+        private final Supplier<XbmcSmartPlaylist.Rule> ruleFactory;
+        private final boolean operandAsValue;
+        private final XMLStreamWriter xmlWriter;
+        private final DiagnosticSink errorLog;
+        private int ruleCount;
+
+        /**
+         * @param formattedHeader the converted header, with no rules; it also creates the rules
+         * @param operandAsValue  whether rules are written with their operand in a value element, like in v12
+         */
+        XbmcPlaylistWriter(final XbmcSmartPlaylist formattedHeader, final boolean operandAsValue,
+                final XMLStreamWriter xmlWriter, final DiagnosticSink errorLog) throws XMLStreamException {
+            this.formattedHeader = formattedHeader;
+            ruleFactory = formattedHeader::newRule;
+            this.operandAsValue = operandAsValue;
+            this.xmlWriter = xmlWriter;
+            this.errorLog = errorLog;
+            XbmcXmlEmitter.writeStart(formattedHeader, xmlWriter);
+        }
+
+        @Override
+        public void writeRule(final Rule smartRule, final int ruleIndex) throws XMLStreamException {
+            final XbmcSmartPlaylist.Rule xbmcRule = XbmcPlaylistConverterTools.convertRule(ruleFactory, smartRule,
+                ruleIndex, errorLog);
+            if (xbmcRule != null) {
+                writeRule(xbmcRule);
+            }
+        }
+
+        void writeRule(final XbmcSmartPlaylist.Rule xbmcRule) throws XMLStreamException {
+            XbmcXmlEmitter.writeRule(xbmcRule, operandAsValue, xmlWriter);
+            ruleCount++;
+        }
+
+        @Override
+        public int end() throws XMLStreamException {
+            XbmcXmlEmitter.writeEnd(formattedHeader, xmlWriter);
+            return ruleCount;
+        }
+    }
+}
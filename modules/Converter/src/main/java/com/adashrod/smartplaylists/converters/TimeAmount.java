@@ -0,0 +1,43 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.timeperiod.TimePeriod;
+import com.adashrod.timeperiod.TimeUnit;
+
+/**
+ * A time period expressed as a whole number of a single unit, e.g. 3 weeks or 90 seconds. This takes the place of
+ * {@code TimePeriod.getLargestUnit(TimeUnit)}, which returns a javafx.util.Pair and so needs JavaFX at runtime.
+ */
+final class TimeAmount {
+    private final long amount;
+    private final TimeUnit unit;
+
+    private TimeAmount(final long amount, final TimeUnit unit) {
+        this.amount = amount;
+        this.unit = unit;
+    }
+
+    /**
+     * Finds the largest unit, no larger than maxUnit, that the time period is a whole number of
+     * @param timePeriod the time period to express in one unit
+     * @param maxUnit    the largest unit allowed
+     * @return the amount and unit, which is seconds if no larger unit divides the period evenly
+     */
+    static TimeAmount largestUnit(final TimePeriod timePeriod, final TimeUnit maxUnit) {
+        final long seconds = OperandParser.toSeconds(timePeriod);
+        final TimeUnit unit = OperandParser.largestUnit(seconds, maxUnit);
+        return new TimeAmount(seconds / OperandParser.secondsPer(unit), unit);
+    }
+
+    long getAmount() {
+        return amount;
+    }
+
+    TimeUnit getUnit() {
+        return unit;
+    }
+
+    @Override
+    public String toString() {
+        return amount + " " + unit;
+    }
+}
@@ -0,0 +1,40 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.Diagnostic;
+import com.adashrod.smartplaylists.api.DiagnosticCode;
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+import com.adashrod.smartplaylists.playlists.JaxbContextRegistry;
+
+import jakarta.xml.bind.ValidationEvent;
+import jakarta.xml.bind.ValidationEventHandler;
+import jakarta.xml.bind.ValidationEventLocator;
+
+/**
+ * A ValidationEventHandler that lets unmarshalling carry on past errors, such as elements that don't match the schema
+ * or values that can't be converted, and records each one with the line and column it was found at. XML that isn't
+ * well-formed is recorded too, but the parser can't recover from that, so it still stops the unmarshaller.
+ */
+class ValidationErrorCollector implements ValidationEventHandler {
+    private final DiagnosticSink errorLog;
+
+    ValidationErrorCollector(final DiagnosticSink errorLog) {
+        this.errorLog = errorLog;
+    }
+
+    @Override
+    public boolean handleEvent(final ValidationEvent event) {
+        if (JaxbContextRegistry.isUnboundElement(event)) {
+            // allowed by the schema, and skipped like the strict handler skips it
+            return true;
+        }
+        final ValidationEventLocator locator = event.getLocator();
+        if (locator != null && locator.getLineNumber() >= 0) {
+            errorLog.add(new Diagnostic(DiagnosticCode.INVALID_XML, Diagnostic.NO_RULE,
+                "line %d, column %d: %s", locator.getLineNumber(), locator.getColumnNumber(), event.getMessage()));
+        } else {
+            errorLog.add(new Diagnostic(DiagnosticCode.INVALID_XML, Diagnostic.NO_RULE, event.getMessage()));
+        }
+        // JAXB reports schema violations as fatal errors too, so always ask it to carry on
+        return true;
+    }
+}
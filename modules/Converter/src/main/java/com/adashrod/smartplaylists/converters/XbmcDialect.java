@@ -0,0 +1,149 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.playlists.MetadataField;
+import com.adashrod.smartplaylists.playlists.Operator;
+import com.adashrod.smartplaylists.playlists.PlaylistType;
+import com.adashrod.timeperiod.TimeUnit;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The names that XBMC playlists use for playlist types, fields, operators, and time units. Looking up the name of a
+ * value from the format-agnostic model indexes an array by the value's ordinal, and looking up a value by its XBMC name
+ * is a single hash lookup, so converting a rule doesn't search or allocate. The tables are built once and never
+ * change, so the shared instance can be used from any thread.
+ */
+final class XbmcDialect {
+    static final XbmcDialect INSTANCE = new XbmcDialect();
+
+    private final Map<String, PlaylistType> playlistTypes = new HashMap<>();
+    private final String[] playlistTypeNames = new String[PlaylistType.values().length];
+    private final Map<String, MetadataField> fields = new HashMap<>();
+    private final String[] fieldNames = new String[MetadataField.values().length];
+    private final FieldType[] fieldTypes = new FieldType[MetadataField.values().length];
+    private final Map<FieldType, Map<String, Operator>> operators = new EnumMap<>(FieldType.class);
+    private final String[][] operatorNames = new String[FieldType.values().length][Operator.values().length];
+    private final String[] timeUnitNames = new String[TimeUnit.values().length];
+
+    private XbmcDialect() {
+        playlistType("songs", PlaylistType.MUSIC);
+        playlistType("artists", PlaylistType.ARTISTS);
+        playlistType("albums", PlaylistType.ALBUMS);
+        playlistType("mixed", PlaylistType.MIXED);
+
+        field("artist", MetadataField.ARTIST, FieldType.STRING);
+        field("albumartist", MetadataField.ALBUM_ARTIST, FieldType.STRING);
+        field("title", MetadataField.TITLE, FieldType.STRING);
+        field("album", MetadataField.ALBUM, FieldType.STRING);
+        field("genre", MetadataField.GENRE, FieldType.STRING);
+        field("path", MetadataField.PATH, FieldType.STRING);
+        field("filename", MetadataField.FILE_NAME, FieldType.STRING);
+        field("comment", MetadataField.COMMENT, FieldType.STRING);
+        field("playlist", MetadataField.PLAYLIST, FieldType.STRING);
+        field("year", MetadataField.YEAR, FieldType.NUMBER);
+        field("tracknumber", MetadataField.TRACK_NUMBER, FieldType.NUMBER);
+        field("time", MetadataField.DURATION, FieldType.NUMBER);
+        field("playcount", MetadataField.PLAY_COUNT, FieldType.NUMBER);
+        field("rating", MetadataField.RATING, FieldType.NUMBER);
+        field("lastplayed", MetadataField.LAST_PLAYED, FieldType.DATE);
+
+        operator(FieldType.STRING, "is", Operator.IS);
+        operator(FieldType.STRING, "isnot", Operator.IS_NOT);
+        operator(FieldType.STRING, "startswith", Operator.STARTS_WITH);
+        operator(FieldType.STRING, "endswith", Operator.ENDS_WITH);
+        operator(FieldType.STRING, "contains", Operator.CONTAINS);
+        operator(FieldType.STRING, "doesnotcontain", Operator.DOES_NOT_CONTAIN);
+        operator(FieldType.NUMBER, "is", Operator.IS);
+        operator(FieldType.NUMBER, "isnot", Operator.IS_NOT);
+        operator(FieldType.NUMBER, "lessthan", Operator.LESS_THAN);
+        operator(FieldType.NUMBER, "greaterthan", Operator.GREATER_THAN);
+        operator(FieldType.DATE, "before", Operator.BEFORE);
+        operator(FieldType.DATE, "after", Operator.AFTER);
+        operator(FieldType.DATE, "inthelast", Operator.IN_THE_LAST);
+        operator(FieldType.DATE, "notinthelast", Operator.NOT_IN_THE_LAST);
+
+        timeUnitNames[TimeUnit.SECOND.ordinal()] = "seconds";
+        timeUnitNames[TimeUnit.MINUTE.ordinal()] = "minutes";
+        timeUnitNames[TimeUnit.HOUR.ordinal()] = "hours";
+        timeUnitNames[TimeUnit.DAY.ordinal()] = "days";
+        timeUnitNames[TimeUnit.WEEK.ordinal()] = "weeks";
+    }
+
+    private void playlistType(final String name, final PlaylistType playlistType) {
+        playlistTypes.put(name, playlistType);
+        playlistTypeNames[playlistType.ordinal()] = name;
+    }
+
+    private void field(final String name, final MetadataField field, final FieldType fieldType) {
+        fields.put(name, field);
+        fieldNames[field.ordinal()] = name;
+        fieldTypes[field.ordinal()] = fieldType;
+    }
+
+    private void operator(final FieldType fieldType, final String name, final Operator operator) {
+        operators.computeIfAbsent(fieldType, (final FieldType type) -> new HashMap<>()).put(name, operator);
+        operatorNames[fieldType.ordinal()][operator.ordinal()] = name;
+    }
+
+    /**
+     * @param name the type attribute of an XBMC playlist, e.g. "songs"
+     * @return the playlist type, or null if name isn't a known type
+     */
+    PlaylistType getPlaylistType(final String name) {
+        return playlistTypes.get(name);
+    }
+
+    /**
+     * @return the XBMC name of the playlist type, or null if playlistType is null
+     */
+    String getPlaylistTypeName(final PlaylistType playlistType) {
+        return playlistType != null ? playlistTypeNames[playlistType.ordinal()] : null;
+    }
+
+    /**
+     * @param name the name of a field in an XBMC rule or order, e.g. "albumartist"
+     * @return the field, or null if name isn't a field that XBMC supports
+     */
+    MetadataField getField(final String name) {
+        return fields.get(name);
+    }
+
+    /**
+     * @return the XBMC name of the field, or null if XBMC doesn't support it
+     */
+    String getFieldName(final MetadataField field) {
+        return field != null ? fieldNames[field.ordinal()] : null;
+    }
+
+    /**
+     * @return the type of the field in XBMC playlists, or null if XBMC doesn't support it
+     */
+    FieldType getFieldType(final MetadataField field) {
+        return field != null ? fieldTypes[field.ordinal()] : null;
+    }
+
+    /**
+     * @param fieldType the type of the field that the operator is on
+     * @param name      the name of an operator in an XBMC rule, e.g. "startswith"
+     * @return the operator, or null if it's not allowed on fields of that type
+     */
+    Operator getOperator(final FieldType fieldType, final String name) {
+        return operators.get(fieldType).get(name);
+    }
+
+    /**
+     * @return the XBMC name of the operator, or null if it's not allowed on fields of that type
+     */
+    String getOperatorName(final FieldType fieldType, final Operator operator) {
+        return operator != null ? operatorNames[fieldType.ordinal()][operator.ordinal()] : null;
+    }
+
+    /**
+     * @return the XBMC name of the unit, e.g. "weeks", or null if XBMC doesn't support it
+     */
+    String getTimeUnitName(final TimeUnit timeUnit) {
+        return timeUnitNames[timeUnit.ordinal()];
+    }
+}
@@ -1,5 +1,8 @@
 package com.adashrod.smartplaylists.converters;
 
+import com.adashrod.smartplaylists.api.Diagnostic;
+import com.adashrod.smartplaylists.api.DiagnosticCode;
+import com.adashrod.smartplaylists.api.DiagnosticSink;
 import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
 import com.adashrod.smartplaylists.playlists.MetadataField;
 import com.adashrod.smartplaylists.playlists.Operator;
@@ -10,106 +13,37 @@ import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
 import com.adashrod.timeperiod.TimePeriod;
 import com.adashrod.timeperiod.TimePeriodFormat;
 import com.adashrod.timeperiod.TimeUnit;
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
-import javafx.util.Pair;
 import org.apache.log4j.Logger;
 
 import java.text.DateFormat;
-import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.function.Supplier;
 
 /**
- * todo: replace getMatchAll* and getOrder* with BiMaps
  * The meat of XBMC playlist conversion. Since v11 and v12 XBMC playlists have an identical java API, the only
  * difference needed to handle the two separately is casting them when passing to functions in this class.
  */
 public class XbmcPlaylistConverterTools {
     private static final Logger logger = Logger.getLogger(XbmcPlaylistConverterTools.class);
 
-    private static final BiMap<String, PlaylistType> PLAYLIST_TYPE_MAP = HashBiMap.create();
-    private static final BiMap<String, MetadataField> STRING_FIELD_MAP = HashBiMap.create();
-    private static final BiMap<String, MetadataField> NUMBER_FIELD_MAP = HashBiMap.create();
-    private static final BiMap<String, MetadataField> DATE_FIELD_MAP = HashBiMap.create();
-    private static final Collection<BiMap<String, MetadataField>> FIELD_MAPS = new HashSet<>();
-    private static final BiMap<String, Operator> STRING_OPERATOR_MAP = HashBiMap.create();
-    private static final BiMap<String, Operator> NUMBER_OPERATOR_MAP = HashBiMap.create();
-    private static final BiMap<String, Operator> DATE_OPERATOR_MAP = HashBiMap.create();
-    private static final Map<TimeUnit, String> TIME_UNIT_MAP = new HashMap<>();
-    private static final Set<String> STRING_FIELD_KEYS;
-    private static final Set<String> NUMBER_FIELD_KEYS;
-    private static final Set<String> DATE_FIELD_KEYS;
-    private static final Set<MetadataField> STRING_FIELD_VALUES;
-    private static final Set<MetadataField> NUMBER_FIELD_VALUES;
-    private static final Set<MetadataField> DATE_FIELD_VALUES;
+    private static final XbmcDialect DIALECT = XbmcDialect.INSTANCE;
     private static final String DATE_FORMAT_STRING = "yyyy-MM-dd";
-    private static final DateFormat DATE_FORMAT = new SimpleDateFormat(DATE_FORMAT_STRING);
-    private static final TimePeriodFormat TIME_FORMAT_HMS = new TimePeriodFormat("hh:mm:ss").setMaxUnit(TimeUnit.HOUR);
-    private static final TimePeriodFormat TIME_FORMAT_MS = new TimePeriodFormat("mm:ss");
+    // like DateFormats, the formats aren't thread-safe, so each thread gets its own
+    private static final ThreadLocal<DateFormat> DATE_FORMAT =
+        ThreadLocal.withInitial(() -> new SimpleDateFormat(DATE_FORMAT_STRING));
+    private static final ThreadLocal<TimePeriodFormat> TIME_FORMAT_HMS =
+        ThreadLocal.withInitial(() -> new TimePeriodFormat("hh:mm:ss").setMaxUnit(TimeUnit.HOUR));
+    private static final ThreadLocal<TimePeriodFormat> TIME_FORMAT_MS =
+        ThreadLocal.withInitial(() -> new TimePeriodFormat("mm:ss"));
 
     private static final boolean defaultMatchAll = false;
     private static final MetadataField defaultOrderByField = MetadataField.TITLE;
     private static final boolean defaultOrderIsAscending = true;
     private static final int defaultLimit = 0; // no limit
 
-    static {
-        PLAYLIST_TYPE_MAP.put("songs", PlaylistType.MUSIC);
-        PLAYLIST_TYPE_MAP.put("artists", PlaylistType.ARTISTS);
-        PLAYLIST_TYPE_MAP.put("albums", PlaylistType.ALBUMS);
-        PLAYLIST_TYPE_MAP.put("mixed", PlaylistType.MIXED);
-        STRING_FIELD_MAP.put("artist", MetadataField.ARTIST);
-        STRING_FIELD_MAP.put("albumartist", MetadataField.ALBUM_ARTIST);
-        STRING_FIELD_MAP.put("title", MetadataField.TITLE);
-        STRING_FIELD_MAP.put("album", MetadataField.ALBUM);
-        STRING_FIELD_MAP.put("genre", MetadataField.GENRE);
-        STRING_FIELD_MAP.put("path", MetadataField.PATH);
-        STRING_FIELD_MAP.put("filename", MetadataField.FILE_NAME);
-        STRING_FIELD_MAP.put("comment", MetadataField.COMMENT);
-        STRING_FIELD_MAP.put("playlist", MetadataField.PLAYLIST);
-        NUMBER_FIELD_MAP.put("year", MetadataField.YEAR);
-        NUMBER_FIELD_MAP.put("tracknumber", MetadataField.TRACK_NUMBER);
-        NUMBER_FIELD_MAP.put("time", MetadataField.DURATION);
-        NUMBER_FIELD_MAP.put("playcount", MetadataField.PLAY_COUNT);
-        NUMBER_FIELD_MAP.put("rating", MetadataField.RATING);
-        DATE_FIELD_MAP.put("lastplayed", MetadataField.LAST_PLAYED);
-        FIELD_MAPS.add(STRING_FIELD_MAP);
-        FIELD_MAPS.add(NUMBER_FIELD_MAP);
-        FIELD_MAPS.add(DATE_FIELD_MAP);
-        STRING_OPERATOR_MAP.put("is", Operator.IS);
-        STRING_OPERATOR_MAP.put("isnot", Operator.IS_NOT);
-        STRING_OPERATOR_MAP.put("startswith", Operator.STARTS_WITH);
-        STRING_OPERATOR_MAP.put("endswith", Operator.ENDS_WITH);
-        STRING_OPERATOR_MAP.put("contains", Operator.CONTAINS);
-        STRING_OPERATOR_MAP.put("doesnotcontain", Operator.DOES_NOT_CONTAIN);
-        NUMBER_OPERATOR_MAP.put("is", Operator.IS);
-        NUMBER_OPERATOR_MAP.put("isnot", Operator.IS_NOT);
-        NUMBER_OPERATOR_MAP.put("lessthan", Operator.LESS_THAN);
-        NUMBER_OPERATOR_MAP.put("greaterthan", Operator.GREATER_THAN);
-        DATE_OPERATOR_MAP.put("before", Operator.BEFORE);
-        DATE_OPERATOR_MAP.put("after", Operator.AFTER);
-        DATE_OPERATOR_MAP.put("inthelast", Operator.IN_THE_LAST);
-        DATE_OPERATOR_MAP.put("notinthelast", Operator.NOT_IN_THE_LAST);
-
-        TIME_UNIT_MAP.put(TimeUnit.SECOND, "seconds");
-        TIME_UNIT_MAP.put(TimeUnit.MINUTE, "minutes");
-        TIME_UNIT_MAP.put(TimeUnit.HOUR, "hours");
-        TIME_UNIT_MAP.put(TimeUnit.DAY, "days");
-        TIME_UNIT_MAP.put(TimeUnit.WEEK, "weeks");
-
-        STRING_FIELD_KEYS = STRING_FIELD_MAP.keySet();
-        NUMBER_FIELD_KEYS = NUMBER_FIELD_MAP.keySet();
-        DATE_FIELD_KEYS = DATE_FIELD_MAP.keySet();
-        STRING_FIELD_VALUES = STRING_FIELD_MAP.values();
-        NUMBER_FIELD_VALUES = NUMBER_FIELD_MAP.values();
-        DATE_FIELD_VALUES = DATE_FIELD_MAP.values();
-    }
-
     private static boolean getMatchAllFromXbmc(final String xbmcMatch) {
         return xbmcMatch.equals("all");
     }
@@ -126,171 +60,350 @@ public class XbmcPlaylistConverterTools {
         return isAscending ? "ascending" : "descending";
     }
 
-    private static TimePeriod parseXbmcTimePeriod(final String timePeriodString) throws ParseException {
-        try {
-            return TIME_FORMAT_MS.parse(timePeriodString);
-        } catch (final ParseException pe) {
-            return TIME_FORMAT_HMS.parse(timePeriodString);
-        }
-    }
-
     private static String formatXbmcTimePeriod(final TimePeriod timePeriod) {
         if (timePeriod.getHours() > 0) {
-            return TIME_FORMAT_HMS.format(timePeriod);
+            return TIME_FORMAT_HMS.get().format(timePeriod);
         } else {
-            return TIME_FORMAT_MS.format(timePeriod);
+            return TIME_FORMAT_MS.get().format(timePeriod);
         }
     }
 
-    private static Rule convertRule(final XbmcSmartPlaylist.Rule xbmcRule) throws ParseException {
+    private static Rule convertRule(final XbmcSmartPlaylist.Rule xbmcRule, final int ruleIndex) {
         final Rule smartRule = new Rule();
-        final MetadataField smartField;
-        final Operator smartOperator;
-        if (STRING_FIELD_KEYS.contains(xbmcRule.getField())) {
-            smartField = STRING_FIELD_MAP.get(xbmcRule.getField());
-            smartOperator = STRING_OPERATOR_MAP.get(xbmcRule.getOperator());
-            smartRule.setOperand(xbmcRule.getOperand());
-        } else if (NUMBER_FIELD_KEYS.contains(xbmcRule.getField())) {
-            smartField = NUMBER_FIELD_MAP.get(xbmcRule.getField());
-            smartOperator = NUMBER_OPERATOR_MAP.get(xbmcRule.getOperator());
-            if (smartField == MetadataField.DURATION) {
-                smartRule.setOperand(parseXbmcTimePeriod(xbmcRule.getOperand()));
-            } else {
-                smartRule.setOperand(xbmcRule.getOperand());
+        final MetadataField smartField = DIALECT.getField(xbmcRule.getField());
+        final FieldType fieldType = DIALECT.getFieldType(smartField);
+        if (fieldType == null) {
+            throw invalidField(xbmcRule, ruleIndex);
+        }
+        final Operator smartOperator = DIALECT.getOperator(fieldType, xbmcRule.getOperator());
+        smartRule.setOperand(parseOperand(xbmcRule, smartField, fieldType, smartOperator, ruleIndex));
+        if (smartOperator != null) {
+            smartRule.setField(smartField);
+            smartRule.setOperator(smartOperator);
+        } else {
+            throw invalidOperator(xbmcRule, smartField, ruleIndex);
+        }
+        return smartRule;
+    }
+
+    /**
+     * Reads the operand of an XBMC rule as the type of object that format-agnostic rules use for it
+     * @return the operand, or null if the operator doesn't take one that can be read
+     * @throws DiagnosticException the operand is missing or can't be read
+     */
+    private static Object parseOperand(final XbmcSmartPlaylist.Rule xbmcRule, final MetadataField smartField,
+            final FieldType fieldType, final Operator smartOperator, final int ruleIndex) {
+        final String operand = xbmcRule.getOperand();
+        // a leniently loaded rule can be missing its value; an empty one is only a value for text fields
+        if (operand == null || operand.isEmpty() && fieldType != FieldType.STRING) {
+            throw new DiagnosticException(new Diagnostic(DiagnosticCode.MISSING_OPERAND, ruleIndex,
+                "XBMC playlist rule has no value: %s", xbmcRule));
+        }
+        if (fieldType == FieldType.NUMBER && smartField == MetadataField.DURATION) {
+            // parse time as mm:ss or hh:mm:ss
+            final ParsePosition position = new ParsePosition(0);
+            final long seconds = OperandParser.parseDuration(operand, position);
+            if (position.getErrorIndex() >= 0) {
+                throw invalidOperand(xbmcRule, "time", position, ruleIndex);
             }
-        } else if (DATE_FIELD_KEYS.contains(xbmcRule.getField())) {
-            smartField = DATE_FIELD_MAP.get(xbmcRule.getField());
-            smartOperator = DATE_OPERATOR_MAP.get(xbmcRule.getOperator());
+            return OperandParser.toTimePeriod(seconds);
+        } else if (fieldType == FieldType.DATE) {
             if (smartOperator == Operator.IN_THE_LAST || smartOperator == Operator.NOT_IN_THE_LAST) {
                 // 2 weeks, 10 days, etc
-                smartRule.setOperand(TimePeriod.parseAsWords(xbmcRule.getOperand()));
+                final ParsePosition position = new ParsePosition(0);
+                final long seconds = OperandParser.parsePeriod(operand, position);
+                if (position.getErrorIndex() >= 0) {
+                    throw invalidOperand(xbmcRule, "time period", position, ruleIndex);
+                }
+                return OperandParser.toTimePeriod(seconds);
             } else if (smartOperator == Operator.BEFORE || smartOperator == Operator.AFTER) {
                 // parse date as yyyy-MM-dd
-                smartRule.setOperand(DATE_FORMAT.parse(xbmcRule.getOperand()));
+                final ParsePosition position = new ParsePosition(0);
+                final long millis = OperandParser.parseDate(operand, '-', position);
+                if (position.getErrorIndex() >= 0) {
+                    throw invalidOperand(xbmcRule, "date", position, ruleIndex);
+                }
+                return new Date(millis);
             }
-        } else {
-            throw new IllegalArgumentException(String.format("Invalid field \"%s\" in XBMC playlist in rule:\n%s",
-                xbmcRule.getField(), xbmcRule));
+            return null;
         }
-        if (smartOperator != null) {
-            smartRule.setField(smartField);
-            smartRule.setOperator(smartOperator);
-        } else {
-            throw new IllegalArgumentException(String.format("operator \"%s\" is not allowed on field \"%s\" in XBMC playlists or is not a valid operator, rule:\n%s",
-                xbmcRule.getOperator(), smartField, xbmcRule));
+        return operand;
+    }
+
+    private static DiagnosticException invalidField(final XbmcSmartPlaylist.Rule xbmcRule, final int ruleIndex) {
+        return new DiagnosticException(new Diagnostic(DiagnosticCode.UNKNOWN_FIELD, ruleIndex,
+            "Invalid field \"%s\" in XBMC playlist in rule:\n%s", xbmcRule.getField(), xbmcRule));
+    }
+
+    private static DiagnosticException invalidOperand(final XbmcSmartPlaylist.Rule xbmcRule, final String operandType,
+            final ParsePosition position, final int ruleIndex) {
+        return new DiagnosticException(new Diagnostic(DiagnosticCode.INVALID_OPERAND, ruleIndex,
+            "Unparseable %s: \"%s\" at index %d%s\nRule = %s", operandType, xbmcRule.getOperand(),
+            position.getErrorIndex(),
+            operandType.equals("date") ? "; Dates must be in the format " + DATE_FORMAT_STRING : "", xbmcRule));
+    }
+
+    private static DiagnosticException invalidOperator(final XbmcSmartPlaylist.Rule xbmcRule,
+            final MetadataField smartField, final int ruleIndex) {
+        return new DiagnosticException(new Diagnostic(DiagnosticCode.UNKNOWN_OPERATOR, ruleIndex,
+            "operator \"%s\" is not allowed on field \"%s\" in XBMC playlists or is not a valid operator, rule:\n%s",
+            xbmcRule.getOperator(), smartField, xbmcRule));
+    }
+
+    /**
+     * Converts a single XBMC rule, logging the reason if it can't be converted
+     * @param xbmcRule  the rule to convert
+     * @param ruleIndex the index of the rule in its playlist
+     * @param errorLog  log for errors encountered during operation
+     * @return the converted rule, or null if it was invalid
+     */
+    static Rule convertRule(final XbmcSmartPlaylist.Rule xbmcRule, final int ruleIndex,
+            final DiagnosticSink errorLog) {
+        try {
+            return convertRule(xbmcRule, ruleIndex);
+        } catch (final DiagnosticException de) {
+            log(errorLog, de.getDiagnostic());
+        } catch (final IllegalArgumentException iae) {
+            log(errorLog, new Diagnostic(DiagnosticCode.INVALID_OPERAND, ruleIndex, iae.getMessage()));
         }
-        return smartRule;
+        return null;
     }
 
-    public static AgnosticSmartPlaylist convert(final XbmcSmartPlaylist xbmcSmartPlaylist,
-            final Collection<String> errorLog) {
+    /**
+     * @param xbmcType the type attribute of an XBMC playlist, e.g. "songs"
+     * @return the playlist type, or null if xbmcType isn't a known type
+     */
+    public static PlaylistType getPlaylistType(final String xbmcType) {
+        return DIALECT.getPlaylistType(xbmcType);
+    }
+
+    /**
+     * Converts everything about an XBMC playlist except for its rules
+     * @param xbmcSmartPlaylist the playlist whose type, name, match, order, and limit are read; its rules are ignored
+     * @param errorLog          log for errors encountered during operation
+     * @return a format-agnostic playlist with no rules
+     */
+    static AgnosticSmartPlaylist convertHeader(final XbmcSmartPlaylist xbmcSmartPlaylist,
+            final DiagnosticSink errorLog) {
         final AgnosticSmartPlaylist result = new AgnosticSmartPlaylist();
         setDefaultsOn(result);
         overrideDefaults(result, xbmcSmartPlaylist, errorLog);
         if (result.getOrder().getKey() == MetadataField.PLAYLIST) {
-            log(errorLog, "order by playlist is not allowed in XBMC playlists");
+            log(errorLog, new Diagnostic(DiagnosticCode.UNKNOWN_ORDER, Diagnostic.NO_RULE,
+                "order by playlist is not allowed in XBMC playlists"));
             result.getOrder().setKey(MetadataField.TITLE);
         }
-        result.setPlaylistType(PLAYLIST_TYPE_MAP.get(xbmcSmartPlaylist.getType()));
+        result.setPlaylistType(DIALECT.getPlaylistType(xbmcSmartPlaylist.getType()));
         result.setName(xbmcSmartPlaylist.getName());
+        return result;
+    }
 
-        for (final XbmcSmartPlaylist.Rule xbmcRule: xbmcSmartPlaylist.getRules()) {
-            try {
-                result.getRules().add(convertRule(xbmcRule));
-            } catch (final ParseException pe) {
-                log(errorLog, String.format("%s at index %d%s\nRule = %s", pe.getMessage(), pe.getErrorOffset(),
-                    pe.getMessage().contains("date") ? "; Dates must be in the format " + DATE_FORMAT_STRING : "", xbmcRule));
+    public static AgnosticSmartPlaylist convert(final XbmcSmartPlaylist xbmcSmartPlaylist,
+            final DiagnosticSink errorLog, final boolean parallel) {
+        final AgnosticSmartPlaylist result = convertHeader(xbmcSmartPlaylist, errorLog);
 
-            } catch (final IllegalArgumentException iae) {
-                log(errorLog, iae.getMessage());
-            }
-        }
+        RuleListConverter.convertAll(xbmcSmartPlaylist.getRules(), XbmcPlaylistConverterTools::convertRule, errorLog,
+            result.getRules(), parallel);
 
         return result;
     }
 
-    private static XbmcSmartPlaylist.Rule convertRule(final Class<? extends XbmcSmartPlaylist.Rule> ruleType,
-            final Rule smartRule, final Collection<String> errorLog) {
-        final XbmcSmartPlaylist.Rule xbmcRule;
+    /**
+     * Converts a single format-agnostic rule to an XBMC rule, logging the reason if it can't be converted
+     * @param ruleFactory creates an empty XBMC rule of the version to convert to
+     * @param smartRule   the rule to convert
+     * @param ruleIndex   the index of the rule in its playlist
+     * @param errorLog    log for errors encountered during operation
+     * @return the converted rule, or null if it isn't allowed in XBMC playlists
+     */
+    static XbmcSmartPlaylist.Rule convertRule(final Supplier<? extends XbmcSmartPlaylist.Rule> ruleFactory,
+            final Rule smartRule, final int ruleIndex, final DiagnosticSink errorLog) {
         try {
-            xbmcRule = ruleType.newInstance();
-        } catch (final InstantiationException e) {
-            log(errorLog, String.format("Unable to instantiate an XBMC rule; check the constructors and implementation: %s",
-                    e.getMessage()));
-            return null;
-        } catch (final IllegalAccessException e) {
-            log(errorLog, String.format("Unable to instantiate an XBMC rule; check the constructors: %s", e.getMessage()));
-            return null;
+            return toXbmcRule(ruleFactory, smartRule, ruleIndex);
+        } catch (final DiagnosticException de) {
+            log(errorLog, de.getDiagnostic());
         }
+        return null;
+    }
+
+    private static XbmcSmartPlaylist.Rule toXbmcRule(final Supplier<? extends XbmcSmartPlaylist.Rule> ruleFactory,
+            final Rule smartRule, final int ruleIndex) {
         final MetadataField smartField = smartRule.getField();
-        if (STRING_FIELD_VALUES.contains(smartField)) {
-            xbmcRule.setField(STRING_FIELD_MAP.inverse().get(smartField));
-            xbmcRule.setOperator(STRING_OPERATOR_MAP.inverse().get(smartRule.getOperator()));
-        } else if (NUMBER_FIELD_VALUES.contains(smartField)) {
-            xbmcRule.setField(NUMBER_FIELD_MAP.inverse().get(smartField));
-        } else if (DATE_FIELD_VALUES.contains(smartField)) {
-            xbmcRule.setField(DATE_FIELD_MAP.inverse().get(smartField));
-        } else {
-            throw new IllegalArgumentException(String.format("XBMC playlists do not support the \"%s\" field\nRule = %s",
-                smartField, smartRule));
+        final FieldType fieldType = DIALECT.getFieldType(smartField);
+        if (fieldType == null) {
+            throw new DiagnosticException(new Diagnostic(DiagnosticCode.UNSUPPORTED_FIELD, ruleIndex,
+                "XBMC playlists do not support the \"%s\" field\nRule = %s", smartField, smartRule));
         }
-        if (xbmcRule.getOperator() == null) {
-            throw new IllegalArgumentException(String.format("Operator \"%s\" is not allowed on field \"%s\" in XBMC playlists",
-                smartRule.getOperator(), smartField));
+        final String xbmcOperator = DIALECT.getOperatorName(fieldType, smartRule.getOperator());
+        if (xbmcOperator == null) {
+            throw new DiagnosticException(new Diagnostic(DiagnosticCode.UNSUPPORTED_OPERATOR, ruleIndex,
+                "Operator \"%s\" is not allowed on field \"%s\" in XBMC playlists", smartRule.getOperator(),
+                smartField));
         }
+        final XbmcSmartPlaylist.Rule xbmcRule = ruleFactory.get();
+        xbmcRule.setField(DIALECT.getFieldName(smartField));
+        xbmcRule.setOperator(xbmcOperator);
         final Object smartOperand = smartRule.getOperand();
 
-        if (smartOperand instanceof String) {
+        if (smartOperand == null) {
+            throw new DiagnosticException(new Diagnostic(DiagnosticCode.MISSING_OPERAND, ruleIndex,
+                "Smart playlist rule has no value: %s", smartRule));
+        } else if (smartOperand instanceof String) {
             xbmcRule.setOperand(smartOperand.toString());
         } else if (smartOperand instanceof TimePeriod) {
             final TimePeriod time = (TimePeriod) smartOperand;
 
             if (smartField == MetadataField.LAST_PLAYED) {
-                final Pair<Long, TimeUnit> period = time.getLargestUnit(TimeUnit.WEEK);
-                xbmcRule.setOperand(period.getKey() + " " + TIME_UNIT_MAP.get(period.getValue()));
+                final TimeAmount period = TimeAmount.largestUnit(time, TimeUnit.WEEK);
+                xbmcRule.setOperand(period.getAmount() + " " + DIALECT.getTimeUnitName(period.getUnit()));
             } else if (smartField == MetadataField.DURATION) {
                 xbmcRule.setOperand(formatXbmcTimePeriod(time));
             } else {
-                throw new IllegalArgumentException("Combination of field and operand types not allowed: " + smartRule);
+                throw new DiagnosticException(new Diagnostic(DiagnosticCode.INVALID_OPERAND, ruleIndex,
+                    "Combination of field and operand types not allowed: %s", smartRule));
             }
         } else if (smartOperand instanceof Date) {
-            xbmcRule.setOperand(DATE_FORMAT.format((Date) smartOperand));
+            xbmcRule.setOperand(DATE_FORMAT.get().format((Date) smartOperand));
         } else {
-            throw new IllegalArgumentException(String.format("Illegal operand type \"%s\" in smart playlist rule:\n%s",
-                smartOperand.getClass().getCanonicalName(), smartRule));
+            throw new DiagnosticException(new Diagnostic(DiagnosticCode.INVALID_OPERAND, ruleIndex,
+                "Illegal operand type \"%s\" in smart playlist rule:\n%s", smartOperand.getClass().getCanonicalName(),
+                smartRule));
         }
 
         return xbmcRule;
     }
 
-    public static XbmcSmartPlaylist convert(final AgnosticSmartPlaylist agnosticSmartPlaylist,
-            final Class<? extends XbmcSmartPlaylist> outputType, final Collection<String> errorLog) {
-        final XbmcSmartPlaylist result;
-        try {
-            result = outputType.newInstance();
-        } catch (final InstantiationException e) {
-            log(errorLog, String.format("Unable to instantiate an XBMC playlist; check the constructors and implementation: %s",
-                    e.getMessage()));
-            return null;
-        } catch (final IllegalAccessException e) {
-            log(errorLog, String.format("Unable to instantiate an XBMC playlist; check the constructors: %s", e.getMessage()));
-            return null;
-        }
+    /**
+     * Converts a format-agnostic playlist to an XBMC playlist
+     * @param agnosticSmartPlaylist the playlist to convert
+     * @param playlistFactory       creates an empty XBMC playlist of the version to convert to
+     * @param errorLog              log for errors encountered during operation
+     * @param parallel              whether a playlist with many rules may have them converted on several threads
+     * @param <T> the version of XBMC playlist
+     * @return the converted playlist
+     */
+    public static <T extends XbmcSmartPlaylist> T convert(final AgnosticSmartPlaylist agnosticSmartPlaylist,
+            final Supplier<T> playlistFactory, final DiagnosticSink errorLog, final boolean parallel) {
+        final T result = playlistFactory.get();
         setDefaultsOn(result);
         overrideDefaults(result, agnosticSmartPlaylist, errorLog);
-        result.setType(PLAYLIST_TYPE_MAP.inverse().get(agnosticSmartPlaylist.getPlaylistType()));
+        result.setType(DIALECT.getPlaylistTypeName(agnosticSmartPlaylist.getPlaylistType()));
         result.setName(agnosticSmartPlaylist.getName());
 
-        final Class<? extends XbmcSmartPlaylist.Rule> ruleType = result.newRule().getClass();
-        for (final Rule smartRule: agnosticSmartPlaylist.getRules()) {
-            try {
-                result.getRules().add(convertRule(ruleType, smartRule, errorLog));
-            } catch (final IllegalArgumentException iae) {
-                log(errorLog, iae.getMessage());
+        final Supplier<XbmcSmartPlaylist.Rule> ruleFactory = result::newRule;
+        RuleListConverter.convertAll(agnosticSmartPlaylist.getRules(),
+            (final Rule smartRule, final int ruleIndex, final DiagnosticSink ruleErrorLog) ->
+                convertRule(ruleFactory, smartRule, ruleIndex, ruleErrorLog), errorLog, result.getRules(), parallel);
+
+        return result;
+    }
+
+    /**
+     * Converts one version of XBMC playlist to another without going through a format-agnostic playlist. The versions
+     * only differ in how they write operands, so rules are copied field by field: fields, operators, and operands are
+     * checked the same way as in {@link #convert(XbmcSmartPlaylist, DiagnosticSink, boolean)}, but operands are copied
+     * as they are instead of being formatted again. The header gets the same defaults and checks as the two-step
+     * conversion.
+     * @param xbmcSmartPlaylist the playlist to convert
+     * @param playlistFactory   creates an empty XBMC playlist of the version to convert to
+     * @param errorLog          log for errors encountered during operation
+     * @param parallel          whether a playlist with many rules may have them copied on several threads
+     * @param <T> the version of XBMC playlist
+     * @return the converted playlist
+     */
+    public static <T extends XbmcSmartPlaylist> T copy(final XbmcSmartPlaylist xbmcSmartPlaylist,
+            final Supplier<T> playlistFactory, final DiagnosticSink errorLog, final boolean parallel) {
+        final T result = copyHeader(xbmcSmartPlaylist, playlistFactory, errorLog);
+
+        final Supplier<XbmcSmartPlaylist.Rule> ruleFactory = result::newRule;
+        RuleListConverter.convertAll(xbmcSmartPlaylist.getRules(),
+            (final XbmcSmartPlaylist.Rule xbmcRule, final int ruleIndex, final DiagnosticSink ruleErrorLog) ->
+                copyRule(ruleFactory, xbmcRule, ruleIndex, ruleErrorLog), errorLog, result.getRules(), parallel);
+
+        return result;
+    }
+
+    /**
+     * Copies everything about an XBMC playlist except for its rules into another version of XBMC playlist
+     * @param xbmcSmartPlaylist the playlist whose type, name, match, order, and limit are read; its rules are ignored
+     * @param playlistFactory   creates an empty XBMC playlist of the version to convert to
+     * @param errorLog          log for errors encountered during operation
+     * @param <T> the version of XBMC playlist
+     * @return a playlist with no rules
+     */
+    static <T extends XbmcSmartPlaylist> T copyHeader(final XbmcSmartPlaylist xbmcSmartPlaylist,
+            final Supplier<T> playlistFactory, final DiagnosticSink errorLog) {
+        final T result = playlistFactory.get();
+        setDefaultsOn(result);
+        copyHeader(result, xbmcSmartPlaylist, errorLog);
+        return result;
+    }
+
+    /**
+     * Copies a single XBMC rule into another version of XBMC rule, logging the reason if it can't be converted
+     * @param ruleFactory creates an empty XBMC rule of the version to convert to
+     * @param xbmcRule    the rule to copy
+     * @param ruleIndex   the index of the rule in its playlist
+     * @param errorLog    log for errors encountered during operation
+     * @return the copied rule, or null if it was invalid
+     */
+    static XbmcSmartPlaylist.Rule copyRule(final Supplier<? extends XbmcSmartPlaylist.Rule> ruleFactory,
+            final XbmcSmartPlaylist.Rule xbmcRule, final int ruleIndex, final DiagnosticSink errorLog) {
+        try {
+            return copyRule(ruleFactory.get(), xbmcRule, ruleIndex);
+        } catch (final DiagnosticException de) {
+            log(errorLog, de.getDiagnostic());
+        }
+        return null;
+    }
+
+    private static void copyHeader(final XbmcSmartPlaylist result, final XbmcSmartPlaylist xbmcSmartPlaylist,
+            final DiagnosticSink errorLog) {
+        if (xbmcSmartPlaylist.getOrder() != null) {
+            final String sortKey = xbmcSmartPlaylist.getOrder().getSortKey();
+            if (sortKey != null) {
+                final MetadataField orderKey = DIALECT.getField(sortKey);
+                if (orderKey == null) {
+                    log(errorLog, new Diagnostic(DiagnosticCode.UNKNOWN_ORDER, Diagnostic.NO_RULE,
+                        "Invalid order value \"%s\" in XBMC playlist", sortKey));
+                } else if (orderKey == MetadataField.PLAYLIST) {
+                    log(errorLog, new Diagnostic(DiagnosticCode.UNKNOWN_ORDER, Diagnostic.NO_RULE,
+                        "order by playlist is not allowed in XBMC playlists"));
+                } else {
+                    result.getOrder().setSortKey(DIALECT.getFieldName(orderKey));
+                }
+            }
+            if (xbmcSmartPlaylist.getOrder().getDirection() != null) {
+                result.getOrder().setDirection(getOrderForXbmc(getOrderFromXbmc(
+                    xbmcSmartPlaylist.getOrder().getDirection())));
             }
         }
+        if (xbmcSmartPlaylist.getMatch() != null) {
+            result.setMatch(getMatchAllForXbmc(getMatchAllFromXbmc(xbmcSmartPlaylist.getMatch())));
+        }
+        if (xbmcSmartPlaylist.getLimit() != null) {
+            result.setLimit(xbmcSmartPlaylist.getLimit());
+        }
+        result.setType(DIALECT.getPlaylistTypeName(DIALECT.getPlaylistType(xbmcSmartPlaylist.getType())));
+        result.setName(xbmcSmartPlaylist.getName());
+    }
 
-        return result;
+    private static XbmcSmartPlaylist.Rule copyRule(final XbmcSmartPlaylist.Rule result,
+            final XbmcSmartPlaylist.Rule xbmcRule, final int ruleIndex) {
+        final MetadataField smartField = DIALECT.getField(xbmcRule.getField());
+        final FieldType fieldType = DIALECT.getFieldType(smartField);
+        if (fieldType == null) {
+            throw invalidField(xbmcRule, ruleIndex);
+        }
+        final Operator smartOperator = DIALECT.getOperator(fieldType, xbmcRule.getOperator());
+        if (smartOperator == null) {
+            throw invalidOperator(xbmcRule, smartField, ruleIndex);
+        }
+        // the operand is copied as it is, but it has to be one that the two-step conversion could read
+        parseOperand(xbmcRule, smartField, fieldType, smartOperator, ruleIndex);
+        return result.setField(DIALECT.getFieldName(smartField))
+            .setOperator(DIALECT.getOperatorName(fieldType, smartOperator))
+            .setOperand(xbmcRule.getOperand());
     }
 
     /**
@@ -301,7 +414,7 @@ public class XbmcPlaylistConverterTools {
         final XbmcSmartPlaylist.Order order = xbmcSmartPlaylist.newOrder()
             .setDirection(getOrderForXbmc(defaultOrderIsAscending))
             // default in XBMC UI is order by "none", whose sort algorithm I can't find a pattern in, so just pick a sane default
-            .setSortKey(STRING_FIELD_MAP.inverse().get(defaultOrderByField));
+            .setSortKey(DIALECT.getFieldName(defaultOrderByField));
         xbmcSmartPlaylist.setOrder(order)
             .setMatch(getMatchAllForXbmc(defaultMatchAll))
             .setLimit(defaultLimit);
@@ -314,19 +427,15 @@ public class XbmcPlaylistConverterTools {
      * @param errorLog          log for errors encountered during operation
      */
     private static void overrideDefaults(final XbmcSmartPlaylist xbmcSmartPlaylist, final AgnosticSmartPlaylist smartPlaylist,
-            final Collection<String> errorLog) {
+            final DiagnosticSink errorLog) {
         if (smartPlaylist.getOrder() != null) {
             if (smartPlaylist.getOrder().getKey() != null) {
-                boolean set = false;
-                for (final BiMap<String, MetadataField> fieldMap: FIELD_MAPS) {
-                    if (fieldMap.inverse().containsKey(smartPlaylist.getOrder().getKey())) {
-                        xbmcSmartPlaylist.getOrder().setSortKey(fieldMap.inverse().get(smartPlaylist.getOrder().getKey()));
-                        set = true;
-                        break;
-                    }
-                }
-                if (!set) {
-                    log(errorLog, String.format("Order value \"%s\" is not allowed in XBMC playlists", smartPlaylist.getOrder().getKey()));
+                final String sortKey = DIALECT.getFieldName(smartPlaylist.getOrder().getKey());
+                if (sortKey != null) {
+                    xbmcSmartPlaylist.getOrder().setSortKey(sortKey);
+                } else {
+                    log(errorLog, new Diagnostic(DiagnosticCode.UNSUPPORTED_ORDER, Diagnostic.NO_RULE,
+                        "Order value \"%s\" is not allowed in XBMC playlists", smartPlaylist.getOrder().getKey()));
                 }
             }
             xbmcSmartPlaylist.getOrder().setDirection(getOrderForXbmc(smartPlaylist.getOrder().isAscending()));
@@ -359,19 +468,15 @@ public class XbmcPlaylistConverterTools {
      * @param errorLog          log for errors encountered during operation
      */
     private static void overrideDefaults(final AgnosticSmartPlaylist smartPlaylist, final XbmcSmartPlaylist xbmcSmartPlaylist,
-            final Collection<String> errorLog) {
+            final DiagnosticSink errorLog) {
         if (xbmcSmartPlaylist.getOrder() != null) {
             if (xbmcSmartPlaylist.getOrder().getSortKey() != null) {
-                boolean set = false;
-                for (final BiMap<String, MetadataField> fieldMap: FIELD_MAPS) {
-                    if (fieldMap.containsKey(xbmcSmartPlaylist.getOrder().getSortKey())) {
-                        smartPlaylist.getOrder().setKey(fieldMap.get(xbmcSmartPlaylist.getOrder().getSortKey()));
-                        set = true;
-                        break;
-                    }
-                }
-                if (!set) {
-                    log(errorLog, String.format("Invalid order value \"%s\" in XBMC playlist", xbmcSmartPlaylist.getOrder().getSortKey()));
+                final MetadataField orderKey = DIALECT.getField(xbmcSmartPlaylist.getOrder().getSortKey());
+                if (orderKey != null) {
+                    smartPlaylist.getOrder().setKey(orderKey);
+                } else {
+                    log(errorLog, new Diagnostic(DiagnosticCode.UNKNOWN_ORDER, Diagnostic.NO_RULE,
+                        "Invalid order value \"%s\" in XBMC playlist", xbmcSmartPlaylist.getOrder().getSortKey()));
                 }
             }
             if (xbmcSmartPlaylist.getOrder().getDirection() != null) {
@@ -386,8 +491,12 @@ public class XbmcPlaylistConverterTools {
         }
     }
 
-    private static void log(final Collection<String> errorLog, final String message) {
-        logger.error(message);
-        errorLog.add(message);
+    /**
+     * Sends the problem to the error log, which is where problems are reported. It's only traced, since the shipped
+     * log4j configuration logs everything from DEBUG up, and logging it as an error would format every message.
+     */
+    private static void log(final DiagnosticSink errorLog, final Diagnostic diagnostic) {
+        logger.trace(diagnostic);
+        errorLog.add(diagnostic);
     }
 }
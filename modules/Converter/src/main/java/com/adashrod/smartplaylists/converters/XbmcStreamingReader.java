@@ -0,0 +1,242 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.ConversionReport;
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.Rule;
+import com.adashrod.smartplaylists.playlists.StaxFactories;
+import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * XbmcStreamingReader reads XBMC smart playlists straight into {@link AgnosticSmartPlaylist}s with a StAX parser,
+ * skipping the JAXB-bound {@link XbmcSmartPlaylist} object graph. Both versions are handled in one pass: v11 rules have
+ * their operand as the text of the rule element and v12 rules have it in a &lt;value&gt; child. Which version a file is
+ * gets decided by its first rule. Rules are converted with the same code as {@link XbmcPlaylistConverterTools}, so the
+ * errors logged are the same as reading the file with a converter and then converting it.
+ */
+public class XbmcStreamingReader {
+    /**
+     * Reads an XBMC playlist file and converts it to a format-agnostic playlist
+     * @param file     the file to read
+     * @param errorLog any errors encountered during the conversion will be appended to this
+     * @return the playlist without format
+     * @throws XMLStreamException the file is not well-formed or is not an XBMC playlist
+     * @throws IOException error reading the file
+     */
+    public AgnosticSmartPlaylist read(final File file, final DiagnosticSink errorLog) throws XMLStreamException,
+            IOException {
+        try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return read(inputStream, errorLog);
+        }
+    }
+
+    /**
+     * Reads an XBMC playlist from a stream and converts it to a format-agnostic playlist. The stream is not closed.
+     * @param inputStream the XML to read; the parser detects the encoding from the XML declaration
+     * @param errorLog    any errors encountered during the conversion will be appended to this
+     * @return the playlist without format
+     * @throws XMLStreamException the XML is not well-formed or is not an XBMC playlist
+     */
+    public AgnosticSmartPlaylist read(final InputStream inputStream, final DiagnosticSink errorLog)
+            throws XMLStreamException {
+        final XMLStreamReader reader = StaxFactories.getInputFactory().createXMLStreamReader(inputStream);
+        try {
+            return read(reader, errorLog);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private AgnosticSmartPlaylist read(final XMLStreamReader reader, final DiagnosticSink errorLog)
+            throws XMLStreamException {
+        // only holds the playlist-level values until the end of the document; rules never get added to it
+        final XbmcSmartPlaylist header = readRoot(reader);
+        final List<Rule> rules = new ArrayList<>();
+        // order and limit can come after the rules, so rule errors are held back to log them after any header errors
+        final ConversionReport ruleErrors = new ConversionReport();
+        Boolean isV12 = null;
+        int ruleIndex = 0;
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("rule".equals(reader.getLocalName())) {
+                final XbmcSmartPlaylist.Rule xbmcRule = readRule(reader, isV12);
+                isV12 = xbmcRule instanceof XbmcV12SmartPlaylist.Rule;
+                final Rule smartRule = XbmcPlaylistConverterTools.convertRule(xbmcRule, ruleIndex++, ruleErrors);
+                if (smartRule != null) {
+                    rules.add(smartRule);
+                }
+            } else {
+                readHeaderElement(reader, header);
+            }
+        }
+
+        final AgnosticSmartPlaylist result = XbmcPlaylistConverterTools.convertHeader(header, errorLog);
+        result.getRules().addAll(rules);
+        ruleErrors.sendTo(errorLog);
+        return result;
+    }
+
+    /**
+     * Reads everything in a playlist except for its rules, which are skipped without being parsed
+     * @param reader a reader at the start of the document
+     * @return a playlist with no rules
+     * @throws XMLStreamException the XML is not well-formed or is not an XBMC playlist
+     */
+    XbmcSmartPlaylist readHeader(final XMLStreamReader reader) throws XMLStreamException {
+        final XbmcSmartPlaylist header = readRoot(reader);
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("rule".equals(reader.getLocalName())) {
+                skipElement(reader);
+            } else {
+                readHeaderElement(reader, header);
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Reads the rules of a playlist one at a time, passing each one to the handler before reading the next, and skips
+     * everything else
+     * @param reader  a reader at the start of the document
+     * @param isV12   true if rules have their operand in a &lt;value&gt; child, false if it's their text
+     * @param handler what to do with each rule
+     * @throws XMLStreamException the XML is not well-formed or is not an XBMC playlist, or the handler failed
+     */
+    void readRules(final XMLStreamReader reader, final boolean isV12,
+            final RuleHandler<XbmcSmartPlaylist.Rule> handler) throws XMLStreamException {
+        readRoot(reader);
+        int ruleIndex = 0;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("rule".equals(reader.getLocalName())) {
+                handler.handle(readRule(reader, isV12), ruleIndex++);
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    /**
+     * Moves the reader onto the root element
+     * @return a playlist with only the type from the root element set
+     */
+    private XbmcSmartPlaylist readRoot(final XMLStreamReader reader) throws XMLStreamException {
+        reader.nextTag();
+        if (!"smartplaylist".equals(reader.getLocalName())) {
+            throw new XMLStreamException(String.format("Unexpected root element <%s>, expected <smartplaylist>",
+                reader.getLocalName()), reader.getLocation());
+        }
+        final XbmcSmartPlaylist header = new XbmcV12SmartPlaylist();
+        header.setType(reader.getAttributeValue(null, "type"));
+        return header;
+    }
+
+    /**
+     * Reads a playlist-level element into the header, or skips it if it's unknown, leaving the reader on its end tag
+     */
+    private void readHeaderElement(final XMLStreamReader reader, final XbmcSmartPlaylist header)
+            throws XMLStreamException {
+        switch (reader.getLocalName()) {
+            case "name":
+                header.setName(reader.getElementText());
+                break;
+            case "match":
+                header.setMatch(reader.getElementText());
+                break;
+            case "limit":
+                header.setLimit(parseLimit(reader));
+                break;
+            case "order":
+                final XbmcSmartPlaylist.Order order = header.newOrder()
+                    .setDirection(reader.getAttributeValue(null, "direction"));
+                order.setSortKey(reader.getElementText());
+                header.setOrder(order);
+                break;
+            default:
+                skipElement(reader);
+        }
+    }
+
+    /**
+     * Reads a rule element, leaving the reader on its end tag
+     * @param reader the reader, positioned on the start tag of the rule
+     * @param isV12  whether previous rules were v12-style, or null if this is the first rule
+     * @return a v11 or v12 rule, depending on whether the operand was text or a &lt;value&gt; child
+     * @throws XMLStreamException malformed XML, or a v11-style rule in a v12 playlist
+     */
+    private XbmcSmartPlaylist.Rule readRule(final XMLStreamReader reader, final Boolean isV12)
+            throws XMLStreamException {
+        final String field = reader.getAttributeValue(null, "field");
+        final String operator = reader.getAttributeValue(null, "operator");
+        final StringBuilder text = new StringBuilder();
+        String value = null;
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            switch (event) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getText());
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    // like the v11 JAXB binding, ignore unexpected elements; that includes <value> in v11 playlists.
+                    // Rules only hold one operand, so like the v12 binding, the last of several <value>s is kept.
+                    if (!Boolean.FALSE.equals(isV12) && "value".equals(reader.getLocalName())) {
+                        value = reader.getElementText();
+                    } else {
+                        skipElement(reader);
+                    }
+                    break;
+                default:
+                    // comments and processing instructions
+            }
+        }
+        final XbmcSmartPlaylist.Rule xbmcRule;
+        if (value != null) {
+            xbmcRule = new XbmcV12SmartPlaylist.Rule().setOperand(value);
+        } else if (Boolean.TRUE.equals(isV12)) {
+            throw new XMLStreamException("Required element <value> was not found", reader.getLocation());
+        } else {
+            xbmcRule = new XbmcV11SmartPlaylist.Rule().setOperand(text.toString());
+        }
+        return xbmcRule.setField(field).setOperator(operator);
+    }
+
+    private Integer parseLimit(final XMLStreamReader reader) throws XMLStreamException {
+        final String limit = reader.getElementText().trim();
+        try {
+            return Integer.valueOf(limit);
+        } catch (final NumberFormatException nfe) {
+            throw new XMLStreamException(String.format("Invalid limit \"%s\"", limit), reader.getLocation());
+        }
+    }
+
+    /**
+     * Skips past the current element and everything in it, leaving the reader on its end tag
+     * @param reader the reader, positioned on the start tag of the element to skip
+     * @throws XMLStreamException malformed XML
+     */
+    private void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
@@ -1,19 +1,18 @@
 package com.adashrod.smartplaylists.converters;
 
+import com.adashrod.smartplaylists.api.DiagnosticSink;
 import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
 import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.api.ParseLimits;
 import com.adashrod.smartplaylists.api.PlaylistConverter;
 import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.JaxbContextRegistry;
 import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.bind.ValidationEvent;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.util.Collection;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import java.io.InputStream;
+import java.io.Reader;
 
 /**
  * XbmcV11PlaylistConverter knows how to convert {@link AgnosticSmartPlaylist}s to {@link com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist}s and vice
@@ -21,19 +20,66 @@ import java.util.Collection;
  */
 public class XbmcV11PlaylistConverter implements PlaylistConverter {
     /**
-     * Given an XML file that is a XBMC-formatted smart playlist, this reads that file and returns that playlist as an
-     * object.
-     * @param file the file to read
+     * Given XML that is a XBMC-formatted smart playlist, this reads it and returns that playlist as an object. The
+     * encoding declared in the XML is honored and the stream is not closed.
+     * @param inputStream the XML to read
      * @return a {@link com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist}
-     * @throws JAXBException error parsing the XML
-     * @throws FileNotFoundException file not found
+     * @throws JAXBException error parsing the XML, or the XML isn't a valid XBMC v11 playlist
      */
     @Override
-    public FormattedSmartPlaylist readFromFile(final File file) throws JAXBException, FileNotFoundException {
-        final JAXBContext context = JAXBContext.newInstance(XbmcV11SmartPlaylist.class);
-        final Unmarshaller unmarshaller = context.createUnmarshaller();
-        unmarshaller.setEventHandler((final ValidationEvent event) -> { return !event.getMessage().contains("unexpected element"); });
-        return (XbmcV11SmartPlaylist) unmarshaller.unmarshal(new FileReader(file));
+    public FormattedSmartPlaylist readFrom(final InputStream inputStream) throws JAXBException {
+        final Unmarshaller unmarshaller = JaxbContextRegistry.getUnmarshaller(XbmcV11SmartPlaylist.class);
+        // the unmarshaller validates against the v11 schema, which rejects v12-style rules with a <value> element
+        return (XbmcV11SmartPlaylist) unmarshaller.unmarshal(inputStream);
+    }
+
+    /**
+     * Given XML that is a XBMC-formatted smart playlist, this reads it within the limits and returns that playlist as an
+     * object. The stream is not closed.
+     * @param inputStream the XML to read
+     * @param limits      the limits on the resources that reading can use
+     * @return a {@link com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist}
+     * @throws JAXBException error parsing the XML, the XML isn't a valid XBMC v11 playlist, or it exceeds a limit
+     */
+    @Override
+    public FormattedSmartPlaylist readFrom(final InputStream inputStream, final ParseLimits limits)
+            throws JAXBException {
+        return (XbmcV11SmartPlaylist) LimitedXmlStreamReader.unmarshal(JaxbContextRegistry.getUnmarshaller(
+            XbmcV11SmartPlaylist.class), inputStream, limits);
+    }
+
+    /**
+     * Given XML that is a XBMC-formatted smart playlist, this reads it and returns as much of that playlist as it can,
+     * carrying on past elements that are invalid. The stream is not closed.
+     * @param inputStream the XML to read
+     * @param errorLog    every validation error in the XML will be appended to this, with its line and column
+     * @return a {@link com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist}
+     * @throws JAXBException the XML isn't well-formed
+     */
+    @Override
+    public FormattedSmartPlaylist readFrom(final InputStream inputStream, final DiagnosticSink errorLog)
+            throws JAXBException {
+        final Unmarshaller unmarshaller = JaxbContextRegistry.getUnmarshaller(XbmcV11SmartPlaylist.class);
+        unmarshaller.setEventHandler(new ValidationErrorCollector(errorLog));
+        try {
+            return (XbmcV11SmartPlaylist) unmarshaller.unmarshal(inputStream);
+        } finally {
+            // the unmarshaller is reused by this thread, so restore the handler that fails on the first error
+            unmarshaller.setEventHandler(JaxbContextRegistry.STRICT_EVENT_HANDLER);
+        }
+    }
+
+    /**
+     * Given XML chars that are a XBMC-formatted smart playlist, this reads them and returns that playlist as an
+     * object. The reader is not closed.
+     * @param reader the XML to read
+     * @return a {@link com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist}
+     * @throws JAXBException error parsing the XML, or the XML isn't a valid XBMC v11 playlist
+     */
+    @Override
+    public FormattedSmartPlaylist readFrom(final Reader reader) throws JAXBException {
+        final Unmarshaller unmarshaller = JaxbContextRegistry.getUnmarshaller(XbmcV11SmartPlaylist.class);
+        return (XbmcV11SmartPlaylist) unmarshaller.unmarshal(reader);
     }
 
     /**
@@ -43,8 +89,14 @@ public class XbmcV11PlaylistConverter implements PlaylistConverter {
      */
     @Override
     public AgnosticSmartPlaylist convert(final FormattedSmartPlaylist formattedSmartPlaylist,
-            final Collection<String> errorLog) {
-        return XbmcPlaylistConverterTools.convert((XbmcSmartPlaylist) formattedSmartPlaylist, errorLog);
+            final DiagnosticSink errorLog) {
+        return convert(formattedSmartPlaylist, errorLog, false);
+    }
+
+    @Override
+    public AgnosticSmartPlaylist convert(final FormattedSmartPlaylist formattedSmartPlaylist,
+            final DiagnosticSink errorLog, final boolean parallel) {
+        return XbmcPlaylistConverterTools.convert((XbmcSmartPlaylist) formattedSmartPlaylist, errorLog, parallel);
     }
 
     /**
@@ -54,8 +106,13 @@ public class XbmcV11PlaylistConverter implements PlaylistConverter {
      */
     @Override
     public FormattedSmartPlaylist convert(final AgnosticSmartPlaylist agnosticSmartPlaylist,
-            final Collection<String> errorLog) {
-        return (XbmcV11SmartPlaylist) XbmcPlaylistConverterTools.convert(agnosticSmartPlaylist, XbmcV11SmartPlaylist.class,
-            errorLog);
+            final DiagnosticSink errorLog) {
+        return convert(agnosticSmartPlaylist, errorLog, false);
+    }
+
+    @Override
+    public FormattedSmartPlaylist convert(final AgnosticSmartPlaylist agnosticSmartPlaylist,
+            final DiagnosticSink errorLog, final boolean parallel) {
+        return XbmcPlaylistConverterTools.convert(agnosticSmartPlaylist, XbmcV11SmartPlaylist::new, errorLog, parallel);
     }
 }
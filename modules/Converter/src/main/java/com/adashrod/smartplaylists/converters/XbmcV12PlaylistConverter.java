@@ -1,18 +1,18 @@
 package com.adashrod.smartplaylists.converters;
 
+import com.adashrod.smartplaylists.api.DiagnosticSink;
 import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
 import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.api.ParseLimits;
 import com.adashrod.smartplaylists.api.PlaylistConverter;
 import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.JaxbContextRegistry;
 import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.util.Collection;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import java.io.InputStream;
+import java.io.Reader;
 
 /**
  * XbmcV12PlaylistConverter knows how to convert {@link AgnosticSmartPlaylist}s to {@link com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist}s and vice
@@ -20,25 +20,66 @@ import java.util.Collection;
  */
 public class XbmcV12PlaylistConverter implements PlaylistConverter {
     /**
-     * Given an XML file that is a XBMC-formatted smart playlist, this reads that file and returns that playlist as an
-     * object.
-     * @param file the file to read
+     * Given XML that is a XBMC-formatted smart playlist, this reads it and returns that playlist as an object. The
+     * encoding declared in the XML is honored and the stream is not closed.
+     * @param inputStream the XML to read
      * @return a {@link com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist}
-     * @throws JAXBException error parsing the XML
-     * @throws FileNotFoundException file not found
+     * @throws JAXBException error parsing the XML, or the XML isn't a valid XBMC v12 playlist
      */
     @Override
-    public FormattedSmartPlaylist readFromFile(final File file) throws JAXBException, FileNotFoundException {
-        final JAXBContext context = JAXBContext.newInstance(XbmcV12SmartPlaylist.class);
-        final Unmarshaller unmarshaller = context.createUnmarshaller();
-        final XbmcV12SmartPlaylist result = (XbmcV12SmartPlaylist) unmarshaller.unmarshal(new FileReader(file));
-        for (final XbmcSmartPlaylist.Rule rule: result.getRules()) {
-            if (rule.getOperand() == null) {
-                // since the required = true annotation doesn't enforce that the element is actually there, enforce it manually here in the absence of schema validation
-                throw new JAXBException("Required element <value> was not found");
-            }
+    public FormattedSmartPlaylist readFrom(final InputStream inputStream) throws JAXBException {
+        final Unmarshaller unmarshaller = JaxbContextRegistry.getUnmarshaller(XbmcV12SmartPlaylist.class);
+        // the unmarshaller validates against the v12 schema, which rejects rules without a <value> element
+        return (XbmcV12SmartPlaylist) unmarshaller.unmarshal(inputStream);
+    }
+
+    /**
+     * Given XML that is a XBMC-formatted smart playlist, this reads it within the limits and returns that playlist as an
+     * object. The stream is not closed.
+     * @param inputStream the XML to read
+     * @param limits      the limits on the resources that reading can use
+     * @return a {@link com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist}
+     * @throws JAXBException error parsing the XML, the XML isn't a valid XBMC v12 playlist, or it exceeds a limit
+     */
+    @Override
+    public FormattedSmartPlaylist readFrom(final InputStream inputStream, final ParseLimits limits)
+            throws JAXBException {
+        return (XbmcV12SmartPlaylist) LimitedXmlStreamReader.unmarshal(JaxbContextRegistry.getUnmarshaller(
+            XbmcV12SmartPlaylist.class), inputStream, limits);
+    }
+
+    /**
+     * Given XML that is a XBMC-formatted smart playlist, this reads it and returns as much of that playlist as it can,
+     * carrying on past elements that are invalid. The stream is not closed.
+     * @param inputStream the XML to read
+     * @param errorLog    every validation error in the XML will be appended to this, with its line and column
+     * @return a {@link com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist}
+     * @throws JAXBException the XML isn't well-formed
+     */
+    @Override
+    public FormattedSmartPlaylist readFrom(final InputStream inputStream, final DiagnosticSink errorLog)
+            throws JAXBException {
+        final Unmarshaller unmarshaller = JaxbContextRegistry.getUnmarshaller(XbmcV12SmartPlaylist.class);
+        unmarshaller.setEventHandler(new ValidationErrorCollector(errorLog));
+        try {
+            return (XbmcV12SmartPlaylist) unmarshaller.unmarshal(inputStream);
+        } finally {
+            // the unmarshaller is reused by this thread, so restore the handler that fails on the first error
+            unmarshaller.setEventHandler(JaxbContextRegistry.STRICT_EVENT_HANDLER);
         }
-        return result;
+    }
+
+    /**
+     * Given XML chars that are a XBMC-formatted smart playlist, this reads them and returns that playlist as an
+     * object. The reader is not closed.
+     * @param reader the XML to read
+     * @return a {@link com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist}
+     * @throws JAXBException error parsing the XML, or the XML isn't a valid XBMC v12 playlist
+     */
+    @Override
+    public FormattedSmartPlaylist readFrom(final Reader reader) throws JAXBException {
+        final Unmarshaller unmarshaller = JaxbContextRegistry.getUnmarshaller(XbmcV12SmartPlaylist.class);
+        return (XbmcV12SmartPlaylist) unmarshaller.unmarshal(reader);
     }
 
     /**
@@ -48,8 +89,14 @@ public class XbmcV12PlaylistConverter implements PlaylistConverter {
      */
     @Override
     public AgnosticSmartPlaylist convert(final FormattedSmartPlaylist formattedSmartPlaylist,
-            final Collection<String> errorLog) {
-        return XbmcPlaylistConverterTools.convert((XbmcSmartPlaylist) formattedSmartPlaylist, errorLog);
+            final DiagnosticSink errorLog) {
+        return convert(formattedSmartPlaylist, errorLog, false);
+    }
+
+    @Override
+    public AgnosticSmartPlaylist convert(final FormattedSmartPlaylist formattedSmartPlaylist,
+            final DiagnosticSink errorLog, final boolean parallel) {
+        return XbmcPlaylistConverterTools.convert((XbmcSmartPlaylist) formattedSmartPlaylist, errorLog, parallel);
     }
 
     /**
@@ -59,8 +106,13 @@ public class XbmcV12PlaylistConverter implements PlaylistConverter {
      */
     @Override
     public FormattedSmartPlaylist convert(final AgnosticSmartPlaylist agnosticSmartPlaylist,
-            final Collection<String> errorLog) {
-        return (XbmcV12SmartPlaylist) XbmcPlaylistConverterTools.convert(agnosticSmartPlaylist, XbmcV12SmartPlaylist.class,
-            errorLog);
+            final DiagnosticSink errorLog) {
+        return convert(agnosticSmartPlaylist, errorLog, false);
+    }
+
+    @Override
+    public FormattedSmartPlaylist convert(final AgnosticSmartPlaylist agnosticSmartPlaylist,
+            final DiagnosticSink errorLog, final boolean parallel) {
+        return XbmcPlaylistConverterTools.convert(agnosticSmartPlaylist, XbmcV12SmartPlaylist::new, errorLog, parallel);
     }
 }
@@ -0,0 +1,72 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.api.PlaylistConverter;
+import com.adashrod.smartplaylists.api.PlaylistFormat;
+import com.adashrod.smartplaylists.playlists.PlaylistType;
+import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@link PlaylistFormat} for XBMC v12 and later smart playlists, whose rules have their operand in a value element
+ */
+public class XbmcV12PlaylistFormat implements PlaylistFormat {
+    @Override
+    public String getName() {
+        return "xbmc";
+    }
+
+    @Override
+    public Class<? extends FormattedSmartPlaylist> getPlaylistClass() {
+        return XbmcV12SmartPlaylist.class;
+    }
+
+    @Override
+    public List<String> getFileExtensions() {
+        return Collections.singletonList(XbmcSmartPlaylist.DEFAULT_FILE_EXTENSION);
+    }
+
+    @Override
+    public String getRootElement() {
+        return "smartplaylist";
+    }
+
+    @Override
+    public String getNameElement() {
+        return "name";
+    }
+
+    @Override
+    public String getRuleElement() {
+        return "rule";
+    }
+
+    @Override
+    public String getRuleValueElement() {
+        return "value";
+    }
+
+    @Override
+    public PlaylistType getPlaylistType(final String type) {
+        return XbmcPlaylistConverterTools.getPlaylistType(type);
+    }
+
+    @Override
+    public FormattedSmartPlaylist copy(final FormattedSmartPlaylist playlist, final DiagnosticSink errorLog,
+            final boolean parallel) {
+        if (!(playlist instanceof XbmcSmartPlaylist)) {
+            return null;
+        }
+        return XbmcPlaylistConverterTools.copy((XbmcSmartPlaylist) playlist, XbmcV12SmartPlaylist::new, errorLog,
+            parallel);
+    }
+
+    @Override
+    public PlaylistConverter createConverter() {
+        return new XbmcV12PlaylistConverter();
+    }
+}
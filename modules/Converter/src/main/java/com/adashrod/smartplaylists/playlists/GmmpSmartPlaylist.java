@@ -2,13 +2,13 @@ package com.adashrod.smartplaylists.playlists;
 
 import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.annotation.XmlElement;
-import javax.xml.bind.annotation.XmlElementWrapper;
-import javax.xml.bind.annotation.XmlRootElement;
-import javax.xml.bind.annotation.XmlType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementWrapper;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlType;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
@@ -102,25 +102,33 @@ public class GmmpSmartPlaylist implements FormattedSmartPlaylist {
     }
 
     @Override
-    public String toString() {
-        final JAXBContext context;
+    public void writeTo(final OutputStream outputStream) throws IOException {
         try {
-            context = JAXBContext.newInstance(GmmpSmartPlaylist.class);
-        } catch (final JAXBException je) {
-            // this shouldn't happen
-            je.printStackTrace();
-            return null;
+            GmmpXmlEmitter.write(this, XmlEmitters.createXmlStreamWriter(outputStream));
+        } catch (final XMLStreamException xse) {
+            throw new IOException(xse);
         }
+    }
+
+    @Override
+    public void writeTo(final Writer writer) throws IOException {
+        try {
+            GmmpXmlEmitter.write(this, XmlEmitters.createXmlStreamWriter(writer));
+        } catch (final XMLStreamException xse) {
+            throw new IOException(xse);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final Writer writer = new StringWriter();
         try {
-            final Marshaller marshaller = context.createMarshaller();
-            // don't format output; GMMP chokes on XML with whitespace
-            final Writer writer = new StringWriter();
-            marshaller.marshal(this, writer);
-            return writer.toString();
-        } catch (final JAXBException je) {
-            je.printStackTrace();
+            writeTo(writer);
+        } catch (final IOException ioe) {
+            ioe.printStackTrace();
             return null;
         }
+        return writer.toString();
     }
 
     @XmlType(propOrder = {"version", "field", "operator", "value", "timeUnit"})
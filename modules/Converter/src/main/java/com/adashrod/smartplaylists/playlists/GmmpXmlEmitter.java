@@ -0,0 +1,92 @@
+package com.adashrod.smartplaylists.playlists;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes {@link GmmpSmartPlaylist}s as XML with an XMLStreamWriter instead of JAXB's reflective marshaller. The output
+ * is identical to what JAXB produces for the class, including having no whitespace between elements, since GMMP
+ * chokes on XML with whitespace.
+ */
+public final class GmmpXmlEmitter {
+    private GmmpXmlEmitter() {}
+
+    /**
+     * Writes the playlist, everything after the XML declaration
+     * @param playlist  the playlist to write
+     * @param xmlWriter a writer from {@link XmlEmitters#createXmlStreamWriter}
+     * @throws XMLStreamException error writing
+     */
+    public static void write(final GmmpSmartPlaylist playlist, final XMLStreamWriter xmlWriter)
+            throws XMLStreamException {
+        writeStart(playlist, xmlWriter);
+        if (!playlist.getRules().isEmpty()) {
+            startRules(xmlWriter);
+            for (final GmmpSmartPlaylist.Rule rule: playlist.getRules()) {
+                writeRule(rule, xmlWriter);
+            }
+        }
+        writeEnd(!playlist.getRules().isEmpty(), xmlWriter);
+    }
+
+    /**
+     * Writes the start of the playlist and everything that comes before the rules. To write a playlist a piece at a
+     * time, call this, then {@link #startRules} and {@link #writeRule} for each rule if there are any, and then
+     * {@link #writeEnd}.
+     * @param playlist  the playlist whose rules are ignored
+     * @param xmlWriter a writer from {@link XmlEmitters#createXmlStreamWriter}
+     * @throws XMLStreamException error writing
+     */
+    public static void writeStart(final GmmpSmartPlaylist playlist, final XMLStreamWriter xmlWriter)
+            throws XMLStreamException {
+        xmlWriter.writeStartElement("SmartPlaylist");
+        XmlEmitters.writeTextElement(xmlWriter, "Version", playlist.getVersion());
+        XmlEmitters.writeTextElement(xmlWriter, "Name", playlist.getName());
+        XmlEmitters.writeTextElement(xmlWriter, "Order", playlist.getOrder());
+        XmlEmitters.writeTextElement(xmlWriter, "Ascending", playlist.isAscending());
+        XmlEmitters.writeTextElement(xmlWriter, "Limit", playlist.getLimit());
+        XmlEmitters.writeTextElement(xmlWriter, "MatchAll", playlist.isMatchAll());
+    }
+
+    /**
+     * Starts the list of rules, which must have at least one rule written to it
+     * @param xmlWriter the writer that {@link #writeStart} was called with
+     * @throws XMLStreamException error writing
+     */
+    public static void startRules(final XMLStreamWriter xmlWriter) throws XMLStreamException {
+        xmlWriter.writeStartElement("Rules");
+    }
+
+    /**
+     * Ends the playlist
+     * @param hasRules  whether {@link #startRules} was called
+     * @param xmlWriter the writer that {@link #writeStart} was called with
+     * @throws XMLStreamException error writing
+     */
+    public static void writeEnd(final boolean hasRules, final XMLStreamWriter xmlWriter) throws XMLStreamException {
+        if (hasRules) {
+            xmlWriter.writeEndElement();
+        } else {
+            xmlWriter.writeEmptyElement("Rules");
+        }
+        xmlWriter.writeEndElement();
+        xmlWriter.flush();
+    }
+
+    /**
+     * Writes a rule, after {@link #startRules}
+     * @param rule      the rule to write
+     * @param xmlWriter the writer that {@link #writeStart} was called with
+     * @throws XMLStreamException error writing
+     */
+    public static void writeRule(final GmmpSmartPlaylist.Rule rule, final XMLStreamWriter xmlWriter)
+            throws XMLStreamException {
+        xmlWriter.writeStartElement("Rule");
+        XmlEmitters.writeTextElement(xmlWriter, "Version", rule.getVersion());
+        XmlEmitters.writeTextElement(xmlWriter, "Field", rule.getField());
+        XmlEmitters.writeTextElement(xmlWriter, "Operator", rule.getOperator());
+        XmlEmitters.writeTextElement(xmlWriter, "Value", rule.getValue());
+        XmlEmitters.writeTextElement(xmlWriter, "TimeUnit", rule.getTimeUnit());
+        xmlWriter.writeEndElement();
+    }
+}
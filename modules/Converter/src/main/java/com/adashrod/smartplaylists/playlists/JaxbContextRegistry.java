@@ -0,0 +1,107 @@
+package com.adashrod.smartplaylists.playlists;
+
+import org.xml.sax.SAXException;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.ValidationEvent;
+import jakarta.xml.bind.ValidationEventHandler;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A process-wide registry of {@link JAXBContext}s for the JAXB-bound playlist classes. Building a context is by far the
+ * most expensive part of (un)marshalling, so each one is built once and shared. JAXBContexts are thread-safe, but
+ * {@link Marshaller}s and {@link Unmarshaller}s aren't, so those are cached per thread instead. Unmarshallers for types
+ * that have a schema in {@link PlaylistSchemas} validate against it as they parse.
+ */
+public final class JaxbContextRegistry {
+    private static final ConcurrentMap<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<Class<?>, Marshaller>> marshallers = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<Class<?>, Unmarshaller>> unmarshallers = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * The event handler of every unmarshaller from {@link #getUnmarshaller(Class)}, which fails on the first schema
+     * violation or value that can't be converted, but carries on past elements that aren't bound; see
+     * {@link #isUnboundElement(ValidationEvent)}
+     */
+    public static final ValidationEventHandler STRICT_EVENT_HANDLER = (final ValidationEvent event) ->
+        isUnboundElement(event);
+
+    private JaxbContextRegistry() {}
+
+    /**
+     * Newer versions of XBMC write elements, like &lt;group&gt;, that the playlist classes have no property for. The
+     * schemas let them through, and JAXB skips them, but reports each one as a recoverable error without a cause,
+     * which a handler that fails on errors would turn into a failure. Schema violations are always fatal errors with
+     * the parser's exception as their cause, and values that can't be converted have the conversion's exception.
+     * @param event an event from unmarshalling
+     * @return true if the event is only an element that was skipped because nothing is bound to it
+     */
+    public static boolean isUnboundElement(final ValidationEvent event) {
+        return event.getSeverity() == ValidationEvent.ERROR && event.getLinkedException() == null;
+    }
+
+    /**
+     * Returns the shared context for the type, building it if this is the first time it has been requested
+     * @param type a JAXB-bound class
+     * @return the context for type
+     * @throws JAXBException error building the context
+     */
+    public static JAXBContext getContext(final Class<?> type) throws JAXBException {
+        final JAXBContext context = contexts.get(type);
+        if (context != null) {
+            return context;
+        }
+        // two threads might race to build the same context; only one of them gets stored and the other is discarded
+        final JAXBContext newContext = JAXBContext.newInstance(type);
+        final JAXBContext existing = contexts.putIfAbsent(type, newContext);
+        return existing != null ? existing : newContext;
+    }
+
+    /**
+     * Returns a marshaller for the type that belongs to the calling thread. Properties set on it stay set for later
+     * calls on the same thread, so callers should set any properties they depend on every time.
+     * @param type a JAXB-bound class
+     * @return a marshaller that must not be shared with other threads
+     * @throws JAXBException error building the context or marshaller
+     */
+    public static Marshaller getMarshaller(final Class<?> type) throws JAXBException {
+        final Map<Class<?>, Marshaller> threadMarshallers = marshallers.get();
+        Marshaller marshaller = threadMarshallers.get(type);
+        if (marshaller == null) {
+            marshaller = getContext(type).createMarshaller();
+            threadMarshallers.put(type, marshaller);
+        }
+        return marshaller;
+    }
+
+    /**
+     * Returns an unmarshaller for the type that belongs to the calling thread. If the type has a schema, the
+     * unmarshaller validates against it and fails on the first violation; its event handler is
+     * {@link #STRICT_EVENT_HANDLER}. Properties and event handlers set on it stay set for later calls on the same
+     * thread, so callers should set any they depend on every time, and put back the strict handler if they change it.
+     * @param type a JAXB-bound class
+     * @return an unmarshaller that must not be shared with other threads
+     * @throws JAXBException error building the context or unmarshaller, or compiling the schema
+     */
+    public static Unmarshaller getUnmarshaller(final Class<?> type) throws JAXBException {
+        final Map<Class<?>, Unmarshaller> threadUnmarshallers = unmarshallers.get();
+        Unmarshaller unmarshaller = threadUnmarshallers.get(type);
+        if (unmarshaller == null) {
+            unmarshaller = getContext(type).createUnmarshaller();
+            try {
+                unmarshaller.setSchema(PlaylistSchemas.getSchema(type));
+                unmarshaller.setEventHandler(STRICT_EVENT_HANDLER);
+            } catch (final SAXException saxe) {
+                throw new JAXBException(saxe);
+            }
+            threadUnmarshallers.put(type, unmarshaller);
+        }
+        return unmarshaller;
+    }
+}
@@ -0,0 +1,194 @@
+package com.adashrod.smartplaylists.playlists;
+
+import com.adashrod.smartplaylists.converters.OperandParser;
+import com.adashrod.timeperiod.TimePeriod;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The immutable operand of a {@link TypedRule}. Numbers, dates, and time periods are held as a single long, so operands
+ * are cheap to compare and hash, and can be shared between threads. A time period keeps only its length, not the unit
+ * it was written in, so 14 days and 2 weeks are the same operand, and both come back from {@link #toObject()} as 2
+ * weeks.
+ */
+public final class Operand {
+    /**
+     * what kind of value an operand is, which decides what its long means
+     */
+    public enum Kind {
+        /**
+         * text, including numbers that aren't written the way that they'd be written back, e.g. "0199"
+         */
+        TEXT,
+        /**
+         * a whole number
+         */
+        NUMBER,
+        /**
+         * a date, as milliseconds since the epoch
+         */
+        DATE,
+        /**
+         * a time period, as a number of seconds
+         */
+        TIME_PERIOD
+    }
+
+    private static final Set<MetadataField> NUMERIC_FIELDS = EnumSet.of(MetadataField.YEAR, MetadataField.DISC_NUMBER,
+        MetadataField.TRACK_NUMBER, MetadataField.DURATION, MetadataField.PLAY_COUNT, MetadataField.RATING);
+
+    private final Kind kind;
+    private final long value;
+    private final String text;
+
+    private Operand(final Kind kind, final long value, final String text) {
+        this.kind = kind;
+        this.value = value;
+        this.text = text;
+    }
+
+    public static Operand text(final String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("the text of an operand can't be null");
+        }
+        return new Operand(Kind.TEXT, 0, text);
+    }
+
+    public static Operand number(final long number) {
+        return new Operand(Kind.NUMBER, number, null);
+    }
+
+    public static Operand date(final Date date) {
+        return new Operand(Kind.DATE, date.getTime(), null);
+    }
+
+    public static Operand timePeriod(final TimePeriod timePeriod) {
+        return new Operand(Kind.TIME_PERIOD, OperandParser.toSeconds(timePeriod), null);
+    }
+
+    /**
+     * Makes the typed form of the operand of a {@link Rule}. Text on a numeric field is parsed once here, and kept as
+     * text only if it isn't a number, or if writing the number back wouldn't give the same text.
+     * @param field   the field of the rule
+     * @param operand the operand of the rule: a String, Date, or TimePeriod
+     * @return the typed operand, or null if operand is null
+     * @throws IllegalArgumentException if operand is any other type
+     */
+    public static Operand of(final MetadataField field, final Object operand) {
+        if (operand == null) {
+            return null;
+        } else if (operand instanceof String) {
+            final String string = (String) operand;
+            if (NUMERIC_FIELDS.contains(field)) {
+                try {
+                    final long number = Long.parseLong(string);
+                    if (Long.toString(number).equals(string)) {
+                        return number(number);
+                    }
+                } catch (final NumberFormatException ignored) {}
+            }
+            return text(string);
+        } else if (operand instanceof Date) {
+            return date((Date) operand);
+        } else if (operand instanceof TimePeriod) {
+            return timePeriod((TimePeriod) operand);
+        }
+        throw new IllegalArgumentException(String.format("the operand of a %s should be a %s, %s, or %s, but was a %s",
+            Rule.class.getCanonicalName(), String.class.getName(), TimePeriod.class.getCanonicalName(),
+            Date.class.getName(), operand.getClass().getCanonicalName()));
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the text of a {@link Kind#TEXT} operand
+     */
+    public String getText() {
+        checkKind(Kind.TEXT);
+        return text;
+    }
+
+    /**
+     * @return the value of a {@link Kind#NUMBER} operand
+     */
+    public long getNumber() {
+        checkKind(Kind.NUMBER);
+        return value;
+    }
+
+    /**
+     * @return the milliseconds since the epoch of a {@link Kind#DATE} operand
+     */
+    public long getTime() {
+        checkKind(Kind.DATE);
+        return value;
+    }
+
+    /**
+     * @return the number of seconds of a {@link Kind#TIME_PERIOD} operand
+     */
+    public long getSeconds() {
+        checkKind(Kind.TIME_PERIOD);
+        return value;
+    }
+
+    private void checkKind(final Kind expected) {
+        if (kind != expected) {
+            throw new IllegalStateException(String.format("operand is a %s, not a %s", kind, expected));
+        }
+    }
+
+    /**
+     * @return the operand in the form that a {@link Rule} holds it: a String, a new Date, or a TimePeriod in the
+     * largest unit, no larger than a week, that it's a whole number of, which isn't necessarily the unit it was made
+     * from
+     * @throws ArithmeticException the time period is more than Integer.MAX_VALUE of that unit
+     */
+    public Object toObject() {
+        switch (kind) {
+            case TEXT:
+                return text;
+            case NUMBER:
+                return Long.toString(value);
+            case DATE:
+                return new Date(value);
+            default:
+                return OperandParser.toTimePeriod(value);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        } else if (!(other instanceof Operand)) {
+            return false;
+        }
+        final Operand operand = (Operand) other;
+        return kind == operand.kind && value == operand.value &&
+            (text == null ? operand.text == null : text.equals(operand.text));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * kind.ordinal() + Long.hashCode(value)) + (text == null ? 0 : text.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case TEXT:
+                return text;
+            case DATE:
+                return new Date(value).toString();
+            case TIME_PERIOD:
+                return value + "s";
+            default:
+                return Long.toString(value);
+        }
+    }
+}
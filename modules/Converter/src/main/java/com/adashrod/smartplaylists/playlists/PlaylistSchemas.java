@@ -0,0 +1,53 @@
+package com.adashrod.smartplaylists.playlists;
+
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The XML schemas for the JAXB-bound playlist classes. Each XSD is compiled the first time it's needed and the compiled
+ * {@link Schema} is shared from then on; Schemas are immutable and thread-safe. Setting one on an unmarshaller makes it
+ * validate while it parses, so a structurally invalid file fails at the first bad element instead of after a full
+ * unmarshal.
+ */
+public final class PlaylistSchemas {
+    private static final Map<Class<?>, String> schemaResources = new HashMap<>();
+    static {
+        schemaResources.put(XbmcV11SmartPlaylist.class, "xbmc-v11.xsd");
+        schemaResources.put(XbmcV12SmartPlaylist.class, "xbmc-v12.xsd");
+        schemaResources.put(GmmpSmartPlaylist.class, "gmmp.xsd");
+    }
+    private static final ConcurrentMap<Class<?>, Schema> schemas = new ConcurrentHashMap<>();
+
+    private PlaylistSchemas() {}
+
+    /**
+     * Returns the compiled schema for the type, compiling it if this is the first time it has been requested
+     * @param type a JAXB-bound playlist class
+     * @return the schema for type, or null if there isn't one
+     * @throws SAXException error compiling the schema
+     */
+    public static Schema getSchema(final Class<?> type) throws SAXException {
+        final Schema schema = schemas.get(type);
+        if (schema != null || !schemaResources.containsKey(type)) {
+            return schema;
+        }
+        final URL resource = PlaylistSchemas.class.getResource(schemaResources.get(type));
+        if (resource == null) {
+            throw new SAXException(String.format("Schema %s for %s is missing from the classpath",
+                schemaResources.get(type), type.getSimpleName()));
+        }
+        // SchemaFactory isn't thread-safe, so each (rare) compile gets its own; as with JAXB contexts, a race only
+        // wastes a compile
+        final Schema newSchema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(resource);
+        final Schema existing = schemas.putIfAbsent(type, newSchema);
+        return existing != null ? existing : newSchema;
+    }
+}
@@ -0,0 +1,42 @@
+package com.adashrod.smartplaylists.playlists;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
+/**
+ * Per-thread StAX factories. The StAX spec doesn't promise that factories are thread-safe, and the JDK's keep some
+ * mutable state about the last reader or writer they created, so instead of sharing one static factory, each thread
+ * gets its own, built the first time it's needed. The input factories never support DTDs or resolve external entities,
+ * so nothing read through them can expand entities or fetch anything.
+ */
+public final class StaxFactories {
+    private static final ThreadLocal<XMLInputFactory> inputFactories =
+        ThreadLocal.withInitial(StaxFactories::newInputFactory);
+    private static final ThreadLocal<XMLOutputFactory> outputFactories =
+        ThreadLocal.withInitial(XMLOutputFactory::newInstance);
+
+    private StaxFactories() {}
+
+    private static XMLInputFactory newInputFactory() {
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return inputFactory;
+    }
+
+    /**
+     * @return an input factory that belongs to the calling thread; it must not be shared with other threads or
+     * reconfigured
+     */
+    public static XMLInputFactory getInputFactory() {
+        return inputFactories.get();
+    }
+
+    /**
+     * @return an output factory that belongs to the calling thread; it must not be shared with other threads or
+     * reconfigured
+     */
+    public static XMLOutputFactory getOutputFactory() {
+        return outputFactories.get();
+    }
+}
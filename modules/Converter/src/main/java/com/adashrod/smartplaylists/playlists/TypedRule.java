@@ -0,0 +1,81 @@
+package com.adashrod.smartplaylists.playlists;
+
+/**
+ * An immutable {@link Rule} whose operand has been parsed into an {@link Operand}. Since it can't change, it can be
+ * shared between threads, and its hash code is worked out once, so it's cheap to use as a key.
+ */
+public final class TypedRule {
+    private final MetadataField field;
+    private final Operator operator;
+    private final Operand operand;
+    private final int hashCode;
+
+    /**
+     * @param field    the metadata field that the rule tests
+     * @param operator how the field is tested
+     * @param operand  what the field is tested against, or null if the rule has none
+     */
+    public TypedRule(final MetadataField field, final Operator operator, final Operand operand) {
+        this.field = field;
+        this.operator = operator;
+        this.operand = operand;
+        // ordinals rather than the enums' own hash codes, so that the hash is the same in every JVM
+        final int fieldHash = field == null ? 0 : field.ordinal() + 1;
+        final int operatorHash = operator == null ? 0 : operator.ordinal() + 1;
+        hashCode = 31 * (31 * fieldHash + operatorHash) + (operand == null ? 0 : operand.hashCode());
+    }
+
+    /**
+     * @param rule the rule to copy
+     * @return an immutable copy of the rule, with its operand parsed
+     * @throws IllegalArgumentException if the rule's operand isn't a String, Date, or TimePeriod
+     */
+    public static TypedRule of(final Rule rule) {
+        return new TypedRule(rule.getField(), rule.getOperator(), Operand.of(rule.getField(), rule.getOperand()));
+    }
+
+    /**
+     * @return a new mutable rule equal to this one, except that a time period operand is in the largest unit that it's
+     * a whole number of; see {@link Operand#toObject()}
+     */
+    public Rule toRule() {
+        return new Rule()
+            .setField(field)
+            .setOperator(operator)
+            .setOperand(operand == null ? null : operand.toObject());
+    }
+
+    public MetadataField getField() {
+        return field;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public Operand getOperand() {
+        return operand;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        } else if (!(other instanceof TypedRule)) {
+            return false;
+        }
+        final TypedRule rule = (TypedRule) other;
+        return hashCode == rule.hashCode && field == rule.field && operator == rule.operator &&
+            (operand == null ? rule.operand == null : operand.equals(rule.operand));
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("field=%s, operator=%s, operand=%s", field, operator, operand);
+    }
+}
@@ -0,0 +1,118 @@
+package com.adashrod.smartplaylists.playlists;
+
+import com.adashrod.smartplaylists.api.SmartPlaylist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable {@link AgnosticSmartPlaylist}, made of {@link TypedRule}s. It can be shared between threads that are
+ * converting or evaluating it at the same time without any copying, and two playlists with the same content are equal
+ * and have the same hash code, which is only worked out once.
+ */
+public final class TypedSmartPlaylist implements SmartPlaylist {
+    private final PlaylistType playlistType;
+    private final String name;
+    private final Boolean matchAll;
+    private final Integer limit;
+    private final boolean ordered;
+    private final MetadataField orderKey;
+    private final boolean orderAscending;
+    private final List<TypedRule> rules;
+    private final int hashCode;
+
+    private TypedSmartPlaylist(final AgnosticSmartPlaylist playlist, final List<TypedRule> rules) {
+        playlistType = playlist.getPlaylistType();
+        name = playlist.getName();
+        matchAll = playlist.isMatchAll();
+        limit = playlist.getLimit();
+        final Order order = playlist.getOrder();
+        ordered = order != null;
+        orderKey = ordered ? order.getKey() : null;
+        orderAscending = ordered && order.isAscending();
+        this.rules = Collections.unmodifiableList(rules);
+        hashCode = Objects.hash(playlistType == null ? null : playlistType.ordinal(), name, matchAll, limit, ordered,
+            orderKey == null ? null : orderKey.ordinal(), orderAscending, rules);
+    }
+
+    /**
+     * @param playlist the playlist to copy
+     * @return an immutable copy of the playlist, with every rule's operand parsed
+     * @throws IllegalArgumentException if a rule's operand isn't a String, Date, or TimePeriod
+     */
+    public static TypedSmartPlaylist of(final AgnosticSmartPlaylist playlist) {
+        final List<TypedRule> rules = new ArrayList<>(playlist.getRules().size());
+        for (final Rule rule: playlist.getRules()) {
+            rules.add(TypedRule.of(rule));
+        }
+        return new TypedSmartPlaylist(playlist, rules);
+    }
+
+    /**
+     * @return a new mutable playlist equal to this one, e.g. to pass to a converter; time periods in its rules may be
+     * in different units than in the playlist that this was made from, as in {@link TypedRule#toRule()}
+     */
+    public AgnosticSmartPlaylist toAgnostic() {
+        final AgnosticSmartPlaylist playlist = new AgnosticSmartPlaylist()
+            .setPlaylistType(playlistType)
+            .setName(name)
+            .setMatchAll(matchAll)
+            .setLimit(limit)
+            .setOrder(getOrder());
+        for (final TypedRule rule: rules) {
+            playlist.getRules().add(rule.toRule());
+        }
+        return playlist;
+    }
+
+    public PlaylistType getPlaylistType() {
+        return playlistType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Boolean isMatchAll() {
+        return matchAll;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return a new copy of the order, or null if the playlist isn't ordered
+     */
+    public Order getOrder() {
+        return ordered ? new Order().setKey(orderKey).setAscending(orderAscending) : null;
+    }
+
+    /**
+     * @return the rules, which can't be modified
+     */
+    public List<TypedRule> getRules() {
+        return rules;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        } else if (!(other instanceof TypedSmartPlaylist)) {
+            return false;
+        }
+        final TypedSmartPlaylist playlist = (TypedSmartPlaylist) other;
+        return hashCode == playlist.hashCode && playlistType == playlist.playlistType &&
+            Objects.equals(name, playlist.name) && Objects.equals(matchAll, playlist.matchAll) &&
+            Objects.equals(limit, playlist.limit) && ordered == playlist.ordered && orderKey == playlist.orderKey &&
+            orderAscending == playlist.orderAscending && rules.equals(playlist.rules);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -0,0 +1,134 @@
+package com.adashrod.smartplaylists.playlists;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes {@link XbmcSmartPlaylist}s as XML with an XMLStreamWriter instead of JAXB's reflective marshaller. The output
+ * is identical to what JAXB produces, with formatting, for {@link XbmcV11SmartPlaylist} and
+ * {@link XbmcV12SmartPlaylist}.
+ */
+public final class XbmcXmlEmitter {
+    private XbmcXmlEmitter() {}
+
+    /**
+     * Writes the playlist, everything after the XML declaration
+     * @param playlist       the playlist to write
+     * @param operandAsValue true to write rule operands in a &lt;value&gt; element (v12), false to write them as the
+     *                       text of the rule element (v11)
+     * @param xmlWriter      a writer from {@link XmlEmitters#createXmlStreamWriter}
+     * @throws XMLStreamException error writing
+     */
+    public static void write(final XbmcSmartPlaylist playlist, final boolean operandAsValue,
+            final XMLStreamWriter xmlWriter) throws XMLStreamException {
+        final boolean isEmpty = playlist.getName() == null && playlist.getMatch() == null &&
+            playlist.getRules().isEmpty() && playlist.getOrder() == null && playlist.getLimit() == null;
+        if (isEmpty) {
+            XmlEmitters.indent(xmlWriter, 0);
+            xmlWriter.writeEmptyElement("smartplaylist");
+            XmlEmitters.writeAttribute(xmlWriter, "type", playlist.getType());
+            XmlEmitters.indent(xmlWriter, 0);
+            xmlWriter.flush();
+            return;
+        }
+        writeStart(playlist, xmlWriter);
+        for (final XbmcSmartPlaylist.Rule rule: playlist.getRules()) {
+            writeRule(rule, operandAsValue, xmlWriter);
+        }
+        writeEnd(playlist, xmlWriter);
+    }
+
+    /**
+     * Writes the start of the playlist and everything that comes before the rules. To write a playlist a piece at a
+     * time, call this, then {@link #writeRule} for each rule, and then {@link #writeEnd}. Unlike
+     * {@link #write(XbmcSmartPlaylist, boolean, XMLStreamWriter)}, this always writes a start tag for the root element,
+     * even if the playlist turns out to be empty.
+     * @param playlist  the playlist whose rules are ignored
+     * @param xmlWriter a writer from {@link XmlEmitters#createXmlStreamWriter}
+     * @throws XMLStreamException error writing
+     */
+    public static void writeStart(final XbmcSmartPlaylist playlist, final XMLStreamWriter xmlWriter)
+            throws XMLStreamException {
+        XmlEmitters.indent(xmlWriter, 0);
+        xmlWriter.writeStartElement("smartplaylist");
+        XmlEmitters.writeAttribute(xmlWriter, "type", playlist.getType());
+        writeChildElement(xmlWriter, "name", playlist.getName());
+        writeChildElement(xmlWriter, "match", playlist.getMatch());
+    }
+
+    /**
+     * Writes everything that comes after the rules, and ends the playlist
+     * @param playlist  the playlist whose rules are ignored
+     * @param xmlWriter the writer that {@link #writeStart} was called with
+     * @throws XMLStreamException error writing
+     */
+    public static void writeEnd(final XbmcSmartPlaylist playlist, final XMLStreamWriter xmlWriter)
+            throws XMLStreamException {
+        if (playlist.getOrder() != null) {
+            final XbmcSmartPlaylist.Order order = playlist.getOrder();
+            XmlEmitters.indent(xmlWriter, 1);
+            startElement(xmlWriter, "order", order.getSortKey() != null);
+            XmlEmitters.writeAttribute(xmlWriter, "direction", order.getDirection());
+            if (order.getSortKey() != null) {
+                xmlWriter.writeCharacters(order.getSortKey());
+                xmlWriter.writeEndElement();
+            }
+        }
+        writeChildElement(xmlWriter, "limit", playlist.getLimit());
+        XmlEmitters.indent(xmlWriter, 0);
+        xmlWriter.writeEndElement();
+        XmlEmitters.indent(xmlWriter, 0);
+        xmlWriter.flush();
+    }
+
+    /**
+     * Writes a rule, between {@link #writeStart} and {@link #writeEnd}
+     * @param rule           the rule to write
+     * @param operandAsValue true to write the operand in a &lt;value&gt; element (v12), false to write it as the text
+     *                       of the rule element (v11)
+     * @param xmlWriter      the writer that {@link #writeStart} was called with
+     * @throws XMLStreamException error writing
+     */
+    public static void writeRule(final XbmcSmartPlaylist.Rule rule, final boolean operandAsValue,
+            final XMLStreamWriter xmlWriter) throws XMLStreamException {
+        XmlEmitters.indent(xmlWriter, 1);
+        startElement(xmlWriter, "rule", rule.getOperand() != null);
+        XmlEmitters.writeAttribute(xmlWriter, "field", rule.getField());
+        XmlEmitters.writeAttribute(xmlWriter, "operator", rule.getOperator());
+        if (rule.getOperand() != null) {
+            if (operandAsValue) {
+                writeChildElement(xmlWriter, 2, "value", rule.getOperand());
+                XmlEmitters.indent(xmlWriter, 1);
+            } else {
+                xmlWriter.writeCharacters(rule.getOperand());
+            }
+            xmlWriter.writeEndElement();
+        }
+    }
+
+    /**
+     * Starts an element that may have attributes: an empty element if there's no content to follow, otherwise a start
+     * tag that the caller must end after writing the attributes and content
+     */
+    private static void startElement(final XMLStreamWriter xmlWriter, final String name, final boolean hasContent)
+            throws XMLStreamException {
+        if (!hasContent) {
+            xmlWriter.writeEmptyElement(name);
+        } else {
+            xmlWriter.writeStartElement(name);
+        }
+    }
+
+    private static void writeChildElement(final XMLStreamWriter xmlWriter, final String name, final Object value)
+            throws XMLStreamException {
+        writeChildElement(xmlWriter, 1, name, value);
+    }
+
+    private static void writeChildElement(final XMLStreamWriter xmlWriter, final int depth, final String name,
+            final Object value) throws XMLStreamException {
+        if (value != null) {
+            XmlEmitters.indent(xmlWriter, depth);
+            XmlEmitters.writeTextElement(xmlWriter, name, value);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.adashrod.smartplaylists.playlists;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shared plumbing for the hand-written StAX emitters ({@link GmmpXmlEmitter} and {@link XbmcXmlEmitter}). Output
+ * mimics what the JAXB marshaller produces for the same playlist objects: the same XML declaration, the same element
+ * order, empty elements collapsed to &lt;x/&gt;, and, for formatted output, the same 4-space indentation.
+ */
+public final class XmlEmitters {
+    static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+    // a newline followed by the indentation for each depth, so that indenting is one call to the writer
+    private static final String[] INDENTS = {"\n", "\n    ", "\n        "};
+
+    private XmlEmitters() {}
+
+    /**
+     * Writes the XML declaration to the stream and returns an XMLStreamWriter that continues after it in UTF-8
+     * @param outputStream where to write
+     * @return a writer for the rest of the document
+     * @throws IOException error writing the declaration
+     * @throws XMLStreamException error creating the writer
+     */
+    public static XMLStreamWriter createXmlStreamWriter(final OutputStream outputStream) throws IOException,
+            XMLStreamException {
+        // XMLStreamWriter.writeStartDocument can't write standalone="yes", so write the declaration by hand
+        outputStream.write(XML_DECLARATION.getBytes(StandardCharsets.UTF_8));
+        return StaxFactories.getOutputFactory().createXMLStreamWriter(outputStream, StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * Writes the XML declaration to the writer and returns an XMLStreamWriter that continues after it
+     * @param writer where to write
+     * @return a writer for the rest of the document
+     * @throws IOException error writing the declaration
+     * @throws XMLStreamException error creating the writer
+     */
+    public static XMLStreamWriter createXmlStreamWriter(final Writer writer) throws IOException, XMLStreamException {
+        writer.write(XML_DECLARATION);
+        return StaxFactories.getOutputFactory().createXMLStreamWriter(writer);
+    }
+
+    /**
+     * Writes a newline and indentation for an element at the given depth, where the root element is at depth 0
+     */
+    static void indent(final XMLStreamWriter xmlWriter, final int depth) throws XMLStreamException {
+        xmlWriter.writeCharacters(INDENTS[depth]);
+    }
+
+    /**
+     * Writes an element that contains only text, or nothing if the value is null
+     */
+    static void writeTextElement(final XMLStreamWriter xmlWriter, final String name, final Object value)
+            throws XMLStreamException {
+        if (value != null) {
+            xmlWriter.writeStartElement(name);
+            xmlWriter.writeCharacters(value.toString());
+            xmlWriter.writeEndElement();
+        }
+    }
+
+    /**
+     * Writes an attribute, or nothing if the value is null
+     */
+    static void writeAttribute(final XMLStreamWriter xmlWriter, final String name, final String value)
+            throws XMLStreamException {
+        if (value != null) {
+            xmlWriter.writeAttribute(name, value);
+        }
+    }
+}
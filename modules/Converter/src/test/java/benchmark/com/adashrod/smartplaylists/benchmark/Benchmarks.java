@@ -0,0 +1,85 @@
+package com.adashrod.smartplaylists.benchmark;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal harness for timing the Converter module's hot paths. Each benchmark warms up before it's measured and
+ * reports the mean time per operation. Run with no arguments to run every benchmark, or with the names of the
+ * benchmarks to run.
+ */
+public final class Benchmarks {
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 20;
+
+    private Benchmarks() {}
+
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    /**
+     * An OutputStream that throws away what's written to it, but counts it so that the work can't be optimized away
+     */
+    public static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Runs the task repeatedly and prints how long each run took on average
+     * @param name        what's being measured
+     * @param operations  how many operations one run of the task does, e.g. the number of playlists it converts
+     * @param task        the work to time
+     * @return mean nanoseconds per operation
+     * @throws Exception anything thrown by the task
+     */
+    public static double measure(final String name, final int operations, final Task task) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.run();
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            task.run();
+        }
+        final double nanosPerOperation = (double) (System.nanoTime() - start) / MEASURED_ITERATIONS / operations;
+        System.out.println(String.format("%-50s %12.1f us/op %12.0f ops/s", name, nanosPerOperation / 1000,
+            1e9 / nanosPerOperation));
+        return nanosPerOperation;
+    }
+
+    public static void main(final String[] arguments) throws Exception {
+        final Map<String, Task> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("emitters", EmitterBenchmark::run);
+        benchmarks.put("binary", BinaryCodecBenchmark::run);
+        benchmarks.put("headers", HeaderBenchmark::run);
+        benchmarks.put("transcoder", TranscoderBenchmark::run);
+        benchmarks.put("cache", CacheBenchmark::run);
+        benchmarks.put("parsers", ParserBenchmark::run);
+        benchmarks.put("rules", ParallelRulesBenchmark::run);
+
+        final List<String> selected = Arrays.asList(arguments);
+        for (final Map.Entry<String, Task> benchmark: benchmarks.entrySet()) {
+            if (selected.isEmpty() || selected.contains(benchmark.getKey())) {
+                System.out.println("== " + benchmark.getKey());
+                benchmark.getValue().run();
+            }
+        }
+    }
+}
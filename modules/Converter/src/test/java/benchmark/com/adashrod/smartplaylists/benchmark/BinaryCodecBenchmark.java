@@ -0,0 +1,98 @@
+package com.adashrod.smartplaylists.benchmark;
+
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+import com.adashrod.smartplaylists.converters.BinaryPlaylistCodec;
+import com.adashrod.smartplaylists.converters.XbmcStreamingReader;
+import com.adashrod.smartplaylists.converters.XbmcV12PlaylistConverter;
+import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compares loading playlists from XBMC v12 XML, with JAXB and with the streaming reader, against loading the same
+ * playlists from the binary format
+ */
+public final class BinaryCodecBenchmark {
+    private static final int PLAYLISTS = 50;
+    private static final int RULES_PER_PLAYLIST = 500;
+
+    private BinaryCodecBenchmark() {}
+
+    static XbmcV12SmartPlaylist xbmcPlaylist(final int number) {
+        return xbmcPlaylist(number, RULES_PER_PLAYLIST);
+    }
+
+    static XbmcV12SmartPlaylist xbmcPlaylist(final int number, final int ruleCount) {
+        final XbmcV12SmartPlaylist playlist = new XbmcV12SmartPlaylist();
+        playlist.setType("songs").setName("Generated playlist " + number).setMatch("all").setLimit(100);
+        for (int i = 0; i < ruleCount; i++) {
+            final XbmcSmartPlaylist.Rule rule = playlist.newRule();
+            switch (i % 3) {
+                case 0:
+                    rule.setField("path").setOperator("doesnotcontain")
+                        .setOperand(String.format("/music/excluded/artist %d/album %d/", number, i));
+                    break;
+                case 1:
+                    rule.setField("time").setOperator("lessthan").setOperand(String.format("%02d:%02d", i % 60, 30));
+                    break;
+                default:
+                    rule.setField("lastplayed").setOperator("inthelast").setOperand((i % 12 + 1) + " weeks");
+            }
+            playlist.getRules().add(rule);
+        }
+        playlist.setOrder(playlist.newOrder().setDirection("descending").setSortKey("artist"));
+        return playlist;
+    }
+
+    public static void run() throws Exception {
+        final XbmcV12PlaylistConverter converter = new XbmcV12PlaylistConverter();
+        final XbmcStreamingReader streamingReader = new XbmcStreamingReader();
+        final BinaryPlaylistCodec codec = new BinaryPlaylistCodec();
+        final List<byte[]> xmlCorpus = new ArrayList<>();
+        final List<byte[]> binaryCorpus = new ArrayList<>();
+        final Collection<String> errorLog = new ArrayList<>();
+        for (int i = 0; i < PLAYLISTS; i++) {
+            final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+            xbmcPlaylist(i).writeTo(xml);
+            xmlCorpus.add(xml.toByteArray());
+            final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+            codec.write(converter.convert(converter.readFrom(ByteBuffer.wrap(xml.toByteArray())), errorLog), binary);
+            binaryCorpus.add(binary.toByteArray());
+        }
+        if (!errorLog.isEmpty()) {
+            throw new IllegalStateException("the generated corpus has errors: " + errorLog);
+        }
+        System.out.println(String.format("corpus: %d bytes of XML, %d bytes of binary",
+            xmlCorpus.stream().mapToInt(bytes -> bytes.length).sum(),
+            binaryCorpus.stream().mapToInt(bytes -> bytes.length).sum()));
+
+        final List<AgnosticSmartPlaylist> sink = new ArrayList<>();
+        final double jaxb = Benchmarks.measure("XBMC v12 XML, JAXB + convert", PLAYLISTS, () -> {
+            for (final byte[] xml: xmlCorpus) {
+                sink.add(converter.convert(converter.readFrom(ByteBuffer.wrap(xml)), errorLog));
+            }
+            sink.clear();
+        });
+        final double streaming = Benchmarks.measure("XBMC v12 XML, streaming reader", PLAYLISTS, () -> {
+            for (final byte[] xml: xmlCorpus) {
+                sink.add(streamingReader.read(new ByteArrayInputStream(xml), DiagnosticSink.of(errorLog)));
+            }
+            sink.clear();
+        });
+        final double binary = Benchmarks.measure("binary", PLAYLISTS, () -> {
+            for (final byte[] bytes: binaryCorpus) {
+                sink.add(codec.read(new ByteArrayInputStream(bytes)));
+            }
+            sink.clear();
+        });
+        System.out.println(String.format("binary is %.1fx the throughput of JAXB and %.1fx the streaming reader",
+            jaxb / binary, streaming / binary));
+    }
+}
@@ -0,0 +1,74 @@
+package com.adashrod.smartplaylists.benchmark;
+
+import com.adashrod.smartplaylists.api.ConversionCache;
+import com.adashrod.smartplaylists.api.ConverterApi;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compares transcoding a directory of playlist files to GMMP without a cache against transcoding them again with a
+ * warm cache, in memory and on disk, like a nightly batch where almost nothing has changed
+ */
+public final class CacheBenchmark {
+    private static final int PLAYLISTS = 200;
+
+    private CacheBenchmark() {}
+
+    public static void run() throws Exception {
+        final Path directory = Files.createTempDirectory("cache_benchmark");
+        try {
+            final List<File> inputs = new ArrayList<>();
+            for (int i = 0; i < PLAYLISTS; i++) {
+                final Path input = directory.resolve(i + ".xsp");
+                try (final OutputStream outputStream = Files.newOutputStream(input)) {
+                    BinaryCodecBenchmark.xbmcPlaylist(i).writeTo(outputStream);
+                }
+                inputs.add(input.toFile());
+            }
+            final File output = directory.resolve("output.spl").toFile();
+
+            final ConverterApi uncachedApi = new ConverterApi();
+            final double uncached = Benchmarks.measure("transcodeFile, no cache", PLAYLISTS,
+                () -> transcodeAll(uncachedApi, inputs, output));
+
+            final ConverterApi memoryApi = new ConverterApi();
+            memoryApi.setCache(new ConversionCache(64L << 20));
+            final double memory = Benchmarks.measure("transcodeFile, warm memory cache", PLAYLISTS,
+                () -> transcodeAll(memoryApi, inputs, output));
+
+            final ConversionCache diskCache = new ConversionCache(64L << 20, directory.resolve("cache"));
+            final ConverterApi diskApi = new ConverterApi();
+            diskApi.setCache(diskCache);
+            transcodeAll(diskApi, inputs, output);
+            final double disk = Benchmarks.measure("transcodeFile, warm disk cache", PLAYLISTS, () -> {
+                diskCache.clearMemory();
+                transcodeAll(diskApi, inputs, output);
+            });
+            System.out.println(String.format("a warm memory cache is %.1fx, and a warm disk cache %.1fx, the " +
+                "throughput of no cache", uncached / memory, uncached / disk));
+        } finally {
+            try (final Stream<Path> paths = Files.walk(directory)) {
+                for (final Path path: (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private static void transcodeAll(final ConverterApi converterApi, final List<File> inputs, final File output)
+            throws IOException {
+        for (final File input: inputs) {
+            converterApi.transcodeFile(input, GmmpSmartPlaylist.class, output);
+        }
+        converterApi.clearLog();
+    }
+}
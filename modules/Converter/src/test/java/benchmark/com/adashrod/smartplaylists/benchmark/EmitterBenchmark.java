@@ -0,0 +1,76 @@
+package com.adashrod.smartplaylists.benchmark;
+
+import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.JaxbContextRegistry;
+import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+
+import jakarta.xml.bind.Marshaller;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the JAXB marshaller with the hand-written StAX emitters on a corpus of playlists with many rules
+ */
+public final class EmitterBenchmark {
+    private static final int PLAYLISTS = 50;
+    private static final int RULES_PER_PLAYLIST = 500;
+
+    private EmitterBenchmark() {}
+
+    private static <T extends XbmcSmartPlaylist> T xbmcPlaylist(final T playlist, final int number) {
+        playlist.setType("songs").setName("Generated playlist " + number).setMatch("one").setLimit(0);
+        for (int i = 0; i < RULES_PER_PLAYLIST; i++) {
+            playlist.getRules().add(playlist.newRule().setField("path").setOperator("doesnotcontain")
+                .setOperand(String.format("/music/excluded & unwanted/artist %d/album %d/", number, i)));
+        }
+        playlist.setOrder(playlist.newOrder().setDirection("ascending").setSortKey("artist"));
+        return playlist;
+    }
+
+    private static GmmpSmartPlaylist gmmpPlaylist(final int number) {
+        final GmmpSmartPlaylist playlist = new GmmpSmartPlaylist().setVersion(1).setName("Generated playlist " + number)
+            .setOrder(1).setAscending(true).setLimit(0).setMatchAll(false);
+        for (int i = 0; i < RULES_PER_PLAYLIST; i++) {
+            playlist.getRules().add(new GmmpSmartPlaylist.Rule().setVersion(1).setField(5).setOperator(3)
+                .setValue(String.format("excluded & unwanted %d-%d.mp3", number, i)).setTimeUnit(-1));
+        }
+        return playlist;
+    }
+
+    private static void compare(final String format, final List<? extends FormattedSmartPlaylist> corpus,
+            final boolean formatOutput) throws Exception {
+        final Benchmarks.CountingOutputStream jaxbOutput = new Benchmarks.CountingOutputStream();
+        final double jaxb = Benchmarks.measure(format + " JAXB marshaller", corpus.size(), () -> {
+            for (final FormattedSmartPlaylist playlist: corpus) {
+                final Marshaller marshaller = JaxbContextRegistry.getMarshaller(playlist.getClass());
+                marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatOutput);
+                marshaller.marshal(playlist, jaxbOutput);
+            }
+        });
+        final Benchmarks.CountingOutputStream emitterOutput = new Benchmarks.CountingOutputStream();
+        final double emitter = Benchmarks.measure(format + " StAX emitter", corpus.size(), () -> {
+            for (final FormattedSmartPlaylist playlist: corpus) {
+                playlist.writeTo(emitterOutput);
+            }
+        });
+        System.out.println(String.format("%s: emitter is %.2fx the throughput of JAXB (%d vs %d bytes written)", format,
+            jaxb / emitter, emitterOutput.getCount(), jaxbOutput.getCount()));
+    }
+
+    public static void run() throws Exception {
+        final List<XbmcV11SmartPlaylist> xbmcV11 = new ArrayList<>();
+        final List<XbmcV12SmartPlaylist> xbmcV12 = new ArrayList<>();
+        final List<GmmpSmartPlaylist> gmmp = new ArrayList<>();
+        for (int i = 0; i < PLAYLISTS; i++) {
+            xbmcV11.add(xbmcPlaylist(new XbmcV11SmartPlaylist(), i));
+            xbmcV12.add(xbmcPlaylist(new XbmcV12SmartPlaylist(), i));
+            gmmp.add(gmmpPlaylist(i));
+        }
+        compare("XBMC v11", xbmcV11, true);
+        compare("XBMC v12", xbmcV12, true);
+        compare("GMMP", gmmp, false);
+    }
+}
@@ -0,0 +1,45 @@
+package com.adashrod.smartplaylists.benchmark;
+
+import com.adashrod.smartplaylists.api.ConverterApi;
+import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.api.PlaylistHeader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares reading just the headers of playlists, as when listing them, against loading the whole playlists
+ */
+public final class HeaderBenchmark {
+    private static final int PLAYLISTS = 50;
+
+    private HeaderBenchmark() {}
+
+    public static void run() throws Exception {
+        final ConverterApi converterApi = new ConverterApi();
+        final List<byte[]> corpus = new ArrayList<>();
+        for (int i = 0; i < PLAYLISTS; i++) {
+            final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+            BinaryCodecBenchmark.xbmcPlaylist(i).writeTo(xml);
+            corpus.add(xml.toByteArray());
+        }
+
+        final List<FormattedSmartPlaylist> playlists = new ArrayList<>();
+        final double load = Benchmarks.measure("loadFrom", PLAYLISTS, () -> {
+            for (final byte[] xml: corpus) {
+                playlists.add(converterApi.loadFrom(new ByteArrayInputStream(xml)));
+            }
+            playlists.clear();
+        });
+        final List<PlaylistHeader> headers = new ArrayList<>();
+        final double header = Benchmarks.measure("readHeader", PLAYLISTS, () -> {
+            for (final byte[] xml: corpus) {
+                headers.add(converterApi.readHeader(new ByteArrayInputStream(xml)));
+            }
+            headers.clear();
+        });
+        System.out.println(String.format("reading headers is %.1fx the throughput of loading", load / header));
+    }
+}
@@ -0,0 +1,35 @@
+package com.adashrod.smartplaylists.benchmark;
+
+import com.adashrod.smartplaylists.api.ConversionReport;
+import com.adashrod.smartplaylists.converters.XbmcV12PlaylistConverter;
+import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares converting a generated XBMC playlist with tens of thousands of rules to a format-agnostic playlist and back
+ * one rule at a time against converting its rules in parallel
+ */
+public final class ParallelRulesBenchmark {
+    private static final int RULES = 60000;
+
+    private ParallelRulesBenchmark() {}
+
+    public static void run() throws Exception {
+        final XbmcV12SmartPlaylist playlist = BinaryCodecBenchmark.xbmcPlaylist(0, RULES);
+        final XbmcV12PlaylistConverter xbmcConverter = new XbmcV12PlaylistConverter();
+        final double sequential = Benchmarks.measure("XBMC -> agnostic -> XBMC, one rule at a time", RULES, () -> {
+            final AgnosticSmartPlaylist agnosticPlaylist = xbmcConverter.convert(playlist, new ConversionReport(),
+                false);
+            xbmcConverter.convert(agnosticPlaylist, new ConversionReport(), false);
+        });
+        final double parallel = Benchmarks.measure("XBMC -> agnostic -> XBMC, in parallel", RULES, () -> {
+            final AgnosticSmartPlaylist agnosticPlaylist = xbmcConverter.convert(playlist, new ConversionReport(),
+                true);
+            xbmcConverter.convert(agnosticPlaylist, new ConversionReport(), true);
+        });
+        System.out.println(String.format("converting in parallel on %d threads is %.1fx as fast",
+            ForkJoinPool.commonPool().getParallelism(), sequential / parallel));
+    }
+}
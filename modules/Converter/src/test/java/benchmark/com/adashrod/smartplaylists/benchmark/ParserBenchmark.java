@@ -0,0 +1,82 @@
+package com.adashrod.smartplaylists.benchmark;
+
+import com.adashrod.smartplaylists.converters.OperandParser;
+import com.adashrod.timeperiod.TimePeriod;
+import com.adashrod.timeperiod.TimePeriodFormat;
+import com.adashrod.timeperiod.TimeUnit;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+
+/**
+ * Compares reading the operands of rules with OperandParser against reading them with TimePeriodFormat,
+ * TimePeriod.parseAsWords, and SimpleDateFormat, which throw for bad operands and are tried in turn for durations.
+ * About one in eight operands is invalid.
+ */
+public final class ParserBenchmark {
+    private static final int OPERANDS = 10000;
+
+    private ParserBenchmark() {}
+
+    public static void run() throws Exception {
+        final String[] durations = new String[OPERANDS];
+        final String[] periods = new String[OPERANDS];
+        final String[] dates = new String[OPERANDS];
+        final String[] units = {"seconds", "minutes", "hours", "days", "weeks"};
+        for (int i = 0; i < OPERANDS; i++) {
+            final boolean invalid = i % 8 == 7;
+            durations[i] = i % 2 == 0 ? String.format("%d:%02d", i % 10, invalid ? 99 : i % 60) :
+                String.format("%d:%02d:%02d", i % 3, i % 60, invalid ? 99 : i % 60);
+            periods[i] = (i % 52 + 1) + " " + (invalid ? "fortnights" : units[i % units.length]);
+            dates[i] = String.format(invalid ? "%d/%02d-%02d" : "%d-%02d-%02d", 1970 + i % 50, i % 12 + 1, i % 28 + 1);
+        }
+
+        final TimePeriodFormat hmsFormat = new TimePeriodFormat("hh:mm:ss").setMaxUnit(TimeUnit.HOUR);
+        final TimePeriodFormat msFormat = new TimePeriodFormat("mm:ss");
+        final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        final double oldDurations = Benchmarks.measure("durations, TimePeriodFormat", OPERANDS, () -> {
+            for (final String duration: durations) {
+                try {
+                    msFormat.parse(duration);
+                } catch (final ParseException pe) {
+                    try {
+                        hmsFormat.parse(duration);
+                    } catch (final ParseException ignored) {}
+                }
+            }
+        });
+        final double newDurations = Benchmarks.measure("durations, OperandParser", OPERANDS, () -> {
+            for (final String duration: durations) {
+                OperandParser.parseDuration(duration, new ParsePosition(0));
+            }
+        });
+        final double oldPeriods = Benchmarks.measure("periods, TimePeriod.parseAsWords", OPERANDS, () -> {
+            for (final String period: periods) {
+                try {
+                    TimePeriod.parseAsWords(period);
+                } catch (final ParseException ignored) {}
+            }
+        });
+        final double newPeriods = Benchmarks.measure("periods, OperandParser", OPERANDS, () -> {
+            for (final String period: periods) {
+                OperandParser.parsePeriod(period, new ParsePosition(0));
+            }
+        });
+        final double oldDates = Benchmarks.measure("dates, SimpleDateFormat", OPERANDS, () -> {
+            for (final String date: dates) {
+                try {
+                    dateFormat.parse(date);
+                } catch (final ParseException ignored) {}
+            }
+        });
+        final double newDates = Benchmarks.measure("dates, OperandParser", OPERANDS, () -> {
+            for (final String date: dates) {
+                OperandParser.parseDate(date, '-', new ParsePosition(0));
+            }
+        });
+        System.out.println(String.format("OperandParser is %.1fx as fast for durations, %.1fx for periods, and %.1fx " +
+            "for dates", oldDurations / newDurations, oldPeriods / newPeriods, oldDates / newDates));
+    }
+}
@@ -0,0 +1,63 @@
+package com.adashrod.smartplaylists.benchmark;
+
+import com.adashrod.smartplaylists.api.ConverterApi;
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.converters.StreamingTranscoder;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Compares converting one very large XBMC v12 playlist file to v11 by loading, converting, and writing it against
+ * transcoding it with the streaming transcoder, and converting the loaded playlist directly against converting it
+ * through a format-agnostic playlist
+ */
+public final class TranscoderBenchmark {
+    private static final int RULES = 50000;
+
+    private TranscoderBenchmark() {}
+
+    public static void run() throws Exception {
+        final Path input = Files.createTempFile("transcoder_benchmark", ".xsp");
+        try {
+            try (final OutputStream outputStream = Files.newOutputStream(input)) {
+                BinaryCodecBenchmark.xbmcPlaylist(0, RULES).writeTo(outputStream);
+            }
+            System.out.println(String.format("input: %d bytes", Files.size(input)));
+
+            final ConverterApi converterApi = new ConverterApi();
+            final Benchmarks.CountingOutputStream sink = new Benchmarks.CountingOutputStream();
+            final double convert = Benchmarks.measure("load + convert + writeTo", 1, () -> {
+                converterApi.convert(converterApi.loadFromFile(input.toFile()), XbmcV11SmartPlaylist.class)
+                    .writeTo(sink);
+                converterApi.clearLog();
+            });
+            final StreamingTranscoder transcoder = new StreamingTranscoder();
+            final Collection<String> errorLog = new ArrayList<>();
+            final double transcode = Benchmarks.measure("StreamingTranscoder", 1, () -> {
+                transcoder.transcode(input, XbmcV11SmartPlaylist.class, sink, DiagnosticSink.of(errorLog));
+                errorLog.clear();
+            });
+            System.out.println(String.format("transcoding is %.1fx the throughput of converting", convert / transcode));
+
+            final FormattedSmartPlaylist loaded = converterApi.loadFromFile(input.toFile());
+            final double twoStep = Benchmarks.measure("convert v12 -> agnostic -> v11", 1, () -> {
+                converterApi.convert(converterApi.convert(loaded), XbmcV11SmartPlaylist.class);
+                converterApi.clearLog();
+            });
+            final double direct = Benchmarks.measure("convert v12 -> v11 directly", 1, () -> {
+                converterApi.convert(loaded, XbmcV11SmartPlaylist.class);
+                converterApi.clearLog();
+            });
+            System.out.println(String.format("converting directly is %.1fx the throughput of converting in two steps",
+                twoStep / direct));
+        } finally {
+            Files.delete(input);
+        }
+    }
+}
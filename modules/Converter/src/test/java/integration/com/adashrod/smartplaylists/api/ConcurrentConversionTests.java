@@ -0,0 +1,205 @@
+package com.adashrod.smartplaylists.api;
+
+import com.adashrod.smartplaylists.converters.StreamingTranscoder;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * integration tests for converting the test playlists from many threads at once, which should give the same results as
+ * converting them one at a time
+ */
+public class ConcurrentConversionTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private static final List<String> CORPUS = Arrays.asList("xbmc11/valid_playlist1.xsp", "xbmc11/valid_playlist2.xsp",
+        "xbmc11/1_invalid_date.xsp", "xbmc11/1_invalid_field.xsp", "xbmc11/1_invalid_operator.xsp",
+        "xbmc11/2_invalid_times.xsp", "xbmc11/invalid_limit.xsp", "xbmc12/valid_latin1.xsp",
+        "xbmc12/valid_unusual_time.xsp", "xbmc12/1_invalid_field.xsp", "xbmc12/1_wrong_operator.xsp",
+        "xbmc12/invalid_order_by_operand.xsp", "xbmc12/missing_value.xsp", "gmmp/valid_playlist1.spl",
+        "gmmp/missing_operator.spl", "not_a_playlist.txt");
+    private static final List<Class<? extends FormattedSmartPlaylist>> OUTPUT_TYPES = Arrays.asList(
+        XbmcV11SmartPlaylist.class, XbmcV12SmartPlaylist.class, GmmpSmartPlaylist.class);
+
+    private static final int THREAD_COUNT = 16;
+    private static final int ROUNDS = 20;
+
+    /**
+     * What converting one file to one output type gave
+     */
+    private static class Conversion {
+        private final String task;
+        private final String output;
+        private final List<String> errorLog;
+
+        private Conversion(final String task, final String output, final List<String> errorLog) {
+            this.task = task;
+            this.output = output;
+            this.errorLog = errorLog;
+        }
+    }
+
+    private String task(final String filename, final Class<? extends FormattedSmartPlaylist> outputType) {
+        return filename + " to " + outputType.getSimpleName();
+    }
+
+    /**
+     * Loads, converts, and writes a file with the API, returning the XML, or the failure if it couldn't be loaded
+     */
+    private String convertWithApi(final ConverterApi converterApi, final String filename,
+            final Class<? extends FormattedSmartPlaylist> outputType) throws Exception {
+        final FormattedSmartPlaylist input;
+        try {
+            input = converterApi.loadFromFile(new File(TEST_PLAYLIST_DIRECTORY + filename));
+        } catch (final IllegalArgumentException iae) {
+            return "failed: " + iae.getMessage();
+        }
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        converterApi.convert(input, outputType).writeTo(output);
+        return output.toString("UTF-8");
+    }
+
+    private String transcode(final StreamingTranscoder transcoder, final String filename,
+            final Class<? extends FormattedSmartPlaylist> outputType, final List<String> errorLog) throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            transcoder.transcode(Paths.get(TEST_PLAYLIST_DIRECTORY + filename), outputType, output,
+                DiagnosticSink.of(errorLog));
+        } catch (final Exception e) {
+            return "failed: " + e.getMessage();
+        }
+        return output.toString("UTF-8");
+    }
+
+    /**
+     * Runs every task ROUNDS times on THREAD_COUNT threads, in a different order on each thread, and starts them all at
+     * once so that as many as possible overlap
+     * @return the results, in no particular order
+     */
+    private List<Conversion> runConcurrently(final List<Callable<Conversion>> tasks) throws Exception {
+        final List<Callable<Conversion>> allTasks = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            allTasks.addAll(tasks);
+        }
+        Collections.shuffle(allTasks, new Random(16));
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<Conversion>> futures = new ArrayList<>();
+            for (final Callable<Conversion> task: allTasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            final List<Conversion> results = new ArrayList<>();
+            for (final Future<Conversion> future: futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sharedApiMatchesSingleThreaded() throws Exception {
+        final List<Conversion> expected = new ArrayList<>();
+        final List<String> expectedErrors = new ArrayList<>();
+        for (final String filename: CORPUS) {
+            for (final Class<? extends FormattedSmartPlaylist> outputType: OUTPUT_TYPES) {
+                final ConverterApi singleThreadedApi = new ConverterApi();
+                final String output = convertWithApi(singleThreadedApi, filename, outputType);
+                expected.add(new Conversion(task(filename, outputType), output, singleThreadedApi.getErrorLog()));
+                expectedErrors.addAll(singleThreadedApi.getErrorLog());
+            }
+        }
+
+        final ConverterApi sharedApi = new ConverterApi();
+        final List<Callable<Conversion>> tasks = new ArrayList<>();
+        for (final String filename: CORPUS) {
+            for (final Class<? extends FormattedSmartPlaylist> outputType: OUTPUT_TYPES) {
+                tasks.add(() -> new Conversion(task(filename, outputType),
+                    convertWithApi(sharedApi, filename, outputType), null));
+            }
+        }
+        final List<Conversion> results = runConcurrently(tasks);
+
+        assertEquals(CORPUS.size() * OUTPUT_TYPES.size() * ROUNDS, results.size());
+        for (final Conversion result: results) {
+            final Conversion expectedResult = expected.get(indexOf(expected, result.task));
+            assertEquals(result.task, expectedResult.output, result.output);
+        }
+        // every call's errors end up in the shared log, though the calls finished in any order
+        final List<String> allExpectedErrors = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            allExpectedErrors.addAll(expectedErrors);
+        }
+        final List<String> actualErrors = new ArrayList<>(sharedApi.getErrorLog());
+        Collections.sort(allExpectedErrors);
+        Collections.sort(actualErrors);
+        assertTrue(!actualErrors.isEmpty());
+        assertEquals(allExpectedErrors, actualErrors);
+    }
+
+    @Test
+    public void sharedTranscoderMatchesSingleThreaded() throws Exception {
+        final List<Conversion> expected = new ArrayList<>();
+        for (final String filename: CORPUS) {
+            for (final Class<? extends FormattedSmartPlaylist> outputType: OUTPUT_TYPES) {
+                final List<String> errorLog = new ArrayList<>();
+                final String output = transcode(new StreamingTranscoder(), filename, outputType, errorLog);
+                expected.add(new Conversion(task(filename, outputType), output, errorLog));
+            }
+        }
+
+        final StreamingTranscoder sharedTranscoder = new StreamingTranscoder();
+        final List<Callable<Conversion>> tasks = new ArrayList<>();
+        for (final String filename: CORPUS) {
+            for (final Class<? extends FormattedSmartPlaylist> outputType: OUTPUT_TYPES) {
+                tasks.add(() -> {
+                    final List<String> errorLog = new ArrayList<>();
+                    final String output = transcode(sharedTranscoder, filename, outputType, errorLog);
+                    return new Conversion(task(filename, outputType), output, errorLog);
+                });
+            }
+        }
+        final List<Conversion> results = runConcurrently(tasks);
+
+        assertEquals(CORPUS.size() * OUTPUT_TYPES.size() * ROUNDS, results.size());
+        for (final Conversion result: results) {
+            final Conversion expectedResult = expected.get(indexOf(expected, result.task));
+            assertEquals(result.task, expectedResult.output, result.output);
+            assertEquals(result.task, expectedResult.errorLog, result.errorLog);
+        }
+    }
+
+    private int indexOf(final List<Conversion> conversions, final String task) {
+        for (int i = 0; i < conversions.size(); i++) {
+            if (conversions.get(i).task.equals(task)) {
+                return i;
+            }
+        }
+        throw new AssertionError("no expected result for " + task);
+    }
+}
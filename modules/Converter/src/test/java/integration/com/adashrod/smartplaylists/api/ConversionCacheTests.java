@@ -0,0 +1,251 @@
+package com.adashrod.smartplaylists.api;
+
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * integration tests for caching the results of converting files and archives
+ */
+public class ConversionCacheTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+    private static final long BUDGET = 1 << 20;
+
+    private Path cacheDirectory;
+    private Path outputDirectory;
+
+    @Before
+    public void before() throws IOException {
+        cacheDirectory = Files.createTempDirectory("conversionCacheTests");
+        outputDirectory = Files.createTempDirectory("conversionCacheTests");
+    }
+
+    @After
+    public void after() throws IOException {
+        delete(cacheDirectory);
+        delete(outputDirectory);
+    }
+
+    private static void delete(final Path directory) throws IOException {
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path: (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * @return the name and then the content of each entry of the archive, in order
+     */
+    private static List<String> readEntries(final ByteArrayOutputStream zip) throws IOException {
+        final List<String> entries = new ArrayList<>();
+        try (final ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                entries.add(entry.getName());
+                final ByteArrayOutputStream content = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[8192];
+                int length;
+                while ((length = zipInputStream.read(buffer)) > 0) {
+                    content.write(buffer, 0, length);
+                }
+                entries.add(new String(content.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Transcodes a file with a new API that uses the cache, and checks that it gives the same result as an API without
+     * one
+     */
+    private void testAFile(final ConversionCache cache, final String filename,
+            final Class<? extends FormattedSmartPlaylist> outputType) throws IOException {
+        final File input = new File(TEST_PLAYLIST_DIRECTORY + filename);
+        final ConverterApi uncachedApi = new ConverterApi();
+        final File expected = outputDirectory.resolve("expected").toFile();
+        final int expectedRuleCount = uncachedApi.transcodeFile(input, outputType, expected);
+
+        final ConverterApi cachedApi = new ConverterApi();
+        cachedApi.setCache(cache);
+        final File actual = outputDirectory.resolve("actual").toFile();
+        assertEquals(expectedRuleCount, cachedApi.transcodeFile(input, outputType, actual));
+        assertTrue(Arrays.equals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath())));
+        assertEquals(uncachedApi.getErrorLog(), cachedApi.getErrorLog());
+    }
+
+    @Test
+    public void transcodedFilesAreCached() throws Exception {
+        final ConversionCache cache = new ConversionCache(BUDGET, cacheDirectory);
+        testAFile(cache, "xbmc11/1_invalid_field.xsp", GmmpSmartPlaylist.class);
+        assertEquals(1, cache.getMisses());
+        testAFile(cache, "xbmc11/1_invalid_field.xsp", GmmpSmartPlaylist.class);
+        assertEquals(1, cache.getMemoryHits());
+
+        // a different format is a different result
+        testAFile(cache, "xbmc11/1_invalid_field.xsp", XbmcV11SmartPlaylist.class);
+        assertEquals(2, cache.getMisses());
+
+        // results on disk outlive the cache that wrote them
+        final ConversionCache newCache = new ConversionCache(BUDGET, cacheDirectory);
+        testAFile(newCache, "xbmc11/1_invalid_field.xsp", GmmpSmartPlaylist.class);
+        testAFile(newCache, "xbmc11/1_invalid_field.xsp", GmmpSmartPlaylist.class);
+        assertEquals(0, newCache.getMisses());
+        assertEquals(1, newCache.getDiskHits());
+        assertEquals(1, newCache.getMemoryHits());
+    }
+
+    /**
+     * Caches the result of a file on disk, damages the cached file, and checks that a new cache treats it as a miss
+     * and then caches the result again
+     */
+    private void testADamagedFile(final Damage damage) throws Exception {
+        final String filename = "xbmc11/valid_playlist1.xsp";
+        testAFile(new ConversionCache(BUDGET, cacheDirectory), filename, GmmpSmartPlaylist.class);
+        final Path cachedFile;
+        try (final Stream<Path> paths = Files.walk(cacheDirectory)) {
+            cachedFile = paths.filter((final Path path) -> path.toString().endsWith(".bin")).findFirst().get();
+        }
+        final byte[] bytes = Files.readAllBytes(cachedFile);
+        Files.write(cachedFile, damage.apply(bytes.clone()));
+
+        final ConversionCache cache = new ConversionCache(BUDGET, cacheDirectory);
+        testAFile(cache, filename, GmmpSmartPlaylist.class);
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getDiskHits());
+        assertTrue(Arrays.equals(bytes, Files.readAllBytes(cachedFile)));
+    }
+
+    private interface Damage {
+        byte[] apply(byte[] bytes);
+    }
+
+    @Test
+    public void truncatedFilesAreMisses() throws Exception {
+        testADamagedFile((final byte[] bytes) -> Arrays.copyOf(bytes, bytes.length / 2));
+        testADamagedFile((final byte[] bytes) -> Arrays.copyOf(bytes, 3));
+        testADamagedFile((final byte[] bytes) -> Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test
+    public void corruptFilesAreMisses() throws Exception {
+        // a flipped bit in the output
+        testADamagedFile((final byte[] bytes) -> {
+            bytes[bytes.length / 2] ^= 1;
+            return bytes;
+        });
+        // an output length far longer than the file, which comes after the magic number, version, and rule count
+        testADamagedFile((final byte[] bytes) -> {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            buffer.putInt(9, Integer.MAX_VALUE);
+            return buffer.array();
+        });
+        // extra bytes at the end
+        testADamagedFile((final byte[] bytes) -> Arrays.copyOf(bytes, bytes.length + 1));
+    }
+
+    @Test
+    public void resultsOverTheBudgetAreOnlyKeptOnDisk() throws Exception {
+        final ConversionCache diskCache = new ConversionCache(0, cacheDirectory);
+        testAFile(diskCache, "xbmc11/valid_playlist1.xsp", GmmpSmartPlaylist.class);
+        testAFile(diskCache, "xbmc11/valid_playlist1.xsp", GmmpSmartPlaylist.class);
+        testAFile(diskCache, "xbmc11/valid_playlist1.xsp", GmmpSmartPlaylist.class);
+        assertEquals(1, diskCache.getMisses());
+        assertEquals(2, diskCache.getDiskHits());
+        assertEquals(0, diskCache.getMemoryHits());
+
+        final ConversionCache memoryCache = new ConversionCache(0);
+        testAFile(memoryCache, "xbmc11/valid_playlist1.xsp", GmmpSmartPlaylist.class);
+        testAFile(memoryCache, "xbmc11/valid_playlist1.xsp", GmmpSmartPlaylist.class);
+        assertEquals(2, memoryCache.getMisses());
+    }
+
+    @Test
+    public void cacheHitsLeaveNoTemporaryFiles() throws Exception {
+        final ConversionCache cache = new ConversionCache(BUDGET);
+        testAFile(cache, "xbmc11/valid_playlist1.xsp", GmmpSmartPlaylist.class);
+        testAFile(cache, "xbmc11/valid_playlist1.xsp", GmmpSmartPlaylist.class);
+        assertEquals(1, cache.getMemoryHits());
+        try (final Stream<Path> paths = Files.list(outputDirectory)) {
+            assertEquals(0, paths.filter((final Path path) -> path.toString().endsWith(".tmp")).count());
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedResultsAreEvicted() throws Exception {
+        final ConverterApi uncachedApi = new ConverterApi();
+        long largestOutput = 0;
+        for (final String filename: Arrays.asList("xbmc11/valid_playlist1.xsp", "xbmc11/valid_playlist2.xsp")) {
+            final File output = outputDirectory.resolve("sized").toFile();
+            uncachedApi.transcodeFile(new File(TEST_PLAYLIST_DIRECTORY + filename), GmmpSmartPlaylist.class, output);
+            largestOutput = Math.max(largestOutput, output.length());
+        }
+        // room for either result, with its overhead, but not both
+        final ConversionCache cache = new ConversionCache(largestOutput + 256);
+        testAFile(cache, "xbmc11/valid_playlist1.xsp", GmmpSmartPlaylist.class);
+        testAFile(cache, "xbmc11/valid_playlist2.xsp", GmmpSmartPlaylist.class);
+        testAFile(cache, "xbmc11/valid_playlist2.xsp", GmmpSmartPlaylist.class);
+        testAFile(cache, "xbmc11/valid_playlist1.xsp", GmmpSmartPlaylist.class);
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getMemoryHits());
+    }
+
+    @Test
+    public void zipEntriesAreCached() throws Exception {
+        final ByteArrayOutputStream inputZip = new ByteArrayOutputStream();
+        try (final ZipOutputStream zipOutputStream = new ZipOutputStream(inputZip)) {
+            for (final String filename: Arrays.asList("xbmc11/valid_playlist1.xsp", "xbmc11/1_invalid_field.xsp",
+                    "not_a_playlist.txt")) {
+                zipOutputStream.putNextEntry(new ZipEntry(filename));
+                zipOutputStream.write(Files.readAllBytes(Paths.get(TEST_PLAYLIST_DIRECTORY + filename)));
+                zipOutputStream.closeEntry();
+            }
+        }
+        final ConverterApi uncachedApi = new ConverterApi();
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        assertEquals(2, uncachedApi.convertZip(new ByteArrayInputStream(inputZip.toByteArray()),
+            GmmpSmartPlaylist.class, expected));
+
+        final ConversionCache cache = new ConversionCache(BUDGET);
+        final List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        final ConverterApi cachedApi = new ConverterApi();
+        cachedApi.setCache(cache);
+        for (int i = 0; i < 2; i++) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            assertEquals(2, cachedApi.convertZip(new ByteArrayInputStream(inputZip.toByteArray()),
+                GmmpSmartPlaylist.class, output));
+            outputs.add(output);
+        }
+        assertEquals(3, cache.getMisses());
+        assertEquals(3, cache.getMemoryHits());
+        // the archives themselves differ in their entries' modification times
+        assertEquals(readEntries(expected), readEntries(outputs.get(0)));
+        assertEquals(readEntries(expected), readEntries(outputs.get(1)));
+        final List<String> expectedErrors = new ArrayList<>(uncachedApi.getErrorLog());
+        expectedErrors.addAll(uncachedApi.getErrorLog());
+        assertEquals(expectedErrors, cachedApi.getErrorLog());
+    }
+}
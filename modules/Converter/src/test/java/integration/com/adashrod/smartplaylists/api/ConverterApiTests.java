@@ -0,0 +1,303 @@
+package com.adashrod.smartplaylists.api;
+
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * integration tests for loading files of any format through the API
+ */
+public class ConverterApiTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private final ConverterApi converterApi = new ConverterApi();
+
+    private void testAFile(final String filename, final Class<? extends FormattedSmartPlaylist> expectedType)
+            throws Exception {
+        final FormattedSmartPlaylist playlist = converterApi.loadFromFile(new File(TEST_PLAYLIST_DIRECTORY + filename));
+        assertEquals(expectedType, playlist.getClass());
+    }
+
+    @Test
+    public void loadFromFile() throws Exception {
+        testAFile("xbmc11/valid_playlist1.xsp", XbmcV11SmartPlaylist.class);
+        testAFile("xbmc12/valid_unusual_time.xsp", XbmcV12SmartPlaylist.class);
+        testAFile("gmmp/valid_playlist1.spl", GmmpSmartPlaylist.class);
+    }
+
+    private byte[] readBytes(final String filename) throws Exception {
+        return Files.readAllBytes(Paths.get(TEST_PLAYLIST_DIRECTORY, filename));
+    }
+
+    @Test
+    public void loadFromStream() throws Exception {
+        // a stream that can't be reset, like a pipe
+        final byte[] bytes = readBytes("xbmc11/valid_playlist1.xsp");
+        final InputStream inputStream = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+        final FormattedSmartPlaylist playlist = converterApi.loadFrom(inputStream);
+        assertEquals(XbmcV11SmartPlaylist.class, playlist.getClass());
+        assertEquals(3, ((XbmcV11SmartPlaylist) playlist).getRules().size());
+    }
+
+    @Test
+    public void loadFromByteBuffer() throws Exception {
+        final byte[] bytes = readBytes("gmmp/valid_playlist1.spl");
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        final FormattedSmartPlaylist playlist = converterApi.loadFrom(buffer);
+        assertEquals(GmmpSmartPlaylist.class, playlist.getClass());
+        assertEquals(3, ((GmmpSmartPlaylist) playlist).getRules().size());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void loadFromCharSequence() throws Exception {
+        final StringBuilder xml = new StringBuilder(new String(readBytes("xbmc12/valid_latin1.xsp"),
+            StandardCharsets.ISO_8859_1));
+        final FormattedSmartPlaylist playlist = converterApi.loadFrom(xml);
+        assertEquals(XbmcV12SmartPlaylist.class, playlist.getClass());
+        assertEquals("Caf\u00e9 del Mar", ((XbmcV12SmartPlaylist) playlist).getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void charSequenceNotAPlaylist() throws Exception {
+        converterApi.loadFrom("not a playlist");
+    }
+
+    @Test
+    public void readHeader() throws Exception {
+        final PlaylistHeader header = converterApi.readHeader(new File(TEST_PLAYLIST_DIRECTORY +
+            "xbmc11/valid_playlist1.xsp"));
+        assertEquals(XbmcV11SmartPlaylist.class, header.getFormat());
+        assertEquals("Early (Original) Metallica", header.getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void headerOfNotAPlaylist() throws Exception {
+        converterApi.readHeader(new ByteArrayInputStream("<playlist/>".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void writeToFile() throws Exception {
+        final FormattedSmartPlaylist input = converterApi.loadFromFile(new File(TEST_PLAYLIST_DIRECTORY + "xbmc11/valid_playlist1.xsp"));
+        for (final Class<? extends FormattedSmartPlaylist> outputType: Arrays.asList(XbmcV11SmartPlaylist.class,
+                XbmcV12SmartPlaylist.class, GmmpSmartPlaylist.class)) {
+            final FormattedSmartPlaylist output = converterApi.convert(input, outputType);
+            final File file = File.createTempFile("converterApiTests", ".tmp");
+            file.deleteOnExit();
+            converterApi.writeToFile(output, file);
+            assertEquals(output.toString(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void convertZip() throws Exception {
+        final List<String> inputNames = Arrays.asList("xbmc11/valid_playlist1.xsp", "xbmc11/valid_playlist2.xsp",
+            "not_a_playlist.txt", "xbmc12/valid_unusual_time.xsp", "xbmc12/invalid_order_by_operand.xsp",
+            "gmmp/valid_playlist1.spl");
+        final ByteArrayOutputStream inputZip = new ByteArrayOutputStream();
+        try (final ZipOutputStream zipOutputStream = new ZipOutputStream(inputZip)) {
+            zipOutputStream.putNextEntry(new ZipEntry("xbmc11/"));
+            for (final String name: inputNames) {
+                zipOutputStream.putNextEntry(new ZipEntry(name));
+                zipOutputStream.write(readBytes(name));
+            }
+        }
+
+        final List<String> playlistNames = new ArrayList<>(inputNames);
+        playlistNames.remove("not_a_playlist.txt");
+
+        final ByteArrayOutputStream outputZip = new ByteArrayOutputStream();
+        final int convertedCount = converterApi.convertZip(new ByteArrayInputStream(inputZip.toByteArray()),
+            GmmpSmartPlaylist.class, outputZip);
+        assertEquals(5, convertedCount);
+
+        final List<String> outputNames = new ArrayList<>();
+        try (final ZipInputStream zipInputStream =
+                new ZipInputStream(new ByteArrayInputStream(outputZip.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                outputNames.add(entry.getName());
+                final String inputName = playlistNames.get(outputNames.size() - 1);
+                final ConverterApi sequentialApi = new ConverterApi();
+                final FormattedSmartPlaylist expected = sequentialApi.convert(
+                    sequentialApi.loadFromFile(new File(TEST_PLAYLIST_DIRECTORY + inputName)), GmmpSmartPlaylist.class);
+                final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[8192];
+                int count;
+                while ((count = zipInputStream.read(buffer)) != -1) {
+                    actual.write(buffer, 0, count);
+                }
+                assertEquals(expected.toString(), new String(actual.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(Arrays.asList("xbmc11/valid_playlist1.spl", "xbmc11/valid_playlist2.spl",
+            "xbmc12/valid_unusual_time.spl", "xbmc12/invalid_order_by_operand.spl", "gmmp/valid_playlist1.spl"),
+            outputNames);
+        // errors are in entry order
+        final List<String> errorLog = converterApi.getErrorLog();
+        assertEquals("not_a_playlist.txt: couldn't find a way to de-serialize the playlist file", errorLog.get(0));
+        assertTrue(errorLog.get(errorLog.size() - 1).startsWith("xbmc12/invalid_order_by_operand.xsp: "));
+    }
+
+    @Test
+    public void failedTranscodeLeavesOutputAlone() throws Exception {
+        final Path directory = Files.createTempDirectory("transcode");
+        final File output = directory.resolve("output.spl").toFile();
+        try {
+            Files.write(output.toPath(), "old".getBytes(StandardCharsets.UTF_8));
+            try {
+                converterApi.transcodeFile(new File(TEST_PLAYLIST_DIRECTORY + "xbmc12/missing_value.xsp"),
+                    GmmpSmartPlaylist.class, output);
+                fail("a playlist that doesn't match its schema was transcoded");
+            } catch (final IllegalArgumentException iae) {
+                assertEquals("old", new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8));
+            }
+            // no temporary file is left behind either
+            assertEquals(1, directory.toFile().list().length);
+
+            assertEquals(3, converterApi.transcodeFile(new File(TEST_PLAYLIST_DIRECTORY + "gmmp/valid_playlist1.spl"),
+                GmmpSmartPlaylist.class, output));
+            assertEquals(Arrays.asList("output.spl"), Arrays.asList(directory.toFile().list()));
+        } finally {
+            Files.deleteIfExists(output.toPath());
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void convertZipLeavesOutCollidingAndOversizedEntries() throws Exception {
+        final ByteArrayOutputStream inputZip = new ByteArrayOutputStream();
+        try (final ZipOutputStream zipOutputStream = new ZipOutputStream(inputZip)) {
+            zipOutputStream.putNextEntry(new ZipEntry("a.xsp"));
+            zipOutputStream.write(readBytes("xbmc11/valid_playlist1.xsp"));
+            zipOutputStream.putNextEntry(new ZipEntry("huge.xsp"));
+            zipOutputStream.write(new byte[(int) new ParseLimits().getMaxBytes() + 1]);
+            zipOutputStream.putNextEntry(new ZipEntry("a.spl"));
+            zipOutputStream.write(readBytes("gmmp/valid_playlist1.spl"));
+        }
+
+        final ByteArrayOutputStream outputZip = new ByteArrayOutputStream();
+        assertEquals(1, converterApi.convertZip(new ByteArrayInputStream(inputZip.toByteArray()),
+            GmmpSmartPlaylist.class, outputZip));
+        final List<String> outputNames = new ArrayList<>();
+        try (final ZipInputStream zipInputStream =
+                new ZipInputStream(new ByteArrayInputStream(outputZip.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                outputNames.add(entry.getName());
+            }
+        }
+        assertEquals(Collections.singletonList("a.spl"), outputNames);
+        final List<String> errorLog = converterApi.getErrorLog();
+        assertEquals(errorLog.toString(), 2, errorLog.size());
+        assertTrue(errorLog.get(0), errorLog.get(0).startsWith("huge.xsp: entry is larger than the limit"));
+        assertTrue(errorLog.get(1), errorLog.get(1).startsWith("a.spl: left out because"));
+    }
+
+    @Test
+    public void convertXbmcV11ToV12() throws Exception {
+        final XbmcV11SmartPlaylist v11Playlist = (XbmcV11SmartPlaylist) converterApi.loadFromFile(
+            new File(TEST_PLAYLIST_DIRECTORY + "xbmc11/valid_playlist2.xsp"));
+        final XbmcV12SmartPlaylist v12Playlist = (XbmcV12SmartPlaylist) converterApi.convert(v11Playlist,
+            XbmcV12SmartPlaylist.class);
+        assertEquals(0, converterApi.getErrorLog().size());
+        assertEquals("songs", v12Playlist.getType());
+        assertEquals(v11Playlist.getName(), v12Playlist.getName());
+        assertEquals("all", v12Playlist.getMatch());
+        assertEquals("title", v12Playlist.getOrder().getSortKey());
+        assertEquals(Integer.valueOf(0), v12Playlist.getLimit());
+        assertSameRules(v11Playlist, v12Playlist);
+        // operands are copied, not parsed and formatted again
+        assertEquals("1 week", v12Playlist.getRules().get(0).getOperand());
+
+        final XbmcV11SmartPlaylist roundTrip = (XbmcV11SmartPlaylist) converterApi.convert(v12Playlist,
+            XbmcV11SmartPlaylist.class);
+        assertSameRules(v11Playlist, roundTrip);
+        assertEquals(0, converterApi.getErrorLog().size());
+    }
+
+    private void assertSameRules(final XbmcSmartPlaylist expected, final XbmcSmartPlaylist actual) {
+        assertEquals(expected.getRules().size(), actual.getRules().size());
+        for (int i = 0; i < expected.getRules().size(); i++) {
+            final XbmcSmartPlaylist.Rule expectedRule = expected.getRules().get(i);
+            final XbmcSmartPlaylist.Rule actualRule = actual.getRules().get(i);
+            assertEquals(actual.newRule().getClass(), actualRule.getClass());
+            assertEquals(expectedRule.getField(), actualRule.getField());
+            assertEquals(expectedRule.getOperator(), actualRule.getOperator());
+            assertEquals(expectedRule.getOperand(), actualRule.getOperand());
+        }
+    }
+
+    @Test
+    public void convertInvalidXbmcV11ToV12() throws Exception {
+        for (final String filename: Arrays.asList("xbmc11/1_invalid_field.xsp", "xbmc11/1_invalid_operator.xsp",
+                "xbmc11/1_invalid_date.xsp", "xbmc11/2_invalid_times.xsp")) {
+            // the number of errors is the prefix of the filename
+            final int expectedErrorCount = Integer.parseInt(filename.substring(filename.indexOf('/') + 1,
+                filename.indexOf('_')));
+            final ConverterApi twoStepApi = new ConverterApi();
+            final FormattedSmartPlaylist v11Playlist = twoStepApi.loadFromFile(
+                new File(TEST_PLAYLIST_DIRECTORY + filename));
+            final XbmcV12SmartPlaylist twoStep = (XbmcV12SmartPlaylist) twoStepApi.convert(
+                twoStepApi.convert(v11Playlist), XbmcV12SmartPlaylist.class);
+
+            final ConverterApi directApi = new ConverterApi();
+            final XbmcV12SmartPlaylist direct = (XbmcV12SmartPlaylist) directApi.convert(v11Playlist,
+                XbmcV12SmartPlaylist.class);
+            assertEquals(filename, expectedErrorCount, directApi.getErrorLog().size());
+            assertEquals(filename, twoStepApi.getErrorLog(), directApi.getErrorLog());
+            assertEquals(filename, twoStep.toString(), direct.toString());
+        }
+    }
+
+    @Test
+    public void convertWithReport() throws Exception {
+        final FormattedSmartPlaylist v11Playlist = converterApi.loadFromFile(
+            new File(TEST_PLAYLIST_DIRECTORY + "xbmc11/1_invalid_field.xsp"));
+        final ConversionReport report = converterApi.convertWithReport(v11Playlist, GmmpSmartPlaylist.class);
+        assertEquals(GmmpSmartPlaylist.class, report.getPlaylist().getClass());
+        assertEquals(0, converterApi.getErrorLog().size());
+        assertEquals(1, report.getDiagnostics().size());
+        assertEquals(DiagnosticCode.UNKNOWN_FIELD, report.getDiagnostics().get(0).getCode());
+        assertEquals(0, report.getDiagnostics().get(0).getRuleIndex());
+
+        final ConverterApi legacyApi = new ConverterApi();
+        legacyApi.convert(v11Playlist, GmmpSmartPlaylist.class);
+        assertEquals(legacyApi.getErrorLog(), report.getMessages());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notAPlaylist() throws Exception {
+        converterApi.loadFromFile(new File(TEST_PLAYLIST_DIRECTORY + "not_a_playlist.txt"));
+    }
+}
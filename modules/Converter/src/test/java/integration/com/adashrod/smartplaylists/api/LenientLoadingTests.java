@@ -0,0 +1,121 @@
+package com.adashrod.smartplaylists.api;
+
+import com.adashrod.smartplaylists.converters.XbmcV12PlaylistConverter;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import org.junit.Before;
+import org.junit.Test;
+
+import jakarta.xml.bind.UnmarshalException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * integration tests for reading playlists leniently, collecting every problem instead of failing at the first one
+ */
+public class LenientLoadingTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private final ConverterApi converterApi = new ConverterApi();
+
+    @Before
+    public void before() {
+        converterApi.clearLog();
+    }
+
+    @Test
+    public void allStructuralErrorsAreReported() throws Exception {
+        final List<String> errorLog = new ArrayList<>();
+        final XbmcV12SmartPlaylist playlist;
+        try (final InputStream inputStream = new FileInputStream(TEST_PLAYLIST_DIRECTORY +
+                "xbmc12/3_structural_errors.xsp")) {
+            playlist = (XbmcV12SmartPlaylist) new XbmcV12PlaylistConverter().readFrom(inputStream,
+                DiagnosticSink.of(errorLog));
+        }
+        assertEquals(3, playlist.getRules().size());
+        assertEquals("1991", playlist.getRules().get(0).getOperand());
+        // the two rules without <value>s and the non-numeric limit, each of which can be reported more than once
+        assertTrue(errorLog.toString(), errorLog.size() >= 3);
+        assertTrue(errorLog.get(0), errorLog.get(0).startsWith("line 8, column "));
+        assertTrue(errorLog.toString(), errorLog.stream().anyMatch(error -> error.startsWith("line 9, column ")));
+        assertTrue(errorLog.toString(), errorLog.stream().anyMatch(error -> error.startsWith("line 10, column ")));
+    }
+
+    @Test
+    public void loadFromFileWithReport() throws Exception {
+        final ConversionReport report = converterApi.loadFromFileWithReport(new File(TEST_PLAYLIST_DIRECTORY +
+            "xbmc12/3_structural_errors.xsp"));
+        assertEquals(XbmcV12SmartPlaylist.class, report.getPlaylist().getClass());
+        assertEquals(0, converterApi.getErrorLog().size());
+        assertTrue(report.toString(), report.getDiagnostics().size() >= 3);
+        assertEquals(report.getDiagnostics().size(), report.getDiagnostics(DiagnosticCode.INVALID_XML).size());
+        assertTrue(report.toString(), report.getMessages().get(0).startsWith("line 8, column "));
+    }
+
+    @Test
+    public void strictReadingStillFailsFast() throws Exception {
+        try {
+            new XbmcV12PlaylistConverter().readFromFile(new File(TEST_PLAYLIST_DIRECTORY +
+                "xbmc12/3_structural_errors.xsp"));
+        } catch (final UnmarshalException ue) {
+            return;
+        }
+        throw new AssertionError("expected an UnmarshalException");
+    }
+
+    @Test
+    public void lenientlyLoadedPlaylistsCanBeConverted() throws Exception {
+        final FormattedSmartPlaylist playlist = converterApi.loadFromFileLeniently(new File(TEST_PLAYLIST_DIRECTORY +
+            "xbmc12/3_structural_errors.xsp"));
+        assertEquals(XbmcV12SmartPlaylist.class, playlist.getClass());
+        final int parseErrorCount = converterApi.getErrorLog().size();
+        assertTrue(parseErrorCount >= 3);
+        final GmmpSmartPlaylist converted = (GmmpSmartPlaylist) converterApi.convert(playlist, GmmpSmartPlaylist.class);
+        assertEquals(1, converted.getRules().size());
+    }
+
+    @Test
+    public void rulesWithoutValuesAreLeftOut() throws Exception {
+        for (final String filename: Arrays.asList("xbmc12/missing_time_value.xsp", "gmmp/missing_value.spl")) {
+            final ConverterApi api = new ConverterApi();
+            final FormattedSmartPlaylist playlist = api.loadFromFileLeniently(new File(TEST_PLAYLIST_DIRECTORY +
+                filename));
+            final ConversionReport report = api.convertWithReport(playlist, GmmpSmartPlaylist.class);
+            assertEquals(filename, 1, ((GmmpSmartPlaylist) report.getPlaylist()).getRules().size());
+            assertEquals(report.toString(), 1, report.getDiagnostics(DiagnosticCode.MISSING_OPERAND).size());
+            assertEquals(1, report.getDiagnostics(DiagnosticCode.MISSING_OPERAND).get(0).getRuleIndex());
+        }
+    }
+
+    @Test
+    public void rulesWithNonNumericTimesAreLeftOut() throws Exception {
+        final ConverterApi api = new ConverterApi();
+        final FormattedSmartPlaylist playlist = api.loadFromFileLeniently(new File(TEST_PLAYLIST_DIRECTORY +
+            "gmmp/invalid_time_value.spl"));
+        final ConversionReport report = api.convertWithReport(playlist, XbmcV12SmartPlaylist.class);
+        assertEquals(1, ((XbmcV12SmartPlaylist) report.getPlaylist()).getRules().size());
+        assertEquals(report.toString(), 1, report.getDiagnostics(DiagnosticCode.INVALID_OPERAND).size());
+        assertEquals(1, report.getDiagnostics(DiagnosticCode.INVALID_OPERAND).get(0).getRuleIndex());
+    }
+
+    @Test
+    public void validFilesHaveNoErrors() throws Exception {
+        converterApi.loadFromFileLeniently(new File(TEST_PLAYLIST_DIRECTORY + "xbmc12/valid_unusual_time.xsp"));
+        converterApi.loadFromFileLeniently(new File(TEST_PLAYLIST_DIRECTORY + "xbmc11/valid_playlist1.xsp"));
+        converterApi.loadFromFileLeniently(new File(TEST_PLAYLIST_DIRECTORY + "gmmp/valid_playlist1.spl"));
+        assertEquals(0, converterApi.getErrorLog().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notWellFormed() throws Exception {
+        converterApi.loadFromLeniently(new ByteArrayInputStream("<smartplaylist><rule>".getBytes("UTF-8")));
+    }
+}
@@ -0,0 +1,158 @@
+package com.adashrod.smartplaylists.api;
+
+import com.adashrod.smartplaylists.converters.XbmcV11PlaylistConverter;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import org.junit.Test;
+
+import jakarta.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * integration tests for reading playlists within {@link ParseLimits}
+ */
+public class ParseLimitsTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private final ConverterApi converterApi = new ConverterApi();
+
+    private void assertExceedsLimit(final String filename, final ParseLimits limits, final String expectedMessage)
+            throws Exception {
+        try (final InputStream inputStream = new FileInputStream(TEST_PLAYLIST_DIRECTORY + filename)) {
+            new XbmcV11PlaylistConverter().readFrom(inputStream, limits);
+        } catch (final JAXBException je) {
+            assertMessageContains(je, expectedMessage);
+            return;
+        }
+        throw new AssertionError("expected a JAXBException");
+    }
+
+    private void assertMessageContains(final Throwable throwable, final String expectedMessage) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains(expectedMessage)) {
+                return;
+            }
+        }
+        throw new AssertionError(String.format("expected \"%s\" in %s", expectedMessage, throwable));
+    }
+
+    private InputStream bytes(final String xml) throws Exception {
+        return new ByteArrayInputStream(xml.getBytes("UTF-8"));
+    }
+
+    @Test
+    public void noByteLimit() throws Exception {
+        final ParseLimits limits = new ParseLimits().setMaxBytes(Long.MAX_VALUE);
+        assertEquals(XbmcV11SmartPlaylist.class, converterApi.loadFromFile(new File(TEST_PLAYLIST_DIRECTORY +
+            "xbmc11/valid_playlist1.xsp"), limits).getClass());
+        final LimitedInputStream limitedStream = new LimitedInputStream(bytes("abc"), Long.MAX_VALUE,
+            limits.deadlineFromNow());
+        assertEquals(3, limitedStream.read(new byte[8], 0, 8));
+        assertEquals(0, limitedStream.skip(8));
+    }
+
+    @Test
+    public void validFilesAreWithinTheDefaults() throws Exception {
+        final ParseLimits limits = new ParseLimits();
+        assertEquals(XbmcV11SmartPlaylist.class, converterApi.loadFromFile(new File(TEST_PLAYLIST_DIRECTORY +
+            "xbmc11/valid_playlist1.xsp"), limits).getClass());
+        assertEquals(XbmcV12SmartPlaylist.class, converterApi.loadFromFile(new File(TEST_PLAYLIST_DIRECTORY +
+            "xbmc12/valid_latin1.xsp"), limits).getClass());
+        assertEquals(GmmpSmartPlaylist.class, converterApi.loadFromFile(new File(TEST_PLAYLIST_DIRECTORY +
+            "gmmp/valid_playlist1.spl"), limits).getClass());
+    }
+
+    @Test
+    public void tooManyRules() throws Exception {
+        assertExceedsLimit("xbmc11/valid_playlist1.xsp", new ParseLimits().setMaxRules(2), "limit of 2 rules");
+    }
+
+    @Test
+    public void tooDeep() throws Exception {
+        assertExceedsLimit("xbmc11/valid_playlist1.xsp", new ParseLimits().setMaxDepth(1), "limit of 1");
+    }
+
+    @Test
+    public void operandTooLong() throws Exception {
+        // "Early (Original) Metallica" is the longest text before the album
+        assertExceedsLimit("xbmc11/valid_playlist1.xsp", new ParseLimits().setMaxOperandLength(30), "limit of 30 chars");
+    }
+
+    @Test
+    public void tooLarge() throws Exception {
+        assertExceedsLimit("xbmc11/valid_playlist1.xsp", new ParseLimits().setMaxBytes(100), "limit of 100 bytes");
+    }
+
+    @Test
+    public void tooSlow() throws Exception {
+        final InputStream slowStream = new FilterInputStream(new FileInputStream(TEST_PLAYLIST_DIRECTORY +
+                "xbmc11/valid_playlist1.xsp")) {
+            @Override
+            public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+                try {
+                    Thread.sleep(20);
+                } catch (final InterruptedException ie) {
+                    throw new IOException(ie);
+                }
+                return super.read(bytes, offset, Math.min(length, 16));
+            }
+        };
+        try (final InputStream inputStream = slowStream) {
+            new XbmcV11PlaylistConverter().readFrom(inputStream, new ParseLimits().setTimeoutMillis(50));
+        } catch (final JAXBException je) {
+            assertMessageContains(je, "took longer than");
+            return;
+        }
+        throw new AssertionError("expected a JAXBException");
+    }
+
+    @Test
+    public void entityExpansionIsRejected() throws Exception {
+        final StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?>\n<!DOCTYPE smartplaylist [\n")
+            .append("<!ENTITY lol \"lol\">\n");
+        for (int i = 1; i <= 9; i++) {
+            xml.append(String.format("<!ENTITY lol%d \"%s\">\n", i, new String(new char[10])
+                .replace("\0", i == 1 ? "&lol;" : "&lol" + (i - 1) + ";")));
+        }
+        xml.append("]>\n<smartplaylist type=\"songs\"><name>&lol9;</name></smartplaylist>");
+        try {
+            new XbmcV11PlaylistConverter().readFrom(bytes(xml.toString()), new ParseLimits());
+        } catch (final JAXBException je) {
+            assertMessageContains(je, "DTD");
+            return;
+        }
+        throw new AssertionError("expected a JAXBException");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void externalEntitiesAreNotResolved() throws Exception {
+        converterApi.loadFrom(bytes("<?xml version=\"1.0\"?>\n" +
+            "<!DOCTYPE smartplaylist [<!ENTITY passwd SYSTEM \"file:///etc/passwd\">]>\n" +
+            "<smartplaylist type=\"songs\"><name>&passwd;</name></smartplaylist>"), new ParseLimits());
+    }
+
+    @Test
+    public void detectionIsLimitedToo() throws Exception {
+        // no rules, so detection would read to the end of the root element
+        final StringBuilder xml = new StringBuilder("<smartplaylist type=\"songs\">");
+        for (int i = 0; i < 1000; i++) {
+            xml.append("<name>padding</name>");
+        }
+        xml.append("</smartplaylist>");
+        try {
+            converterApi.loadFrom(bytes(xml.toString()), new ParseLimits().setMaxBytes(1000));
+        } catch (final IllegalArgumentException iae) {
+            assertMessageContains(iae, "limit of 1000 bytes");
+            return;
+        }
+        throw new AssertionError("expected an IllegalArgumentException");
+    }
+}
@@ -0,0 +1,84 @@
+package com.adashrod.smartplaylists.api;
+
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.PlaylistType;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * integration tests for detecting the format of playlist files by their content
+ */
+public class PlaylistFormatDetectorTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private final PlaylistFormatDetector formatDetector = new PlaylistFormatDetector();
+
+    private void testAFile(final String filename, final Class<? extends FormattedSmartPlaylist> expectedType)
+            throws Exception {
+        assertEquals(expectedType, formatDetector.detect(new File(TEST_PLAYLIST_DIRECTORY + filename)));
+    }
+
+    @Test
+    public void xbmcV11() throws Exception {
+        testAFile("xbmc11/valid_playlist1.xsp", XbmcV11SmartPlaylist.class);
+        testAFile("xbmc11/2_invalid_times.xsp", XbmcV11SmartPlaylist.class);
+    }
+
+    @Test
+    public void xbmcV12() throws Exception {
+        testAFile("xbmc12/valid_unusual_time.xsp", XbmcV12SmartPlaylist.class);
+        // the order element comes before the first rule in this one
+        testAFile("xbmc12/invalid_order_by_operand.xsp", XbmcV12SmartPlaylist.class);
+    }
+
+    @Test
+    public void gmmp() throws Exception {
+        testAFile("gmmp/valid_playlist1.spl", GmmpSmartPlaylist.class);
+    }
+
+    @Test
+    public void notAPlaylist() throws Exception {
+        assertNull(formatDetector.detect(new ByteArrayInputStream("not xml".getBytes("UTF-8"))));
+        assertNull(formatDetector.detect(new ByteArrayInputStream("<playlist/>".getBytes("UTF-8"))));
+    }
+
+    private void testAHeader(final String filename, final Class<? extends FormattedSmartPlaylist> expectedType,
+            final String expectedName, final PlaylistType expectedPlaylistType, final int expectedRuleCount)
+            throws Exception {
+        final PlaylistHeader header = formatDetector.readHeader(new File(TEST_PLAYLIST_DIRECTORY + filename));
+        assertEquals(expectedType, header.getFormat());
+        assertEquals(expectedName, header.getName());
+        assertEquals(expectedPlaylistType, header.getPlaylistType());
+        assertEquals(expectedRuleCount, header.getRuleCount());
+    }
+
+    @Test
+    public void headers() throws Exception {
+        testAHeader("xbmc11/valid_playlist1.xsp", XbmcV11SmartPlaylist.class, "Early (Original) Metallica",
+            PlaylistType.MUSIC, 3);
+        testAHeader("xbmc12/valid_unusual_time.xsp", XbmcV12SmartPlaylist.class, "A TEST", PlaylistType.MUSIC, 1);
+        testAHeader("gmmp/valid_playlist1.spl", GmmpSmartPlaylist.class, "Early (Original) Metallica",
+            PlaylistType.MUSIC, 3);
+        // invalid rules are still counted
+        testAHeader("xbmc12/3_structural_errors.xsp", XbmcV12SmartPlaylist.class, "A TEST", PlaylistType.MUSIC, 3);
+    }
+
+    @Test
+    public void headerOfSomethingElse() throws Exception {
+        assertNull(formatDetector.readHeader(new ByteArrayInputStream("not xml".getBytes("UTF-8"))));
+        assertNull(formatDetector.readHeader(new ByteArrayInputStream("<playlist/>".getBytes("UTF-8"))));
+        final PlaylistHeader empty = formatDetector.readHeader(new ByteArrayInputStream(
+            "<smartplaylist type=\"albums\"/>".getBytes("UTF-8")));
+        assertEquals(XbmcV12SmartPlaylist.class, empty.getFormat());
+        assertNull(empty.getName());
+        assertEquals(PlaylistType.ALBUMS, empty.getPlaylistType());
+        assertEquals(0, empty.getRuleCount());
+    }
+}
@@ -0,0 +1,72 @@
+package com.adashrod.smartplaylists.api;
+
+import com.adashrod.smartplaylists.converters.GmmpPlaylistConverter;
+import com.adashrod.smartplaylists.converters.XbmcV11PlaylistConverter;
+import com.adashrod.smartplaylists.converters.XbmcV12PlaylistConverter;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * integration tests for finding the built-in formats through the service loader
+ */
+public class PlaylistFormatsTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private void testAFormat(final String name, final Class<? extends FormattedSmartPlaylist> type,
+            final String extension, final String rootElement, final Class<? extends PlaylistConverter> converterType) {
+        final PlaylistFormat format = PlaylistFormats.forName(name);
+        assertSame(format, PlaylistFormats.forClass(type));
+        assertEquals(type, format.getPlaylistClass());
+        assertEquals(Collections.singletonList(extension), format.getFileExtensions());
+        assertEquals(rootElement, format.getRootElement());
+
+        final PlaylistConverter converter = PlaylistFormats.getConverter(type);
+        assertEquals(converterType, converter.getClass());
+        assertSame(converter, PlaylistFormats.getConverter(type));
+    }
+
+    @Test
+    public void builtInFormats() {
+        assertEquals(Arrays.asList("xbmc11", "xbmc", "gmmp"), Arrays.asList(
+            PlaylistFormats.getFormats().get(0).getName(), PlaylistFormats.getFormats().get(1).getName(),
+            PlaylistFormats.getFormats().get(2).getName()));
+        testAFormat("xbmc11", XbmcV11SmartPlaylist.class, "xsp", "smartplaylist", XbmcV11PlaylistConverter.class);
+        testAFormat("xbmc", XbmcV12SmartPlaylist.class, "xsp", "smartplaylist", XbmcV12PlaylistConverter.class);
+        testAFormat("gmmp", GmmpSmartPlaylist.class, "spl", "SmartPlaylist", GmmpPlaylistConverter.class);
+        assertSame(PlaylistFormats.forName("gmmp"), PlaylistFormats.forName("GMMP"));
+        assertSame(PlaylistFormats.forName("gmmp"), PlaylistFormats.forRootElement("SmartPlaylist"));
+    }
+
+    @Test
+    public void onlyXbmcVersionsCopyEachOther() throws Exception {
+        final FormattedSmartPlaylist xbmc11 = new ConverterApi().loadFromFile(new File(TEST_PLAYLIST_DIRECTORY +
+            "xbmc11/valid_playlist1.xsp"));
+        final ConversionReport errorLog = new ConversionReport();
+        final FormattedSmartPlaylist copy = PlaylistFormats.forName("xbmc").copy(xbmc11, errorLog, false);
+        assertEquals(XbmcV12SmartPlaylist.class, copy.getClass());
+        assertEquals(3, ((XbmcV12SmartPlaylist) copy).getRules().size());
+        assertTrue(errorLog.isEmpty());
+        assertNull(PlaylistFormats.forName("gmmp").copy(xbmc11, errorLog, false));
+        assertNull(PlaylistFormats.forName("xbmc11").copy(new GmmpSmartPlaylist(), errorLog, false));
+    }
+
+    @Test
+    public void unknownFormats() {
+        assertNull(PlaylistFormats.forName("m3u"));
+        assertNull(PlaylistFormats.forClass(FormattedSmartPlaylist.class));
+        assertNull(PlaylistFormats.forRootElement("playlist"));
+        assertNull(PlaylistFormats.getConverter(FormattedSmartPlaylist.class));
+        assertTrue(PlaylistFormats.getFormats().size() >= 3);
+    }
+}
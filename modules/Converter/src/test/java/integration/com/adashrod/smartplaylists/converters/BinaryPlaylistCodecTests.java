@@ -0,0 +1,124 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.PlaylistConverter;
+import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.MetadataField;
+import com.adashrod.smartplaylists.playlists.Operator;
+import com.adashrod.smartplaylists.playlists.Rule;
+import com.adashrod.timeperiod.TimePeriod;
+import com.adashrod.timeperiod.TimeUnit;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * integration tests for round-tripping playlists through the binary format
+ */
+public class BinaryPlaylistCodecTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private final BinaryPlaylistCodec codec = new BinaryPlaylistCodec();
+
+    private AgnosticSmartPlaylist roundTrip(final AgnosticSmartPlaylist playlist) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.write(playlist, output);
+        return codec.read(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    private void assertSamePlaylist(final AgnosticSmartPlaylist expected, final AgnosticSmartPlaylist actual) {
+        assertEquals(expected.getPlaylistType(), actual.getPlaylistType());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.isMatchAll(), actual.isMatchAll());
+        assertEquals(expected.getLimit(), actual.getLimit());
+        if (expected.getOrder() == null) {
+            assertNull(actual.getOrder());
+        } else {
+            assertEquals(expected.getOrder().getKey(), actual.getOrder().getKey());
+            assertEquals(expected.getOrder().isAscending(), actual.getOrder().isAscending());
+        }
+        assertEquals(expected.getRules().size(), actual.getRules().size());
+        for (int i = 0; i < expected.getRules().size(); i++) {
+            final Rule expectedRule = expected.getRules().get(i);
+            final Rule actualRule = actual.getRules().get(i);
+            assertEquals(expectedRule.getField(), actualRule.getField());
+            assertEquals(expectedRule.getOperator(), actualRule.getOperator());
+            assertEquals(expectedRule.getOperand(), actualRule.getOperand());
+        }
+    }
+
+    private void testAFile(final String filename, final PlaylistConverter converter) throws Exception {
+        final AgnosticSmartPlaylist playlist = converter.convert(
+            converter.readFromFile(new File(TEST_PLAYLIST_DIRECTORY + filename)), new ArrayList<>());
+        assertSamePlaylist(playlist, roundTrip(playlist));
+    }
+
+    @Test
+    public void roundTripFiles() throws Exception {
+        testAFile("xbmc11/valid_playlist1.xsp", new XbmcV11PlaylistConverter());
+        testAFile("xbmc11/valid_playlist2.xsp", new XbmcV11PlaylistConverter());
+        testAFile("xbmc11/2_invalid_times.xsp", new XbmcV11PlaylistConverter());
+        testAFile("xbmc12/valid_unusual_time.xsp", new XbmcV12PlaylistConverter());
+        testAFile("xbmc12/valid_latin1.xsp", new XbmcV12PlaylistConverter());
+        testAFile("gmmp/valid_playlist1.spl", new GmmpPlaylistConverter());
+    }
+
+    @Test
+    public void roundTripTypedOperands() throws Exception {
+        final AgnosticSmartPlaylist playlist = new AgnosticSmartPlaylist();
+        playlist.getRules().add(new Rule().setField(MetadataField.TITLE).setOperator(Operator.CONTAINS)
+            .setOperand("\u00fcber \ud83c\udfb5"));
+        playlist.getRules().add(new Rule().setField(MetadataField.DATE_ADDED).setOperator(Operator.AFTER)
+            .setOperand(new Date(1234567890123L)));
+        playlist.getRules().add(new Rule().setField(MetadataField.LAST_PLAYED).setOperator(Operator.IN_THE_LAST)
+            .setOperand(new TimePeriod(3, TimeUnit.WEEK)));
+        playlist.getRules().add(new Rule().setField(MetadataField.DURATION).setOperator(Operator.LESS_THAN)
+            .setOperand(new TimePeriod(90, TimeUnit.SECOND)));
+        playlist.getRules().add(new Rule());
+        assertSamePlaylist(playlist, roundTrip(playlist));
+    }
+
+    @Test
+    public void playlistsCanBeConcatenated() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.write(new AgnosticSmartPlaylist().setName("first"), output);
+        codec.write(new AgnosticSmartPlaylist().setName("second").setLimit(5), output);
+        final ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+        assertEquals("first", codec.read(input).getName());
+        assertEquals(Integer.valueOf(5), codec.read(input).getLimit());
+        assertEquals(0, input.available());
+    }
+
+    @Test
+    public void roundTripLongStrings() throws Exception {
+        final char[] name = new char[200000];
+        Arrays.fill(name, '\u00e9');
+        final AgnosticSmartPlaylist playlist = new AgnosticSmartPlaylist().setName(new String(name));
+        assertSamePlaylist(playlist, roundTrip(playlist));
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedLongString() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.write(new AgnosticSmartPlaylist().setName("name"), output);
+        final byte[] bytes = output.toByteArray();
+        // the name's length, which follows the magic number, version, and playlist type
+        ByteBuffer.wrap(bytes).putInt(Integer.BYTES + 1 + Short.BYTES, Integer.MAX_VALUE);
+        codec.read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void notBinary() throws Exception {
+        codec.read(new ByteArrayInputStream("<?xml version=\"1.0\"?>".getBytes("UTF-8")));
+    }
+}
@@ -0,0 +1,46 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.PlaylistConverter;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * integration tests for reading playlists from paths and files as bytes rather than chars
+ */
+public class ReadFromPathTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private final PlaylistConverter xbmcV12PlaylistConverter = new XbmcV12PlaylistConverter();
+
+    @Test
+    public void declaredEncodingIsHonored() throws Exception {
+        final XbmcV12SmartPlaylist playlist = (XbmcV12SmartPlaylist) xbmcV12PlaylistConverter.readFrom(
+            Paths.get(TEST_PLAYLIST_DIRECTORY, "xbmc12/valid_latin1.xsp"));
+        assertEquals("Caf\u00e9 del Mar", playlist.getName());
+        assertEquals("Bj\u00f6rk", playlist.getRules().get(0).getOperand());
+    }
+
+    @Test
+    public void readFromFileHonorsDeclaredEncoding() throws Exception {
+        final XbmcV12SmartPlaylist playlist = (XbmcV12SmartPlaylist) xbmcV12PlaylistConverter.readFromFile(
+            new File(TEST_PLAYLIST_DIRECTORY + "xbmc12/valid_latin1.xsp"));
+        assertEquals("Caf\u00e9 del Mar", playlist.getName());
+    }
+
+    @Test(expected = NoSuchFileException.class)
+    public void missingPath() throws Exception {
+        xbmcV12PlaylistConverter.readFrom(Paths.get(TEST_PLAYLIST_DIRECTORY, "xbmc12/no_such_playlist.xsp"));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void missingFile() throws Exception {
+        xbmcV12PlaylistConverter.readFromFile(new File(TEST_PLAYLIST_DIRECTORY + "xbmc12/no_such_playlist.xsp"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.PlaylistConverter;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.PlaylistSchemas;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import org.junit.Test;
+
+import jakarta.xml.bind.UnmarshalException;
+import java.io.File;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+/**
+ * integration tests for validating playlists against their schemas while reading them
+ */
+public class SchemaValidationTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private void readAFile(final String filename, final PlaylistConverter converter) throws Exception {
+        converter.readFromFile(new File(TEST_PLAYLIST_DIRECTORY + filename));
+    }
+
+    @Test(expected = UnmarshalException.class)
+    public void xbmcV12RuleWithoutValue() throws Exception {
+        readAFile("xbmc12/missing_value.xsp", new XbmcV12PlaylistConverter());
+    }
+
+    @Test(expected = UnmarshalException.class)
+    public void xbmcV11NonNumericLimit() throws Exception {
+        readAFile("xbmc11/invalid_limit.xsp", new XbmcV11PlaylistConverter());
+    }
+
+    @Test(expected = UnmarshalException.class)
+    public void xbmcV12FileAsV11() throws Exception {
+        readAFile("xbmc12/valid_unusual_time.xsp", new XbmcV11PlaylistConverter());
+    }
+
+    @Test(expected = UnmarshalException.class)
+    public void gmmpRuleWithoutOperator() throws Exception {
+        readAFile("gmmp/missing_operator.spl", new GmmpPlaylistConverter());
+    }
+
+    @Test
+    public void validFilesPass() throws Exception {
+        readAFile("xbmc11/valid_playlist1.xsp", new XbmcV11PlaylistConverter());
+        readAFile("xbmc11/valid_playlist2.xsp", new XbmcV11PlaylistConverter());
+        readAFile("xbmc12/valid_unusual_time.xsp", new XbmcV12PlaylistConverter());
+        readAFile("xbmc12/invalid_order_by_operand.xsp", new XbmcV12PlaylistConverter());
+        readAFile("gmmp/valid_playlist1.spl", new GmmpPlaylistConverter());
+    }
+
+    @Test
+    public void newerXbmcElementsPass() throws Exception {
+        // elements that aren't bound, like <group>, are skipped, and a rule can have several values
+        assertEquals("Jazz", ((XbmcV12SmartPlaylist) new XbmcV12PlaylistConverter().readFromFile(
+            new File(TEST_PLAYLIST_DIRECTORY + "xbmc12/valid_group_and_values.xsp"))).getRules().get(0).getOperand());
+        readAFile("xbmc11/valid_group.xsp", new XbmcV11PlaylistConverter());
+    }
+
+    @Test
+    public void schemasAreCompiledOnce() throws Exception {
+        assertNotNull(PlaylistSchemas.getSchema(XbmcV11SmartPlaylist.class));
+        assertSame(PlaylistSchemas.getSchema(XbmcV11SmartPlaylist.class),
+            PlaylistSchemas.getSchema(XbmcV11SmartPlaylist.class));
+        assertSame(PlaylistSchemas.getSchema(XbmcV12SmartPlaylist.class),
+            PlaylistSchemas.getSchema(XbmcV12SmartPlaylist.class));
+        assertSame(PlaylistSchemas.getSchema(GmmpSmartPlaylist.class),
+            PlaylistSchemas.getSchema(GmmpSmartPlaylist.class));
+        assertNull(PlaylistSchemas.getSchema(String.class));
+    }
+}
@@ -0,0 +1,133 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.ConversionReport;
+import com.adashrod.smartplaylists.api.ConverterApi;
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * integration tests for converting playlists with the streaming transcoder, which should give the same results as
+ * loading, converting, and writing them
+ */
+public class StreamingTranscoderTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private final StreamingTranscoder transcoder = new StreamingTranscoder();
+
+    private static final List<Class<? extends FormattedSmartPlaylist>> OUTPUT_TYPES = Arrays.asList(
+        XbmcV11SmartPlaylist.class, XbmcV12SmartPlaylist.class, GmmpSmartPlaylist.class);
+
+    private void testAFile(final String filename) throws Exception {
+        for (final Class<? extends FormattedSmartPlaylist> outputType: OUTPUT_TYPES) {
+            final ConverterApi converterApi = new ConverterApi();
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            converterApi.convert(converterApi.loadFromFile(new File(TEST_PLAYLIST_DIRECTORY + filename)), outputType)
+                .writeTo(expected);
+            final List<String> expectedErrors = new ArrayList<>(converterApi.getErrorLog());
+
+            final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            final List<String> actualErrors = new ArrayList<>();
+            transcoder.transcode(Paths.get(TEST_PLAYLIST_DIRECTORY + filename), outputType, actual,
+                DiagnosticSink.of(actualErrors));
+
+            final String description = filename + " to " + outputType.getSimpleName();
+            assertEquals(description, expected.toString("UTF-8"), actual.toString("UTF-8"));
+            // the same errors get logged, but headers and rules are converted in a different order
+            Collections.sort(expectedErrors);
+            Collections.sort(actualErrors);
+            assertEquals(description, expectedErrors, actualErrors);
+        }
+    }
+
+    @Test
+    public void sameAsConverting() throws Exception {
+        testAFile("xbmc11/valid_playlist1.xsp");
+        testAFile("xbmc11/valid_playlist2.xsp");
+        testAFile("xbmc12/valid_unusual_time.xsp");
+        testAFile("xbmc12/valid_latin1.xsp");
+        testAFile("xbmc11/valid_group.xsp");
+        testAFile("xbmc12/valid_group_and_values.xsp");
+        testAFile("gmmp/valid_playlist1.spl");
+    }
+
+    @Test
+    public void invalidRulesAreLeftOut() throws Exception {
+        testAFile("xbmc11/1_invalid_field.xsp");
+        testAFile("xbmc11/1_invalid_operator.xsp");
+        testAFile("xbmc11/2_invalid_times.xsp");
+        testAFile("xbmc12/1_wrong_operator.xsp");
+        // the order comes before the rules
+        testAFile("xbmc12/invalid_order_by_operand.xsp");
+    }
+
+    @Test
+    public void manyRules() throws Exception {
+        final int ruleCount = 20000;
+        final Path input = Files.createTempFile("many_rules", ".xsp");
+        try {
+            try (final Writer writer = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+                writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<smartplaylist type=\"songs\">\n");
+                for (int i = 0; i < ruleCount; i++) {
+                    writer.write(String.format("<rule field=\"path\" operator=\"contains\"><value>/music/%d/</value></rule>\n", i));
+                }
+                // after the rules, but it has to be written before them
+                writer.write("<name>many rules</name>\n</smartplaylist>\n");
+            }
+            final List<String> errorLog = new ArrayList<>();
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            assertEquals(ruleCount, transcoder.transcode(input, XbmcV11SmartPlaylist.class, output,
+                DiagnosticSink.of(errorLog)));
+            assertEquals(0, errorLog.size());
+            final String xml = output.toString("UTF-8");
+            assertTrue(xml.indexOf("<name>many rules</name>") < xml.indexOf("<rule "));
+        } finally {
+            Files.delete(input);
+        }
+    }
+
+    @Test
+    public void schemaViolationsAreRejected() throws Exception {
+        // loading rejects this too, since one of its rules has no <value> element
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            transcoder.transcode(Paths.get(TEST_PLAYLIST_DIRECTORY + "xbmc12/missing_value.xsp"),
+                GmmpSmartPlaylist.class, output, new ConversionReport());
+            fail("a playlist that doesn't match its schema was transcoded");
+        } catch (final XMLStreamException xse) {
+            assertEquals(0, output.size());
+        }
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void notAPlaylist() throws Exception {
+        final Path input = Files.createTempFile("not_a_playlist", ".xsp");
+        try (final OutputStream outputStream = new ByteArrayOutputStream()) {
+            Files.write(input, "<playlist/>".getBytes(StandardCharsets.UTF_8));
+            transcoder.transcode(input, GmmpSmartPlaylist.class, outputStream, new ConversionReport());
+        } finally {
+            Files.delete(input);
+        }
+    }
+}
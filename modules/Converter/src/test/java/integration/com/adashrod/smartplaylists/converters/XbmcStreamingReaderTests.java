@@ -0,0 +1,65 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.api.PlaylistConverter;
+import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * integration tests for the streaming XBMC reader; everything it produces should match reading with a converter and
+ * then converting
+ */
+public class XbmcStreamingReaderTests {
+    private final String TEST_PLAYLIST_DIRECTORY = "./src/test/resources/";
+
+    private final XbmcStreamingReader xbmcStreamingReader = new XbmcStreamingReader();
+
+    private void testAFile(final String filename, final PlaylistConverter converter) throws Exception {
+        final File file = new File(TEST_PLAYLIST_DIRECTORY + filename);
+        final List<String> expectedErrors = new ArrayList<>();
+        final FormattedSmartPlaylist playlist = converter.readFromFile(file);
+        final AgnosticSmartPlaylist expected = converter.convert(playlist, expectedErrors);
+
+        final List<String> errors = new ArrayList<>();
+        final AgnosticSmartPlaylist actual = xbmcStreamingReader.read(file, DiagnosticSink.of(errors));
+
+        assertEquals(expectedErrors, errors);
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getPlaylistType(), actual.getPlaylistType());
+        assertEquals(expected.isMatchAll(), actual.isMatchAll());
+        assertEquals(expected.getLimit(), actual.getLimit());
+        assertEquals(expected.getOrder().getKey(), actual.getOrder().getKey());
+        assertEquals(expected.getOrder().isAscending(), actual.getOrder().isAscending());
+        assertEquals(expected.getRules().size(), actual.getRules().size());
+        for (int i = 0; i < expected.getRules().size(); i++) {
+            assertEquals(expected.getRules().get(i).toString(), actual.getRules().get(i).toString());
+        }
+    }
+
+    @Test
+    public void v11Files() throws Exception {
+        final PlaylistConverter converter = new XbmcV11PlaylistConverter();
+        testAFile("xbmc11/1_invalid_date.xsp", converter);
+        testAFile("xbmc11/1_invalid_field.xsp", converter);
+        testAFile("xbmc11/1_invalid_operator.xsp", converter);
+        testAFile("xbmc11/2_invalid_times.xsp", converter);
+        testAFile("xbmc11/valid_playlist1.xsp", converter);
+        testAFile("xbmc11/valid_playlist2.xsp", converter);
+    }
+
+    @Test
+    public void v12Files() throws Exception {
+        final PlaylistConverter converter = new XbmcV12PlaylistConverter();
+        testAFile("xbmc12/1_invalid_field.xsp", converter);
+        testAFile("xbmc12/1_wrong_operator.xsp", converter);
+        testAFile("xbmc12/invalid_order_by_operand.xsp", converter);
+        testAFile("xbmc12/valid_unusual_time.xsp", converter);
+    }
+}
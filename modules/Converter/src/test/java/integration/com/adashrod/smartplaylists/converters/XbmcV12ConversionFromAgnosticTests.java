@@ -5,6 +5,8 @@ import com.adashrod.smartplaylists.playlists.MetadataField;
 import com.adashrod.smartplaylists.playlists.Operator;
 import com.adashrod.smartplaylists.playlists.Rule;
 import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -37,4 +39,30 @@ public class XbmcV12ConversionFromAgnosticTests {
         xbmcV12PlaylistConverter.convert(smartPlaylist, errorLog);
         assertEquals(1, errorLog.size());
     }
+
+    @Test
+    public void numberAndDateOperators() throws Exception {
+        final AgnosticSmartPlaylist smartPlaylist = new AgnosticSmartPlaylist();
+        final Rule yearRule = new Rule();
+        yearRule.setField(MetadataField.YEAR);
+        yearRule.setOperator(Operator.LESS_THAN);
+        yearRule.setOperand("1991");
+        smartPlaylist.getRules().add(yearRule);
+        final Rule lastPlayedRule = new Rule();
+        lastPlayedRule.setField(MetadataField.LAST_PLAYED);
+        lastPlayedRule.setOperator(Operator.AFTER);
+        lastPlayedRule.setOperand("2012-05-01");
+        smartPlaylist.getRules().add(lastPlayedRule);
+        final XbmcV12SmartPlaylist xbmcPlaylist =
+            (XbmcV12SmartPlaylist) xbmcV12PlaylistConverter.convert(smartPlaylist, errorLog);
+        assertEquals(0, errorLog.size());
+        assertEquals(2, xbmcPlaylist.getRules().size());
+        final XbmcSmartPlaylist.Rule xbmcYearRule = xbmcPlaylist.getRules().get(0);
+        assertEquals("year", xbmcYearRule.getField());
+        assertEquals("lessthan", xbmcYearRule.getOperator());
+        assertEquals("1991", xbmcYearRule.getOperand());
+        final XbmcSmartPlaylist.Rule xbmcLastPlayedRule = xbmcPlaylist.getRules().get(1);
+        assertEquals("lastplayed", xbmcLastPlayedRule.getField());
+        assertEquals("after", xbmcLastPlayedRule.getOperator());
+    }
 }
@@ -0,0 +1,61 @@
+package com.adashrod.smartplaylists.api;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * unit tests for reports and their problems
+ */
+public class ConversionReportTests {
+    /**
+     * an argument that counts how many times it's been rendered
+     */
+    private static class CountingArgument {
+        private int renderCount;
+
+        @Override
+        public String toString() {
+            renderCount++;
+            return "genre";
+        }
+    }
+
+    @Test
+    public void messagesAreFormattedWhenRead() {
+        final CountingArgument argument = new CountingArgument();
+        final ConversionReport report = new ConversionReport();
+        report.add(new Diagnostic(DiagnosticCode.UNKNOWN_FIELD, 2, "invalid field: %s", argument));
+        assertEquals(0, argument.renderCount);
+        assertEquals(1, report.getDiagnostics().size());
+
+        assertEquals(Arrays.asList("invalid field: genre"), report.getMessages());
+        assertEquals("invalid field: genre", report.getDiagnostics().get(0).getMessage());
+        assertEquals(1, argument.renderCount);
+        assertEquals(2, report.getDiagnostics().get(0).getRuleIndex());
+    }
+
+    @Test
+    public void reportsAreCopiedWithoutFormatting() {
+        final CountingArgument argument = new CountingArgument();
+        final Diagnostic diagnostic = new Diagnostic(DiagnosticCode.UNKNOWN_FIELD, 0, "invalid field: %s", argument);
+        final ConversionReport first = new ConversionReport();
+        first.add(diagnostic);
+        final ConversionReport second = new ConversionReport();
+        first.sendTo(second);
+        assertSame(diagnostic, second.getDiagnostics().get(0));
+        assertEquals(0, argument.renderCount);
+
+        final List<String> plainLog = new ArrayList<>();
+        second.sendTo(DiagnosticSink.of(plainLog));
+        assertEquals(Arrays.asList("invalid field: genre"), plainLog);
+        assertEquals(1, argument.renderCount);
+        assertTrue(new ConversionReport().isEmpty());
+    }
+}
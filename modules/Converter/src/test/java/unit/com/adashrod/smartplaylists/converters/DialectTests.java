@@ -0,0 +1,96 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.playlists.MetadataField;
+import com.adashrod.smartplaylists.playlists.Operator;
+import com.adashrod.smartplaylists.playlists.PlaylistType;
+import com.adashrod.timeperiod.TimeUnit;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * unit tests for the dialect tables; every value that a format supports has to map back to itself
+ */
+public class DialectTests {
+    private final XbmcDialect xbmc = XbmcDialect.INSTANCE;
+    private final GmmpDialect gmmp = GmmpDialect.INSTANCE;
+
+    @Test
+    public void xbmcRoundTrips() {
+        int fieldCount = 0;
+        for (final MetadataField field: MetadataField.values()) {
+            final FieldType fieldType = xbmc.getFieldType(field);
+            if (fieldType == null) {
+                assertNull(field.toString(), xbmc.getFieldName(field));
+                continue;
+            }
+            fieldCount++;
+            assertEquals(field, xbmc.getField(xbmc.getFieldName(field)));
+            for (final Operator operator: Operator.values()) {
+                final String name = xbmc.getOperatorName(fieldType, operator);
+                if (name != null) {
+                    assertEquals(operator, xbmc.getOperator(fieldType, name));
+                }
+            }
+        }
+        assertEquals(15, fieldCount);
+        for (final PlaylistType playlistType: PlaylistType.values()) {
+            assertEquals(playlistType, xbmc.getPlaylistType(xbmc.getPlaylistTypeName(playlistType)));
+        }
+        assertEquals("weeks", xbmc.getTimeUnitName(TimeUnit.WEEK));
+    }
+
+    @Test
+    public void xbmcUnknownNames() {
+        assertNull(xbmc.getField("discnumber"));
+        assertNull(xbmc.getField(null));
+        assertNull(xbmc.getFieldType(null));
+        assertNull(xbmc.getOperator(FieldType.DATE, "is"));
+        assertNull(xbmc.getOperatorName(FieldType.NUMBER, Operator.CONTAINS));
+        assertNull(xbmc.getPlaylistTypeName(null));
+    }
+
+    @Test
+    public void gmmpRoundTrips() {
+        int fieldCount = 0;
+        for (final MetadataField field: MetadataField.values()) {
+            final FieldType fieldType = gmmp.getFieldType(field);
+            if (fieldType == null) {
+                assertEquals(field.toString(), GmmpDialect.UNSUPPORTED, gmmp.getFieldValue(field));
+                continue;
+            }
+            fieldCount++;
+            assertEquals(field, gmmp.getField(gmmp.getFieldValue(field)));
+            for (final Operator operator: Operator.values()) {
+                final int value = gmmp.getOperatorValue(fieldType, operator);
+                if (value != GmmpDialect.UNSUPPORTED) {
+                    assertEquals(operator, gmmp.getOperator(fieldType, value));
+                }
+            }
+        }
+        assertEquals(14, fieldCount);
+        for (final MetadataField field: MetadataField.values()) {
+            final int value = gmmp.getOrderValue(field);
+            if (value != GmmpDialect.UNSUPPORTED) {
+                assertEquals(field, gmmp.getOrder(value));
+            }
+        }
+        for (final TimeUnit timeUnit: new TimeUnit[] {TimeUnit.SECOND, TimeUnit.MINUTE, TimeUnit.HOUR, TimeUnit.DAY}) {
+            assertEquals(timeUnit, gmmp.getTimeUnit(gmmp.getTimeUnitValue(timeUnit)));
+        }
+    }
+
+    @Test
+    public void gmmpUnknownNumbers() {
+        assertNull(gmmp.getField(-1));
+        assertNull(gmmp.getField(14));
+        assertNull(gmmp.getOperator(FieldType.DATE, 4));
+        assertNull(gmmp.getOrder(15));
+        assertNull(gmmp.getTimeUnit(GmmpDialect.NO_TIME_UNIT));
+        assertNull(gmmp.getTimeUnit(4));
+        assertEquals(GmmpDialect.UNSUPPORTED, gmmp.getOperatorValue(FieldType.STRING, null));
+        assertEquals(GmmpDialect.UNSUPPORTED, gmmp.getOrderValue(MetadataField.PATH));
+        assertEquals(GmmpDialect.UNSUPPORTED, gmmp.getTimeUnitValue(TimeUnit.WEEK));
+    }
+}
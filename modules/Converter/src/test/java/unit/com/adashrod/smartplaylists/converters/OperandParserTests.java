@@ -0,0 +1,157 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.timeperiod.TimePeriod;
+import com.adashrod.timeperiod.TimeUnit;
+import org.junit.Test;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * unit tests for reading durations, periods, and dates without exceptions
+ */
+public class OperandParserTests {
+    private static void assertDuration(final long expectedSeconds, final String text) {
+        final ParsePosition position = new ParsePosition(0);
+        assertEquals(text, expectedSeconds, OperandParser.parseDuration(text, position));
+        assertEquals(text, -1, position.getErrorIndex());
+        assertEquals(text, text.length(), position.getIndex());
+    }
+
+    private static void assertPeriod(final long expectedSeconds, final String text) {
+        final ParsePosition position = new ParsePosition(0);
+        assertEquals(text, expectedSeconds, OperandParser.parsePeriod(text, position));
+        assertEquals(text, -1, position.getErrorIndex());
+    }
+
+    private static void assertError(final int expectedErrorIndex, final long result, final ParsePosition position) {
+        assertTrue(result < 0);
+        assertEquals(expectedErrorIndex, position.getErrorIndex());
+        assertEquals(0, position.getIndex());
+    }
+
+    @Test
+    public void durations() {
+        assertDuration(241, "4:01");
+        assertDuration(241, "04:01");
+        assertDuration(3723, "1:02:03");
+        assertDuration(7200, "120:00");
+        assertDuration(0, "0:00");
+
+        ParsePosition position = new ParsePosition(0);
+        assertError(2, OperandParser.parseDuration("4:101", position), position);
+        position = new ParsePosition(0);
+        assertError(2, OperandParser.parseDuration("4:60", position), position);
+        position = new ParsePosition(0);
+        assertError(1, OperandParser.parseDuration("4", position), position);
+        position = new ParsePosition(0);
+        assertError(0, OperandParser.parseDuration("", position), position);
+        position = new ParsePosition(0);
+        assertError(7, OperandParser.parseDuration("1:02:03:04", position), position);
+        position = new ParsePosition(0);
+        assertError(3, OperandParser.parseDuration("4:0x", position), position);
+        position = new ParsePosition(0);
+        assertError(2, OperandParser.parseDuration("4:", position), position);
+    }
+
+    @Test
+    public void periods() {
+        assertPeriod(2 * 604800, "2 weeks");
+        assertPeriod(86400, "1 day");
+        assertPeriod(10 * 86400, "10 Days");
+        assertPeriod(48 * 3600, " 48  HOURS ");
+        assertPeriod(90, "90 seconds");
+        assertPeriod(300, "5 minute");
+
+        ParsePosition position = new ParsePosition(0);
+        assertError(3, OperandParser.parsePeriod("48 hoors", position), position);
+        position = new ParsePosition(0);
+        assertError(2, OperandParser.parsePeriod("48hours", position), position);
+        position = new ParsePosition(0);
+        assertError(0, OperandParser.parsePeriod("weeks", position), position);
+        position = new ParsePosition(0);
+        assertError(2, OperandParser.parsePeriod("2 ", position), position);
+        position = new ParsePosition(0);
+        assertError(2, OperandParser.parsePeriod("2 weekss", position), position);
+    }
+
+    @Test
+    public void amounts() {
+        final ParsePosition valid = new ParsePosition(0);
+        assertEquals(14, OperandParser.parseAmount("14", valid));
+        assertEquals(-1, valid.getErrorIndex());
+        assertEquals(2, valid.getIndex());
+
+        ParsePosition position = new ParsePosition(0);
+        assertError(0, OperandParser.parseAmount("two", position), position);
+        position = new ParsePosition(0);
+        assertError(0, OperandParser.parseAmount("-2", position), position);
+        position = new ParsePosition(0);
+        assertError(1, OperandParser.parseAmount("2 weeks", position), position);
+        position = new ParsePosition(0);
+        assertError(0, OperandParser.parseAmount("", position), position);
+        position = new ParsePosition(0);
+        assertError(9, OperandParser.parseAmount("12345678901", position), position);
+    }
+
+    @Test
+    public void dates() throws Exception {
+        for (final String date: new String[] {"2012-01-01", "1969-12-31", "2000-02-29", "2012-07-04", "1900-03-01"}) {
+            final ParsePosition position = new ParsePosition(0);
+            assertEquals(date, new SimpleDateFormat("yyyy-MM-dd").parse(date).getTime(),
+                OperandParser.parseDate(date, '-', position));
+            assertEquals(date, -1, position.getErrorIndex());
+            final String slashed = date.replace('-', '/');
+            assertEquals(slashed, new SimpleDateFormat("yyyy/MM/dd").parse(slashed).getTime(),
+                OperandParser.parseDate(slashed, '/', new ParsePosition(0)));
+        }
+        assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse("2012-01-05").getTime(),
+            OperandParser.parseDate("2012-1-5", '-', new ParsePosition(0)));
+
+        ParsePosition position = new ParsePosition(0);
+        assertError(4, OperandParser.parseDate("2012/01-01", '-', position), position);
+        position = new ParsePosition(0);
+        assertError(8, OperandParser.parseDate("2011-02-29", '-', position), position);
+        position = new ParsePosition(0);
+        assertError(5, OperandParser.parseDate("2012-13-01", '-', position), position);
+        position = new ParsePosition(0);
+        assertError(10, OperandParser.parseDate("2012-01-01T00", '-', position), position);
+        position = new ParsePosition(0);
+        assertError(2, OperandParser.parseDate("12-01-01", '-', position), position);
+    }
+
+    @Test
+    public void durationsThatDontFitInATimePeriod() {
+        // 40000000 minutes fit, but not 2400000001 seconds
+        assertDuration(2400000000L, "40000000:00");
+        final ParsePosition position = new ParsePosition(0);
+        assertError(0, OperandParser.parseDuration("40000000:01", position), position);
+        try {
+            OperandParser.toTimePeriod(2400000001L);
+        } catch (final ArithmeticException ae) {
+            return;
+        }
+        throw new AssertionError("expected an ArithmeticException");
+    }
+
+    @Test
+    public void timePeriodsUseTheLargestWholeUnit() {
+        assertEquals(new TimePeriod(2, TimeUnit.WEEK), OperandParser.toTimePeriod(1209600));
+        assertEquals(new TimePeriod(10, TimeUnit.DAY), OperandParser.toTimePeriod(864000));
+        assertEquals(new TimePeriod(241, TimeUnit.SECOND), OperandParser.toTimePeriod(241));
+        assertEquals(new TimePeriod(0, TimeUnit.WEEK), OperandParser.toTimePeriod(0));
+    }
+
+    @Test
+    public void largestUnitsNoLargerThanTheMaximum() {
+        assertEquals(TimeUnit.DAY, OperandParser.largestUnit(1209600, TimeUnit.DAY));
+        assertEquals(TimeUnit.HOUR, OperandParser.largestUnit(7200, TimeUnit.HOUR));
+        assertEquals(TimeUnit.MINUTE, OperandParser.largestUnit(7200, TimeUnit.MINUTE));
+        assertEquals(TimeUnit.SECOND, OperandParser.largestUnit(7201, TimeUnit.WEEK));
+        assertEquals(1209600, OperandParser.toSeconds(new TimePeriod(14, TimeUnit.DAY)));
+        assertEquals(3600, OperandParser.secondsPer(TimeUnit.HOUR));
+    }
+}
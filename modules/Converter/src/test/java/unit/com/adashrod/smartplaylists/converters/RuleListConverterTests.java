@@ -0,0 +1,128 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.ConversionReport;
+import com.adashrod.smartplaylists.api.Diagnostic;
+import com.adashrod.smartplaylists.api.DiagnosticSink;
+import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import com.adashrod.smartplaylists.api.PlaylistConverter;
+import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * unit tests for converting the rules of large playlists in chunks, in parallel
+ */
+public class RuleListConverterTests {
+    private static final int RULE_COUNT = RuleListConverter.MIN_PARALLEL_RULES * 3 + 17;
+
+    /**
+     * @return a playlist like one generated with a rule for every excluded path, where some of the rules are invalid
+     */
+    private static XbmcV12SmartPlaylist largePlaylist() {
+        final XbmcV12SmartPlaylist playlist = new XbmcV12SmartPlaylist();
+        playlist.setType("songs").setName("Large playlist").setMatch("all");
+        for (int i = 0; i < RULE_COUNT; i++) {
+            final XbmcSmartPlaylist.Rule rule = playlist.newRule();
+            switch (i % 5) {
+                case 0:
+                    rule.setField("time").setOperator("lessthan").setOperand(i % 997 == 0 ? "4:101" : "4:01");
+                    break;
+                case 1:
+                    rule.setField("lastplayed").setOperator("inthelast").setOperand(i % 13 + " weeks");
+                    break;
+                case 2:
+                    rule.setField(i % 1009 == 2 ? "song" : "path").setOperator("doesnotcontain")
+                        .setOperand("/music/excluded/" + i);
+                    break;
+                case 3:
+                    rule.setField("dateadded").setOperator("after").setOperand(i % 499 == 3 ? "2012/01-01" :
+                        "2012-01-01");
+                    break;
+                default:
+                    rule.setField("playcount").setOperator("greaterthan").setOperand(Integer.toString(i));
+            }
+            playlist.getRules().add(rule);
+        }
+        return playlist;
+    }
+
+    private static List<String> ruleStrings(final List<?> rules) {
+        final List<String> strings = new ArrayList<>();
+        for (final Object rule: rules) {
+            strings.add(rule.toString());
+        }
+        return strings;
+    }
+
+    /**
+     * A conversion that can be done one rule at a time or in parallel
+     */
+    private interface Conversion<T> {
+        T convert(ConversionReport errorLog, boolean parallel);
+    }
+
+    /**
+     * Converts the same thing one rule at a time and in parallel, and checks that the rules and the problems are the
+     * same and in the same order
+     */
+    private static <T> void testAConversion(final Conversion<T> conversion, final Function<T, List<?>> getRules) {
+        final ConversionReport expectedReport = new ConversionReport();
+        final List<String> expectedRules = ruleStrings(getRules.apply(conversion.convert(expectedReport, false)));
+
+        final ConversionReport actualReport = new ConversionReport();
+        final List<String> actualRules = ruleStrings(getRules.apply(conversion.convert(actualReport, true)));
+
+        assertEquals(expectedRules, actualRules);
+        assertEquals(expectedReport.getDiagnostics().size(), actualReport.getDiagnostics().size());
+        for (int i = 0; i < expectedReport.getDiagnostics().size(); i++) {
+            final Diagnostic expected = expectedReport.getDiagnostics().get(i);
+            final Diagnostic actual = actualReport.getDiagnostics().get(i);
+            assertEquals(expected.getCode(), actual.getCode());
+            assertEquals(expected.getRuleIndex(), actual.getRuleIndex());
+            assertEquals(expected.getMessage(), actual.getMessage());
+        }
+    }
+
+    @Test
+    public void parallelConversionMatchesSequentialConversion() {
+        final XbmcV12SmartPlaylist xbmcPlaylist = largePlaylist();
+        final PlaylistConverter xbmcConverter = new XbmcV12PlaylistConverter();
+        final PlaylistConverter gmmpConverter = new GmmpPlaylistConverter();
+        testAConversion((final ConversionReport errorLog, final boolean parallel) ->
+            xbmcConverter.convert(xbmcPlaylist, errorLog, parallel), AgnosticSmartPlaylist::getRules);
+
+        final ConversionReport errorLog = new ConversionReport();
+        final AgnosticSmartPlaylist agnosticPlaylist = xbmcConverter.convert(xbmcPlaylist, errorLog);
+        assertTrue(!errorLog.isEmpty());
+        testAConversion((final ConversionReport report, final boolean parallel) ->
+            xbmcConverter.convert(agnosticPlaylist, report, parallel),
+            (final FormattedSmartPlaylist playlist) -> ((XbmcSmartPlaylist) playlist).getRules());
+        testAConversion((final ConversionReport report, final boolean parallel) ->
+            gmmpConverter.convert(agnosticPlaylist, report, parallel),
+            (final FormattedSmartPlaylist playlist) -> ((GmmpSmartPlaylist) playlist).getRules());
+
+        final FormattedSmartPlaylist gmmpPlaylist = gmmpConverter.convert(agnosticPlaylist, new ConversionReport());
+        testAConversion((final ConversionReport report, final boolean parallel) ->
+            gmmpConverter.convert(gmmpPlaylist, report, parallel), AgnosticSmartPlaylist::getRules);
+    }
+
+    @Test
+    public void plainErrorLogsGetTheSameMessages() {
+        final XbmcV12SmartPlaylist xbmcPlaylist = largePlaylist();
+        final List<String> expected = new ArrayList<>();
+        XbmcPlaylistConverterTools.convert(xbmcPlaylist, DiagnosticSink.of(expected), false);
+        final List<String> actual = new ArrayList<>();
+        XbmcPlaylistConverterTools.convert(xbmcPlaylist, DiagnosticSink.of(actual), true);
+        assertTrue(expected.size() > 0);
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,127 @@
+package com.adashrod.smartplaylists.converters;
+
+import com.adashrod.smartplaylists.api.ConversionReport;
+import com.adashrod.smartplaylists.api.DiagnosticCode;
+import com.adashrod.smartplaylists.playlists.AgnosticSmartPlaylist;
+import com.adashrod.smartplaylists.playlists.MetadataField;
+import com.adashrod.smartplaylists.playlists.Operator;
+import com.adashrod.smartplaylists.playlists.Rule;
+import com.adashrod.timeperiod.TimePeriod;
+import com.adashrod.timeperiod.TimeUnit;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+
+/**
+ * unit tests for leaving out redundant rules and finding contradictory ones
+ */
+public class RuleOptimizerTests {
+    private final RuleOptimizer optimizer = new RuleOptimizer();
+
+    private static Rule rule(final MetadataField field, final Operator operator, final Object operand) {
+        return new Rule().setField(field).setOperator(operator).setOperand(operand);
+    }
+
+    private static AgnosticSmartPlaylist playlist(final Boolean matchAll, final Rule... rules) {
+        final AgnosticSmartPlaylist playlist = new AgnosticSmartPlaylist().setName("optimized").setMatchAll(matchAll);
+        playlist.getRules().addAll(Arrays.asList(rules));
+        return playlist;
+    }
+
+    /**
+     * Optimizes a playlist and checks which of its rules are kept, and how many contradictions are found
+     */
+    private void testAPlaylist(final AgnosticSmartPlaylist playlist, final List<Integer> keptIndices,
+            final int contradictionCount) {
+        final ConversionReport report = new ConversionReport();
+        final AgnosticSmartPlaylist optimized = optimizer.optimize(playlist, report);
+        assertEquals(optimized.getRules().toString(), keptIndices.size(), optimized.getRules().size());
+        for (int i = 0; i < keptIndices.size(); i++) {
+            assertSame(playlist.getRules().get(keptIndices.get(i)), optimized.getRules().get(i));
+        }
+        assertEquals(report.toString(), contradictionCount,
+            report.getDiagnostics(DiagnosticCode.CONTRADICTORY_RULES).size());
+        assertEquals(playlist.getName(), optimized.getName());
+        assertEquals(playlist.isMatchAll(), optimized.isMatchAll());
+    }
+
+    @Test
+    public void duplicates() {
+        for (final Boolean matchAll: Arrays.asList(true, false, null)) {
+            testAPlaylist(playlist(matchAll,
+                rule(MetadataField.GENRE, Operator.IS, "swing"),
+                rule(MetadataField.YEAR, Operator.LESS_THAN, "1991"),
+                rule(MetadataField.GENRE, Operator.IS, "swing")), Arrays.asList(0, 1), 0);
+        }
+    }
+
+    @Test
+    public void matchAllKeepsTheNarrowestRanges() {
+        testAPlaylist(playlist(true,
+            rule(MetadataField.YEAR, Operator.GREATER_THAN, "1990"),
+            rule(MetadataField.YEAR, Operator.GREATER_THAN, "1995"),
+            rule(MetadataField.YEAR, Operator.LESS_THAN, "2005"),
+            rule(MetadataField.YEAR, Operator.LESS_THAN_OR_EQUAL, "2000"),
+            rule(MetadataField.RATING, Operator.GREATER_THAN, "3")), Arrays.asList(1, 3, 4), 0);
+        testAPlaylist(playlist(true,
+            rule(MetadataField.LAST_PLAYED, Operator.IN_THE_LAST, new TimePeriod(2, TimeUnit.WEEK)),
+            rule(MetadataField.LAST_PLAYED, Operator.IN_THE_LAST, new TimePeriod(10, TimeUnit.DAY)),
+            rule(MetadataField.DATE_ADDED, Operator.AFTER, new Date(946684800000L)),
+            rule(MetadataField.DATE_ADDED, Operator.AFTER, new Date(915148800000L))), Arrays.asList(1, 2), 0);
+        // a single value makes the range around it redundant
+        testAPlaylist(playlist(true,
+            rule(MetadataField.YEAR, Operator.GREATER_THAN, "1990"),
+            rule(MetadataField.YEAR, Operator.IS, "1993"),
+            rule(MetadataField.GENRE, Operator.CONTAINS, "rock"),
+            rule(MetadataField.GENRE, Operator.IS, "punk rock")), Arrays.asList(1, 3), 0);
+    }
+
+    @Test
+    public void matchOneKeepsTheBroadestRanges() {
+        testAPlaylist(playlist(false,
+            rule(MetadataField.YEAR, Operator.GREATER_THAN, "1990"),
+            rule(MetadataField.YEAR, Operator.GREATER_THAN, "1995"),
+            rule(MetadataField.YEAR, Operator.IS, "1993"),
+            rule(MetadataField.YEAR, Operator.IS, "1980"),
+            rule(MetadataField.ARTIST, Operator.STARTS_WITH, "The Cherry"),
+            rule(MetadataField.ARTIST, Operator.CONTAINS, "Cherry")), Arrays.asList(0, 3, 5), 0);
+    }
+
+    @Test
+    public void contradictions() {
+        testAPlaylist(playlist(true,
+            rule(MetadataField.YEAR, Operator.GREATER_THAN, "1995"),
+            rule(MetadataField.YEAR, Operator.LESS_THAN, "1990"),
+            rule(MetadataField.GENRE, Operator.IS, "swing"),
+            rule(MetadataField.GENRE, Operator.DOES_NOT_CONTAIN, "wing")), Arrays.asList(0, 1, 2, 3), 2);
+        testAPlaylist(playlist(true,
+            rule(MetadataField.LAST_PLAYED, Operator.IN_THE_LAST, new TimePeriod(2, TimeUnit.WEEK)),
+            rule(MetadataField.LAST_PLAYED, Operator.NOT_IN_THE_LAST, new TimePeriod(3, TimeUnit.WEEK)),
+            rule(MetadataField.RATING, Operator.IS, "4"),
+            rule(MetadataField.RATING, Operator.IS, "5")), Arrays.asList(0, 1, 2, 3), 2);
+        // none of these contradict when any rule can match
+        testAPlaylist(playlist(false,
+            rule(MetadataField.YEAR, Operator.GREATER_THAN, "1995"),
+            rule(MetadataField.YEAR, Operator.LESS_THAN, "1990")), Arrays.asList(0, 1), 0);
+    }
+
+    @Test
+    public void uncertainRulesAreKept() {
+        // a player that ignores case could match "Swing" with either
+        testAPlaylist(playlist(true,
+            rule(MetadataField.GENRE, Operator.IS, "Swing"),
+            rule(MetadataField.GENRE, Operator.IS, "swing")), Arrays.asList(0, 1), 0);
+        // text that isn't a number, and ranges of different kinds, aren't compared
+        testAPlaylist(playlist(true,
+            rule(MetadataField.YEAR, Operator.GREATER_THAN, "199x"),
+            rule(MetadataField.YEAR, Operator.GREATER_THAN, "1995"),
+            rule(MetadataField.LAST_PLAYED, Operator.IN_THE_LAST, new TimePeriod(2, TimeUnit.WEEK)),
+            rule(MetadataField.LAST_PLAYED, Operator.AFTER, new Date(946684800000L)),
+            rule(MetadataField.PLAY_COUNT, Operator.GREATER_THAN, null)), Arrays.asList(0, 1, 2, 3, 4), 0);
+    }
+}
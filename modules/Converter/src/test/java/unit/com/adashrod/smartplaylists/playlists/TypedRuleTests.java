@@ -0,0 +1,90 @@
+package com.adashrod.smartplaylists.playlists;
+
+import com.adashrod.timeperiod.TimePeriod;
+import com.adashrod.timeperiod.TimeUnit;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * unit tests for the immutable rule model
+ */
+public class TypedRuleTests {
+    private AgnosticSmartPlaylist makePlaylist() {
+        final AgnosticSmartPlaylist playlist = new AgnosticSmartPlaylist()
+            .setPlaylistType(PlaylistType.MUSIC)
+            .setName("Neo-Swing")
+            .setMatchAll(true)
+            .setLimit(50)
+            .setOrder(new Order().setKey(MetadataField.YEAR).setAscending(false));
+        playlist.getRules().add(new Rule().setField(MetadataField.GENRE).setOperator(Operator.IS).setOperand("swing"));
+        playlist.getRules().add(new Rule().setField(MetadataField.YEAR).setOperator(Operator.LESS_THAN)
+            .setOperand("1991"));
+        playlist.getRules().add(new Rule().setField(MetadataField.LAST_PLAYED).setOperator(Operator.IN_THE_LAST)
+            .setOperand(new TimePeriod(2, TimeUnit.WEEK)));
+        playlist.getRules().add(new Rule().setField(MetadataField.DATE_ADDED).setOperator(Operator.AFTER)
+            .setOperand(new Date(946684800000L)));
+        return playlist;
+    }
+
+    @Test
+    public void operandsAreParsedOnce() {
+        final TypedSmartPlaylist playlist = TypedSmartPlaylist.of(makePlaylist());
+        assertEquals("swing", playlist.getRules().get(0).getOperand().getText());
+        assertEquals(1991, playlist.getRules().get(1).getOperand().getNumber());
+        assertEquals(14 * 24 * 60 * 60, playlist.getRules().get(2).getOperand().getSeconds());
+        assertEquals(946684800000L, playlist.getRules().get(3).getOperand().getTime());
+
+        // text that wouldn't be written back the same way stays text
+        assertEquals(Operand.Kind.TEXT, Operand.of(MetadataField.YEAR, "0199").getKind());
+        assertEquals(Operand.Kind.TEXT, Operand.of(MetadataField.YEAR, "199x").getKind());
+        assertEquals(Operand.Kind.TEXT, Operand.of(MetadataField.GENRE, "1991").getKind());
+        assertNull(Operand.of(MetadataField.YEAR, null));
+    }
+
+    @Test
+    public void copiesAreEqual() {
+        final AgnosticSmartPlaylist agnostic = makePlaylist();
+        final TypedSmartPlaylist playlist = TypedSmartPlaylist.of(agnostic);
+        final TypedSmartPlaylist roundTripped = TypedSmartPlaylist.of(playlist.toAgnostic());
+        assertEquals(playlist, roundTripped);
+        assertEquals(playlist.hashCode(), roundTripped.hashCode());
+        assertEquals("1991", roundTripped.toAgnostic().getRules().get(1).getOperand());
+        assertFalse(roundTripped.getOrder().isAscending());
+
+        agnostic.getRules().get(0).setOperand("jazz");
+        assertFalse(playlist.equals(TypedSmartPlaylist.of(agnostic)));
+
+        final Set<TypedRule> rules = new HashSet<>(playlist.getRules());
+        rules.addAll(roundTripped.getRules());
+        assertEquals(4, rules.size());
+        assertTrue(rules.contains(new TypedRule(MetadataField.YEAR, Operator.LESS_THAN, Operand.number(1991))));
+    }
+
+    @Test
+    public void timePeriodsKeepOnlyTheirLength() {
+        final Operand days = Operand.of(MetadataField.LAST_PLAYED, new TimePeriod(14, TimeUnit.DAY));
+        assertEquals(Operand.of(MetadataField.LAST_PLAYED, new TimePeriod(2, TimeUnit.WEEK)), days);
+        assertEquals(Operand.of(MetadataField.LAST_PLAYED, days.toObject()), days);
+        assertEquals(Operand.timePeriod(new TimePeriod(Integer.MAX_VALUE, TimeUnit.WEEK)),
+            Operand.of(MetadataField.LAST_PLAYED, Operand.timePeriod(new TimePeriod(Integer.MAX_VALUE, TimeUnit.WEEK))
+                .toObject()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rulesCantBeChanged() {
+        TypedSmartPlaylist.of(makePlaylist()).getRules().clear();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void wrongKind() {
+        Operand.text("swing").getNumber();
+    }
+}
@@ -0,0 +1,78 @@
+package com.adashrod.smartplaylists.playlists;
+
+import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
+import org.junit.Test;
+
+import jakarta.xml.bind.Marshaller;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * unit tests for the hand-written emitters; their output must be identical to what the JAXB marshaller produces
+ */
+public class XmlEmittersTests {
+    private static final String AWKWARD_TEXT = "AC/DC & \"Guns\" <N'> Roses \u00e9\u2603\ud83c\udfb5 ]]> \t";
+
+    private String marshal(final FormattedSmartPlaylist playlist, final boolean format) throws Exception {
+        final Marshaller marshaller = JaxbContextRegistry.getMarshaller(playlist.getClass());
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, format);
+        final StringWriter writer = new StringWriter();
+        marshaller.marshal(playlist, writer);
+        return writer.toString();
+    }
+
+    private void assertSameAsJaxb(final FormattedSmartPlaylist playlist, final boolean format) throws Exception {
+        final String expected = marshal(playlist, format);
+        assertEquals(expected, playlist.toString());
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        playlist.writeTo(outputStream);
+        assertEquals(expected, new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private <T extends XbmcSmartPlaylist> T fill(final T playlist) {
+        playlist.setType("songs").setName(AWKWARD_TEXT).setMatch("all").setLimit(25);
+        playlist.getRules().add(playlist.newRule().setField("artist").setOperator("is").setOperand(AWKWARD_TEXT));
+        playlist.getRules().add(playlist.newRule().setField("year").setOperator("lessthan").setOperand("1991"));
+        playlist.getRules().add(playlist.newRule().setField("album&\"").setOperator("<isnot>").setOperand(""));
+        playlist.getRules().add(playlist.newRule().setField("title"));
+        playlist.setOrder(playlist.newOrder().setDirection("descending").setSortKey("tracknumber"));
+        return playlist;
+    }
+
+    @Test
+    public void xbmcV11() throws Exception {
+        assertSameAsJaxb(fill(new XbmcV11SmartPlaylist()), true);
+        assertSameAsJaxb(new XbmcV11SmartPlaylist(), true);
+        final XbmcV11SmartPlaylist typeOnly = new XbmcV11SmartPlaylist();
+        typeOnly.setType("songs");
+        assertSameAsJaxb(typeOnly, true);
+        final XbmcV11SmartPlaylist emptyValues = new XbmcV11SmartPlaylist();
+        emptyValues.setName("").setOrder(emptyValues.newOrder());
+        assertSameAsJaxb(emptyValues, true);
+    }
+
+    @Test
+    public void xbmcV12() throws Exception {
+        assertSameAsJaxb(fill(new XbmcV12SmartPlaylist()), true);
+        assertSameAsJaxb(new XbmcV12SmartPlaylist(), true);
+        final XbmcV12SmartPlaylist emptyValues = new XbmcV12SmartPlaylist();
+        emptyValues.setMatch("").setOrder(emptyValues.newOrder().setSortKey(""));
+        assertSameAsJaxb(emptyValues, true);
+    }
+
+    @Test
+    public void gmmp() throws Exception {
+        final GmmpSmartPlaylist playlist = new GmmpSmartPlaylist().setVersion(1).setName(AWKWARD_TEXT).setOrder(7)
+            .setAscending(true).setLimit(0).setMatchAll(false);
+        playlist.getRules().add(new GmmpSmartPlaylist.Rule().setVersion(1).setField(0).setOperator(2)
+            .setValue(AWKWARD_TEXT).setTimeUnit(-1));
+        playlist.getRules().add(new GmmpSmartPlaylist.Rule().setVersion(1).setField(11).setValue(""));
+        playlist.getRules().add(new GmmpSmartPlaylist.Rule());
+        assertSameAsJaxb(playlist, false);
+        assertSameAsJaxb(new GmmpSmartPlaylist(), false);
+        assertSameAsJaxb(new GmmpSmartPlaylist().setName(""), false);
+    }
+}
@@ -2,9 +2,8 @@ package com.adashrod.smartplaylists;
 
 import com.adashrod.smartplaylists.api.ConverterApi;
 import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
-import com.adashrod.smartplaylists.playlists.GmmpSmartPlaylist;
-import com.adashrod.smartplaylists.playlists.XbmcV11SmartPlaylist;
-import com.adashrod.smartplaylists.playlists.XbmcV12SmartPlaylist;
+import com.adashrod.smartplaylists.api.PlaylistFormat;
+import com.adashrod.smartplaylists.api.PlaylistFormats;
 import org.apache.commons.cli.BasicParser;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -17,10 +16,7 @@ import org.apache.log4j.Logger;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * The command line version of the SmartPlaylists program. This converts a playlist file that was passed in on the
@@ -30,14 +26,9 @@ public class CommandLineConverter {
     private static final Logger logger = Logger.getLogger(CommandLineConverter.class);
 
     private static final ConverterApi converterApi = new ConverterApi();
-    private static final Map<String, Class<? extends FormattedSmartPlaylist>> stringConverterMap = new HashMap<>();
     private static final Options programOptions = new Options()
         .addOption("h", "help", false, "Display this help information");
     static {
-        stringConverterMap.put("xbmc11", XbmcV11SmartPlaylist.class);
-        stringConverterMap.put("xbmc", XbmcV12SmartPlaylist.class);
-        stringConverterMap.put("gmmp", GmmpSmartPlaylist.class);
-
         final Option outputFileOption = new Option("o", "output-file", true, "The name of the file to write");
         outputFileOption.setRequired(true);
         outputFileOption.setArgs(1);
@@ -58,7 +49,8 @@ public class CommandLineConverter {
     private static void printHelp() {
         final HelpFormatter formatter = new HelpFormatter();
         formatter.setWidth(120);
-        formatter.printHelp("CLI: java -jar SmartPlaylists.jar -o <output_file> [-f (xbmc11|xbmc|gmmp)] <input_file>\nGUI: java -jar SmartPlaylists.jar <no arguments>",
+        formatter.printHelp("CLI: java -jar SmartPlaylists.jar -o <output_file> [-f (xbmc11|xbmc|gmmp)] <input_file>\n" +
+            "     (if <input_file> is a .zip, every playlist in it is converted into the .zip <output_file>)\nGUI: java -jar SmartPlaylists.jar <no arguments>",
             programOptions);
         System.exit(0);
     }
@@ -80,20 +72,28 @@ public class CommandLineConverter {
     }
 
     private static void writeFile(final FormattedSmartPlaylist outputPlaylist, final String outputFilename) {
-        FileWriter fileWriter = null;
         try {
-            try {
-                fileWriter = new FileWriter(outputFilename);
-                fileWriter.write(outputPlaylist.toString());
-            } finally {
-                if (fileWriter != null) {
-                    fileWriter.close();
-                }
-            }
+            converterApi.writeToFile(outputPlaylist, new File(outputFilename));
+        } catch (final IOException ioe) {
+            logger.error(ioe.getMessage());
+            System.exit(-1);
+        }
+    }
+
+    private static void convertZip(final File inputFile, final Class<? extends FormattedSmartPlaylist> outputType,
+            final String outputFilename) {
+        try {
+            converterApi.convertZip(inputFile, outputType, new File(outputFilename));
+        } catch (final FileNotFoundException fnf) {
+            System.err.println(fnf.getMessage());
+            System.exit(1);
         } catch (final IOException ioe) {
             logger.error(ioe.getMessage());
             System.exit(-1);
         }
+        for (final String error: converterApi.getErrorLog()) {
+            System.err.println(error);
+        }
     }
 
     public static void run(final String[] arguments) {
@@ -120,7 +120,14 @@ public class CommandLineConverter {
         }
 
         final String outputFilename = commandLine.getOptionValue("o");
-        final Class<? extends FormattedSmartPlaylist> outputType = stringConverterMap.get(commandLine.getOptionValue('f', "gmmp").toLowerCase());
+        final String formatName = commandLine.getOptionValue('f', "gmmp");
+        final PlaylistFormat outputFormat = PlaylistFormats.forName(formatName);
+        if (outputFormat == null) {
+            System.err.println(String.format("Unknown format \"%s\". Use option -h (--help) for usage", formatName));
+            System.exit(1);
+            return;
+        }
+        final Class<? extends FormattedSmartPlaylist> outputType = outputFormat.getPlaylistClass();
         final String[] theRest = commandLine.getArgs();
         if (theRest.length == 0) {
             System.err.println("No input file specified. Use option -h (--help) for usage");
@@ -128,6 +135,10 @@ public class CommandLineConverter {
             return;
         }
         final File inputFile = new File(theRest[0]);
+        if (inputFile.getName().toLowerCase().endsWith(".zip")) {
+            convertZip(inputFile, outputType, outputFilename);
+            return;
+        }
 
         final FormattedSmartPlaylist inputPlaylist = readFile(inputFile);
         final FormattedSmartPlaylist outputPlaylist = converterApi.convert(inputPlaylist, outputType);
@@ -1,6 +1,8 @@
 package com.adashrod.smartplaylists;
 
+import com.adashrod.smartplaylists.api.ConversionReport;
 import com.adashrod.smartplaylists.api.ConverterApi;
+import com.adashrod.smartplaylists.api.Diagnostic;
 import com.adashrod.smartplaylists.api.FormattedSmartPlaylist;
 import com.adashrod.smartplaylists.guicomponent.PreferencesWindow;
 import com.adashrod.smartplaylists.guicomponent.DirectoryTree;
@@ -42,7 +44,6 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
@@ -222,31 +223,28 @@ public class GuiConverter extends JFrame {
                 if (outputTypeClass == null) {
                     continue;
                 }
-                final FormattedSmartPlaylist outputPlaylist = converterApi.convert(inputPlaylist, outputTypeClass);
+                final ConversionReport report = converterApi.convertWithReport(inputPlaylist, outputTypeClass);
                 final int lastDot = inputFile.getName().lastIndexOf('.');
                 final String nameWoExtension = lastDot != -1 ? inputFile.getName().substring(0, lastDot) : inputFile.getName();
                 final String outputFilename = outputFilenameFormatField.getText().replaceAll("\\$1", nameWoExtension);
-                FileWriter fileWriter = null;
                 try {
-                    try {
-                        fileWriter = new FileWriter(inputFile.getParent() + "/" + outputFilename);
-                        fileWriter.write(outputPlaylist.toString());
-                    } finally {
-                        if (fileWriter != null) {
-                            fileWriter.close();
-                        }
-                    }
+                    converterApi.writeToFile(report.getPlaylist(), new File(inputFile.getParent(), outputFilename));
                 } catch (final IOException ioe) {
                     messageWindow.addMessage(String.format("%s: %s", inputFile.getName(), ioe.getMessage()));
                     continue;
                 }
-                if (converterApi.getErrorLog().isEmpty()) {
+                if (report.isEmpty()) {
                     messageWindow.addMessage(String.format("%s: success", inputFile.getName()));
                 } else {
-                    for (final String error: converterApi.getErrorLog()) {
-                        messageWindow.addMessage(String.format("%s: %s", inputFile.getName(), error));
+                    for (final Diagnostic diagnostic: report.getDiagnostics()) {
+                        if (diagnostic.getRuleIndex() == Diagnostic.NO_RULE) {
+                            messageWindow.addMessage(String.format("%s: %s", inputFile.getName(),
+                                diagnostic.getMessage()));
+                        } else {
+                            messageWindow.addMessage(String.format("%s, rule %d: %s", inputFile.getName(),
+                                diagnostic.getRuleIndex() + 1, diagnostic.getMessage()));
+                        }
                     }
-                    converterApi.clearLog();
                 }
             } catch (final FileNotFoundException | IllegalArgumentException ex) {
                 messageWindow.addMessage(String.format("%s: %s", inputFile.getName(), ex.getMessage()));
@@ -19,7 +19,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.EventListener;
 import java.util.List;
@@ -99,8 +98,20 @@ public class DirectoryTree extends JTree {
         });
     }
 
+    /**
+     * node.children() is an Enumeration<TreeNode> from Java 9 on and a raw Enumeration before that, so the children are
+     * collected by index to compile on either
+     */
+    private static List<DefaultMutableTreeNode> getChildren(final DefaultMutableTreeNode node) {
+        final List<DefaultMutableTreeNode> children = new ArrayList<>(node.getChildCount());
+        for (int i = 0; i < node.getChildCount(); i++) {
+            children.add((DefaultMutableTreeNode) node.getChildAt(i));
+        }
+        return children;
+    }
+
     private void lazyLoadChildren(final DefaultMutableTreeNode node) {
-        @SuppressWarnings("unchecked") final List<DefaultMutableTreeNode> childNodes = Collections.list(node.children());
+        final List<DefaultMutableTreeNode> childNodes = getChildren(node);
         if (childNodes.size() == 1 && childNodes.get(0).getUserObject().equals(defaultSelfDirectory)) {
             // remove the dummy self directory child and lazy load the real children
             node.removeAllChildren();
@@ -165,7 +176,7 @@ public class DirectoryTree extends JTree {
         nodes.add(current);
         for (int i = 1; i < parts.length; i++) {
             lazyLoadChildren(current);
-            @SuppressWarnings("unchecked") final List<DefaultMutableTreeNode> children = Collections.list(current.children());
+            final List<DefaultMutableTreeNode> children = getChildren(current);
             boolean found = false;
             for (final DefaultMutableTreeNode child: children) {
                 final File dir = (File) child.getUserObject();